@@ -143,6 +143,11 @@ public class Constants {
     // Configures Azkaban to use new polling model for dispatching
     public static final String AZKABAN_POLLING_INTERVAL_MS = "azkaban.polling.interval.ms";
     public static final String AZKABAN_POLLING_LOCK_ENABLED = "azkaban.polling.lock.enabled";
+    // Max number of executions claimed per poll, also bounded by the free flow threads.
+    public static final String AZKABAN_POLLING_MAX_CLAIMS = "azkaban.polling.max.claims";
+    // Polls finding no execution double the interval up to this value. Defaults to the polling
+    // interval, i.e. no back-off.
+    public static final String AZKABAN_POLLING_MAX_INTERVAL_MS = "azkaban.polling.max.interval.ms";
     public static final String AZKABAN_POLLING_CRITERIA_FLOW_THREADS_AVAILABLE =
         "azkaban.polling_criteria.flow_threads_available";
     public static final String AZKABAN_POLLING_CRITERIA_MIN_FREE_MEMORY_GB =
@@ -157,6 +162,29 @@ public class Constants {
     public static final String AZKABAN_EXECUTOR_MAX_FAILURE_COUNT = "azkaban.executor.max.failurecount";
     public static final String AZKABAN_ADMIN_ALERT_EMAIL = "azkaban.admin.alert.email";
 
+    // Configures executors to push load reports to the DB instead of being polled on
+    // /serverStatistics. Must be set on both web server and executors.
+    public static final String AZKABAN_EXECUTOR_LOAD_REPORT_ENABLED =
+        "azkaban.executor.load.report.enabled";
+    // How often executors push load reports and web servers read them.
+    public static final String AZKABAN_EXECUTOR_LOAD_REPORT_INTERVAL_MS =
+        "azkaban.executor.load.report.interval.ms";
+    // Load reports older than this are considered stale.
+    public static final String AZKABAN_EXECUTOR_LOAD_REPORT_STALE_THRESHOLD_MS =
+        "azkaban.executor.load.report.stale.threshold.ms";
+
+    // Serves the flow history search from an in-memory index of executions on the web server
+    // instead of LIKE scans of execution_flows.
+    public static final String AZKABAN_EXECUTION_SEARCH_INDEX_ENABLED =
+        "azkaban.execution.search.index.enabled";
+    // How often the index picks up executions inserted or updated by other servers.
+    public static final String AZKABAN_EXECUTION_SEARCH_INDEX_SYNC_INTERVAL_MS =
+        "azkaban.execution.search.index.sync.interval.ms";
+    // Max number of the newest executions kept in the index, 0 for all. Searches needing older
+    // executions go to the DB.
+    public static final String AZKABAN_EXECUTION_SEARCH_INDEX_MAX_EXECUTIONS =
+        "azkaban.execution.search.index.max.executions";
+
     // Configures Azkaban Flow Version in project YAML file
     public static final String AZKABAN_FLOW_VERSION = "azkaban-flow-version";
 
@@ -235,6 +263,11 @@ public class Constants {
     // To set a fixed port for executor-server. Otherwise some available port is used.
     public static final String EXECUTOR_PORT = "executor.port";
 
+    // Share the classloader of a jobtype plugin between the jobs of that jobtype instead of
+    // creating one per job.
+    public static final String JOBTYPE_CLASSLOADER_CACHE_ENABLED =
+        "azkaban.jobtype.classloader.cache.enabled";
+
     public static final String DEFAULT_TIMEZONE_ID = "default.timezone.id";
 
     // Boolean config set on the Web server to prevent users from creating projects. When set to
@@ -296,6 +329,13 @@ public class Constants {
      **/
     public static final String AZKABAN_STORAGE_ARTIFACT_MAX_RETENTION = "azkaban.storage.artifact.max.retention";
 
+    // Clean up the old project artifacts in the background rather than in the uploading thread,
+    // deleting up to azkaban.storage.cleanup.parallelism artifacts at once from the storage.
+    public static final String AZKABAN_STORAGE_CLEANUP_ASYNC_ENABLED =
+        "azkaban.storage.cleanup.async.enabled";
+    public static final String AZKABAN_STORAGE_CLEANUP_PARALLELISM =
+        "azkaban.storage.cleanup.parallelism";
+
     // enable quartz scheduler and flow trigger if true.
     public static final String ENABLE_QUARTZ = "azkaban.server.schedule.enable_quartz";
 
@@ -310,6 +350,19 @@ public class Constants {
     // dir to keep dependency plugins
     public static final String DEPENDENCY_PLUGIN_DIR = "azkaban.dependency.plugin.dir";
 
+    // Buffer dependency instance inserts and status updates and write them in JDBC batches.
+    public static final String FLOW_TRIGGER_DEP_WRITE_BUFFER_ENABLED =
+        "azkaban.flowtrigger.dependency.write.buffer.enabled";
+    // Max time a buffered dependency instance write waits before it is flushed to db.
+    public static final String FLOW_TRIGGER_DEP_WRITE_BUFFER_FLUSH_INTERVAL_MS =
+        "azkaban.flowtrigger.dependency.write.buffer.flush.interval.ms";
+    // Number of buffered writes that triggers an early flush.
+    public static final String FLOW_TRIGGER_DEP_WRITE_BUFFER_MAX_BATCH_SIZE =
+        "azkaban.flowtrigger.dependency.write.buffer.max.batch.size";
+    // Failed flushes of a buffered dependency instance write before it is dropped.
+    public static final String FLOW_TRIGGER_DEP_WRITE_BUFFER_MAX_ATTEMPTS =
+        "azkaban.flowtrigger.dependency.write.buffer.max.attempts";
+
     public static final String USE_MULTIPLE_EXECUTORS = "azkaban.use.multiple.executors";
     public static final String MAX_CONCURRENT_RUNS_ONEFLOW = "azkaban.max.concurrent.runs.oneflow";
 
@@ -319,18 +372,53 @@ public class Constants {
         "azkaban.concurrent.runs.oneflow.whitelist";
 
     public static final String WEBSERVER_QUEUE_SIZE = "azkaban.webserver.queue.size";
+    // Gzip the streamed JSON responses of the web server when the client accepts it.
+    public static final String WEBSERVER_JSON_GZIP_ENABLED =
+        "azkaban.webserver.json.gzip.enabled";
+    // Longest time a request for the changes of a running execution waits for the next change,
+    // and the maximum number of such requests waiting at the same time. Each waiting request
+    // holds a Jetty thread, so they are capped at a quarter of jetty.maxThreads.
+    public static final String EXECUTION_CHANGES_MAX_WAIT_MS =
+        "azkaban.webserver.execution.changes.max.wait.ms";
+    public static final String EXECUTION_CHANGES_MAX_WAITERS =
+        "azkaban.webserver.execution.changes.max.waiters";
+    // Cache of the deserialized executions fetched by id, revalidated against the DB on every read,
+    // and the maximum size of the inflated flow data it keeps.
+    public static final String EXECUTABLE_FLOW_CACHE_ENABLED =
+        "azkaban.executableflow.cache.enabled";
+    public static final String EXECUTABLE_FLOW_CACHE_MAX_BYTES =
+        "azkaban.executableflow.cache.max.bytes";
     public static final String ACTIVE_EXECUTOR_REFRESH_IN_MS =
         "azkaban.activeexecutor.refresh.milisecinterval";
     public static final String ACTIVE_EXECUTOR_REFRESH_IN_NUM_FLOW =
         "azkaban.activeexecutor.refresh.flowinterval";
     public static final String EXECUTORINFO_REFRESH_MAX_THREADS =
         "azkaban.executorinfo.refresh.maxThreads";
+    // How often an executor samples the statistics served on /serverStatistics.
+    public static final String EXECUTOR_STATISTICS_SAMPLE_INTERVAL_MS =
+        "azkaban.executor.statistics.sample.interval.ms";
     public static final String MAX_DISPATCHING_ERRORS_PERMITTED = "azkaban.maxDispatchingErrors";
     public static final String EXECUTOR_SELECTOR_FILTERS = "azkaban.executorselector.filters";
     public static final String EXECUTOR_SELECTOR_COMPARATOR_PREFIX =
         "azkaban.executorselector.comparator.";
+    // Rank executors by a score computed once per refresh instead of pairwise comparisons.
+    public static final String EXECUTOR_SELECTOR_SCORING_ENABLED =
+        "azkaban.executorselector.scoring.enabled";
+    // Memory in MB the scoring selector takes off an executor for each flow dispatched to it,
+    // until the next executor refresh. 0 leaves the remaining memory as last reported.
+    public static final String EXECUTOR_SELECTOR_FLOW_MEMORY_MB =
+        "azkaban.executorselector.flow.memory.mb";
     public static final String QUEUEPROCESSING_ENABLED = "azkaban.queueprocessing.enabled";
     public static final String QUEUE_PROCESSOR_WAIT_IN_MS = "azkaban.queue.processor.wait.in.ms";
+    // Number of queued flows the queue processor plans and dispatches together. 1 dispatches
+    // flows one at a time.
+    public static final String QUEUEPROCESSING_DISPATCH_BATCH_SIZE =
+        "azkaban.queueprocessing.dispatch.batch.size";
+    public static final String QUEUEPROCESSING_DISPATCH_THREADS =
+        "azkaban.queueprocessing.dispatch.threads";
+    // Max number of flows of a batch being dispatched to the same executor at once.
+    public static final String QUEUEPROCESSING_MAX_IN_FLIGHT_PER_EXECUTOR =
+        "azkaban.queueprocessing.dispatch.max.inflight.per.executor";
 
     public static final String SESSION_TIME_TO_LIVE = "session.time.to.live";
 
@@ -348,6 +436,36 @@ public class Constants {
     // how many older versions of project files are kept in DB before deleting them
     public static final String PROJECT_VERSION_RETENTION = "project.version.retention";
 
+    // Upload the flows and properties of a new project version in batches, in one transaction,
+    // and the maximum size of the encoded flows or properties sent in one batch.
+    public static final String PROJECT_METADATA_BATCH_UPLOAD_ENABLED =
+        "azkaban.project.metadata.batch.upload.enabled";
+    public static final String PROJECT_METADATA_BATCH_MAX_BYTES =
+        "azkaban.project.metadata.batch.max.bytes";
+    // Store the flows and properties uploaded in batches once per project, by digest of their
+    // content, so that those unchanged between versions are shared instead of copied.
+    public static final String PROJECT_METADATA_DEDUP_ENABLED =
+        "azkaban.project.metadata.dedup.enabled";
+
+    // Number of threads parsing the job and flow files of an uploaded project, and running its
+    // independent validators. 1 loads and validates projects on the uploading thread.
+    public static final String PROJECT_LOADER_PARALLELISM = "azkaban.project.loader.parallelism";
+
+    // Send the emails from a queue on background threads keeping their SMTP connections open,
+    // instead of on the thread creating them, e.g. the one finalizing a flow.
+    public static final String MAIL_ASYNC_ENABLED = "mail.async.enabled";
+    public static final String MAIL_ASYNC_THREADS = "mail.async.threads";
+    // Maximum number of emails waiting to be sent. Senders wait for a free slot up to
+    // mail.async.enqueue.timeout.millis, then the email is dropped.
+    public static final String MAIL_ASYNC_QUEUE_SIZE = "mail.async.queue.size";
+    public static final String MAIL_ASYNC_ENQUEUE_TIMEOUT_MILLIS =
+        "mail.async.enqueue.timeout.millis";
+    // SMTP connections idle for longer are closed.
+    public static final String MAIL_ASYNC_IDLE_TIMEOUT_MILLIS = "mail.async.idle.timeout.millis";
+    // Time given to the queued emails to be sent on shutdown, the rest are dropped.
+    public static final String MAIL_ASYNC_SHUTDOWN_TIMEOUT_MILLIS =
+        "mail.async.shutdown.timeout.millis";
+
     // number of rows to be displayed on the executions page.
     public static final String DISPLAY_EXECUTION_PAGE_SIZE = "azkaban.display.execution_page_size";
 
@@ -377,6 +495,24 @@ public class Constants {
         "execution.logs.cleanup.interval.seconds";
     public static final String EXECUTION_LOGS_CLEANUP_RECORD_LIMIT =
         "execution.logs.cleanup.record.limit";
+    // Store the execution logs in one table per time bucket, dropped as a whole once expired,
+    // instead of deleting the expired rows of execution_logs.
+    public static final String EXECUTION_LOGS_BUCKETS_ENABLED = "execution.logs.buckets.enabled";
+    public static final String EXECUTION_LOGS_BUCKET_MS = "execution.logs.bucket.ms";
+
+    // Limit the concurrent requests of each API of the web server, adapting the limits to the
+    // observed latency, and reject the requests above the limits.
+    public static final String API_ADMISSION_ENABLED = "azkaban.api.admission.enabled";
+    public static final String API_ADMISSION_INITIAL_LIMIT = "azkaban.api.admission.initial.limit";
+    public static final String API_ADMISSION_MIN_LIMIT = "azkaban.api.admission.min.limit";
+    public static final String API_ADMISSION_MAX_LIMIT = "azkaban.api.admission.max.limit";
+    public static final String API_ADMISSION_LATENCY_TARGET_MS =
+        "azkaban.api.admission.latency.target.ms";
+    // APIs never rejected, named <route>_<parameter>-<value>, e.g. executor_ajax-executeFlow
+    public static final String API_ADMISSION_PRIORITY_APIS = "azkaban.api.admission.priority.apis";
+    // Jetty threads kept for the priority APIs
+    public static final String API_ADMISSION_RESERVED_THREADS =
+        "azkaban.api.admission.reserved.threads";
 
     // Oauth2.0 configuration keys. If missing, no OAuth will be attempted, and the old
     // username/password{+2FA} prompt will be given for interactive login:
@@ -497,6 +633,15 @@ public class Constants {
         AZKABAN_CONTAINERIZED_PREFIX + "execution.processing.thread.pool.size";
     public static final String CONTAINERIZED_CREATION_RATE_LIMIT =
         AZKABAN_CONTAINERIZED_PREFIX + "creation.rate.limit";
+    // Max number of containers being created at the same time
+    public static final String CONTAINERIZED_CREATION_MAX_IN_FLIGHT =
+        AZKABAN_CONTAINERIZED_PREFIX + "creation.max.in.flight";
+    // Consecutive creation failures after which dispatch is paused
+    public static final String CONTAINERIZED_CREATION_CIRCUIT_BREAKER_FAILURE_THRESHOLD =
+        AZKABAN_CONTAINERIZED_PREFIX + "creation.circuit.breaker.failure.threshold";
+    // How long dispatch is paused before a single trial creation
+    public static final String CONTAINERIZED_CREATION_CIRCUIT_BREAKER_OPEN_SEC =
+        AZKABAN_CONTAINERIZED_PREFIX + "creation.circuit.breaker.open.sec";
 
     // Kubernetes related properties
     public static final String AZKABAN_KUBERNETES_PREFIX = "azkaban.kubernetes.";
@@ -508,6 +653,28 @@ public class Constants {
     public static final String KUBERNETES_POD_PREFIX = AZKABAN_KUBERNETES_PREFIX + "pod.";
     public static final String KUBERNETES_POD_NAME_PREFIX = KUBERNETES_POD_PREFIX + "name.prefix";
 
+    // Kubernetes warm pod pool related properties
+    public static final String KUBERNETES_WARM_POD_POOL_PREFIX = KUBERNETES_POD_PREFIX +
+        "warm.pool.";
+    public static final String KUBERNETES_WARM_POD_POOL_ENABLED =
+        KUBERNETES_WARM_POD_POOL_PREFIX + "enabled";
+    // Max number of idle warm pods across all buckets
+    public static final String KUBERNETES_WARM_POD_POOL_MAX_SIZE =
+        KUBERNETES_WARM_POD_POOL_PREFIX + "max.size";
+    public static final String KUBERNETES_WARM_POD_POOL_MAX_SIZE_PER_BUCKET =
+        KUBERNETES_WARM_POD_POOL_PREFIX + "max.size.per.bucket";
+    // Idle warm pods kept for each bucket used recently, even if no execution is queued for it
+    public static final String KUBERNETES_WARM_POD_POOL_MIN_IDLE_PER_BUCKET =
+        KUBERNETES_WARM_POD_POOL_PREFIX + "min.idle.per.bucket";
+    // How long a bucket is kept warm after its last dispatch
+    public static final String KUBERNETES_WARM_POD_POOL_BUCKET_TTL_MIN =
+        KUBERNETES_WARM_POD_POOL_PREFIX + "bucket.ttl.min";
+    // Excess warm pods idle for longer than this are deleted by the container cleanup
+    public static final String KUBERNETES_WARM_POD_POOL_MAX_IDLE_MIN =
+        KUBERNETES_WARM_POD_POOL_PREFIX + "max.idle.min";
+    public static final String KUBERNETES_WARM_POD_POOL_REFRESH_INTERVAL_SEC =
+        KUBERNETES_WARM_POD_POOL_PREFIX + "refresh.interval.sec";
+
     // Kubernetes flow container related properties
     public static final String KUBERNETES_FLOW_CONTAINER_PREFIX = AZKABAN_KUBERNETES_PREFIX +
         "flow.container.";
@@ -15,6 +15,7 @@
  */
 package azkaban.jobtype;
 
+import azkaban.security.DelegationTokenBroker;
 import azkaban.security.commons.HadoopSecurityManager;
 import azkaban.security.commons.HadoopSecurityManagerException;
 import azkaban.utils.Props;
@@ -98,7 +99,8 @@ public class HadoopJobUtils {
       return;
     }
     try {
-      hadoopSecurityManager.cancelTokens(tokenFile, userToProxy, log);
+      DelegationTokenBroker.getInstance()
+          .cancelTokens(hadoopSecurityManager, tokenFile, userToProxy, log);
     } catch (final HadoopSecurityManagerException e) {
       log.error(e.getCause() + e.getMessage());
     } catch (final Exception e) {
@@ -149,7 +151,8 @@ public class HadoopJobUtils {
   }
 
   /**
-   * Fetching token with the Azkaban user
+   * Fetching token with the Azkaban user. The tokens may be shared with other jobs, see {@link
+   * DelegationTokenBroker}.
    */
   public static File getHadoopTokens(final HadoopSecurityManager hadoopSecurityManager,
       final Props props,
@@ -162,7 +165,8 @@ public class HadoopJobUtils {
       throw new HadoopSecurityManagerException("Failed to create the token file.", e);
     }
 
-    hadoopSecurityManager.prefetchToken(tokenFile, props, log);
+    DelegationTokenBroker.getInstance().prefetchToken(hadoopSecurityManager, tokenFile, props,
+        log);
 
     return tokenFile;
   }
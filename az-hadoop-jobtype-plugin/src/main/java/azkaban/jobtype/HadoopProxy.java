@@ -23,6 +23,7 @@ import azkaban.utils.Utils;
 import joptsimple.internal.Strings;
 import org.apache.log4j.Logger;
 import azkaban.flow.CommonJobProperties;
+import azkaban.security.DelegationTokenBroker;
 import azkaban.security.commons.HadoopSecurityManager;
 import azkaban.security.commons.HadoopSecurityManagerException;
 import azkaban.utils.Props;
@@ -139,7 +140,8 @@ public class HadoopProxy {
       return;
     }
     try {
-      hadoopSecurityManager.cancelTokens(tokenFile, userToProxy, logger);
+      DelegationTokenBroker.getInstance()
+          .cancelTokens(hadoopSecurityManager, tokenFile, userToProxy, logger);
     } catch (HadoopSecurityManagerException e) {
       logger.error(e.getCause() + e.getMessage());
     } catch (Exception e) {
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package azkaban.security;
+
+import azkaban.Constants.JobProperties;
+import azkaban.security.commons.HadoopSecurityManager;
+import azkaban.security.commons.HadoopSecurityManagerException;
+import azkaban.utils.Props;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.security.Credentials;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+
+public class TestDelegationTokenBroker {
+
+  private static final Logger logger = Logger.getLogger(TestDelegationTokenBroker.class);
+
+  private final AtomicLong currentTime = new AtomicLong(1000);
+  private final StubHadoopSecurityManager tokenSource = new StubHadoopSecurityManager();
+  private final List<File> tokenFiles = new ArrayList<>();
+  private DelegationTokenBroker broker;
+
+  @Before
+  public void setUp() {
+    this.broker = new DelegationTokenBroker(this.currentTime::get, false);
+  }
+
+  @After
+  public void tearDown() {
+    for (final File tokenFile : this.tokenFiles) {
+      tokenFile.delete();
+    }
+    for (final File tokenFile : this.tokenSource.fetchedFiles) {
+      tokenFile.delete();
+    }
+  }
+
+  private Props createProps(final String userToProxy, final boolean reuseEnabled) {
+    final Props props = new Props();
+    props.put(JobProperties.USER_TO_PROXY, userToProxy);
+    props.put(HadoopSecurityManager.OBTAIN_NAMENODE_TOKEN, "true");
+    props.put(DelegationTokenBroker.TOKEN_REUSE_ENABLED, String.valueOf(reuseEnabled));
+    props.put(DelegationTokenBroker.TOKEN_REUSE_MAX_SEC, 60);
+    return props;
+  }
+
+  private File prefetch(final Props props) throws Exception {
+    final File tokenFile = File.createTempFile("mr-azkaban-test", ".token");
+    this.tokenFiles.add(tokenFile);
+    this.broker.prefetchToken(this.tokenSource, tokenFile, props, logger);
+    return tokenFile;
+  }
+
+  private void cancel(final File tokenFile, final String userToProxy) throws Exception {
+    this.broker.cancelTokens(this.tokenSource, tokenFile, userToProxy, logger);
+    tokenFile.delete();
+  }
+
+  @Test
+  public void testReuseDisabled() throws Exception {
+    final File tokenFile1 = prefetch(createProps("user1", false));
+    final File tokenFile2 = prefetch(createProps("user1", false));
+    Assert.assertEquals(2, this.tokenSource.fetchedFiles.size());
+
+    cancel(tokenFile1, "user1");
+    cancel(tokenFile2, "user1");
+    Assert.assertEquals(2, this.tokenSource.cancelledFiles.size());
+    Assert.assertEquals(0, this.broker.getSharedTokenSetCount());
+  }
+
+  @Test
+  public void testTokensSharedPerUserAndTokenSet() throws Exception {
+    final File tokenFile1 = prefetch(createProps("user1", true));
+    final File tokenFile2 = prefetch(createProps("user1", true));
+    Assert.assertEquals(1, this.tokenSource.fetchedFiles.size());
+    Assert.assertTrue(Files.isSameFile(tokenFile1.toPath(), tokenFile2.toPath()));
+
+    prefetch(createProps("user2", true));
+    final Props hcatProps = createProps("user1", true);
+    hcatProps.put(HadoopSecurityManager.OBTAIN_HCAT_TOKEN, "true");
+    prefetch(hcatProps);
+    Assert.assertEquals(3, this.tokenSource.fetchedFiles.size());
+
+    // shared tokens are kept for the next jobs
+    cancel(tokenFile1, "user1");
+    cancel(tokenFile2, "user1");
+    Assert.assertTrue(this.tokenSource.cancelledFiles.isEmpty());
+    prefetch(createProps("user1", true));
+    Assert.assertEquals(3, this.tokenSource.fetchedFiles.size());
+  }
+
+  @Test
+  public void testCustomCredentialsNotShared() throws Exception {
+    final Props props = createProps("user1", true);
+    props.put(JobProperties.ENABLE_JOB_SSL, "true");
+    prefetch(props);
+    prefetch(props);
+    Assert.assertEquals(2, this.tokenSource.fetchedFiles.size());
+  }
+
+  @Test
+  public void testExpiredTokensCancelledOnceUnused() throws Exception {
+    final File tokenFile1 = prefetch(createProps("user1", true));
+    final File sharedFile = this.tokenSource.fetchedFiles.get(0);
+
+    this.currentTime.addAndGet(TimeUnit.SECONDS.toMillis(61));
+    final File tokenFile2 = prefetch(createProps("user1", true));
+    Assert.assertEquals(2, this.tokenSource.fetchedFiles.size());
+    Assert.assertFalse(Files.isSameFile(tokenFile1.toPath(), tokenFile2.toPath()));
+    // the expired tokens are still used by the first job
+    Assert.assertTrue(this.tokenSource.cancelledFiles.isEmpty());
+
+    cancel(tokenFile1, "user1");
+    Assert.assertEquals(1, this.tokenSource.cancelledFiles.size());
+    Assert.assertEquals(sharedFile, this.tokenSource.cancelledFiles.get(0));
+    Assert.assertFalse(sharedFile.exists());
+    Assert.assertEquals(1, this.broker.getSharedTokenSetCount());
+
+    // the current tokens are cancelled once expired
+    cancel(tokenFile2, "user1");
+    this.currentTime.addAndGet(TimeUnit.SECONDS.toMillis(61));
+    prefetch(createProps("user2", true));
+    Assert.assertEquals(2, this.tokenSource.cancelledFiles.size());
+  }
+
+  @Test
+  public void testIdleTokensReaped() throws Exception {
+    final Props props = createProps("user1", true);
+    props.put(DelegationTokenBroker.TOKEN_REUSE_MAX_SEC, 3600);
+    props.put(DelegationTokenBroker.TOKEN_REUSE_IDLE_SEC, 30);
+    final File tokenFile1 = prefetch(props);
+    final File sharedFile = this.tokenSource.fetchedFiles.get(0);
+
+    // tokens in use are never reaped
+    this.currentTime.addAndGet(TimeUnit.SECONDS.toMillis(31));
+    this.broker.cancelUnusedTokens(logger);
+    Assert.assertTrue(this.tokenSource.cancelledFiles.isEmpty());
+
+    cancel(tokenFile1, "user1");
+    this.broker.cancelUnusedTokens(logger);
+    Assert.assertTrue(this.tokenSource.cancelledFiles.isEmpty());
+    Assert.assertEquals(1, this.broker.getSharedTokenSetCount());
+
+    // the last job released the tokens, reaped once idle without any other job
+    this.currentTime.addAndGet(TimeUnit.SECONDS.toMillis(31));
+    this.broker.cancelUnusedTokens(logger);
+    Assert.assertEquals(1, this.tokenSource.cancelledFiles.size());
+    Assert.assertEquals(sharedFile, this.tokenSource.cancelledFiles.get(0));
+    Assert.assertFalse(sharedFile.exists());
+    Assert.assertEquals(0, this.broker.getSharedTokenSetCount());
+  }
+
+  /**
+   * Writes empty token files and records the fetched and cancelled token files.
+   */
+  private static class StubHadoopSecurityManager extends HadoopSecurityManager {
+
+    private final List<File> fetchedFiles = new ArrayList<>();
+    private final List<File> cancelledFiles = new ArrayList<>();
+
+    @Override
+    public synchronized void prefetchToken(final File tokenFile, final Props props,
+        final Logger logger) throws HadoopSecurityManagerException {
+      try {
+        new Credentials().writeTokenStorageFile(new Path(tokenFile.toURI()), new Configuration());
+      } catch (final IOException e) {
+        throw new HadoopSecurityManagerException("Failed to write tokens", e);
+      }
+      this.fetchedFiles.add(tokenFile);
+    }
+
+    @Override
+    public synchronized void cancelTokens(final File tokenFile, final String userToProxy,
+        final Logger logger) {
+      this.cancelledFiles.add(tokenFile);
+    }
+
+    @Override
+    public UserGroupInformation getProxiedUser(final String toProxy) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public UserGroupInformation getProxiedUser(final Props prop) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public FileSystem getFSAsUser(final String user) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
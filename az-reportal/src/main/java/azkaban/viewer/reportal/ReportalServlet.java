@@ -20,6 +20,7 @@ import azkaban.Constants;
 import azkaban.executor.ExecutableFlow;
 import azkaban.executor.ExecutableNode;
 import azkaban.executor.ExecutionOptions;
+import azkaban.executor.ExecutionSummary;
 import azkaban.executor.ExecutorManagerAdapter;
 import azkaban.executor.ExecutorManagerException;
 import azkaban.flow.Flow;
@@ -486,7 +487,7 @@ public class ReportalServlet extends LoginAbstractAzkabanServlet {
     // List executions and their data
     else {
       page.add("view-executions", true);
-      final ArrayList<ExecutableFlow> exFlows = new ArrayList<>();
+      final ArrayList<ExecutionSummary> exFlows = new ArrayList<>();
 
       int pageNumber = 0;
       boolean hasNextPage = false;
@@ -498,10 +499,10 @@ public class ReportalServlet extends LoginAbstractAzkabanServlet {
       }
       try {
         final Flow flow = project.getFlows().get(0);
-        executorManagerAdapter.getExecutableFlows(project.getId(), flow.getId(),
+        executorManagerAdapter.getExecutionSummaries(project.getId(), flow.getId(),
             pageNumber * this.itemsPerPage, this.itemsPerPage, exFlows);
-        final ArrayList<ExecutableFlow> tmp = new ArrayList<>();
-        executorManagerAdapter.getExecutableFlows(project.getId(), flow.getId(),
+        final ArrayList<ExecutionSummary> tmp = new ArrayList<>();
+        executorManagerAdapter.getExecutionSummaries(project.getId(), flow.getId(),
             (pageNumber + 1) * this.itemsPerPage, 1, tmp);
         if (!tmp.isEmpty()) {
           hasNextPage = true;
@@ -512,7 +513,7 @@ public class ReportalServlet extends LoginAbstractAzkabanServlet {
 
       if (!exFlows.isEmpty()) {
         final ArrayList<Object> history = new ArrayList<>();
-        for (final ExecutableFlow exFlow : exFlows) {
+        for (final ExecutionSummary exFlow : exFlows) {
           final HashMap<String, Object> flowInfo = new HashMap<>();
           flowInfo.put("execId", exFlow.getExecutionId());
           flowInfo.put("status", exFlow.getStatus().toString());
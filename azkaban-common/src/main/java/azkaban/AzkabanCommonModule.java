@@ -22,6 +22,7 @@ import azkaban.db.H2FileDataSource;
 import azkaban.db.MySQLDataSource;
 import azkaban.executor.ExecutorLoader;
 import azkaban.executor.JdbcExecutorLoader;
+import azkaban.executor.selector.ExecutorScoringSelector.FlowMemoryEstimator;
 import azkaban.project.InMemoryProjectCache;
 import azkaban.project.JdbcProjectImpl;
 import azkaban.project.ProjectCache;
@@ -84,6 +85,11 @@ public class AzkabanCommonModule extends AbstractModule {
               Constants.DEFAULT_AZKABAN_POLLING_INTERVAL_MS);
       return new OsCpuUtil(Math.max(1, (cpuLoadPeriodSec * 1000) / pollingIntervalMs));
     });
+    bind(FlowMemoryEstimator.class).toProvider(() -> {
+      final long flowMemoryMB = this.props
+          .getLong(ConfigurationKeys.EXECUTOR_SELECTOR_FLOW_MEMORY_MB, 0);
+      return flow -> flowMemoryMB;
+    });
   }
 
   public Class<? extends Storage> resolveStorageClassType() {
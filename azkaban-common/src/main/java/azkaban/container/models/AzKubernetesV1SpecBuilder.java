@@ -97,6 +97,22 @@ public class AzKubernetesV1SpecBuilder {
         return this;
     }
 
+    /**
+     * @param name Name of the environment variable
+     * @param value Value of the environment variable
+     *
+     * This method adds an environment variable to the flow-container/ application-container.
+     * It must be called after addFlowContainer.
+     */
+    public AzKubernetesV1SpecBuilder addFlowContainerEnvVar(String name, String value) {
+        V1EnvVar envVar = new V1EnvVarBuilder()
+                .withName(name)
+                .withValue(value)
+                .build();
+        this.flowContainerBuilder.addToEnv(envVar);
+        return this;
+    }
+
     /**
      * @param name JobType name to uniquely identify the init container names
      * @param image Docker image path in the image registry
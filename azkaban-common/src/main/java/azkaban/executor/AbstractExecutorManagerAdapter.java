@@ -124,50 +124,40 @@ public abstract class AbstractExecutorManagerAdapter extends EventHandler implem
     return flows;
   }
 
-  /**
-   * This method is used to get history of executions for a flow.
-   *
-   * @param skip
-   * @param size
-   * @return
-   * @throws ExecutorManagerException
-   */
   @Override
-  public List<ExecutableFlow> getExecutableFlows(final int skip, final int size)
+  public List<ExecutionSummary> getExecutionSummaries(final int skip, final int size)
       throws ExecutorManagerException {
-    return this.executorLoader.fetchFlowHistory(skip, size);
+    return this.executorLoader.fetchFlowHistorySummaries(skip, size);
   }
 
   @Override
-  public List<ExecutableFlow> getExecutableFlows(final String flowIdContains,
+  public List<ExecutionSummary> getExecutionSummaries(final String flowIdContains,
       final int skip, final int size) throws ExecutorManagerException {
-    return this.executorLoader.fetchFlowHistory(null, '%' + flowIdContains + '%', null,
+    return this.executorLoader.fetchFlowHistorySummaries(null, '%' + flowIdContains + '%', null,
         0, -1, -1, skip, size);
   }
 
   @Override
-  public List<ExecutableFlow> getExecutableFlows(final String projContain,
+  public List<ExecutionSummary> getExecutionSummaries(final String projContain,
       final String flowContain, final String userContain, final int status, final long begin,
-      final long end,
-      final int skip, final int size) throws ExecutorManagerException {
-    return this.executorLoader.fetchFlowHistory(projContain, flowContain, userContain,
+      final long end, final int skip, final int size) throws ExecutorManagerException {
+    return this.executorLoader.fetchFlowHistorySummaries(projContain, flowContain, userContain,
         status, begin, end, skip, size);
   }
 
   @Override
-  public int getExecutableFlows(final int projectId, final String flowId, final int from,
-      final int length, final List<ExecutableFlow> outputList)
+  public int getExecutionSummaries(final int projectId, final String flowId, final int from,
+      final int length, final List<ExecutionSummary> outputList)
       throws ExecutorManagerException {
-    final List<ExecutableFlow> flows =
-        this.executorLoader.fetchFlowHistory(projectId, flowId, from, length);
-    outputList.addAll(flows);
+    outputList.addAll(
+        this.executorLoader.fetchFlowHistorySummaries(projectId, flowId, from, length));
     return this.executorLoader.fetchNumExecutableFlows(projectId, flowId);
   }
 
   @Override
-  public List<ExecutableFlow> getExecutableFlows(final int projectId, final String flowId,
+  public List<ExecutionSummary> getExecutionSummaries(final int projectId, final String flowId,
       final int from, final int length, final Status status) throws ExecutorManagerException {
-    return this.executorLoader.fetchFlowHistory(projectId, flowId, from, length,
+    return this.executorLoader.fetchFlowHistorySummaries(projectId, flowId, from, length,
         status);
   }
 
@@ -24,9 +24,13 @@ import azkaban.project.Project;
 import azkaban.utils.TypedMapWrapper;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,6 +48,11 @@ public class ExecutableFlowBase extends ExecutableNode {
       new HashMap<>();
   private final HashMap<String, FlowProps> flowProps =
       new HashMap<>();
+  // The sub nodes by their latest update time, to find the updated ones without going through all
+  // of them. Guarded by itself.
+  private final TreeMap<Long, Set<ExecutableNode>> nodesByUpdateTime = new TreeMap<>();
+  private final IdentityHashMap<ExecutableNode, Long> indexedUpdateTimes =
+      new IdentityHashMap<>();
   private ArrayList<String> startNodes;
   private ArrayList<String> endNodes;
   private String flowId;
@@ -135,17 +144,16 @@ public class ExecutableFlowBase extends ExecutableNode {
     this.flowProps.putAll(flow.getAllFlowProps());
 
     for (final Node node : flow.getNodes()) {
-      final String id = node.getId();
       if (node.getType().equals(SpecialJobTypes.EMBEDDED_FLOW_TYPE)) {
         final String embeddedFlowId = node.getEmbeddedFlowId();
         final Flow subFlow = project.getFlow(embeddedFlowId);
 
         final ExecutableFlowBase embeddedFlow =
             new ExecutableFlowBase(project, node, subFlow, this);
-        this.executableNodes.put(id, embeddedFlow);
+        addExecutableNode(embeddedFlow);
       } else {
         final ExecutableNode exNode = new ExecutableNode(node, this);
-        this.executableNodes.put(id, exNode);
+        addExecutableNode(exNode);
       }
     }
 
@@ -161,6 +169,77 @@ public class ExecutableFlowBase extends ExecutableNode {
     }
   }
 
+  private void addExecutableNode(final ExecutableNode node) {
+    final ExecutableNode previousNode = this.executableNodes.put(node.getId(), node);
+    synchronized (this.nodesByUpdateTime) {
+      if (previousNode != null) {
+        unindexNode(previousNode);
+      }
+      indexNode(node, node.getLatestUpdateTime());
+    }
+  }
+
+  /**
+   * Reindex the sub node by its new latest update time, and let the parent flow know if it
+   * changed.
+   */
+  void nodeUpdateTimeChanged(final ExecutableNode node) {
+    synchronized (this.nodesByUpdateTime) {
+      final Long indexedUpdateTime = this.indexedUpdateTimes.get(node);
+      // Nodes are indexed once they are added to the flow
+      if (indexedUpdateTime == null) {
+        return;
+      }
+      final long latestUpdateTime = node.getLatestUpdateTime();
+      if (indexedUpdateTime == latestUpdateTime) {
+        return;
+      }
+      unindexNode(node);
+      indexNode(node, latestUpdateTime);
+    }
+    updateTimeChanged();
+  }
+
+  @Override
+  long getLatestUpdateTime() {
+    synchronized (this.nodesByUpdateTime) {
+      return this.nodesByUpdateTime.isEmpty() ? getUpdateTime()
+          : Math.max(getUpdateTime(), this.nodesByUpdateTime.lastKey());
+    }
+  }
+
+  /**
+   * @return the sub nodes which, or one of the sub nodes of which, were updated after the given
+   * time
+   */
+  private List<ExecutableNode> getNodesUpdatedAfter(final long lastUpdateTime) {
+    final List<ExecutableNode> nodes = new ArrayList<>();
+    synchronized (this.nodesByUpdateTime) {
+      for (final Set<ExecutableNode> updatedNodes : this.nodesByUpdateTime
+          .tailMap(lastUpdateTime, false).values()) {
+        nodes.addAll(updatedNodes);
+      }
+    }
+    return nodes;
+  }
+
+  private void indexNode(final ExecutableNode node, final long latestUpdateTime) {
+    this.indexedUpdateTimes.put(node, latestUpdateTime);
+    this.nodesByUpdateTime.computeIfAbsent(latestUpdateTime,
+        updateTime -> Collections.newSetFromMap(new IdentityHashMap<>())).add(node);
+  }
+
+  private void unindexNode(final ExecutableNode node) {
+    final Long indexedUpdateTime = this.indexedUpdateTimes.remove(node);
+    if (indexedUpdateTime != null) {
+      final Set<ExecutableNode> nodes = this.nodesByUpdateTime.get(indexedUpdateTime);
+      nodes.remove(node);
+      if (nodes.isEmpty()) {
+        this.nodesByUpdateTime.remove(indexedUpdateTime);
+      }
+    }
+  }
+
   public List<ExecutableNode> getExecutableNodes() {
     return new ArrayList<>(this.executableNodes.values());
   }
@@ -279,13 +358,13 @@ public class ExecutableFlowBase extends ExecutableNode {
           exFlow.fillExecutableFromMapObject(wrapper);
           exFlow.setParentFlow(this);
 
-          this.executableNodes.put(exFlow.getId(), exFlow);
+          addExecutableNode(exFlow);
         } else {
           final ExecutableNode exJob = new ExecutableNode();
           exJob.fillExecutableFromMapObject(nodeObjMap);
           exJob.setParentFlow(this);
 
-          this.executableNodes.put(exJob.getId(), exJob);
+          addExecutableNode(exJob);
         }
       }
     }
@@ -306,7 +385,8 @@ public class ExecutableFlowBase extends ExecutableNode {
 
     final List<Map<String, Object>> updatedNodes =
         new ArrayList<>();
-    for (final ExecutableNode node : this.executableNodes.values()) {
+    // Only the nodes updated after lastUpdateTime, or with updated descendants, are visited
+    for (final ExecutableNode node : getNodesUpdatedAfter(lastUpdateTime)) {
       if (node instanceof ExecutableFlowBase) {
         final Map<String, Object> updatedNodeMap =
             ((ExecutableFlowBase) node).toUpdateObject(lastUpdateTime);
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.executor;
+
+import azkaban.Constants.ConfigurationKeys;
+import azkaban.metrics.CommonMetrics;
+import azkaban.utils.Props;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Cache of the flow data of the executions fetched by id, so that the pages, APIs and background
+ * checks reading the same execution don't load and inflate its flow data from the DB every time.
+ *
+ * <p>Entries are keyed by execution id and tagged with the {@link RowVersion} of the execution
+ * row they were loaded from. The version is read from the DB on every fetch, and an entry is only
+ * served while it still matches, so updates made by any server are picked up. The parsed flow
+ * data is kept rather than the {@link ExecutableFlow}, and every read builds a new
+ * {@link ExecutableFlow} from a copy of it: callers are free to modify what they get.
+ *
+ * <p>The cache is bounded by the total size of the inflated flow data it keeps.
+ */
+@Singleton
+public class ExecutableFlowCache {
+
+  private static final long DEFAULT_MAX_BYTES = 128L * 1024 * 1024;
+
+  private final boolean enabled;
+  private final Cache<Integer, CachedFlow> cache;
+  private final CommonMetrics commonMetrics;
+
+  @Inject
+  public ExecutableFlowCache(final Props azkProps, final CommonMetrics commonMetrics) {
+    this.enabled = azkProps.getBoolean(ConfigurationKeys.EXECUTABLE_FLOW_CACHE_ENABLED, false);
+    this.cache = CacheBuilder.newBuilder()
+        .maximumWeight(
+            azkProps.getLong(ConfigurationKeys.EXECUTABLE_FLOW_CACHE_MAX_BYTES, DEFAULT_MAX_BYTES))
+        .weigher((final Integer execId, final CachedFlow cachedFlow) -> cachedFlow.inflatedBytes)
+        .build();
+    this.commonMetrics = commonMetrics;
+  }
+
+  /**
+   * Create a disabled cache.
+   */
+  ExecutableFlowCache() {
+    this.enabled = false;
+    this.cache = CacheBuilder.newBuilder().maximumSize(0).build();
+    this.commonMetrics = null;
+  }
+
+  public boolean isEnabled() {
+    return this.enabled;
+  }
+
+  /**
+   * @return a new copy of the execution if it is cached for the given version of its row
+   */
+  Optional<ExecutableFlow> get(final int execId, final RowVersion version) {
+    final CachedFlow cachedFlow = this.cache.getIfPresent(execId);
+    if (cachedFlow == null || !cachedFlow.version.equals(version)) {
+      return Optional.empty();
+    }
+    this.commonMetrics.markExecutableFlowCacheHit();
+    return Optional.of(cachedFlow.newExecutableFlow());
+  }
+
+  /**
+   * Cache the flow data of an execution loaded from the DB.
+   *
+   * @param flowObj the parsed flow data, it must not be used by the caller afterwards
+   * @param inflatedBytes the size of the inflated flow data
+   * @return a new execution built from the flow data
+   */
+  ExecutableFlow put(final int execId, final RowVersion version, final Object flowObj,
+      final int inflatedBytes) {
+    this.commonMetrics.markExecutableFlowCacheMiss(inflatedBytes);
+    final CachedFlow cachedFlow = new CachedFlow(version, flowObj, inflatedBytes);
+    this.cache.put(execId, cachedFlow);
+    return cachedFlow.newExecutableFlow();
+  }
+
+  void invalidate(final int execId) {
+    this.cache.invalidate(execId);
+  }
+
+  @VisibleForTesting
+  long size() {
+    return this.cache.size();
+  }
+
+  /**
+   * Deep copy of the maps and lists of parsed JSON. The other values are immutable.
+   */
+  private static Object copyJsonObject(final Object obj) {
+    if (obj instanceof Map) {
+      final Map<?, ?> map = (Map<?, ?>) obj;
+      final HashMap<Object, Object> copy = new HashMap<>(map.size() * 4 / 3 + 1);
+      for (final Map.Entry<?, ?> entry : map.entrySet()) {
+        copy.put(entry.getKey(), copyJsonObject(entry.getValue()));
+      }
+      return copy;
+    } else if (obj instanceof List) {
+      final List<?> list = (List<?>) obj;
+      final ArrayList<Object> copy = new ArrayList<>(list.size());
+      for (final Object item : list) {
+        copy.add(copyJsonObject(item));
+      }
+      return copy;
+    }
+    return obj;
+  }
+
+  /**
+   * The columns of an execution row changed by every update of the execution.
+   */
+  static class RowVersion {
+
+    private final long updateTime;
+    private final Status status;
+    private final long startTime;
+    private final long endTime;
+
+    RowVersion(final long updateTime, final Status status, final long startTime,
+        final long endTime) {
+      this.updateTime = updateTime;
+      this.status = status;
+      this.startTime = startTime;
+      this.endTime = endTime;
+    }
+
+    Status getStatus() {
+      return this.status;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final RowVersion that = (RowVersion) o;
+      return this.updateTime == that.updateTime && this.status == that.status
+          && this.startTime == that.startTime && this.endTime == that.endTime;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(this.updateTime, this.status, this.startTime, this.endTime);
+    }
+  }
+
+  private static class CachedFlow {
+
+    private final RowVersion version;
+    private final Object flowObj;
+    private final int inflatedBytes;
+
+    private CachedFlow(final RowVersion version, final Object flowObj, final int inflatedBytes) {
+      this.version = version;
+      this.flowObj = flowObj;
+      this.inflatedBytes = inflatedBytes;
+    }
+
+    private ExecutableFlow newExecutableFlow() {
+      return ExecutableFlow.createExecutableFlow(copyJsonObject(this.flowObj),
+          this.version.getStatus());
+    }
+  }
+}
@@ -177,6 +177,24 @@ public class ExecutableNode {
 
   public void setUpdateTime(final long updateTime) {
     this.updateTime = updateTime;
+    updateTimeChanged();
+  }
+
+  /**
+   * @return the latest update time of the node, or of its sub nodes if it is a flow
+   */
+  long getLatestUpdateTime() {
+    return this.updateTime;
+  }
+
+  /**
+   * Let the parent flow know that the latest update time of the node changed, so that it finds
+   * the nodes updated after a given time without going through all of them.
+   */
+  void updateTimeChanged() {
+    if (this.parentFlow != null) {
+      this.parentFlow.nodeUpdateTimeChanged(this);
+    }
   }
 
   public boolean isKilledBySLA() {
@@ -363,6 +381,7 @@ public class ExecutableNode {
     this.startTime = wrappedMap.getLong(STARTTIME_PARAM);
     this.endTime = wrappedMap.getLong(ENDTIME_PARAM);
     this.updateTime = wrappedMap.getLong(UPDATETIME_PARAM);
+    updateTimeChanged();
     this.attempt.set(wrappedMap.getInt(ATTEMPT_PARAM, 0));
 
     this.inNodes = new HashSet<>();
@@ -435,6 +454,7 @@ public class ExecutableNode {
     this.startTime = updateData.getLong(STARTTIME_PARAM);
     this.updateTime = updateData.getLong(UPDATETIME_PARAM);
     this.endTime = updateData.getLong(ENDTIME_PARAM);
+    updateTimeChanged();
 
     if (updateData.containsKey(ATTEMPT_PARAM)) {
       this.attempt.set(updateData.getInt(ATTEMPT_PARAM));
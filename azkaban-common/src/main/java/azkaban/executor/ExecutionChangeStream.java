@@ -0,0 +1,257 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.executor;
+
+import static azkaban.Constants.DEFAULT_JETTY_MAX_THREAD_COUNT;
+
+import azkaban.Constants.ConfigurationKeys;
+import azkaban.utils.Props;
+import com.google.common.annotations.VisibleForTesting;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.apache.log4j.Logger;
+
+/**
+ * Versioned changes of the running executions, fed by the {@link RunningExecutionsUpdater} with
+ * the updates it fetches from the executors.
+ *
+ * <p>Every update applied to an execution increments the version of the execution, which is
+ * recorded on the updated nodes. The nodes changed since any version a client has seen are then
+ * served from memory instead of loading the execution from the DB, and clients can wait for the
+ * next change instead of polling.
+ *
+ * <p>The updates are applied, and the changes read, under the lock of the execution, so that the
+ * changes are never read from a partly updated execution.
+ */
+@Singleton
+public class ExecutionChangeStream {
+
+  private static final Logger logger = Logger.getLogger(ExecutionChangeStream.class);
+  // At most a quarter of the Jetty threads wait for changes
+  private static final int MAX_WAITER_THREADS_DIVISOR = 4;
+
+  private final ConcurrentHashMap<Integer, ExecutionVersions> executions =
+      new ConcurrentHashMap<>();
+  private final AtomicInteger waiters = new AtomicInteger();
+  private final long maxWaitMs;
+  private final int maxWaiters;
+
+  @Inject
+  public ExecutionChangeStream(final Props azkProps) {
+    this.maxWaitMs = azkProps.getLong(ConfigurationKeys.EXECUTION_CHANGES_MAX_WAIT_MS,
+        TimeUnit.SECONDS.toMillis(30));
+    // Each waiting client holds a Jetty thread, keep most of them for the other requests
+    final int waiterThreads = azkProps.getInt("jetty.maxThreads", DEFAULT_JETTY_MAX_THREAD_COUNT)
+        / MAX_WAITER_THREADS_DIVISOR;
+    this.maxWaiters = Math.min(waiterThreads,
+        azkProps.getInt(ConfigurationKeys.EXECUTION_CHANGES_MAX_WAITERS, waiterThreads));
+  }
+
+  /**
+   * Apply an update to a running execution, record it and wake up the clients waiting for it.
+   *
+   * @param flow the execution, as kept in {@link RunningExecutions}
+   * @param update applies the update to the execution, adding the nodes it changes to the given
+   * list
+   */
+  public void applyUpdate(final ExecutableFlow flow,
+      final Consumer<List<ExecutableNode>> update) {
+    final ExecutionVersions versions = this.executions
+        .computeIfAbsent(flow.getExecutionId(), execId -> new ExecutionVersions(flow));
+    synchronized (versions) {
+      final List<ExecutableNode> updatedNodes = new ArrayList<>();
+      update.accept(updatedNodes);
+      versions.version++;
+      for (final ExecutableNode node : updatedNodes) {
+        if (node != null) {
+          versions.nodeVersions.put(node, versions.version);
+        }
+      }
+      versions.notifyAll();
+    }
+  }
+
+  /**
+   * Record an update already applied to a running execution.
+   *
+   * @see #applyUpdate(ExecutableFlow, Consumer)
+   */
+  public void publish(final ExecutableFlow flow, final Collection<ExecutableNode> updatedNodes) {
+    applyUpdate(flow, nodes -> nodes.addAll(updatedNodes));
+  }
+
+  /**
+   * Stop tracking a finished execution, waking up the clients waiting for it.
+   */
+  public void complete(final int execId) {
+    final ExecutionVersions versions = this.executions.remove(execId);
+    if (versions != null) {
+      synchronized (versions) {
+        versions.completed = true;
+        versions.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Stop tracking the executions which aren't running any more.
+   */
+  public void retainAll(final Set<Integer> runningExecIds) {
+    for (final Integer execId : this.executions.keySet()) {
+      if (!runningExecIds.contains(execId)) {
+        complete(execId);
+      }
+    }
+  }
+
+  /**
+   * @return the execution if it is tracked
+   */
+  public Optional<ExecutableFlow> getExecution(final int execId) {
+    return Optional.ofNullable(this.executions.get(execId)).map(versions -> versions.flow);
+  }
+
+  /**
+   * Get the changes of an execution after the given version, waiting up to waitMs for the next
+   * change if there is none yet. The wait is capped by the configured maximum, and skipped if too
+   * many clients are already waiting.
+   *
+   * @param snapshot takes a snapshot of the changed nodes, which are only read under the lock
+   * @return the changes, or empty if the execution isn't tracked, i.e. it isn't running or its
+   * updates aren't fetched by this server.
+   */
+  public <T> Optional<ExecutionChanges<T>> getChanges(final int execId, final long sinceVersion,
+      final long waitMs, final ChangesSnapshot<T> snapshot)
+      throws InterruptedException, IOException {
+    final ExecutionVersions versions = this.executions.get(execId);
+    if (versions == null) {
+      return Optional.empty();
+    }
+
+    synchronized (versions) {
+      if (versions.version <= sinceVersion && !versions.completed && waitMs > 0) {
+        if (this.waiters.incrementAndGet() <= this.maxWaiters) {
+          try {
+            final long deadline = System.currentTimeMillis() + Math.min(waitMs, this.maxWaitMs);
+            long remainingMs = deadline - System.currentTimeMillis();
+            while (versions.version <= sinceVersion && !versions.completed && remainingMs > 0) {
+              versions.wait(remainingMs);
+              remainingMs = deadline - System.currentTimeMillis();
+            }
+          } finally {
+            this.waiters.decrementAndGet();
+          }
+        } else {
+          this.waiters.decrementAndGet();
+          logger.debug("Too many clients waiting for execution changes, not waiting for "
+              + execId);
+        }
+      }
+
+      final Set<ExecutableNode> changedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+      for (final Map.Entry<ExecutableNode, Long> nodeVersion : versions.nodeVersions.entrySet()) {
+        if (nodeVersion.getValue() > sinceVersion) {
+          changedNodes.add(nodeVersion.getKey());
+        }
+      }
+      return Optional.of(new ExecutionChanges<>(versions.version,
+          snapshot.take(versions.flow, changedNodes), versions.completed));
+    }
+  }
+
+  @VisibleForTesting
+  int getWaiterCount() {
+    return this.waiters.get();
+  }
+
+  @VisibleForTesting
+  int getMaxWaiters() {
+    return this.maxWaiters;
+  }
+
+  /**
+   * Takes a snapshot of the changes of an execution. The execution isn't updated meanwhile, but
+   * is as soon as it returns, so the snapshot mustn't keep reading it.
+   */
+  @FunctionalInterface
+  public interface ChangesSnapshot<T> {
+
+    T take(ExecutableFlow flow, Set<ExecutableNode> changedNodes) throws IOException;
+  }
+
+  /**
+   * The changes of an execution after a version.
+   */
+  public static class ExecutionChanges<T> {
+
+    private final long version;
+    private final T snapshot;
+    private final boolean completed;
+
+    ExecutionChanges(final long version, final T snapshot, final boolean completed) {
+      this.version = version;
+      this.snapshot = snapshot;
+      this.completed = completed;
+    }
+
+    /**
+     * @return the version of the execution the changes go up to
+     */
+    public long getVersion() {
+      return this.version;
+    }
+
+    /**
+     * @return the snapshot of the nodes changed after the version
+     */
+    public T getSnapshot() {
+      return this.snapshot;
+    }
+
+    /**
+     * @return true if the execution finished and no more changes will be published
+     */
+    public boolean isCompleted() {
+      return this.completed;
+    }
+  }
+
+  private static class ExecutionVersions {
+
+    private final ExecutableFlow flow;
+    private final Map<ExecutableNode, Long> nodeVersions = new IdentityHashMap<>();
+    private long version = 0;
+    private boolean completed = false;
+
+    private ExecutionVersions(final ExecutableFlow flow) {
+      this.flow = flow;
+    }
+  }
+}
@@ -17,20 +17,25 @@
 package azkaban.executor;
 
 import azkaban.db.DatabaseOperator;
+import azkaban.db.DatabaseTransOperator;
 import azkaban.db.EncodingType;
 import azkaban.db.SQLTransaction;
 import azkaban.utils.GZIPUtils;
 import azkaban.utils.JSONUtils;
 import azkaban.utils.Pair;
+import azkaban.utils.Props;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
@@ -47,11 +52,25 @@ public class ExecutionFlowDao {
   private static final Logger logger = Logger.getLogger(ExecutionFlowDao.class);
   private final DatabaseOperator dbOperator;
   private final MysqlNamedLock mysqlNamedLock;
+  private final ExecutionSearchIndexManager searchIndexManager;
+  private final ExecutableFlowCache flowCache;
 
   @Inject
-  public ExecutionFlowDao(final DatabaseOperator dbOperator, final MysqlNamedLock mysqlNamedLock) {
+  public ExecutionFlowDao(final DatabaseOperator dbOperator, final MysqlNamedLock mysqlNamedLock,
+      final ExecutionSearchIndexManager searchIndexManager, final ExecutableFlowCache flowCache) {
     this.dbOperator = dbOperator;
     this.mysqlNamedLock = mysqlNamedLock;
+    this.searchIndexManager = searchIndexManager;
+    this.flowCache = flowCache;
+  }
+
+  public ExecutionFlowDao(final DatabaseOperator dbOperator, final MysqlNamedLock mysqlNamedLock,
+      final ExecutionSearchIndexManager searchIndexManager) {
+    this(dbOperator, mysqlNamedLock, searchIndexManager, new ExecutableFlowCache());
+  }
+
+  public ExecutionFlowDao(final DatabaseOperator dbOperator, final MysqlNamedLock mysqlNamedLock) {
+    this(dbOperator, mysqlNamedLock, new ExecutionSearchIndexManager(new Props(), dbOperator));
   }
 
   public void uploadExecutableFlow(final ExecutableFlow flow)
@@ -90,6 +109,8 @@ public class ExecutionFlowDao {
       final long id = this.dbOperator.transaction(insertAndGetLastID);
       logger.info("Flow given " + flow.getFlowId() + " given id " + id);
       flow.setExecutionId((int) id);
+      // searchable right away, even if writing the flow data fails
+      this.searchIndexManager.onUpdated(flow);
       updateExecutableFlow(flow);
     } catch (final SQLException e) {
       throw new ExecutorManagerException("Error creating execution.", e);
@@ -205,7 +226,62 @@ public class ExecutionFlowDao {
       final String flowNameContains, final String userNameContains, final int status,
       final long startTime, final long endTime, final int skip, final int num)
       throws ExecutorManagerException {
-    String query = FetchExecutableFlows.FETCH_BASE_EXECUTABLE_FLOW_QUERY;
+    return fetchFlowHistory(FetchExecutableFlows.FETCH_BASE_EXECUTABLE_FLOW_QUERY,
+        new FetchExecutableFlows(), projectNameContains, flowNameContains, userNameContains,
+        status, startTime, endTime, skip, num);
+  }
+
+  List<ExecutionSummary> fetchFlowHistorySummaries(final int skip, final int num)
+      throws ExecutorManagerException {
+    try {
+      return this.dbOperator.query(FetchExecutionSummaries.FETCH_ALL_EXECUTION_SUMMARIES,
+          new FetchExecutionSummaries(), skip, num);
+    } catch (final SQLException e) {
+      throw new ExecutorManagerException("Error fetching flow History", e);
+    }
+  }
+
+  List<ExecutionSummary> fetchFlowHistorySummaries(final int projectId, final String flowId,
+      final int skip, final int num) throws ExecutorManagerException {
+    try {
+      return this.dbOperator.query(FetchExecutionSummaries.FETCH_EXECUTION_SUMMARIES,
+          new FetchExecutionSummaries(), projectId, flowId, skip, num);
+    } catch (final SQLException e) {
+      throw new ExecutorManagerException("Error fetching flow history", e);
+    }
+  }
+
+  List<ExecutionSummary> fetchFlowHistorySummaries(final int projectId, final String flowId,
+      final int skip, final int num, final Status status) throws ExecutorManagerException {
+    try {
+      return this.dbOperator.query(FetchExecutionSummaries.FETCH_EXECUTION_SUMMARIES_BY_STATUS,
+          new FetchExecutionSummaries(), projectId, flowId, status.getNumVal(), skip, num);
+    } catch (final SQLException e) {
+      throw new ExecutorManagerException("Error fetching active flows", e);
+    }
+  }
+
+  List<ExecutionSummary> fetchFlowHistorySummaries(final String projectNameContains,
+      final String flowNameContains, final String userNameContains, final int status,
+      final long startTime, final long endTime, final int skip, final int num)
+      throws ExecutorManagerException {
+    return fetchFlowHistory(FetchExecutionSummaries.FETCH_BASE_EXECUTION_SUMMARY_QUERY,
+        new FetchExecutionSummaries(), projectNameContains, flowNameContains, userNameContains,
+        status, startTime, endTime, skip, num);
+  }
+
+  private <T> List<T> fetchFlowHistory(final String baseQuery,
+      final ResultSetHandler<List<T>> handler, final String projectNameContains,
+      final String flowNameContains, final String userNameContains, final int status,
+      final long startTime, final long endTime, final int skip, final int num)
+      throws ExecutorManagerException {
+    final Optional<List<Integer>> execIds = this.searchIndexManager.search(projectNameContains,
+        flowNameContains, userNameContains, status, startTime, endTime, skip, num);
+    if (execIds.isPresent()) {
+      return fetchByExecIds(baseQuery, handler, execIds.get());
+    }
+
+    String query = baseQuery;
     final List<Object> params = new ArrayList<>();
 
     boolean first = true;
@@ -278,12 +354,28 @@ public class ExecutionFlowDao {
     }
 
     try {
-      return this.dbOperator.query(query, new FetchExecutableFlows(), params.toArray());
+      return this.dbOperator.query(query, handler, params.toArray());
     } catch (final SQLException e) {
       throw new ExecutorManagerException("Error fetching active flows", e);
     }
   }
 
+  private <T> List<T> fetchByExecIds(final String baseQuery,
+      final ResultSetHandler<List<T>> handler, final List<Integer> execIds)
+      throws ExecutorManagerException {
+    if (execIds.isEmpty()) {
+      return new ArrayList<>();
+    }
+    final String query = baseQuery + " WHERE exec_id IN ("
+        + String.join(",", Collections.nCopies(execIds.size(), "?"))
+        + ") ORDER BY exec_id DESC";
+    try {
+      return this.dbOperator.query(query, handler, execIds.toArray());
+    } catch (final SQLException e) {
+      throw new ExecutorManagerException("Error fetching flows by execution ids", e);
+    }
+  }
+
   void updateExecutableFlow(final ExecutableFlow flow) throws ExecutorManagerException {
     updateExecutableFlow(flow, EncodingType.GZIP);
   }
@@ -329,6 +421,8 @@ public class ExecutionFlowDao {
     } catch (final SQLException e) {
       throw new ExecutorManagerException("Error updating flow.", e);
     }
+    this.flowCache.invalidate(flow.getExecutionId());
+    this.searchIndexManager.onUpdated(flow);
   }
 
   private void updateExecutableFlowStatusInDB(final ExecutableFlow flow)
@@ -345,6 +439,9 @@ public class ExecutionFlowDao {
   }
 
   public ExecutableFlow fetchExecutableFlow(final int execId) throws ExecutorManagerException {
+    if (this.flowCache.isEnabled()) {
+      return fetchCachedExecutableFlow(execId);
+    }
     final FetchExecutableFlows flowHandler = new FetchExecutableFlows();
     try {
       final List<ExecutableFlow> properties = this.dbOperator
@@ -359,6 +456,31 @@ public class ExecutionFlowDao {
     }
   }
 
+  /**
+   * Serve the execution from the cache if its row wasn't updated since it was cached, only loading
+   * and inflating its flow data otherwise.
+   */
+  private ExecutableFlow fetchCachedExecutableFlow(final int execId)
+      throws ExecutorManagerException {
+    try {
+      final ExecutableFlowCache.RowVersion version = this.dbOperator
+          .query(FetchCacheableExecutableFlow.FETCH_ROW_VERSION,
+              FetchCacheableExecutableFlow::getRowVersion, execId);
+      if (version == null) {
+        this.flowCache.invalidate(execId);
+        return null;
+      }
+      final Optional<ExecutableFlow> cachedFlow = this.flowCache.get(execId, version);
+      if (cachedFlow.isPresent()) {
+        return cachedFlow.get();
+      }
+      return this.dbOperator.query(FetchCacheableExecutableFlow.FETCH_EXECUTABLE_FLOW,
+          new FetchCacheableExecutableFlow(execId, this.flowCache), execId);
+    } catch (final SQLException e) {
+      throw new ExecutorManagerException("Error fetching flow id " + execId, e);
+    }
+  }
+
   /**
    * set executor id to null for the execution id
    */
@@ -377,77 +499,83 @@ public class ExecutionFlowDao {
     }
   }
 
-  public int selectAndUpdateExecution(final int executorId, final boolean isActive)
-      throws ExecutorManagerException {
-    final String UPDATE_EXECUTION = "UPDATE execution_flows SET executor_id = ?, update_time = ? "
-        + "where exec_id = ?";
-    final String selectExecutionForUpdate = isActive ?
-        SelectFromExecutionFlows.SELECT_EXECUTION_FOR_UPDATE_ACTIVE :
-        SelectFromExecutionFlows.SELECT_EXECUTION_FOR_UPDATE_INACTIVE;
-
-    final SQLTransaction<Integer> selectAndUpdateExecution = transOperator -> {
+  /**
+   * Claim up to limit queued executions for the executor, by descending priority then submit
+   * order.
+   *
+   * @return the claimed execution ids, empty if none is queued
+   */
+  public List<Integer> selectAndUpdateExecutions(final int executorId, final boolean isActive,
+      final int limit) throws ExecutorManagerException {
+    final SQLTransaction<List<Integer>> selectAndUpdateExecutions = transOperator -> {
       transOperator.getConnection().setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
-
-      final List<Integer> execIds = transOperator.query(selectExecutionForUpdate,
-          new SelectFromExecutionFlows(), Status.PREPARING.getNumVal(), executorId);
-
-      int execId = -1;
-      if (!execIds.isEmpty()) {
-        execId = execIds.get(0);
-        transOperator.update(UPDATE_EXECUTION, executorId, System.currentTimeMillis(), execId);
-      }
+      final List<Integer> execIds = claimExecutions(transOperator, executorId, isActive, limit);
       transOperator.getConnection().commit();
-      return execId;
+      return execIds;
     };
 
     try {
-      return this.dbOperator.transaction(selectAndUpdateExecution);
+      return this.dbOperator.transaction(selectAndUpdateExecutions);
     } catch (final SQLException e) {
-      throw new ExecutorManagerException("Error selecting and updating execution with executor "
+      throw new ExecutorManagerException("Error selecting and updating executions with executor "
           + executorId, e);
     }
   }
 
-  public int selectAndUpdateExecutionWithLocking(final int executorId, final boolean isActive)
-      throws ExecutorManagerException {
-    final String UPDATE_EXECUTION = "UPDATE execution_flows SET executor_id = ?, update_time = ? "
-        + "where exec_id = ?";
-    final String selectExecutionForUpdate = isActive ?
-        SelectFromExecutionFlows.SELECT_EXECUTION_FOR_UPDATE_ACTIVE :
-        SelectFromExecutionFlows.SELECT_EXECUTION_FOR_UPDATE_INACTIVE;
-
-    final SQLTransaction<Integer> selectAndUpdateExecution = transOperator -> {
+  /**
+   * Same as {@link #selectAndUpdateExecutions(int, boolean, int)}, holding the polling lock.
+   *
+   * @return the claimed execution ids, empty if none is queued or the lock wasn't acquired
+   */
+  public List<Integer> selectAndUpdateExecutionsWithLocking(final int executorId,
+      final boolean isActive, final int limit) throws ExecutorManagerException {
+    final SQLTransaction<List<Integer>> selectAndUpdateExecutions = transOperator -> {
       final String POLLING_LOCK_NAME = "execution_flows_polling";
       final int GET_LOCK_TIMEOUT_IN_SECONDS = 5;
-      int execId = -1;
-      final boolean hasLocked = this.mysqlNamedLock.getLock(transOperator, POLLING_LOCK_NAME, GET_LOCK_TIMEOUT_IN_SECONDS);
-      logger.info("ExecutionFlow polling lock value: " + hasLocked + " for executorId: " + executorId);
-      if (hasLocked) {
-        try {
-          final List<Integer> execIds = transOperator.query(selectExecutionForUpdate,
-              new SelectFromExecutionFlows(), Status.PREPARING.getNumVal(), executorId);
-          if (CollectionUtils.isNotEmpty(execIds)) {
-            execId = execIds.get(0);
-            transOperator.update(UPDATE_EXECUTION, executorId, System.currentTimeMillis(), execId);
-          }
-        } finally {
-          this.mysqlNamedLock.releaseLock(transOperator, POLLING_LOCK_NAME);
-          logger.info("Released polling lock for executorId: " + executorId);
-        }
-      } else {
+      final boolean hasLocked = this.mysqlNamedLock
+          .getLock(transOperator, POLLING_LOCK_NAME, GET_LOCK_TIMEOUT_IN_SECONDS);
+      logger.debug("ExecutionFlow polling lock value: " + hasLocked + " for executorId: "
+          + executorId);
+      if (!hasLocked) {
         logger.info("Could not acquire polling lock for executorId: " + executorId);
+        return Collections.emptyList();
+      }
+      try {
+        return claimExecutions(transOperator, executorId, isActive, limit);
+      } finally {
+        this.mysqlNamedLock.releaseLock(transOperator, POLLING_LOCK_NAME);
+        logger.debug("Released polling lock for executorId: " + executorId);
       }
-      return execId;
     };
 
     try {
-      return this.dbOperator.transaction(selectAndUpdateExecution);
+      return this.dbOperator.transaction(selectAndUpdateExecutions);
     } catch (final SQLException e) {
-      throw new ExecutorManagerException("Error selecting and updating execution with executor "
+      throw new ExecutorManagerException("Error selecting and updating executions with executor "
           + executorId, e);
     }
   }
 
+  private List<Integer> claimExecutions(final DatabaseTransOperator transOperator,
+      final int executorId, final boolean isActive, final int limit) throws SQLException {
+    final String selectExecutionsForUpdate = isActive ?
+        SelectFromExecutionFlows.SELECT_EXECUTIONS_FOR_UPDATE_ACTIVE :
+        SelectFromExecutionFlows.SELECT_EXECUTIONS_FOR_UPDATE_INACTIVE;
+    final List<Integer> execIds = transOperator.query(selectExecutionsForUpdate,
+        new SelectFromExecutionFlows(), Status.PREPARING.getNumVal(), executorId, limit);
+    if (!execIds.isEmpty()) {
+      final String updateExecutions = "UPDATE execution_flows SET executor_id = ?, "
+          + "update_time = ? WHERE exec_id IN ("
+          + String.join(",", Collections.nCopies(execIds.size(), "?")) + ")";
+      final List<Object> params = new ArrayList<>();
+      params.add(executorId);
+      params.add(System.currentTimeMillis());
+      params.addAll(execIds);
+      transOperator.update(updateExecutions, params.toArray());
+    }
+    return execIds;
+  }
+
   /**
    * This method is used to select executions in batch. It will apply lock and fetch executions.
    * It will also update the status of those executions as mentioned in updatedStatus field.
@@ -463,8 +591,6 @@ public class ExecutionFlowDao {
       final int limit,
       final Status updatedStatus)
       throws ExecutorManagerException {
-    final String UPDATE_EXECUTION = "UPDATE execution_flows SET status = ?, update_time = ? "
-        + "where exec_id = ?";
     final SQLTransaction<Set<Integer>> selectAndUpdateExecution = transOperator -> {
       final String POLLING_LOCK_NAME = "execution_flows_polling";
       final int GET_LOCK_TIMEOUT_IN_SECONDS = 5;
@@ -486,20 +612,8 @@ public class ExecutionFlowDao {
           }
           if (CollectionUtils.isNotEmpty(execIds)) {
             executions.addAll(execIds);
-            //TODO: Currently transOperator.getConnection().createArrayOf is not supported so
-            //update statement can not have {exec_id in (?)} in where clause. Use below
-            //mentioned code instead of for look for update statement when createArrayOf is
-            //supported
-            //Array executionsToUpdate = transOperator.getConnection().createArrayOf("INTEGER",
-            //    execIds.toArray());
-            //transOperator
-            //      .update(UPDATE_EXECUTION, updatedStatus.getNumVal(), System.currentTimeMillis(),
-            //          executionsToUpdate);
-            for (final Integer execId : execIds) {
-              transOperator
-                  .update(UPDATE_EXECUTION, updatedStatus.getNumVal(), System.currentTimeMillis(),
-                      execId);
-            }
+            transOperator.update(getUpdateExecutionStatusesQuery(execIds.size()),
+                getUpdateExecutionStatusesParams(execIds, Status.READY, updatedStatus));
           }
         } finally {
           this.mysqlNamedLock.releaseLock(transOperator, POLLING_LOCK_NAME);
@@ -518,6 +632,42 @@ public class ExecutionFlowDao {
     }
   }
 
+  /**
+   * Update the status of the executions in a single statement, without rewriting their flow data.
+   * Only the executions still in the expected status are updated, so that a concurrent transition
+   * is not reverted.
+   *
+   * @return the number of updated executions
+   */
+  public int updateExecutionStatuses(final Collection<Integer> execIds,
+      final Status expectedStatus, final Status newStatus) throws ExecutorManagerException {
+    if (execIds.isEmpty()) {
+      return 0;
+    }
+    try {
+      return this.dbOperator.update(getUpdateExecutionStatusesQuery(execIds.size()),
+          getUpdateExecutionStatusesParams(execIds, expectedStatus, newStatus));
+    } catch (final SQLException e) {
+      throw new ExecutorManagerException("Error updating status of executions " + execIds, e);
+    }
+  }
+
+  private static String getUpdateExecutionStatusesQuery(final int numExecutions) {
+    return "UPDATE execution_flows SET status = ?, update_time = ? "
+        + "WHERE status = ? AND exec_id IN ("
+        + String.join(",", Collections.nCopies(numExecutions, "?")) + ")";
+  }
+
+  private static Object[] getUpdateExecutionStatusesParams(final Collection<Integer> execIds,
+      final Status expectedStatus, final Status newStatus) {
+    final List<Object> params = new ArrayList<>();
+    params.add(newStatus.getNumVal());
+    params.add(System.currentTimeMillis());
+    params.add(expectedStatus.getNumVal());
+    params.addAll(execIds);
+    return params.toArray();
+  }
+
   public static class SelectFromExecutionFlows implements
       ResultSetHandler<List<Integer>> {
 
@@ -535,12 +685,20 @@ public class ExecutionFlowDao {
             + " ORDER BY flow_priority DESC, update_time ASC, exec_id ASC "
             + " LIMIT ? FOR UPDATE";
 
-    public static final String SELECT_EXECUTION_FOR_UPDATE_ACTIVE =
-        String.format(SELECT_EXECUTION_FOR_UPDATE_FORMAT,
+    // executor_id is checked again on the locked rows, as the subquery doesn't wait for the
+    // executions being claimed by other executors.
+    private static final String SELECT_EXECUTIONS_FOR_UPDATE_FORMAT =
+        "SELECT exec_id from execution_flows WHERE exec_id in (SELECT exec_id from execution_flows"
+            + " WHERE status = ?"
+            + " and executor_id is NULL and flow_data is NOT NULL %s) and executor_id is NULL"
+            + " ORDER BY flow_priority DESC, update_time ASC, exec_id ASC LIMIT ? FOR UPDATE";
+
+    public static final String SELECT_EXECUTIONS_FOR_UPDATE_ACTIVE =
+        String.format(SELECT_EXECUTIONS_FOR_UPDATE_FORMAT,
             "and (use_executor is NULL or use_executor = ?)");
 
-    public static final String SELECT_EXECUTION_FOR_UPDATE_INACTIVE =
-        String.format(SELECT_EXECUTION_FOR_UPDATE_FORMAT, "and use_executor = ?");
+    public static final String SELECT_EXECUTIONS_FOR_UPDATE_INACTIVE =
+        String.format(SELECT_EXECUTIONS_FOR_UPDATE_FORMAT, "and use_executor = ?");
 
     @Override
     public List<Integer> handle(final ResultSet rs) throws SQLException {
@@ -617,6 +775,93 @@ public class ExecutionFlowDao {
     }
   }
 
+  /**
+   * JDBC ResultSetHandler to fetch an execution and put its flow data in the
+   * {@link ExecutableFlowCache}.
+   */
+  private static class FetchCacheableExecutableFlow implements ResultSetHandler<ExecutableFlow> {
+
+    private static final String FETCH_ROW_VERSION =
+        "SELECT update_time, status, start_time, end_time FROM execution_flows WHERE exec_id=?";
+    private static final String FETCH_EXECUTABLE_FLOW =
+        "SELECT update_time, status, start_time, end_time, enc_type, flow_data "
+            + "FROM execution_flows WHERE exec_id=?";
+
+    private final int execId;
+    private final ExecutableFlowCache flowCache;
+
+    private FetchCacheableExecutableFlow(final int execId, final ExecutableFlowCache flowCache) {
+      this.execId = execId;
+      this.flowCache = flowCache;
+    }
+
+    private static ExecutableFlowCache.RowVersion getRowVersion(final ResultSet rs)
+        throws SQLException {
+      if (!rs.next()) {
+        return null;
+      }
+      return readRowVersion(rs);
+    }
+
+    private static ExecutableFlowCache.RowVersion readRowVersion(final ResultSet rs)
+        throws SQLException {
+      return new ExecutableFlowCache.RowVersion(rs.getLong(1), Status.fromInteger(rs.getInt(2)),
+          rs.getLong(3), rs.getLong(4));
+    }
+
+    @Override
+    public ExecutableFlow handle(final ResultSet rs) throws SQLException {
+      if (!rs.next()) {
+        return null;
+      }
+      final ExecutableFlowCache.RowVersion version = readRowVersion(rs);
+      final EncodingType encType = EncodingType.fromInteger(rs.getInt(5));
+      final byte[] data = rs.getBytes(6);
+      if (data == null) {
+        return null;
+      }
+      try {
+        final byte[] jsonBytes =
+            encType == EncodingType.GZIP ? GZIPUtils.unGzipBytes(data) : data;
+        final Object flowObj =
+            JSONUtils.parseJSONFromString(new String(jsonBytes, StandardCharsets.UTF_8));
+        return this.flowCache.put(this.execId, version, flowObj, jsonBytes.length);
+      } catch (final IOException e) {
+        throw new SQLException("Error retrieving flow data " + this.execId, e);
+      }
+    }
+  }
+
+  /**
+   * JDBC ResultSetHandler to fetch execution summaries, without the flow data.
+   */
+  public static class FetchExecutionSummaries implements
+      ResultSetHandler<List<ExecutionSummary>> {
+
+    static final String FETCH_BASE_EXECUTION_SUMMARY_QUERY =
+        "SELECT ef.exec_id, ef.project_id, ef.version, ef.flow_id, ef.status, ef.submit_user, "
+            + "ef.submit_time, ef.update_time, ef.start_time, ef.end_time FROM execution_flows ef";
+    private static final String FETCH_ALL_EXECUTION_SUMMARIES =
+        FETCH_BASE_EXECUTION_SUMMARY_QUERY + " ORDER BY exec_id DESC LIMIT ?, ?";
+    private static final String FETCH_EXECUTION_SUMMARIES =
+        FETCH_BASE_EXECUTION_SUMMARY_QUERY + " WHERE project_id=? AND flow_id=? "
+            + "ORDER BY exec_id DESC LIMIT ?, ?";
+    private static final String FETCH_EXECUTION_SUMMARIES_BY_STATUS =
+        FETCH_BASE_EXECUTION_SUMMARY_QUERY + " WHERE project_id=? AND flow_id=? AND status=? "
+            + "ORDER BY exec_id DESC LIMIT ?, ?";
+
+    @Override
+    public List<ExecutionSummary> handle(final ResultSet rs) throws SQLException {
+      final List<ExecutionSummary> summaries = new ArrayList<>();
+      while (rs.next()) {
+        summaries.add(new ExecutionSummary(rs.getInt(1), rs.getInt(2), rs.getInt(3),
+            rs.getString(4), Status.fromInteger(rs.getInt(5)), rs.getString(6), rs.getLong(7),
+            rs.getLong(8), rs.getLong(9), rs.getLong(10)));
+      }
+      return summaries;
+    }
+  }
+
   /**
    * JDBC ResultSetHandler to fetch queued executions
    */
@@ -16,6 +16,7 @@
 
 package azkaban.executor;
 
+import azkaban.Constants.ConfigurationKeys;
 import azkaban.db.DatabaseOperator;
 import azkaban.db.DatabaseTransOperator;
 import azkaban.db.EncodingType;
@@ -24,6 +25,7 @@ import azkaban.utils.FileIOUtils;
 import azkaban.utils.FileIOUtils.LogData;
 import azkaban.utils.GZIPUtils;
 import azkaban.utils.Pair;
+import azkaban.utils.Props;
 import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
@@ -32,7 +34,12 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import org.apache.commons.dbutils.ResultSetHandler;
@@ -40,17 +47,73 @@ import org.apache.commons.io.IOUtils;
 import org.apache.log4j.Logger;
 import org.joda.time.DateTime;
 
-
+/**
+ * Stores the execution logs in the execution_logs table.
+ *
+ * <p>With {@link ConfigurationKeys#EXECUTION_LOGS_BUCKETS_ENABLED}, logs are instead uploaded to
+ * one table per time bucket, execution_logs_&lt;bucket id&gt;, so that the expired logs are
+ * removed by dropping whole tables rather than by deleting rows. Each bucket is recorded in
+ * execution_logs_buckets with the range of the execution ids whose logs it holds, which routes
+ * the log reads to the buckets, and with its start and end time, which expire it. The times are
+ * stored rather than derived from the bucket id, so that changing
+ * {@link ConfigurationKeys#EXECUTION_LOGS_BUCKET_MS} doesn't change when the existing buckets
+ * expire. The logs left in execution_logs are still read and removed row by row. Only the
+ * uploads depend on the flag: the buckets are always read and removed, so that disabling them
+ * doesn't lose the logs already uploaded to them.
+ */
 @Singleton
 public class ExecutionLogsDao {
 
   private static final Logger logger = Logger.getLogger(ExecutionLogsDao.class);
+  private static final String EXECUTION_LOGS_TABLE = "execution_logs";
+  private static final long DEFAULT_BUCKET_MS = TimeUnit.DAYS.toMillis(1);
+
+  private static final String CREATE_BUCKET_TABLE = "CREATE TABLE IF NOT EXISTS %s ("
+      + "exec_id INT NOT NULL, name VARCHAR(640), attempt INT, enc_type TINYINT, "
+      + "start_byte INT, end_byte INT, log LONGBLOB, upload_time BIGINT, "
+      + "PRIMARY KEY (exec_id, name, attempt, start_byte))";
+  private static final String DROP_BUCKET_TABLE = "DROP TABLE IF EXISTS %s";
+  private static final String SELECT_BUCKET =
+      "SELECT bucket_id FROM execution_logs_buckets WHERE bucket_id=?";
+  private static final String INSERT_BUCKET = "INSERT INTO execution_logs_buckets "
+      + "(bucket_id, min_exec_id, max_exec_id, start_time, end_time) VALUES (?,?,?,?,?)";
+  private static final String UPDATE_BUCKET = "UPDATE execution_logs_buckets "
+      + "SET min_exec_id=LEAST(min_exec_id, ?), max_exec_id=GREATEST(max_exec_id, ?), "
+      + "start_time=LEAST(start_time, ?), end_time=GREATEST(end_time, ?) WHERE bucket_id=?";
+  private static final String SELECT_BUCKETS_BY_EXEC_ID = "SELECT bucket_id "
+      + "FROM execution_logs_buckets WHERE min_exec_id <= ? AND max_exec_id >= ? "
+      + "ORDER BY bucket_id DESC";
+  private static final String SELECT_EXPIRED_BUCKETS =
+      "SELECT bucket_id FROM execution_logs_buckets WHERE end_time <= ?";
+  private static final String DELETE_BUCKET =
+      "DELETE FROM execution_logs_buckets WHERE bucket_id=?";
+
+  private static final ResultSetHandler<List<Long>> BUCKET_IDS_HANDLER = rs -> {
+    final List<Long> bucketIds = new ArrayList<>();
+    while (rs.next()) {
+      bucketIds.add(rs.getLong(1));
+    }
+    return bucketIds;
+  };
+
   private final DatabaseOperator dbOperator;
   private final EncodingType defaultEncodingType = EncodingType.GZIP;
+  private final boolean bucketsEnabled;
+  private final long bucketMs;
+  // Execution ids already recorded in execution_logs_buckets by this server, by bucket id
+  private final Map<Long, ExecIdRange> recordedBuckets = new ConcurrentHashMap<>();
 
   @Inject
-  public ExecutionLogsDao(final DatabaseOperator dbOperator) {
+  public ExecutionLogsDao(final DatabaseOperator dbOperator, final Props azkProps) {
     this.dbOperator = dbOperator;
+    this.bucketsEnabled = azkProps
+        .getBoolean(ConfigurationKeys.EXECUTION_LOGS_BUCKETS_ENABLED, false);
+    this.bucketMs = azkProps.getLong(ConfigurationKeys.EXECUTION_LOGS_BUCKET_MS,
+        DEFAULT_BUCKET_MS);
+  }
+
+  public ExecutionLogsDao(final DatabaseOperator dbOperator) {
+    this(dbOperator, new Props());
   }
 
   // TODO kunkun-tang: the interface's parameter is called endByte, but actually is length.
@@ -59,7 +122,20 @@ public class ExecutionLogsDao {
       final int length) throws ExecutorManagerException {
     final FetchLogsHandler handler = new FetchLogsHandler(startByte, length + startByte);
     try {
-      return this.dbOperator.query(FetchLogsHandler.FETCH_LOGS, handler,
+      // All the parts of a log are uploaded at once, to a single bucket. The buckets are read
+      // even when disabled, so that the logs uploaded while they were enabled are still found.
+      final List<Long> bucketIds = this.dbOperator.query(SELECT_BUCKETS_BY_EXEC_ID,
+          BUCKET_IDS_HANDLER, execId, execId);
+      for (final Long bucketId : bucketIds) {
+        final LogData logData = this.dbOperator.query(
+            String.format(FetchLogsHandler.FETCH_LOGS, getBucketTable(bucketId)), handler,
+            execId, name, attempt, startByte, startByte + length);
+        if (logData != null) {
+          return logData;
+        }
+      }
+      return this.dbOperator.query(
+          String.format(FetchLogsHandler.FETCH_LOGS, EXECUTION_LOGS_TABLE), handler,
           execId, name, attempt, startByte, startByte + length);
     } catch (final SQLException e) {
       throw new ExecutorManagerException("Error fetching logs " + execId
@@ -69,8 +145,22 @@ public class ExecutionLogsDao {
 
   public void uploadLogFile(final int execId, final String name, final int attempt,
       final File... files) throws ExecutorManagerException {
+    final String table;
+    if (this.bucketsEnabled) {
+      final long bucketId = DateTime.now().getMillis() / this.bucketMs;
+      try {
+        recordInBucket(bucketId, execId);
+      } catch (final SQLException e) {
+        logger.error("uploadLogFile failed.", e);
+        throw new ExecutorManagerException("uploadLogFile failed.", e);
+      }
+      table = getBucketTable(bucketId);
+    } else {
+      table = EXECUTION_LOGS_TABLE;
+    }
     final SQLTransaction<Integer> transaction = transOperator -> {
-      uploadLogFile(transOperator, execId, name, attempt, files, this.defaultEncodingType);
+      uploadLogFile(transOperator, table, execId, name, attempt, files,
+          this.defaultEncodingType);
       transOperator.getConnection().commit();
       return 1;
     };
@@ -82,8 +172,8 @@ public class ExecutionLogsDao {
     }
   }
 
-  private void uploadLogFile(final DatabaseTransOperator transOperator, final int execId,
-      final String name,
+  private void uploadLogFile(final DatabaseTransOperator transOperator, final String table,
+      final int execId, final String name,
       final int attempt, final File[] files, final EncodingType encType)
       throws SQLException {
     // 50K buffer... if logs are greater than this, we chunk.
@@ -103,7 +193,7 @@ public class ExecutionLogsDao {
           while (size >= 0) {
             if (pos + size == buffer.length) {
               // Flush here.
-              uploadLogPart(transOperator, execId, name, attempt, startByte,
+              uploadLogPart(transOperator, table, execId, name, attempt, startByte,
                   startByte + buffer.length, encType, buffer, buffer.length);
 
               pos = 0;
@@ -123,7 +213,7 @@ public class ExecutionLogsDao {
 
       // Final commit of buffer.
       if (pos > 0) {
-        uploadLogPart(transOperator, execId, name, attempt, startByte, startByte
+        uploadLogPart(transOperator, table, execId, name, attempt, startByte, startByte
             + pos, encType, buffer, pos);
       }
     } catch (final SQLException e) {
@@ -135,8 +225,49 @@ public class ExecutionLogsDao {
     }
   }
 
+  /**
+   * Record in execution_logs_buckets that the bucket holds logs of the execution, creating the
+   * bucket with its start and end time if needed. This is done before uploading the logs, outside
+   * of the upload transaction, so that concurrent uploads don't wait on the row of the bucket.
+   */
+  private void recordInBucket(final long bucketId, final int execId) throws SQLException {
+    final ExecIdRange recorded = this.recordedBuckets.get(bucketId);
+    if (recorded != null && recorded.contains(execId)) {
+      return;
+    }
+    final long startTime = bucketId * this.bucketMs;
+    final long endTime = startTime + this.bucketMs;
+    if (recorded == null) {
+      // Create the table before the bucket, so that the recorded buckets always have a table
+      this.dbOperator.update(String.format(CREATE_BUCKET_TABLE, getBucketTable(bucketId)));
+      if (!bucketExists(bucketId)) {
+        try {
+          this.dbOperator.update(INSERT_BUCKET, bucketId, execId, execId, startTime, endTime);
+        } catch (final SQLException e) {
+          // Another server may have just created it
+          if (!bucketExists(bucketId)) {
+            throw e;
+          }
+        }
+      }
+    }
+    // Widens the times of a bucket created with another bucket size that had the same id
+    this.dbOperator.update(UPDATE_BUCKET, execId, execId, startTime, endTime, bucketId);
+    this.recordedBuckets.merge(bucketId, new ExecIdRange(execId, execId), ExecIdRange::union);
+  }
+
+  private boolean bucketExists(final long bucketId) throws SQLException {
+    return !this.dbOperator.query(SELECT_BUCKET, BUCKET_IDS_HANDLER, bucketId).isEmpty();
+  }
+
+  static String getBucketTable(final long bucketId) {
+    return EXECUTION_LOGS_TABLE + "_" + bucketId;
+  }
+
   int removeExecutionLogsByTime(final long millis, final int recordCleanupLimit)
       throws ExecutorManagerException {
+    // Also when the buckets are disabled, to remove the ones left from while they were enabled
+    removeExpiredBuckets(millis);
     int totalRecordsRemoved = 0;
     int removedRecords;
     do {
@@ -154,6 +285,30 @@ public class ExecutionLogsDao {
     return totalRecordsRemoved;
   }
 
+  /**
+   * Drop the buckets that ended before millis, by the end time recorded when they were created.
+   *
+   * @return the number of dropped buckets
+   */
+  int removeExpiredBuckets(final long millis) throws ExecutorManagerException {
+    try {
+      final List<Long> expiredBucketIds = this.dbOperator
+          .query(SELECT_EXPIRED_BUCKETS, BUCKET_IDS_HANDLER, millis);
+      for (final Long bucketId : expiredBucketIds) {
+        // Remove the bucket first, so that log reads never look for the dropped table
+        this.dbOperator.update(DELETE_BUCKET, bucketId);
+        this.dbOperator.update(String.format(DROP_BUCKET_TABLE, getBucketTable(bucketId)));
+        this.recordedBuckets.remove(bucketId);
+        logger.info("Dropped execution logs bucket " + getBucketTable(bucketId));
+      }
+      return expiredBucketIds.size();
+    } catch (final SQLException e) {
+      logger.error("drop execution logs buckets failed", e);
+      throw new ExecutorManagerException(
+          "Error dropping execution logs buckets before " + millis, e);
+    }
+  }
+
   int removeExecutionLogsBatch(final long millis, final int recordCleanupLimit)
       throws ExecutorManagerException {
     final String DELETE_BY_TIME =
@@ -167,13 +322,13 @@ public class ExecutionLogsDao {
     }
   }
 
-  private void uploadLogPart(final DatabaseTransOperator transOperator, final int execId,
-      final String name,
+  private void uploadLogPart(final DatabaseTransOperator transOperator, final String table,
+      final int execId, final String name,
       final int attempt, final int startByte, final int endByte,
       final EncodingType encType,
       final byte[] buffer, final int length)
       throws SQLException, IOException {
-    final String INSERT_EXECUTION_LOGS = "INSERT INTO execution_logs "
+    final String INSERT_EXECUTION_LOGS = "INSERT INTO " + table + " "
         + "(exec_id, name, attempt, enc_type, start_byte, end_byte, "
         + "log, upload_time) VALUES (?,?,?,?,?,?,?,?)";
 
@@ -193,7 +348,7 @@ public class ExecutionLogsDao {
 
     private static final String FETCH_LOGS =
         "SELECT exec_id, name, attempt, enc_type, start_byte, end_byte, log "
-            + "FROM execution_logs "
+            + "FROM %s "
             + "WHERE exec_id=? AND name=? AND attempt=? AND end_byte > ? "
             + "AND start_byte <= ? ORDER BY start_byte";
 
@@ -248,4 +403,27 @@ public class ExecutionLogsDao {
           new String(buffer, result.getFirst(), result.getSecond(), StandardCharsets.UTF_8));
     }
   }
+
+  /**
+   * Range of execution ids.
+   */
+  private static class ExecIdRange {
+
+    private final int minExecId;
+    private final int maxExecId;
+
+    private ExecIdRange(final int minExecId, final int maxExecId) {
+      this.minExecId = minExecId;
+      this.maxExecId = maxExecId;
+    }
+
+    private boolean contains(final int execId) {
+      return this.minExecId <= execId && execId <= this.maxExecId;
+    }
+
+    private ExecIdRange union(final ExecIdRange other) {
+      return new ExecIdRange(Math.min(this.minExecId, other.minExecId),
+          Math.max(this.maxExecId, other.maxExecId));
+    }
+  }
 }
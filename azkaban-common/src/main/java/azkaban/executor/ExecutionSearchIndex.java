@@ -0,0 +1,606 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.executor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * <pre>
+ * In-memory index of the searchable columns of executions, which answers the flow history search
+ * without the LIKE '%...%' scans of execution_flows.
+ *
+ * Project names, flow ids and submit users take few distinct values compared to the number of
+ * executions. Each distinct value is kept once in a {@link TermDictionary} with a trigram index,
+ * and maps to the ascending list of the executions using it. A "contains" filter is resolved
+ * against the dictionary first, then only the executions of the matching values are walked,
+ * newest first, checking the other filters against the columns of the execution. The executions
+ * are also listed by status, so that a status filter only walks the executions in that status.
+ *
+ * The start and end time filters have no index of their own: they are checked while walking the
+ * executions selected by the other filters, newest first, until the page is full. A search with
+ * only time filters is linear in the number of executions newer than the page. The flow history
+ * page sorts by execution id, so a time index would still need the ids of the whole time range.
+ *
+ * Filters follow the LIKE semantics of the DB query ('%' and '_' wildcards), case insensitive like
+ * the default MySQL collations.
+ *
+ * The index may only hold the newest executions: it always holds every execution whose id is at
+ * least {@link #getLowerBound()}. A search which needs older executions returns empty, and the
+ * caller should fall back to the DB.
+ * </pre>
+ */
+public class ExecutionSearchIndex {
+
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final int NO_TERM = -1;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final TermDictionary projectNames = new TermDictionary();
+  private final TermDictionary flowIds = new TermDictionary();
+  private final TermDictionary submitUsers = new TermDictionary();
+  // project id -> term of the project name
+  private final Map<Integer, Integer> projectNameTerms = new HashMap<>();
+  private final Map<Integer, IntList> executionsByProject = new HashMap<>();
+  // indexed by term
+  private final List<IntList> executionsByFlow = new ArrayList<>();
+  private final List<IntList> executionsByUser = new ArrayList<>();
+  private final Map<Integer, IntList> executionsByStatus = new HashMap<>();
+
+  // columns of the executions, sorted by execution id
+  private int size;
+  private int[] execIds = new int[INITIAL_CAPACITY];
+  private int[] projectIds = new int[INITIAL_CAPACITY];
+  private int[] flowTerms = new int[INITIAL_CAPACITY];
+  private int[] userTerms = new int[INITIAL_CAPACITY];
+  private byte[] statuses = new byte[INITIAL_CAPACITY];
+  private long[] startTimes = new long[INITIAL_CAPACITY];
+  private long[] endTimes = new long[INITIAL_CAPACITY];
+  private int lowerBound = Integer.MIN_VALUE;
+
+  /**
+   * Add an execution, or update the status and times of an execution already in the index.
+   * Executions below the lower bound are ignored.
+   *
+   * @param status the status value, 0 if unknown
+   */
+  public void index(final int execId, final int projectId, final String flowId,
+      final String submitUser, final int status, final long startTime, final long endTime) {
+    this.lock.writeLock().lock();
+    try {
+      if (execId < this.lowerBound) {
+        return;
+      }
+      int pos = Arrays.binarySearch(this.execIds, 0, this.size, execId);
+      if (pos < 0) {
+        pos = -pos - 1;
+        insertAt(pos);
+        this.execIds[pos] = execId;
+        this.projectIds[pos] = projectId;
+        this.flowTerms[pos] = addTerm(this.flowIds, this.executionsByFlow, flowId, execId);
+        this.userTerms[pos] = addTerm(this.submitUsers, this.executionsByUser, submitUser, execId);
+        this.executionsByProject.computeIfAbsent(projectId, k -> new IntList()).add(execId);
+      } else if (this.statuses[pos] != (byte) status) {
+        this.executionsByStatus.get((int) this.statuses[pos]).remove(execId);
+      }
+      this.executionsByStatus.computeIfAbsent(status, k -> new IntList()).add(execId);
+      this.statuses[pos] = (byte) status;
+      this.startTimes[pos] = startTime;
+      this.endTimes[pos] = endTime;
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  public void setProjectName(final int projectId, final String name) {
+    this.lock.writeLock().lock();
+    try {
+      this.projectNameTerms.put(projectId, this.projectNames.add(name));
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Drop the oldest executions to keep at most maxSize executions, raising the lower bound.
+   */
+  public void trimTo(final int maxSize) {
+    this.lock.writeLock().lock();
+    try {
+      if (this.size > maxSize) {
+        removeBelow(this.execIds[this.size - maxSize]);
+      }
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Set the lowest execution id the index holds every execution from, e.g. after loading only
+   * the newest executions. Executions below it are dropped.
+   */
+  public void setLowerBound(final int lowerBound) {
+    this.lock.writeLock().lock();
+    try {
+      removeBelow(lowerBound);
+    } finally {
+      this.lock.writeLock().unlock();
+    }
+  }
+
+  public int getLowerBound() {
+    this.lock.readLock().lock();
+    try {
+      return this.lowerBound;
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  public int size() {
+    this.lock.readLock().lock();
+    try {
+      return this.size;
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Search executions with the same filters as
+   * {@link ExecutionFlowDao#fetchFlowHistory(String, String, String, int, long, long, int, int)}.
+   *
+   * @return the matching execution ids, newest first, or empty if the index can't answer the
+   * search: unsupported filter or page, or the page needs executions below the lower bound.
+   */
+  public Optional<List<Integer>> search(final String projectNameContains,
+      final String flowNameContains, final String userNameContains, final int status,
+      final long startTime, final long endTime, final int skip, final int num) {
+    if (skip < 0 || num <= 0) {
+      return Optional.empty();
+    }
+    final ContainsPattern projectPattern = ContainsPattern.of(projectNameContains);
+    final ContainsPattern flowPattern = ContainsPattern.of(flowNameContains);
+    final ContainsPattern userPattern = ContainsPattern.of(userNameContains);
+    if (projectPattern == ContainsPattern.UNSUPPORTED || flowPattern == ContainsPattern.UNSUPPORTED
+        || userPattern == ContainsPattern.UNSUPPORTED) {
+      return Optional.empty();
+    }
+
+    this.lock.readLock().lock();
+    try {
+      final Filter filter = new Filter(status, startTime, endTime);
+      List<IntList> candidates = null;
+      if (projectPattern != null) {
+        final BitSet nameTerms = this.projectNames.find(projectPattern);
+        filter.projectIds = new HashSet<>();
+        for (final Map.Entry<Integer, Integer> entry : this.projectNameTerms.entrySet()) {
+          if (nameTerms.get(entry.getValue())) {
+            filter.projectIds.add(entry.getKey());
+          }
+        }
+        candidates = narrowest(candidates,
+            postings(this.executionsByProject, filter.projectIds));
+      }
+      if (flowPattern != null) {
+        filter.flowTerms = this.flowIds.find(flowPattern);
+        candidates = narrowest(candidates, postings(this.executionsByFlow, filter.flowTerms));
+      }
+      if (userPattern != null) {
+        filter.userTerms = this.submitUsers.find(userPattern);
+        candidates = narrowest(candidates, postings(this.executionsByUser, filter.userTerms));
+      }
+      if (status != 0) {
+        candidates = narrowest(candidates,
+            postings(this.executionsByStatus, Collections.singleton(status)));
+      }
+
+      final List<Integer> result = new ArrayList<>(num);
+      int toSkip = skip;
+      if (candidates == null) {
+        for (int pos = this.size - 1; pos >= 0 && result.size() < num; pos--) {
+          if (filter.matches(pos)) {
+            if (toSkip > 0) {
+              toSkip--;
+            } else {
+              result.add(this.execIds[pos]);
+            }
+          }
+        }
+      } else {
+        final DescendingMerge merge = new DescendingMerge(candidates);
+        while (merge.hasNext() && result.size() < num) {
+          final int execId = merge.next();
+          final int pos = Arrays.binarySearch(this.execIds, 0, this.size, execId);
+          if (filter.matches(pos)) {
+            if (toSkip > 0) {
+              toSkip--;
+            } else {
+              result.add(execId);
+            }
+          }
+        }
+      }
+
+      if (result.size() < num && this.lowerBound != Integer.MIN_VALUE) {
+        // older matches may exist below the lower bound
+        return Optional.empty();
+      }
+      return Optional.of(result);
+    } finally {
+      this.lock.readLock().unlock();
+    }
+  }
+
+  private static int addTerm(final TermDictionary dictionary, final List<IntList> postings,
+      final String value, final int execId) {
+    if (value == null) {
+      return NO_TERM;
+    }
+    final int term = dictionary.add(value);
+    if (term == postings.size()) {
+      postings.add(new IntList());
+    }
+    postings.get(term).add(execId);
+    return term;
+  }
+
+  private static List<IntList> postings(final Map<Integer, IntList> postings,
+      final Set<Integer> keys) {
+    final List<IntList> lists = new ArrayList<>();
+    for (final Integer key : keys) {
+      final IntList list = postings.get(key);
+      if (list != null) {
+        lists.add(list);
+      }
+    }
+    return lists;
+  }
+
+  private static List<IntList> postings(final List<IntList> postings, final BitSet terms) {
+    final List<IntList> lists = new ArrayList<>();
+    for (int term = terms.nextSetBit(0); term >= 0; term = terms.nextSetBit(term + 1)) {
+      lists.add(postings.get(term));
+    }
+    return lists;
+  }
+
+  /**
+   * @return the candidate lists with the fewest executions in total.
+   */
+  private static List<IntList> narrowest(final List<IntList> current,
+      final List<IntList> other) {
+    if (current == null || total(other) < total(current)) {
+      return other;
+    }
+    return current;
+  }
+
+  private static long total(final List<IntList> lists) {
+    long total = 0;
+    for (final IntList list : lists) {
+      total += list.size();
+    }
+    return total;
+  }
+
+  private void removeBelow(final int bound) {
+    this.lowerBound = bound;
+    int removed = Arrays.binarySearch(this.execIds, 0, this.size, bound);
+    if (removed < 0) {
+      removed = -removed - 1;
+    }
+    if (removed == 0) {
+      return;
+    }
+    this.size -= removed;
+    System.arraycopy(this.execIds, removed, this.execIds, 0, this.size);
+    System.arraycopy(this.projectIds, removed, this.projectIds, 0, this.size);
+    System.arraycopy(this.flowTerms, removed, this.flowTerms, 0, this.size);
+    System.arraycopy(this.userTerms, removed, this.userTerms, 0, this.size);
+    System.arraycopy(this.statuses, removed, this.statuses, 0, this.size);
+    System.arraycopy(this.startTimes, removed, this.startTimes, 0, this.size);
+    System.arraycopy(this.endTimes, removed, this.endTimes, 0, this.size);
+    this.executionsByProject.values().removeIf(list -> list.removeBelow(bound) == 0);
+    this.executionsByStatus.values().removeIf(list -> list.removeBelow(bound) == 0);
+    this.executionsByFlow.forEach(list -> list.removeBelow(bound));
+    this.executionsByUser.forEach(list -> list.removeBelow(bound));
+  }
+
+  private void insertAt(final int pos) {
+    if (this.size == this.execIds.length) {
+      final int capacity = this.execIds.length * 2;
+      this.execIds = Arrays.copyOf(this.execIds, capacity);
+      this.projectIds = Arrays.copyOf(this.projectIds, capacity);
+      this.flowTerms = Arrays.copyOf(this.flowTerms, capacity);
+      this.userTerms = Arrays.copyOf(this.userTerms, capacity);
+      this.statuses = Arrays.copyOf(this.statuses, capacity);
+      this.startTimes = Arrays.copyOf(this.startTimes, capacity);
+      this.endTimes = Arrays.copyOf(this.endTimes, capacity);
+    }
+    // executions mostly arrive in id order, so this is usually a no-op
+    final int moved = this.size - pos;
+    if (moved > 0) {
+      System.arraycopy(this.execIds, pos, this.execIds, pos + 1, moved);
+      System.arraycopy(this.projectIds, pos, this.projectIds, pos + 1, moved);
+      System.arraycopy(this.flowTerms, pos, this.flowTerms, pos + 1, moved);
+      System.arraycopy(this.userTerms, pos, this.userTerms, pos + 1, moved);
+      System.arraycopy(this.statuses, pos, this.statuses, pos + 1, moved);
+      System.arraycopy(this.startTimes, pos, this.startTimes, pos + 1, moved);
+      System.arraycopy(this.endTimes, pos, this.endTimes, pos + 1, moved);
+    }
+    this.size++;
+  }
+
+  /**
+   * Filters checked against the columns of an execution. Null text filters match everything.
+   */
+  private class Filter {
+
+    private final int status;
+    private final long startTime;
+    private final long endTime;
+    private Set<Integer> projectIds;
+    private BitSet flowTerms;
+    private BitSet userTerms;
+
+    Filter(final int status, final long startTime, final long endTime) {
+      this.status = status;
+      this.startTime = startTime;
+      this.endTime = endTime;
+    }
+
+    boolean matches(final int pos) {
+      final ExecutionSearchIndex index = ExecutionSearchIndex.this;
+      return (this.status == 0 || index.statuses[pos] == this.status)
+          && (this.startTime <= 0 || index.startTimes[pos] > this.startTime)
+          && (this.endTime <= 0 || index.endTimes[pos] < this.endTime)
+          && (this.projectIds == null || this.projectIds.contains(index.projectIds[pos]))
+          && (this.flowTerms == null || matchesTerm(this.flowTerms, index.flowTerms[pos]))
+          && (this.userTerms == null || matchesTerm(this.userTerms, index.userTerms[pos]));
+    }
+
+    private boolean matchesTerm(final BitSet terms, final int term) {
+      return term != NO_TERM && terms.get(term);
+    }
+  }
+
+  /**
+   * Walks several disjoint ascending lists of execution ids as one descending sequence.
+   */
+  private static class DescendingMerge {
+
+    private final PriorityQueue<int[]> cursors =
+        new PriorityQueue<>((a, b) -> Integer.compare(b[1], a[1]));
+    private final List<IntList> lists;
+
+    DescendingMerge(final List<IntList> lists) {
+      this.lists = lists;
+      for (int i = 0; i < lists.size(); i++) {
+        final IntList list = lists.get(i);
+        if (list.size() > 0) {
+          // {list index, current value, current position}
+          this.cursors.add(new int[]{i, list.get(list.size() - 1), list.size() - 1});
+        }
+      }
+    }
+
+    boolean hasNext() {
+      return !this.cursors.isEmpty();
+    }
+
+    int next() {
+      final int[] cursor = this.cursors.poll();
+      final int value = cursor[1];
+      if (cursor[2] > 0) {
+        cursor[2]--;
+        cursor[1] = this.lists.get(cursor[0]).get(cursor[2]);
+        this.cursors.add(cursor);
+      }
+      return value;
+    }
+  }
+
+  /**
+   * Distinct values, with a trigram index to find the values matching a pattern.
+   */
+  static class TermDictionary {
+
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final List<String> terms = new ArrayList<>();
+    private final Map<String, IntList> trigrams = new HashMap<>();
+
+    int add(final String term) {
+      final Integer existing = this.termIds.get(term);
+      if (existing != null) {
+        return existing;
+      }
+      final int id = this.terms.size();
+      this.terms.add(term);
+      this.termIds.put(term, id);
+      for (final String trigram : trigrams(term.toLowerCase(Locale.ROOT))) {
+        this.trigrams.computeIfAbsent(trigram, k -> new IntList()).add(id);
+      }
+      return id;
+    }
+
+    BitSet find(final ContainsPattern pattern) {
+      IntList candidates = null;
+      for (final String trigram : pattern.trigrams) {
+        final IntList ids = this.trigrams.get(trigram);
+        if (ids == null) {
+          return new BitSet();
+        }
+        if (candidates == null || ids.size() < candidates.size()) {
+          candidates = ids;
+        }
+      }
+
+      final BitSet result = new BitSet(this.terms.size());
+      if (candidates == null) {
+        for (int id = 0; id < this.terms.size(); id++) {
+          if (pattern.matches(this.terms.get(id))) {
+            result.set(id);
+          }
+        }
+      } else {
+        for (int i = 0; i < candidates.size(); i++) {
+          final int id = candidates.get(i);
+          if (pattern.matches(this.terms.get(id))) {
+            result.set(id);
+          }
+        }
+      }
+      return result;
+    }
+
+    private static Set<String> trigrams(final String value) {
+      final Set<String> trigrams = new HashSet<>();
+      for (int i = 0; i + 3 <= value.length(); i++) {
+        trigrams.add(value.substring(i, i + 3));
+      }
+      return trigrams;
+    }
+  }
+
+  /**
+   * A LIKE '%...%' filter. '%' matches any sequence and '_' any single character.
+   */
+  static class ContainsPattern {
+
+    // escaped wildcards are left to the DB
+    static final ContainsPattern UNSUPPORTED = new ContainsPattern(null, Collections.emptySet());
+
+    private final Pattern regex;
+    private final Set<String> trigrams;
+
+    private ContainsPattern(final Pattern regex, final Set<String> trigrams) {
+      this.regex = regex;
+      this.trigrams = trigrams;
+    }
+
+    /**
+     * @return the pattern, null if there is no filter or {@link #UNSUPPORTED}.
+     */
+    static ContainsPattern of(final String contains) {
+      if (contains == null || contains.isEmpty()) {
+        return null;
+      }
+      if (contains.indexOf('\\') >= 0) {
+        return UNSUPPORTED;
+      }
+      final StringBuilder regex = new StringBuilder();
+      final Set<String> trigrams = new HashSet<>();
+      int fragmentStart = 0;
+      for (int i = 0; i <= contains.length(); i++) {
+        final char c = i < contains.length() ? contains.charAt(i) : '%';
+        if (c == '%' || c == '_') {
+          final String fragment = contains.substring(fragmentStart, i);
+          if (!fragment.isEmpty()) {
+            regex.append(Pattern.quote(fragment));
+            trigrams.addAll(TermDictionary.trigrams(fragment.toLowerCase(Locale.ROOT)));
+          }
+          if (i < contains.length()) {
+            regex.append(c == '%' ? ".*" : ".");
+          }
+          fragmentStart = i + 1;
+        }
+      }
+      return new ContainsPattern(Pattern.compile(regex.toString(),
+          Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL), trigrams);
+    }
+
+    boolean matches(final String value) {
+      return this.regex.matcher(value).find();
+    }
+  }
+
+  /**
+   * Growable sorted list of ints.
+   */
+  static class IntList {
+
+    private int[] values = new int[4];
+    private int size;
+
+    void add(final int value) {
+      if (this.size > 0 && this.values[this.size - 1] >= value) {
+        final int pos = Arrays.binarySearch(this.values, 0, this.size, value);
+        if (pos >= 0) {
+          return;
+        }
+        insert(-pos - 1, value);
+      } else {
+        insert(this.size, value);
+      }
+    }
+
+    void remove(final int value) {
+      final int pos = Arrays.binarySearch(this.values, 0, this.size, value);
+      if (pos >= 0) {
+        // executions mostly change status while they are recent, near the end of the list
+        System.arraycopy(this.values, pos + 1, this.values, pos, this.size - pos - 1);
+        this.size--;
+      }
+    }
+
+    /**
+     * @return the remaining size.
+     */
+    int removeBelow(final int bound) {
+      int pos = Arrays.binarySearch(this.values, 0, this.size, bound);
+      if (pos < 0) {
+        pos = -pos - 1;
+      }
+      if (pos > 0) {
+        System.arraycopy(this.values, pos, this.values, 0, this.size - pos);
+        this.size -= pos;
+      }
+      return this.size;
+    }
+
+    int get(final int index) {
+      return this.values[index];
+    }
+
+    int size() {
+      return this.size;
+    }
+
+    private void insert(final int pos, final int value) {
+      if (this.size == this.values.length) {
+        this.values = Arrays.copyOf(this.values, this.size + (this.size >> 1) + 1);
+      }
+      System.arraycopy(this.values, pos, this.values, pos + 1, this.size - pos);
+      this.values[pos] = value;
+      this.size++;
+    }
+  }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.executor;
+
+import azkaban.Constants.ConfigurationKeys;
+import azkaban.db.DatabaseOperator;
+import azkaban.utils.Props;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.apache.commons.dbutils.ResultSetHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Builds the {@link ExecutionSearchIndex} of the web server from the DB at startup, then keeps it
+ * up to date with the executions inserted or updated by any server, polled by update_time.
+ *
+ * Searches are not answered by the index until it is fully loaded. Executions changed by other
+ * servers are visible in search results after at most one sync interval.
+ */
+@SuppressWarnings("FutureReturnValueIgnored")
+@Singleton
+public class ExecutionSearchIndexManager {
+
+  private static final Logger logger = LoggerFactory.getLogger(ExecutionSearchIndexManager.class);
+  public static final Duration DEFAULT_SYNC_INTERVAL = Duration.ofSeconds(5);
+  // update_time is set with the clock of the server updating the execution, so each sync reads
+  // again the updates of this period before the previous sync to absorb clock skew.
+  private static final Duration SYNC_OVERLAP = Duration.ofMinutes(1);
+  private static final int LOAD_BATCH_SIZE = 10000;
+
+  private static final String SEARCH_COLUMNS =
+      "SELECT exec_id, project_id, flow_id, submit_user, status, start_time, end_time "
+          + "FROM execution_flows";
+  // executions are loaded in ascending order, so that each one is appended to the index
+  private static final String LOAD_EXECUTIONS = SEARCH_COLUMNS
+      + " WHERE exec_id > ? ORDER BY exec_id LIMIT ?";
+  private static final String FETCH_LOWER_BOUND =
+      "SELECT exec_id FROM execution_flows ORDER BY exec_id DESC LIMIT 1 OFFSET ?";
+  private static final String SYNC_EXECUTIONS = SEARCH_COLUMNS + " WHERE update_time >= ?";
+  private static final String FETCH_PROJECT_NAMES = "SELECT id, name FROM projects";
+
+  private final DatabaseOperator dbOperator;
+  private final boolean enabled;
+  private final long syncIntervalMs;
+  private final int maxExecutions;
+  private final ExecutionSearchIndex index = new ExecutionSearchIndex();
+  // set by start(), before which the updates of this server aren't indexed
+  private volatile boolean started = false;
+  private volatile boolean ready = false;
+  private long lastSyncTime;
+  private ScheduledExecutorService scheduler;
+
+  @Inject
+  public ExecutionSearchIndexManager(final Props azkProps, final DatabaseOperator dbOperator) {
+    this.dbOperator = dbOperator;
+    this.enabled = azkProps.getBoolean(ConfigurationKeys.AZKABAN_EXECUTION_SEARCH_INDEX_ENABLED,
+        false);
+    this.syncIntervalMs = azkProps.getLong(
+        ConfigurationKeys.AZKABAN_EXECUTION_SEARCH_INDEX_SYNC_INTERVAL_MS,
+        DEFAULT_SYNC_INTERVAL.toMillis());
+    this.maxExecutions = azkProps.getInt(
+        ConfigurationKeys.AZKABAN_EXECUTION_SEARCH_INDEX_MAX_EXECUTIONS, 0);
+  }
+
+  public boolean isEnabled() {
+    return this.enabled;
+  }
+
+  /**
+   * Load the index in the background, then sync it at a fixed rate. No-op if the index is
+   * disabled or has already been started.
+   */
+  public synchronized void start() {
+    if (!this.enabled || this.scheduler != null) {
+      return;
+    }
+    logger.info("Starting execution search index.");
+    this.started = true;
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("azk-execution-search-index").setDaemon(true)
+            .build());
+    this.scheduler.execute(this::loadQuietly);
+    this.scheduler.scheduleWithFixedDelay(this::syncQuietly, this.syncIntervalMs,
+        this.syncIntervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  public synchronized void shutdown() {
+    if (this.scheduler != null) {
+      logger.info("Shutting down execution search index.");
+      this.scheduler.shutdownNow();
+      this.scheduler = null;
+      this.started = false;
+    }
+  }
+
+  /**
+   * @return the matching execution ids, newest first, or empty if the search must go to the DB.
+   * @see ExecutionSearchIndex#search(String, String, String, int, long, long, int, int)
+   */
+  public Optional<List<Integer>> search(final String projectNameContains,
+      final String flowNameContains, final String userNameContains, final int status,
+      final long startTime, final long endTime, final int skip, final int num) {
+    if (!this.ready) {
+      return Optional.empty();
+    }
+    return this.index.search(projectNameContains, flowNameContains, userNameContains, status,
+        startTime, endTime, skip, num);
+  }
+
+  /**
+   * Index an execution just inserted or updated by this server, so that it can be searched right
+   * away. No-op until {@link #start()}, so that the index doesn't grow on servers not using it.
+   */
+  public void onUpdated(final ExecutableFlow flow) {
+    if (!this.started) {
+      return;
+    }
+    this.index.index(flow.getExecutionId(), flow.getProjectId(), flow.getFlowId(),
+        flow.getSubmitUser(), flow.getStatus().getNumVal(), flow.getStartTime(),
+        flow.getEndTime());
+    trimIfNeeded();
+  }
+
+  @VisibleForTesting
+  ExecutionSearchIndex getIndex() {
+    return this.index;
+  }
+
+  @VisibleForTesting
+  boolean isReady() {
+    return this.ready;
+  }
+
+  /**
+   * Load the executions in batches, up to the max number of executions, newest ones first.
+   */
+  @VisibleForTesting
+  void load() throws SQLException {
+    final long start = System.currentTimeMillis();
+    loadProjectNames();
+    int lastExecId = Integer.MIN_VALUE;
+    if (this.maxExecutions > 0) {
+      final Integer lowerBound = this.dbOperator.query(FETCH_LOWER_BOUND, rs ->
+          rs.next() ? rs.getInt(1) : null, this.maxExecutions - 1);
+      if (lowerBound != null) {
+        this.index.setLowerBound(lowerBound);
+        lastExecId = lowerBound - 1;
+      }
+    }
+    final IndexExecutions handler = new IndexExecutions();
+    int loaded = 0;
+    int count;
+    do {
+      count = this.dbOperator.query(LOAD_EXECUTIONS, handler, lastExecId, LOAD_BATCH_SIZE);
+      loaded += count;
+      lastExecId = handler.lastExecId;
+    } while (count == LOAD_BATCH_SIZE);
+    this.lastSyncTime = start;
+    this.ready = true;
+    logger.info(String.format("Loaded %d executions in the search index in %d ms.", loaded,
+        System.currentTimeMillis() - start));
+  }
+
+  @VisibleForTesting
+  void sync() throws SQLException {
+    final long start = System.currentTimeMillis();
+    loadProjectNames();
+    final int count = this.dbOperator.query(SYNC_EXECUTIONS, new IndexExecutions(),
+        this.lastSyncTime - SYNC_OVERLAP.toMillis());
+    this.lastSyncTime = start;
+    trimIfNeeded();
+    logger.debug(String.format("Synced %d executions in the search index.", count));
+  }
+
+  private void trimIfNeeded() {
+    // trim with some slack, so that the columns aren't shifted on every new execution
+    if (this.maxExecutions > 0
+        && this.index.size() > this.maxExecutions + this.maxExecutions / 10) {
+      this.index.trimTo(this.maxExecutions);
+    }
+  }
+
+  private void loadProjectNames() throws SQLException {
+    this.dbOperator.query(FETCH_PROJECT_NAMES, rs -> {
+      while (rs.next()) {
+        this.index.setProjectName(rs.getInt(1), rs.getString(2));
+      }
+      return null;
+    });
+  }
+
+  private void loadQuietly() {
+    try {
+      load();
+    } catch (final SQLException | RuntimeException e) {
+      logger.error("Failed to load the execution search index, searches will use the DB.", e);
+    }
+  }
+
+  private void syncQuietly() {
+    if (!this.ready) {
+      return;
+    }
+    try {
+      sync();
+    } catch (final SQLException | RuntimeException e) {
+      logger.error("Failed to sync the execution search index.", e);
+    }
+  }
+
+  /**
+   * Indexes the rows and returns their count.
+   */
+  private class IndexExecutions implements ResultSetHandler<Integer> {
+
+    private int lastExecId;
+
+    @Override
+    public Integer handle(final ResultSet rs) throws SQLException {
+      int count = 0;
+      while (rs.next()) {
+        this.lastExecId = rs.getInt(1);
+        // null times never match the time filters of the DB query
+        long startTime = rs.getLong(6);
+        if (rs.wasNull()) {
+          startTime = Long.MIN_VALUE;
+        }
+        long endTime = rs.getLong(7);
+        if (rs.wasNull()) {
+          endTime = Long.MAX_VALUE;
+        }
+        ExecutionSearchIndexManager.this.index.index(this.lastExecId, rs.getInt(2),
+            rs.getString(3), rs.getString(4), rs.getInt(5), startTime, endTime);
+        count++;
+      }
+      return count;
+    }
+  }
+}
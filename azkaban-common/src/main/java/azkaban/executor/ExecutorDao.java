@@ -17,6 +17,7 @@
 package azkaban.executor;
 
 import azkaban.db.DatabaseOperator;
+import azkaban.db.SQLTransaction;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -148,10 +149,19 @@ public class ExecutorDao {
     }
   }
 
+  /**
+   * Remove the executor, along with its load report so that it isn't mistaken for a live one.
+   */
   void removeExecutor(final String host, final int port) throws ExecutorManagerException {
+    final String DELETE_LOAD = "DELETE FROM executor_load WHERE executor_id IN "
+        + "(SELECT id FROM executors WHERE host=? AND port=?)";
     final String DELETE = "DELETE FROM executors WHERE host=? AND port=?";
+    final SQLTransaction<Integer> removeExecutor = transOperator -> {
+      transOperator.update(DELETE_LOAD, host, port);
+      return transOperator.update(DELETE, host, port);
+    };
     try {
-      final int rows = this.dbOperator.update(DELETE, host, port);
+      final int rows = this.dbOperator.transaction(removeExecutor);
       if (rows == 0) {
         throw new ExecutorManagerException("No executor with host, port :"
             + "(" + host + "," + port + ")");
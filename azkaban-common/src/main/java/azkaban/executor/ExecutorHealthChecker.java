@@ -53,11 +53,13 @@ public class ExecutorHealthChecker {
   private final ExecutorLoader executorLoader;
   private final ExecutorApiGateway apiGateway;
   private final AlerterHolder alerterHolder;
+  private final ExecutorLoadMonitor executorLoadMonitor;
   private final Map<Integer, Integer> executorFailureCount = new HashMap<>();
 
   @Inject
   public ExecutorHealthChecker(final Props azkProps, final ExecutorLoader executorLoader,
-      final ExecutorApiGateway apiGateway, final AlerterHolder alerterHolder) {
+      final ExecutorApiGateway apiGateway, final AlerterHolder alerterHolder,
+      final ExecutorLoadMonitor executorLoadMonitor) {
     this.healthCheckIntervalMin = azkProps
         .getLong(ConfigurationKeys.AZKABAN_EXECUTOR_HEALTHCHECK_INTERVAL_MIN,
             DEFAULT_EXECUTOR_HEALTHCHECK_INTERVAL.toMinutes());
@@ -69,6 +71,7 @@ public class ExecutorHealthChecker {
     this.executorLoader = executorLoader;
     this.apiGateway = apiGateway;
     this.alerterHolder = alerterHolder;
+    this.executorLoadMonitor = executorLoadMonitor;
   }
 
   public void start() {
@@ -132,6 +135,12 @@ public class ExecutorHealthChecker {
       }
 
       final Executor executor = executorOption.get();
+      if (hasFreshLoadReport(executor)) {
+        // Executor pushed a heartbeat recently, no need to ping it.
+        clearFailureCount(executor);
+        continue;
+      }
+
       Optional<ExecutorManagerException> healthcheckException = Optional.empty();
       Map<String, Object> results = null;
       try {
@@ -163,14 +172,34 @@ public class ExecutorHealthChecker {
               + executorDetailString(executor), re);
         }
       } else {
-        // Executor is alive. Clear the failure count.
-        if (this.executorFailureCount.containsKey(executor.getId())) {
-          this.executorFailureCount.put(executor.getId(), 0);
-        }
+        clearFailureCount(executor);
       }
     }
   }
 
+  /**
+   * @return true if load reporting is enabled and the executor pushed a load report recently.
+   * Executors with a stale report are pinged like when load reporting is disabled.
+   */
+  private boolean hasFreshLoadReport(final Executor executor) {
+    if (!this.executorLoadMonitor.isEnabled()) {
+      return false;
+    }
+    if (this.executorLoadMonitor.getFreshReport(executor.getId()).isPresent()) {
+      return true;
+    }
+    logger.warn("Load report of executor is missing or stale, pinging it - "
+        + executorDetailString(executor));
+    return false;
+  }
+
+  private void clearFailureCount(final Executor executor) {
+    // Executor is alive. Clear the failure count.
+    if (this.executorFailureCount.containsKey(executor.getId())) {
+      this.executorFailureCount.put(executor.getId(), 0);
+    }
+  }
+
   /**
    * Finalize given flows with the provided reason.
    *
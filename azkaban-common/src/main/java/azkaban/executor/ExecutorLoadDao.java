@@ -0,0 +1,110 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.executor;
+
+import azkaban.db.DatabaseOperator;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.apache.commons.dbutils.ResultSetHandler;
+
+/**
+ * Reads and writes the latest {@link ExecutorLoadReport} of each executor. There is a single row
+ * per executor, overwritten by every report.
+ */
+@Singleton
+public class ExecutorLoadDao {
+
+  private static final String UPDATE_EXECUTOR_LOAD =
+      "UPDATE executor_load SET cpu_usage=?, remaining_memory_mb=?, remaining_memory_percent=?, "
+          + "remaining_flow_capacity=?, num_running_flows=?, num_queued_flows=?, "
+          + "last_dispatched_time=?, report_time=? WHERE executor_id=?";
+
+  private static final String INSERT_EXECUTOR_LOAD =
+      "INSERT INTO executor_load (cpu_usage, remaining_memory_mb, remaining_memory_percent, "
+          + "remaining_flow_capacity, num_running_flows, num_queued_flows, last_dispatched_time, "
+          + "report_time, executor_id) values (?,?,?,?,?,?,?,?,?)";
+
+  private final DatabaseOperator dbOperator;
+
+  @Inject
+  public ExecutorLoadDao(final DatabaseOperator dbOperator) {
+    this.dbOperator = dbOperator;
+  }
+
+  /**
+   * Store the report as the latest one of its executor.
+   */
+  public void updateExecutorLoad(final ExecutorLoadReport report)
+      throws ExecutorManagerException {
+    final ExecutorInfo info = report.getExecutorInfo();
+    final Object[] params = {info.getCpuUsage(), info.getRemainingMemoryInMB(),
+        info.getRemainingMemoryPercent(), info.getRemainingFlowCapacity(),
+        report.getNumRunningFlows(), report.getNumQueuedFlows(), info.getLastDispatchedTime(),
+        report.getReportTime(), report.getExecutorId()};
+    try {
+      // Only the executor itself writes its row, so update-then-insert can't race.
+      if (this.dbOperator.update(UPDATE_EXECUTOR_LOAD, params) == 0) {
+        this.dbOperator.update(INSERT_EXECUTOR_LOAD, params);
+      }
+    } catch (final SQLException e) {
+      throw new ExecutorManagerException(
+          "Failed to update load of executor id : " + report.getExecutorId(), e);
+    }
+  }
+
+  /**
+   * @return the latest report of every executor which has reported its load.
+   */
+  public List<ExecutorLoadReport> fetchExecutorLoads() throws ExecutorManagerException {
+    try {
+      return this.dbOperator.query(ExecutorLoadResultHandler.SELECT_EXECUTOR_LOADS,
+          new ExecutorLoadResultHandler());
+    } catch (final SQLException e) {
+      throw new ExecutorManagerException("Failed to fetch executor loads", e);
+    }
+  }
+
+  /**
+   * JDBC ResultSetHandler to fetch records from executor_load table
+   */
+  private static class ExecutorLoadResultHandler implements
+      ResultSetHandler<List<ExecutorLoadReport>> {
+
+    private static final String SELECT_EXECUTOR_LOADS =
+        "SELECT executor_id, cpu_usage, remaining_memory_mb, remaining_memory_percent, "
+            + "remaining_flow_capacity, num_running_flows, num_queued_flows, "
+            + "last_dispatched_time, report_time FROM executor_load";
+
+    @Override
+    public List<ExecutorLoadReport> handle(final ResultSet rs) throws SQLException {
+      final List<ExecutorLoadReport> reports = new ArrayList<>();
+      while (rs.next()) {
+        final int numRunningFlows = rs.getInt(6);
+        final int numQueuedFlows = rs.getInt(7);
+        final ExecutorInfo info = new ExecutorInfo(rs.getDouble(4), rs.getLong(3), rs.getInt(5),
+            rs.getLong(8), rs.getDouble(2), numRunningFlows + numQueuedFlows);
+        reports.add(new ExecutorLoadReport(rs.getInt(1), info, numRunningFlows, numQueuedFlows,
+            rs.getLong(9)));
+      }
+      return reports;
+    }
+  }
+}
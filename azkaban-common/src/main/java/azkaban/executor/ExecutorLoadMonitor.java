@@ -0,0 +1,146 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.executor;
+
+import azkaban.Constants.ConfigurationKeys;
+import azkaban.utils.Props;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the latest load report pushed by each executor, refreshed from the DB at a fixed rate.
+ *
+ * Readers such as executor selection and {@link ExecutorHealthChecker} only look up an in-memory
+ * map, so they never wait on the DB or on executors. A report older than the stale threshold is
+ * not returned: it usually means the executor is down or can't reach the DB.
+ *
+ * <p>It is started and shut down by the web server, whichever of executor selection and
+ * {@link ExecutorHealthChecker} reads it.
+ */
+@SuppressWarnings("FutureReturnValueIgnored")
+@Singleton
+public class ExecutorLoadMonitor {
+
+  private static final Logger logger = LoggerFactory.getLogger(ExecutorLoadMonitor.class);
+  public static final Duration DEFAULT_REPORT_INTERVAL = Duration.ofSeconds(5);
+  public static final Duration DEFAULT_STALE_THRESHOLD = Duration.ofSeconds(30);
+
+  private final ExecutorLoadDao executorLoadDao;
+  private final boolean enabled;
+  private final long refreshIntervalMs;
+  private final long staleThresholdMs;
+  private final Map<Integer, ExecutorLoadReport> latestReports = new ConcurrentHashMap<>();
+  private ScheduledExecutorService scheduler;
+
+  @Inject
+  public ExecutorLoadMonitor(final Props azkProps, final ExecutorLoadDao executorLoadDao) {
+    this.executorLoadDao = executorLoadDao;
+    this.enabled = azkProps.getBoolean(ConfigurationKeys.AZKABAN_EXECUTOR_LOAD_REPORT_ENABLED,
+        false);
+    this.refreshIntervalMs = azkProps.getLong(
+        ConfigurationKeys.AZKABAN_EXECUTOR_LOAD_REPORT_INTERVAL_MS,
+        DEFAULT_REPORT_INTERVAL.toMillis());
+    this.staleThresholdMs = azkProps.getLong(
+        ConfigurationKeys.AZKABAN_EXECUTOR_LOAD_REPORT_STALE_THRESHOLD_MS,
+        DEFAULT_STALE_THRESHOLD.toMillis());
+  }
+
+  public boolean isEnabled() {
+    return this.enabled;
+  }
+
+  /**
+   * Start refreshing reports from the DB. No-op if load reporting is disabled or the monitor has
+   * already been started.
+   */
+  public synchronized void start() {
+    if (!this.enabled || this.scheduler != null) {
+      return;
+    }
+    logger.info("Starting executor load monitor.");
+    refreshQuietly();
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("azk-executor-load-monitor").setDaemon(true)
+            .build());
+    this.scheduler.scheduleAtFixedRate(this::refreshQuietly, this.refreshIntervalMs,
+        this.refreshIntervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  public synchronized void shutdown() {
+    if (this.scheduler != null) {
+      logger.info("Shutting down executor load monitor.");
+      this.scheduler.shutdownNow();
+      this.scheduler = null;
+    }
+  }
+
+  /**
+   * @return the latest report of the executor, or empty if it never reported or the report is
+   * stale.
+   */
+  public Optional<ExecutorLoadReport> getFreshReport(final int executorId) {
+    final ExecutorLoadReport report = this.latestReports.get(executorId);
+    if (report == null || isStale(report, System.currentTimeMillis())) {
+      return Optional.empty();
+    }
+    return Optional.of(report);
+  }
+
+  /**
+   * @return the latest report of the executor, fresh or not.
+   */
+  public Optional<ExecutorLoadReport> getLatestReport(final int executorId) {
+    return Optional.ofNullable(this.latestReports.get(executorId));
+  }
+
+  @VisibleForTesting
+  boolean isStale(final ExecutorLoadReport report, final long now) {
+    return now - report.getReportTime() > this.staleThresholdMs;
+  }
+
+  @VisibleForTesting
+  void refresh() throws ExecutorManagerException {
+    final Set<Integer> reportedIds = new HashSet<>();
+    for (final ExecutorLoadReport report : this.executorLoadDao.fetchExecutorLoads()) {
+      this.latestReports.put(report.getExecutorId(), report);
+      reportedIds.add(report.getExecutorId());
+    }
+    // Forget the executors removed since the last refresh
+    this.latestReports.keySet().retainAll(reportedIds);
+  }
+
+  private void refreshQuietly() {
+    try {
+      refresh();
+    } catch (final ExecutorManagerException | RuntimeException e) {
+      logger.error("Failed to refresh executor load reports.", e);
+    }
+  }
+}
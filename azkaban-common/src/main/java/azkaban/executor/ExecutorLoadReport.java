@@ -0,0 +1,66 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.executor;
+
+/**
+ * Load heartbeat pushed by an executor: its {@link ExecutorInfo} statistics plus the number of
+ * running and queued flows, and the time at which they were taken.
+ */
+public class ExecutorLoadReport {
+
+  private final int executorId;
+  private final ExecutorInfo executorInfo;
+  private final int numRunningFlows;
+  private final int numQueuedFlows;
+  private final long reportTime;
+
+  public ExecutorLoadReport(final int executorId, final ExecutorInfo executorInfo,
+      final int numRunningFlows, final int numQueuedFlows, final long reportTime) {
+    this.executorId = executorId;
+    this.executorInfo = executorInfo;
+    this.numRunningFlows = numRunningFlows;
+    this.numQueuedFlows = numQueuedFlows;
+    this.reportTime = reportTime;
+  }
+
+  public int getExecutorId() {
+    return this.executorId;
+  }
+
+  public ExecutorInfo getExecutorInfo() {
+    return this.executorInfo;
+  }
+
+  public int getNumRunningFlows() {
+    return this.numRunningFlows;
+  }
+
+  public int getNumQueuedFlows() {
+    return this.numQueuedFlows;
+  }
+
+  public long getReportTime() {
+    return this.reportTime;
+  }
+
+  @Override
+  public String toString() {
+    return "ExecutorLoadReport{executorId=" + this.executorId + ", executorInfo="
+        + this.executorInfo + ", numRunningFlows=" + this.numRunningFlows + ", numQueuedFlows="
+        + this.numQueuedFlows + ", reportTime=" + this.reportTime + '}';
+  }
+}
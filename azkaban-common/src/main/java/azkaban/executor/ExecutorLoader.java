@@ -21,6 +21,7 @@ import azkaban.utils.Pair;
 import azkaban.utils.Props;
 import java.io.File;
 import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -65,6 +66,23 @@ public interface ExecutorLoader {
   List<ExecutableFlow> fetchFlowHistory(final int projectId, final String flowId,
       final long startTime) throws ExecutorManagerException;
 
+  /**
+   * Same as the fetchFlowHistory variants, but only reads the indexed columns of the executions
+   * and never the flow data, for listings which don't need the full flow.
+   */
+  List<ExecutionSummary> fetchFlowHistorySummaries(int skip, int num)
+      throws ExecutorManagerException;
+
+  List<ExecutionSummary> fetchFlowHistorySummaries(int projectId, String flowId, int skip,
+      int num) throws ExecutorManagerException;
+
+  List<ExecutionSummary> fetchFlowHistorySummaries(int projectId, String flowId, int skip,
+      int num, Status status) throws ExecutorManagerException;
+
+  List<ExecutionSummary> fetchFlowHistorySummaries(String projContain, String flowContains,
+      String userNameContains, int status, long startData, long endData, int skip, int num)
+      throws ExecutorManagerException;
+
   /**
    * <pre>
    * Fetch all executors from executors table
@@ -309,10 +327,20 @@ public interface ExecutorLoader {
 
   void unsetExecutorIdForExecution(final int executionId) throws ExecutorManagerException;
 
-  int selectAndUpdateExecution(final int executorId, boolean isActive)
+  /**
+   * Claim up to limit queued executions for the executor.
+   *
+   * @return the claimed execution ids, empty if none is queued
+   */
+  List<Integer> selectAndUpdateExecutions(int executorId, boolean isActive, int limit)
       throws ExecutorManagerException;
 
-  int selectAndUpdateExecutionWithLocking(final int executorId, boolean isActive)
+  /**
+   * Claim up to limit queued executions for the executor, holding the polling lock.
+   *
+   * @return the claimed execution ids, empty if none is queued or the lock wasn't acquired
+   */
+  List<Integer> selectAndUpdateExecutionsWithLocking(int executorId, boolean isActive, int limit)
       throws ExecutorManagerException;
 
   /**
@@ -330,6 +358,15 @@ public interface ExecutorLoader {
   Set<Integer> selectAndUpdateExecutionWithLocking(final boolean batchEnabled, final int limit,
       Status updatedStatus) throws ExecutorManagerException;
 
+  /**
+   * Move the executions which are still in the expected status to the new status in a single
+   * update, without rewriting their flow data.
+   *
+   * @return the number of updated executions
+   */
+  int updateExecutionStatuses(Collection<Integer> execIds, Status expectedStatus,
+      Status newStatus) throws ExecutorManagerException;
+
   ExecutableRampMap fetchExecutableRampMap()
       throws ExecutorManagerException;
 
@@ -21,6 +21,8 @@ import azkaban.Constants.ConfigurationKeys;
 import azkaban.DispatchMethod;
 import azkaban.executor.selector.ExecutorComparator;
 import azkaban.executor.selector.ExecutorFilter;
+import azkaban.executor.selector.ExecutorScoringSelector;
+import azkaban.executor.selector.ExecutorScoringSelector.FlowMemoryEstimator;
 import azkaban.executor.selector.ExecutorSelector;
 import azkaban.metrics.CommonMetrics;
 import azkaban.utils.FileIOUtils.LogData;
@@ -36,12 +38,15 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -70,12 +75,18 @@ public class ExecutorManager extends AbstractExecutorManagerAdapter {
   private final ExecutionFinalizer executionFinalizer;
   private final ActiveExecutors activeExecutors;
   private final ExecutorService executorInfoRefresherService;
+  private final ExecutorLoadMonitor executorLoadMonitor;
+  private final FlowMemoryEstimator flowMemoryEstimator;
   QueuedExecutions queuedFlows;
   File cacheDir;
   private QueueProcessorThread queueProcessor;
   private volatile Pair<ExecutionReference, ExecutableFlow> runningCandidate = null;
+  // flows taken off the queue by a dispatch batch, until they are dispatched or re-queued
+  private final Map<Integer, Pair<ExecutionReference, ExecutableFlow>> dispatchingFlows =
+      new ConcurrentHashMap<>();
   private List<String> filterList;
   private Map<String, Integer> comparatorWeightsMap;
+  private ExecutorScoringSelector scoringSelector;
   private long lastSuccessfulExecutorInfoRefresh;
   private Duration sleepAfterDispatchFailure = Duration.ofSeconds(1L);
   private boolean initialized = false;
@@ -88,7 +99,9 @@ public class ExecutorManager extends AbstractExecutorManagerAdapter {
       final ActiveExecutors activeExecutors,
       final ExecutorManagerUpdaterStage updaterStage,
       final ExecutionFinalizer executionFinalizer,
-      final RunningExecutionsUpdaterThread updaterThread) {
+      final RunningExecutionsUpdaterThread updaterThread,
+      final ExecutorLoadMonitor executorLoadMonitor,
+      final FlowMemoryEstimator flowMemoryEstimator) {
     super(azkProps, executorLoader, commonMetrics, apiGateway);
     this.runningExecutions = runningExecutions;
     this.activeExecutors = activeExecutors;
@@ -98,6 +111,8 @@ public class ExecutorManager extends AbstractExecutorManagerAdapter {
     this.maxConcurrentRunsOneFlow = ExecutorUtils.getMaxConcurrentRunsOneFlow(azkProps);
     this.maxConcurrentRunsPerFlowMap = ExecutorUtils.getMaxConcurentRunsPerFlowMap(azkProps);
     this.executorInfoRefresherService = createExecutorInfoRefresherService();
+    this.executorLoadMonitor = executorLoadMonitor;
+    this.flowMemoryEstimator = flowMemoryEstimator;
   }
 
   void initialize() throws ExecutorManagerException {
@@ -114,6 +129,10 @@ public class ExecutorManager extends AbstractExecutorManagerAdapter {
     // TODO extract QueueProcessor as a separate class, move all of this into it
     setupExecutorComparatorWeightsMap();
     setupExecutorFilterList();
+    if (this.azkProps.getBoolean(ConfigurationKeys.EXECUTOR_SELECTOR_SCORING_ENABLED, false)) {
+      this.scoringSelector = new ExecutorScoringSelector(this.filterList,
+          this.comparatorWeightsMap, this.flowMemoryEstimator);
+    }
     this.queueProcessor = setupQueueProcessor();
   }
 
@@ -133,7 +152,10 @@ public class ExecutorManager extends AbstractExecutorManagerAdapter {
         this.azkProps.getInt(
             Constants.ConfigurationKeys.MAX_DISPATCHING_ERRORS_PERMITTED,
             this.activeExecutors.getAll().size()),
-        this.sleepAfterDispatchFailure);
+        this.sleepAfterDispatchFailure,
+        this.azkProps.getInt(ConfigurationKeys.QUEUEPROCESSING_DISPATCH_BATCH_SIZE, 1),
+        this.azkProps.getInt(ConfigurationKeys.QUEUEPROCESSING_MAX_IN_FLIGHT_PER_EXECUTOR, 4),
+        this.azkProps.getInt(ConfigurationKeys.QUEUEPROCESSING_DISPATCH_THREADS, 10));
   }
 
   private void setupExecutorComparatorWeightsMap() {
@@ -191,6 +213,10 @@ public class ExecutorManager extends AbstractExecutorManagerAdapter {
    * Refresh Executor stats for all the actie executors in this executorManager
    */
   private void refreshExecutors() {
+    if (this.executorLoadMonitor.isEnabled()) {
+      refreshExecutorsFromLoadReports();
+      return;
+    }
 
     final List<Pair<Executor, Future<ExecutorInfo>>> futures =
         new ArrayList<>();
@@ -233,6 +259,28 @@ public class ExecutorManager extends AbstractExecutorManagerAdapter {
     }
   }
 
+  /**
+   * Refresh Executor stats from the load reports pushed by executors. Executors without a fresh
+   * report are left without ExecutorInfo, same as when polling them fails.
+   */
+  private void refreshExecutorsFromLoadReports() {
+    boolean wasSuccess = true;
+    for (final Executor executor : this.activeExecutors.getAll()) {
+      final Optional<ExecutorLoadReport> report = this.executorLoadMonitor
+          .getFreshReport(executor.getId());
+      if (report.isPresent()) {
+        executor.setExecutorInfo(report.get().getExecutorInfo());
+      } else {
+        wasSuccess = false;
+        executor.setExecutorInfo(null);
+        logger.warn("No fresh load report for executor : " + executor);
+      }
+    }
+    if (wasSuccess) {
+      this.lastSuccessfulExecutorInfoRefresh = System.currentTimeMillis();
+    }
+  }
+
   /**
    * @see azkaban.executor.ExecutorManagerAdapter#disableQueueProcessorThread()
    */
@@ -393,6 +441,8 @@ public class ExecutorManager extends AbstractExecutorManagerAdapter {
               ExecutorUtils.getRunningFlowsHelper(projectId, flowId,
                   Lists.newArrayList(this.runningCandidate)));
     }
+    executionIds.addAll(ExecutorUtils.getRunningFlowsHelper(projectId, flowId,
+        this.dispatchingFlows.values()));
     executionIds.addAll(ExecutorUtils.getRunningFlowsHelper(projectId, flowId,
         this.runningExecutions.get().values()));
     Collections.sort(executionIds);
@@ -716,6 +766,12 @@ public class ExecutorManager extends AbstractExecutorManagerAdapter {
     private final long activeExecutorRefreshWindowInMillisec;
     private final int activeExecutorRefreshWindowInFlows;
     private final Duration sleepAfterDispatchFailure;
+    private final int dispatchBatchSize;
+    private final int maxInFlightPerExecutor;
+    // only used when dispatching in batches
+    private final ExecutorService dispatcherService;
+    // executors which failed to take a flow being dispatched in batches, by execution id
+    private final Map<Integer, Set<Executor>> failedExecutors = new ConcurrentHashMap<>();
 
     private volatile boolean shutdown = false;
     private volatile boolean isActive = true;
@@ -724,7 +780,10 @@ public class ExecutorManager extends AbstractExecutorManagerAdapter {
         final long activeExecutorRefreshWindowInTime,
         final int activeExecutorRefreshWindowInFlows,
         final int maxDispatchingErrors,
-        final Duration sleepAfterDispatchFailure) {
+        final Duration sleepAfterDispatchFailure,
+        final int dispatchBatchSize,
+        final int maxInFlightPerExecutor,
+        final int dispatchThreads) {
       setActive(isActive);
       this.maxDispatchingErrors = maxDispatchingErrors;
       this.activeExecutorRefreshWindowInFlows =
@@ -732,6 +791,11 @@ public class ExecutorManager extends AbstractExecutorManagerAdapter {
       this.activeExecutorRefreshWindowInMillisec =
           activeExecutorRefreshWindowInTime;
       this.sleepAfterDispatchFailure = sleepAfterDispatchFailure;
+      this.dispatchBatchSize = dispatchBatchSize;
+      this.maxInFlightPerExecutor = maxInFlightPerExecutor;
+      this.dispatcherService = dispatchBatchSize > 1 ? Executors.newFixedThreadPool(
+          dispatchThreads,
+          new ThreadFactoryBuilder().setNameFormat("azk-dispatcher-pool-%d").build()) : null;
       this.setName("AzkabanWebServer-QueueProcessor-Thread");
     }
 
@@ -747,6 +811,9 @@ public class ExecutorManager extends AbstractExecutorManagerAdapter {
     public void shutdown() {
       this.shutdown = true;
       this.interrupt();
+      if (this.dispatcherService != null) {
+        this.dispatcherService.shutdownNow();
+      }
     }
 
     @Override
@@ -756,7 +823,9 @@ public class ExecutorManager extends AbstractExecutorManagerAdapter {
         synchronized (this) {
           try {
             // start processing queue if active, other wait for sometime
-            if (this.isActive) {
+            if (this.isActive && this.dispatcherService != null) {
+              processQueuedFlowsInBatches();
+            } else if (this.isActive) {
               processQueuedFlows(this.activeExecutorRefreshWindowInMillisec,
                   this.activeExecutorRefreshWindowInFlows);
             }
@@ -790,6 +859,10 @@ public class ExecutorManager extends AbstractExecutorManagerAdapter {
             || currentContinuousFlowProcessed >= maxContinuousFlowProcessed) {
           // Refresh executorInfo for all activeExecutors
           refreshExecutors();
+          if (ExecutorManager.this.scoringSelector != null) {
+            ExecutorManager.this.scoringSelector.refresh(
+                ExecutorManager.this.activeExecutors.getAll());
+          }
           lastExecutorRefreshTime = currentTime;
           currentContinuousFlowProcessed = 0;
         }
@@ -830,6 +903,178 @@ public class ExecutorManager extends AbstractExecutorManagerAdapter {
       }
     }
 
+    /**
+     * Takes up to dispatchBatchSize queued flows at a time, plans an executor for each of them
+     * against a snapshot of executor statistics, then dispatches them concurrently. Like {@link
+     * #processQueuedFlows}, the snapshot is only refreshed once the refresh window has passed or
+     * the refresh window of flows has been dispatched.
+     */
+    private void processQueuedFlowsInBatches() throws InterruptedException {
+      long lastExecutorRefreshTime = 0;
+      int flowsDispatchedSinceRefresh = 0;
+      // flows planned on each executor since the snapshot, which its capacity doesn't show yet
+      final Map<Executor, Integer> plannedSinceRefresh = new HashMap<>();
+      while (isActive()) {
+        final List<Pair<ExecutionReference, ExecutableFlow>> batch =
+            ExecutorManager.this.queuedFlows.fetchHeads(this.dispatchBatchSize);
+        for (final Pair<ExecutionReference, ExecutableFlow> pair : batch) {
+          ExecutorManager.this.dispatchingFlows.put(pair.getSecond().getExecutionId(), pair);
+        }
+        final long startTime = System.currentTimeMillis();
+        if (startTime - lastExecutorRefreshTime > this.activeExecutorRefreshWindowInMillisec
+            || flowsDispatchedSinceRefresh >= this.activeExecutorRefreshWindowInFlows) {
+          refreshExecutors();
+          if (ExecutorManager.this.scoringSelector != null) {
+            ExecutorManager.this.scoringSelector.refresh(
+                ExecutorManager.this.activeExecutors.getAll());
+          }
+          lastExecutorRefreshTime = startTime;
+          flowsDispatchedSinceRefresh = 0;
+          plannedSinceRefresh.clear();
+        }
+        final int planned = dispatchBatch(batch, plannedSinceRefresh);
+        flowsDispatchedSinceRefresh += planned;
+        ExecutorManager.this.commonMetrics
+            .recordDispatchBatch(batch.size(), System.currentTimeMillis() - startTime);
+
+        if (planned == 0) {
+          // all executors are busy, wait for them to free up and refresh again
+          Thread.sleep(this.activeExecutorRefreshWindowInMillisec);
+          lastExecutorRefreshTime = 0;
+        }
+      }
+    }
+
+    /**
+     * Plans an executor for every flow of the batch in queue order and dispatches each flow as
+     * soon as it is planned. No executor is planned more than maxInFlightPerExecutor flows per
+     * batch, or more than its remaining flow capacity since the last refresh. Flows left without
+     * an executor are re-queued, and only count as dispatch failures if no executor would take
+     * them regardless of maxInFlightPerExecutor. Returns once all dispatches are done.
+     *
+     * @param plannedSinceRefresh flows planned on each executor since the last refresh, updated
+     * with the flows of the batch
+     * @return number of flows an executor was planned for
+     */
+    private int dispatchBatch(final List<Pair<ExecutionReference, ExecutableFlow>> batch,
+        final Map<Executor, Integer> plannedSinceRefresh) throws InterruptedException {
+      final Collection<Executor> executors = ExecutorManager.this.activeExecutors.getAll();
+      final Map<Executor, Integer> plannedFlows = new HashMap<>();
+      final List<Future<?>> dispatches = new ArrayList<>();
+      for (final Pair<ExecutionReference, ExecutableFlow> pair : batch) {
+        final ExecutionReference reference = pair.getFirst();
+        final ExecutableFlow exflow = pair.getSecond();
+        exflow.setUpdateTime(System.currentTimeMillis());
+        final Executor selectedExecutor = selectExecutor(exflow, getBatchCandidates(executors,
+            plannedFlows, plannedSinceRefresh, exflow.getExecutionId()));
+        if (selectedExecutor == null) {
+          // not a failure if the in-flight cap of the batch is all that held the flow back
+          if (selectExecutor(exflow, getBatchCandidates(executors, Collections.emptyMap(),
+              plannedSinceRefresh, exflow.getExecutionId())) == null) {
+            ExecutorManager.this.commonMetrics.markDispatchFail();
+          }
+          requeue(reference, exflow);
+          continue;
+        }
+        plannedFlows.merge(selectedExecutor, 1, Integer::sum);
+        plannedSinceRefresh.merge(selectedExecutor, 1, Integer::sum);
+        // ranks the executor for the rest of the batch, undone if the dispatch fails
+        if (ExecutorManager.this.scoringSelector != null) {
+          ExecutorManager.this.scoringSelector.onDispatched(selectedExecutor, exflow);
+        }
+        dispatches.add(this.dispatcherService
+            .submit(() -> dispatchPlannedFlow(reference, exflow, selectedExecutor)));
+      }
+
+      for (final Future<?> dispatch : dispatches) {
+        try {
+          dispatch.get();
+        } catch (final ExecutionException e) {
+          ExecutorManager.logger.error("Unexpected error while dispatching a queued flow",
+              e.getCause());
+        }
+      }
+      return plannedFlows.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    private Set<Executor> getBatchCandidates(final Collection<Executor> executors,
+        final Map<Executor, Integer> plannedFlows,
+        final Map<Executor, Integer> plannedSinceRefresh, final int executionId) {
+      final Set<Executor> failed = this.failedExecutors
+          .getOrDefault(executionId, Collections.emptySet());
+      final Set<Executor> candidates = new HashSet<>();
+      for (final Executor executor : executors) {
+        if (plannedFlows.getOrDefault(executor, 0) >= this.maxInFlightPerExecutor
+            || failed.contains(executor)) {
+          continue;
+        }
+        // flows planned since the snapshot use up the capacity seen in it
+        final int planned = plannedSinceRefresh.getOrDefault(executor, 0);
+        final ExecutorInfo stats = executor.getExecutorInfo();
+        if (stats != null && planned > 0 && planned >= stats.getRemainingFlowCapacity()) {
+          continue;
+        }
+        candidates.add(executor);
+      }
+      return candidates;
+    }
+
+    /**
+     * Dispatch a flow of a batch to its planned executor. A flow that fails is re-queued, to be
+     * planned on another executor by a later batch, until it reaches maxDispatchingErrors.
+     */
+    private void dispatchPlannedFlow(final ExecutionReference reference,
+        final ExecutableFlow exflow, final Executor selectedExecutor) {
+      final int executionId = exflow.getExecutionId();
+      synchronized (exflow) {
+        try {
+          dispatch(reference, exflow, selectedExecutor);
+          ExecutorManager.this.commonMetrics.markDispatchSuccess();
+          this.failedExecutors.remove(executionId);
+          ExecutorManager.this.dispatchingFlows.remove(executionId);
+          return;
+        } catch (final ExecutorManagerException e) {
+          logFailedDispatchAttempt(reference, exflow, selectedExecutor, e);
+          if (ExecutorManager.this.scoringSelector != null) {
+            ExecutorManager.this.scoringSelector.onDispatchFailed(selectedExecutor, exflow);
+          }
+          ExecutorManager.this.commonMetrics.markDispatchFail();
+          ExecutorManager.this.commonMetrics.markDispatchFail(selectedExecutor.getId());
+          reference.setNumErrors(reference.getNumErrors() + 1);
+          if (reference.getNumErrors() >= this.maxDispatchingErrors) {
+            this.failedExecutors.remove(executionId);
+            ExecutorManager.this.dispatchingFlows.remove(executionId);
+            final String message = "Failed to dispatch queued execution " + exflow.getId()
+                + " because reached " + ConfigurationKeys.MAX_DISPATCHING_ERRORS_PERMITTED
+                + " (tried " + reference.getNumErrors() + " executors)";
+            ExecutorManager.logger.error(message);
+            ExecutorManager.this.executionFinalizer.finalizeFlow(exflow, message, e);
+            return;
+          }
+          final Set<Executor> failed = this.failedExecutors
+              .computeIfAbsent(executionId, id -> ConcurrentHashMap.newKeySet());
+          failed.add(selectedExecutor);
+          if (failed.containsAll(ExecutorManager.this.activeExecutors.getAll())) {
+            // FAILED ON ALL EXECUTORS - start over after a while
+            failed.clear();
+            sleepAfterDispatchFailure();
+          }
+        }
+      }
+      requeue(reference, exflow);
+    }
+
+    private void requeue(final ExecutionReference reference, final ExecutableFlow exflow) {
+      try {
+        handleNoExecutorSelectedCase(reference, exflow);
+      } catch (final ExecutorManagerException e) {
+        ExecutorManager.logger.error("Failed to re-queue execution " + exflow.getExecutionId(), e);
+      } finally {
+        // only once it's back in the queue, so the flow is always seen as active
+        ExecutorManager.this.dispatchingFlows.remove(exflow.getExecutionId());
+      }
+    }
+
     /* process flow with a snapshot of available Executors */
     private void selectExecutorAndDispatchFlow(final ExecutionReference reference,
         final ExecutableFlow exflow)
@@ -849,6 +1094,9 @@ public class ExecutorManager extends AbstractExecutorManagerAdapter {
             try {
               dispatch(reference, exflow, selectedExecutor);
               ExecutorManager.this.commonMetrics.markDispatchSuccess();
+              if (ExecutorManager.this.scoringSelector != null) {
+                ExecutorManager.this.scoringSelector.onDispatched(selectedExecutor, exflow);
+              }
               // SUCCESS - exit
               return;
             } catch (final ExecutorManagerException e) {
@@ -946,9 +1194,14 @@ public class ExecutorManager extends AbstractExecutorManagerAdapter {
       if (choosenExecutor == null) {
         ExecutorManager.logger.info("Using dispatcher for execution id :"
             + exflow.getExecutionId());
-        final ExecutorSelector selector = new ExecutorSelector(ExecutorManager.this.filterList,
-            ExecutorManager.this.comparatorWeightsMap);
-        choosenExecutor = selector.getBest(availableExecutors, exflow);
+        if (ExecutorManager.this.scoringSelector != null) {
+          choosenExecutor = ExecutorManager.this.scoringSelector
+              .getBest(availableExecutors, exflow);
+        } else {
+          final ExecutorSelector selector = new ExecutorSelector(ExecutorManager.this.filterList,
+              ExecutorManager.this.comparatorWeightsMap);
+          choosenExecutor = selector.getBest(availableExecutors, exflow);
+        }
       }
       return choosenExecutor;
     }
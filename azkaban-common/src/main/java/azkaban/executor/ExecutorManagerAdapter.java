@@ -56,22 +56,21 @@ public interface ExecutorManagerAdapter {
 
   public List<ExecutableFlow> getRecentlyFinishedFlows();
 
-  public List<ExecutableFlow> getExecutableFlows(int skip, int size)
+  public List<ExecutionSummary> getExecutionSummaries(int skip, int size)
       throws ExecutorManagerException;
 
-  public List<ExecutableFlow> getExecutableFlows(String flowIdContains,
-      int skip, int size) throws ExecutorManagerException;
-
-  public List<ExecutableFlow> getExecutableFlows(String projContain,
-      String flowContain, String userContain, int status, long begin, long end,
-      int skip, int size) throws ExecutorManagerException;
+  public List<ExecutionSummary> getExecutionSummaries(String flowIdContains, int skip, int size)
+      throws ExecutorManagerException;
 
-  public int getExecutableFlows(int projectId, String flowId, int from,
-      int length, List<ExecutableFlow> outputList)
+  public List<ExecutionSummary> getExecutionSummaries(String projContain, String flowContain,
+      String userContain, int status, long begin, long end, int skip, int size)
       throws ExecutorManagerException;
 
-  public List<ExecutableFlow> getExecutableFlows(int projectId, String flowId,
-      int from, int length, Status status) throws ExecutorManagerException;
+  public int getExecutionSummaries(int projectId, String flowId, int from, int length,
+      List<ExecutionSummary> outputList) throws ExecutorManagerException;
+
+  public List<ExecutionSummary> getExecutionSummaries(int projectId, String flowId, int from,
+      int length, Status status) throws ExecutorManagerException;
 
   public List<ExecutableJobInfo> getExecutableJobs(Project project,
       String jobId, int skip, int size) throws ExecutorManagerException;
@@ -21,6 +21,7 @@ import azkaban.utils.Pair;
 import azkaban.utils.Props;
 import java.io.File;
 import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -190,6 +191,34 @@ public class JdbcExecutorLoader implements ExecutorLoader {
         userNameContains, status, startTime, endTime, skip, num);
   }
 
+  @Override
+  public List<ExecutionSummary> fetchFlowHistorySummaries(final int skip, final int num)
+      throws ExecutorManagerException {
+    return this.executionFlowDao.fetchFlowHistorySummaries(skip, num);
+  }
+
+  @Override
+  public List<ExecutionSummary> fetchFlowHistorySummaries(final int projectId,
+      final String flowId, final int skip, final int num) throws ExecutorManagerException {
+    return this.executionFlowDao.fetchFlowHistorySummaries(projectId, flowId, skip, num);
+  }
+
+  @Override
+  public List<ExecutionSummary> fetchFlowHistorySummaries(final int projectId,
+      final String flowId, final int skip, final int num, final Status status)
+      throws ExecutorManagerException {
+    return this.executionFlowDao.fetchFlowHistorySummaries(projectId, flowId, skip, num, status);
+  }
+
+  @Override
+  public List<ExecutionSummary> fetchFlowHistorySummaries(final String projContain,
+      final String flowContains, final String userNameContains, final int status,
+      final long startTime, final long endTime, final int skip, final int num)
+      throws ExecutorManagerException {
+    return this.executionFlowDao.fetchFlowHistorySummaries(projContain, flowContains,
+        userNameContains, status, startTime, endTime, skip, num);
+  }
+
   @Override
   public void addActiveExecutableReference(final ExecutionReference reference)
       throws ExecutorManagerException {
@@ -368,15 +397,16 @@ public class JdbcExecutorLoader implements ExecutorLoader {
   }
 
   @Override
-  public int selectAndUpdateExecution(final int executorId, final boolean isActive)
-      throws ExecutorManagerException {
-    return this.executionFlowDao.selectAndUpdateExecution(executorId, isActive);
+  public List<Integer> selectAndUpdateExecutions(final int executorId, final boolean isActive,
+      final int limit) throws ExecutorManagerException {
+    return this.executionFlowDao.selectAndUpdateExecutions(executorId, isActive, limit);
   }
 
   @Override
-  public int selectAndUpdateExecutionWithLocking(final int executorId, final boolean isActive)
-      throws ExecutorManagerException {
-    return this.executionFlowDao.selectAndUpdateExecutionWithLocking(executorId, isActive);
+  public List<Integer> selectAndUpdateExecutionsWithLocking(final int executorId,
+      final boolean isActive, final int limit) throws ExecutorManagerException {
+    return this.executionFlowDao.selectAndUpdateExecutionsWithLocking(executorId, isActive,
+        limit);
   }
 
   @Override
@@ -386,6 +416,12 @@ public class JdbcExecutorLoader implements ExecutorLoader {
         updatedStatus);
   }
 
+  @Override
+  public int updateExecutionStatuses(final Collection<Integer> execIds,
+      final Status expectedStatus, final Status newStatus) throws ExecutorManagerException {
+    return this.executionFlowDao.updateExecutionStatuses(execIds, expectedStatus, newStatus);
+  }
+
   @Override
   public ExecutableRampMap fetchExecutableRampMap() throws ExecutorManagerException {
     return this.executionRampDao.fetchExecutableRampMap();
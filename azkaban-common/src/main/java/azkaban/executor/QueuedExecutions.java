@@ -1,8 +1,10 @@
 package azkaban.executor;
 
 import azkaban.utils.Pair;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.PriorityBlockingQueue;
@@ -45,6 +47,23 @@ public class QueuedExecutions {
     return pair;
   }
 
+  /**
+   * Waits for the head of the queue like {@link #fetchHead()}, then also takes up to maxCount - 1
+   * more flows already in the queue, in queue order.
+   */
+  public List<Pair<ExecutionReference, ExecutableFlow>> fetchHeads(final int maxCount)
+      throws InterruptedException {
+    final List<Pair<ExecutionReference, ExecutableFlow>> pairs = new ArrayList<>();
+    pairs.add(this.queuedFlowList.take());
+    this.queuedFlowList.drainTo(pairs, maxCount - 1);
+    for (final Pair<ExecutionReference, ExecutableFlow> pair : pairs) {
+      if (pair != null && pair.getFirst() != null) {
+        this.queuedFlowMap.remove(pair.getFirst().getExecId());
+      }
+    }
+    return pairs;
+  }
+
   /**
    * Helper method to have a single point of deletion in the queued flows
    */
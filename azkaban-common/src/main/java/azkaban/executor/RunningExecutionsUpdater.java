@@ -48,12 +48,14 @@ public class RunningExecutionsUpdater {
   private final RunningExecutions runningExecutions;
   private final ExecutionFinalizer executionFinalizer;
   private final ExecutorLoader executorLoader;
+  private final ExecutionChangeStream executionChangeStream;
 
   @Inject
   public RunningExecutionsUpdater(final ExecutorManagerUpdaterStage updaterStage,
       final AlerterHolder alerterHolder, final CommonMetrics commonMetrics,
       final ExecutorApiGateway apiGateway, final RunningExecutions runningExecutions,
-      final ExecutionFinalizer executionFinalizer, final ExecutorLoader executorLoader) {
+      final ExecutionFinalizer executionFinalizer, final ExecutorLoader executorLoader,
+      final ExecutionChangeStream executionChangeStream) {
     this.updaterStage = updaterStage;
     this.alerterHolder = alerterHolder;
     this.commonMetrics = commonMetrics;
@@ -61,6 +63,7 @@ public class RunningExecutionsUpdater {
     this.runningExecutions = runningExecutions;
     this.executionFinalizer = executionFinalizer;
     this.executorLoader = executorLoader;
+    this.executionChangeStream = executionChangeStream;
   }
 
   /**
@@ -128,7 +131,10 @@ public class RunningExecutionsUpdater {
     for (final ExecutableFlow flow : finalizeFlows) {
       this.executionFinalizer
           .finalizeFlow(flow, "Not running on the assigned executor (any more)", null);
+      this.executionChangeStream.complete(flow.getExecutionId());
     }
+    // Executions can also be finalized outside of the updater, e.g. when killed
+    this.executionChangeStream.retainAll(this.runningExecutions.get().keySet());
 
     this.updaterStage.set("Updated all active flows. Waiting for next round.");
   }
@@ -238,7 +244,8 @@ public class RunningExecutionsUpdater {
     ref.setNextCheckTime(0);
     ref.setNumErrors(0);
     final Status oldStatus = flow.getStatus();
-    flow.applyUpdateObject(updateData);
+    this.executionChangeStream.applyUpdate(flow,
+        updatedNodes -> flow.applyUpdateObject(updateData, updatedNodes));
     final Status newStatus = flow.getStatus();
 
     if (oldStatus != newStatus && newStatus.equals(Status.FAILED_FINISHING)) {
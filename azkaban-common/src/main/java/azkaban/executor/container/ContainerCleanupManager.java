@@ -89,6 +89,20 @@ public class ContainerCleanupManager {
     }
   }
 
+  /**
+   * Delete containers created ahead of dispatch, such as warm pods, which have been idle for too
+   * long.
+   * <p>
+   * Like {@link #terminateStaleContainers()}, this method must not throw exceptions.
+   */
+  public void deleteIdleContainers() {
+    try {
+      this.containerizedImpl.deleteIdleContainers();
+    } catch (final Exception e) {
+      logger.error("Unexpected exception during idle container cleanup.", e);
+    }
+  }
+
   // Deletes the container specified by executionId while logging and consuming any exceptions.
   // Note that while this method is not async it's still expected to return 'quickly'. This is true
   // for Kubernetes as it's declarative API will only submit the request for deleting container
@@ -112,6 +126,8 @@ public class ContainerCleanupManager {
     logger.info("Start container cleanup service");
     this.cleanupService.scheduleAtFixedRate(this::terminateStaleContainers, 0L,
         this.cleanupIntervalMin, TimeUnit.MINUTES);
+    this.cleanupService.scheduleAtFixedRate(this::deleteIdleContainers, this.cleanupIntervalMin,
+        this.cleanupIntervalMin, TimeUnit.MINUTES);
   }
 
   /**
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package azkaban.executor.container;
+
+import azkaban.Constants.ContainerizedDispatchManagerProperties;
+import azkaban.executor.ExecutorManagerException;
+import azkaban.metrics.CommonMetrics;
+import azkaban.utils.Props;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates containers for executions asynchronously. The number of containers being created at the
+ * same time is bounded and creation requests are rate limited. After a number of consecutive
+ * creation failures a circuit breaker pauses dispatch, then lets a single trial creation decide
+ * whether dispatch resumes, so that queued executions don't churn against an unavailable
+ * containerized infrastructure.
+ *
+ * <p>Callers reserve creation slots with {@link #acquire(int, long)} before picking executions
+ * from the queue, hand each picked execution to {@link #createContainer(int, long)} and give back
+ * the slots they didn't use with {@link #release(int)}.
+ */
+class ContainerCreationClient {
+
+  private static final Logger logger = LoggerFactory.getLogger(ContainerCreationClient.class);
+
+  enum CircuitState {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private final ContainerizedImpl containerizedImpl;
+  private final CommonMetrics commonMetrics;
+  private final ExecutorService executorService;
+  private final RateLimiter rateLimiter;
+  private final Semaphore creationSlots;
+  private final int failureThreshold;
+  private final long openDurationMs;
+
+  // Guarded by this
+  private CircuitState circuitState = CircuitState.CLOSED;
+  private int consecutiveFailures = 0;
+  private long openUntilMs = 0;
+  private boolean trialReserved = false;
+
+  ContainerCreationClient(final Props azkProps, final ContainerizedImpl containerizedImpl,
+      final CommonMetrics commonMetrics) {
+    this.containerizedImpl = containerizedImpl;
+    this.commonMetrics = commonMetrics;
+    final int threadPoolSize = azkProps.getInt(
+        ContainerizedDispatchManagerProperties.CONTAINERIZED_EXECUTION_PROCESSING_THREAD_POOL_SIZE,
+        10);
+    this.executorService = Executors.newFixedThreadPool(threadPoolSize,
+        new ThreadFactoryBuilder().setNameFormat("azk-container-creation-%d").build());
+    this.rateLimiter = RateLimiter.create(azkProps
+        .getInt(ContainerizedDispatchManagerProperties.CONTAINERIZED_CREATION_RATE_LIMIT, 20));
+    this.creationSlots = new Semaphore(azkProps.getInt(
+        ContainerizedDispatchManagerProperties.CONTAINERIZED_CREATION_MAX_IN_FLIGHT,
+        threadPoolSize));
+    this.failureThreshold = azkProps.getInt(ContainerizedDispatchManagerProperties
+        .CONTAINERIZED_CREATION_CIRCUIT_BREAKER_FAILURE_THRESHOLD, 5);
+    this.openDurationMs = TimeUnit.SECONDS.toMillis(azkProps.getLong(
+        ContainerizedDispatchManagerProperties.CONTAINERIZED_CREATION_CIRCUIT_BREAKER_OPEN_SEC,
+        60));
+  }
+
+  /**
+   * Reserve up to max creation slots, waiting up to timeoutMs for the first one.
+   *
+   * @return the number of reserved slots, 0 if none became available in time or if dispatch is
+   * paused by the circuit breaker
+   */
+  int acquire(final int max, final long timeoutMs) throws InterruptedException {
+    final int allowed = getAllowedCreations(max);
+    if (allowed == 0) {
+      Thread.sleep(timeoutMs);
+      return 0;
+    }
+    if (!this.creationSlots.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+      clearTrialReservation();
+      return 0;
+    }
+    int acquired = 1;
+    while (acquired < allowed && this.creationSlots.tryAcquire()) {
+      acquired++;
+    }
+    return acquired;
+  }
+
+  /**
+   * Give back creation slots which were reserved but not used.
+   */
+  void release(final int unused) {
+    if (unused > 0) {
+      clearTrialReservation();
+      this.creationSlots.release(unused);
+    }
+  }
+
+  /**
+   * Create the container for an execution using one of the reserved creation slots. The slot is
+   * given back once the creation completes.
+   *
+   * @param dispatchStartMs time the execution was picked from the queue, used to record how long
+   *                        it waited before its container creation started
+   * @return a future completing exceptionally with the {@link ExecutorManagerException} if the
+   * container couldn't be created, or with the {@link RejectedExecutionException} if the client
+   * is shut down
+   */
+  CompletableFuture<Void> createContainer(final int executionId, final long dispatchStartMs) {
+    try {
+      return submitCreation(executionId, dispatchStartMs);
+    } catch (final RejectedExecutionException e) {
+      // The creation never ran, so the slot and a HALF_OPEN trial are free again
+      release(1);
+      final CompletableFuture<Void> rejected = new CompletableFuture<>();
+      rejected.completeExceptionally(e);
+      return rejected;
+    }
+  }
+
+  private CompletableFuture<Void> submitCreation(final int executionId,
+      final long dispatchStartMs) {
+    return CompletableFuture.runAsync(() -> {
+      this.rateLimiter.acquire();
+      final long startTime = System.currentTimeMillis();
+      boolean created = false;
+      try {
+        logger.info("Creating a container for {}", executionId);
+        this.containerizedImpl.createContainer(executionId);
+        created = true;
+        final long creationTime = System.currentTimeMillis() - startTime;
+        this.commonMetrics.recordContainerDispatch(startTime - dispatchStartMs, creationTime);
+        logger.info("Time taken to dispatch a container for {} is {} ms", executionId,
+            creationTime);
+      } catch (final ExecutorManagerException e) {
+        throw new CompletionException(e);
+      } finally {
+        onCreationCompleted(created);
+        this.creationSlots.release();
+      }
+    }, this.executorService);
+  }
+
+  private synchronized int getAllowedCreations(final int max) {
+    if (this.circuitState == CircuitState.OPEN) {
+      if (System.currentTimeMillis() < this.openUntilMs) {
+        return 0;
+      }
+      logger.info("Container creation circuit is half open, trying a single creation.");
+      this.circuitState = CircuitState.HALF_OPEN;
+      this.trialReserved = false;
+    }
+    if (this.circuitState == CircuitState.HALF_OPEN) {
+      if (this.trialReserved) {
+        return 0;
+      }
+      this.trialReserved = true;
+      return 1;
+    }
+    return max;
+  }
+
+  // An unused trial can be reserved again by the next acquire.
+  private synchronized void clearTrialReservation() {
+    this.trialReserved = false;
+  }
+
+  private synchronized void onCreationCompleted(final boolean created) {
+    if (created) {
+      this.consecutiveFailures = 0;
+      if (this.circuitState != CircuitState.CLOSED) {
+        logger.info("Container creation succeeded, closing the circuit.");
+        this.circuitState = CircuitState.CLOSED;
+      }
+      return;
+    }
+    this.consecutiveFailures++;
+    if (this.circuitState == CircuitState.HALF_OPEN
+        || (this.circuitState == CircuitState.CLOSED
+        && this.consecutiveFailures >= this.failureThreshold)) {
+      logger.warn("{} consecutive container creation failures, pausing dispatch for {} ms.",
+          this.consecutiveFailures, this.openDurationMs);
+      this.circuitState = CircuitState.OPEN;
+      this.openUntilMs = System.currentTimeMillis() + this.openDurationMs;
+    }
+  }
+
+  @VisibleForTesting
+  synchronized CircuitState getCircuitState() {
+    return this.circuitState;
+  }
+
+  @VisibleForTesting
+  int getAvailableSlots() {
+    return this.creationSlots.availablePermits();
+  }
+
+  void shutdown() {
+    this.executorService.shutdown();
+  }
+}
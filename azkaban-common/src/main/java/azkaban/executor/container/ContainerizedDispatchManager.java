@@ -29,16 +29,16 @@ import azkaban.metrics.CommonMetrics;
 import azkaban.utils.FileIOUtils.LogData;
 import azkaban.utils.Pair;
 import azkaban.utils.Props;
-import com.google.common.util.concurrent.RateLimiter;
 import java.io.IOException;
 import java.lang.Thread.State;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import org.slf4j.Logger;
@@ -52,14 +52,15 @@ import org.slf4j.LoggerFactory;
  * flow will be picked up by @{@link QueueProcessorThread} to dispatch it to containerized
  * infrastructure, it will be marked as DISPATCHING. Once flow preparation will start on container,
  * it will be marked as PREPARING. When a flow will be ready to run on container, it will be marked
- * as RUNNING. In case of failure in dispatch, it will move back to READY state in queue.
+ * as RUNNING. In case of failure in dispatch, it will move back to READY state in queue. Containers
+ * are created through a {@link ContainerCreationClient}, which bounds the number of creations in
+ * flight and pauses dispatch when creations keep failing.
  */
 @Singleton
 public class ContainerizedDispatchManager extends AbstractExecutorManagerAdapter {
 
   private final ContainerizedImpl containerizedImpl;
   private QueueProcessorThread queueProcessor;
-  private final RateLimiter rateLimiter;
   private static final Logger logger = LoggerFactory.getLogger(ContainerizedDispatchManager.class);
 
   @Inject
@@ -67,9 +68,6 @@ public class ContainerizedDispatchManager extends AbstractExecutorManagerAdapter
       final CommonMetrics commonMetrics, final ExecutorApiGateway apiGateway,
       final ContainerizedImpl containerizedImpl) throws ExecutorManagerException {
     super(azkProps, executorLoader, commonMetrics, apiGateway);
-    rateLimiter =
-        RateLimiter.create(azkProps
-            .getInt(ContainerizedDispatchManagerProperties.CONTAINERIZED_CREATION_RATE_LIMIT, 20));
     this.containerizedImpl = containerizedImpl;
   }
 
@@ -132,8 +130,8 @@ public class ContainerizedDispatchManager extends AbstractExecutorManagerAdapter
   }
 
   private QueueProcessorThread setupQueueProcessor() {
-    return new QueueProcessorThread(
-        this.azkProps, this.executorLoader);
+    return new QueueProcessorThread(this.azkProps, this.executorLoader,
+        new ContainerCreationClient(this.azkProps, this.containerizedImpl, this.commonMetrics));
   }
 
   /**
@@ -190,21 +188,27 @@ public class ContainerizedDispatchManager extends AbstractExecutorManagerAdapter
 
   /**
    * This QueueProcessorThread will fetch executions from database in batch/single execution at a
-   * time and dispatch it in container.
+   * time and dispatch it in container. Executions whose dispatch failed are moved back to READY
+   * together, with a single status update.
    */
   private class QueueProcessorThread extends Thread {
 
+    private static final long CREATION_SLOT_WAIT_MS = 1000;
+
     private final Props azkProps;
     private volatile boolean shutdown = false;
     private volatile boolean isActive = true;
-    private ExecutorService executorService;
+    private final ContainerCreationClient creationClient;
+    private final Queue<Integer> failedDispatches = new ConcurrentLinkedQueue<>();
     private ExecutorLoader executorLoader;
     private boolean executionsBatchProcessingEnabled;
     private int executionsBatchSize;
 
-    public QueueProcessorThread(final Props azkProps, final ExecutorLoader executorLoader) {
+    public QueueProcessorThread(final Props azkProps, final ExecutorLoader executorLoader,
+        final ContainerCreationClient creationClient) {
       this.azkProps = azkProps;
       this.executorLoader = executorLoader;
+      this.creationClient = creationClient;
       setActive(
           this.azkProps.getBoolean(Constants.ConfigurationKeys.QUEUEPROCESSING_ENABLED, true));
       this.executionsBatchProcessingEnabled = azkProps
@@ -214,9 +218,6 @@ public class ContainerizedDispatchManager extends AbstractExecutorManagerAdapter
           azkProps
               .getInt(ContainerizedDispatchManagerProperties.CONTAINERIZED_EXECUTION_BATCH_SIZE,
                   10);
-      this.executorService = Executors.newFixedThreadPool(azkProps.getInt(
-          ContainerizedDispatchManagerProperties.CONTAINERIZED_EXECUTION_PROCESSING_THREAD_POOL_SIZE,
-          10));
       this.setName("Containerized-QueueProcessor-Thread");
     }
 
@@ -225,6 +226,7 @@ public class ContainerizedDispatchManager extends AbstractExecutorManagerAdapter
       // Loops till QueueProcessorThread is shutdown
       while (!this.shutdown) {
         try {
+          resetFailedDispatches();
           // Start processing queue if active, otherwise wait for sometime
           if (this.isActive) {
             processQueuedFlows();
@@ -234,26 +236,72 @@ public class ContainerizedDispatchManager extends AbstractExecutorManagerAdapter
               "QueueProcessorThread Interrupted. Probably to shut down.", e);
         }
       }
+      resetFailedDispatches();
     }
 
     /**
      * This method is responsible for dispatching the executions in queue in READY state. It will
      * fetch single execution or in batch based on the property. The batch size can also be defined
-     * in property.
+     * in property. No more executions are fetched than there are free container creation slots.
      *
      * @throws ExecutorManagerException
+     * @throws InterruptedException
      */
-    private void processQueuedFlows() throws ExecutorManagerException {
-      final Set<Integer> executionIds =
-          executorLoader.selectAndUpdateExecutionWithLocking(this.executionsBatchProcessingEnabled,
-              this.executionsBatchSize,
-              Status.DISPATCHING);
+    private void processQueuedFlows() throws ExecutorManagerException, InterruptedException {
+      final int maxExecutions =
+          this.executionsBatchProcessingEnabled ? this.executionsBatchSize : 1;
+      final int slots = this.creationClient.acquire(maxExecutions, CREATION_SLOT_WAIT_MS);
+      if (slots == 0) {
+        return;
+      }
+      Set<Integer> executionIds = Collections.emptySet();
+      try {
+        executionIds = this.executorLoader.selectAndUpdateExecutionWithLocking(
+            this.executionsBatchProcessingEnabled, slots, Status.DISPATCHING);
+      } finally {
+        this.creationClient.release(slots - executionIds.size());
+      }
 
+      final long dispatchStartTime = System.currentTimeMillis();
       for (final int executionId : executionIds) {
-        rateLimiter.acquire();
         logger.info("Starting dispatch for {} execution.", executionId);
-        Runnable worker = new ExecutionDispatcher(executionId);
-        executorService.execute(worker);
+        this.creationClient.createContainer(executionId, dispatchStartTime)
+            .whenComplete((result, e) -> {
+              if (e != null) {
+                onDispatchFailure(executionId, e);
+              }
+            });
+      }
+    }
+
+    private void onDispatchFailure(final int executionId, final Throwable e) {
+      logger.info("Unable to dispatch container in Kubernetes for : {}", executionId);
+      logger.info("Reason for dispatch failure: {}", e.getMessage());
+      // The status of the execution is reset to READY with the next batch of failed dispatches.
+      // It will be picked up again from queue.
+      this.failedDispatches.add(executionId);
+    }
+
+    /**
+     * Move the executions whose dispatch failed back to READY with a status only update. The
+     * update only applies to executions still in DISPATCHING, so an execution which made progress
+     * in the meantime is left untouched.
+     */
+    private void resetFailedDispatches() {
+      final List<Integer> executionIds = new ArrayList<>();
+      Integer executionId;
+      while ((executionId = this.failedDispatches.poll()) != null) {
+        executionIds.add(executionId);
+      }
+      if (executionIds.isEmpty()) {
+        return;
+      }
+      try {
+        this.executorLoader
+            .updateExecutionStatuses(executionIds, Status.DISPATCHING, Status.READY);
+      } catch (final ExecutorManagerException e) {
+        logger.error("Unable to update execution status to READY for : {}", executionIds, e);
+        this.failedDispatches.addAll(executionIds);
       }
     }
 
@@ -268,56 +316,15 @@ public class ContainerizedDispatchManager extends AbstractExecutorManagerAdapter
     }
 
     /**
-     * When queue process is shutting down, executor service for dispatch needs shutdown too.
+     * When queue process is shutting down, the container creation client needs shutdown too.
      */
     public void shutdown() {
       this.shutdown = true;
-      this.executorService.shutdown();
+      this.creationClient.shutdown();
       this.interrupt();
     }
   }
 
-  /**
-   * This class is a worker class to dispatch execution in container.
-   */
-  private class ExecutionDispatcher implements Runnable {
-
-    private final int executionId;
-
-    ExecutionDispatcher(final int executionId) {
-      this.executionId = executionId;
-    }
-
-    @Override
-    public void run() {
-      try {
-        logger.info("Creating a container for {}", executionId);
-        long startTime = System.currentTimeMillis();
-        // Create a container for execution id. The container creation will throw exception if it
-        //is not able read template files, unable to parse files, unable to replace dynamic
-        //variables etc.
-        ContainerizedDispatchManager.this.containerizedImpl.createContainer(executionId);
-        logger.info("Time taken to dispatch a container for {} is {}", executionId,
-            (System.currentTimeMillis() - startTime) / 1000);
-      } catch (ExecutorManagerException e) {
-        logger.info("Unable to dispatch container in Kubernetes for : {}", executionId);
-        logger.info("Reason for dispatch failure: {}", e.getMessage());
-        // Reset the status of an execution to READY if dispatched failed. It will be picked up
-        // again from queue.
-        final ExecutableFlow dsFlow;
-        try {
-          dsFlow =
-              ContainerizedDispatchManager.this.executorLoader.fetchExecutableFlow(executionId);
-          dsFlow.setStatus(Status.READY);
-          dsFlow.setUpdateTime(System.currentTimeMillis());
-          ContainerizedDispatchManager.this.executorLoader.updateExecutableFlow(dsFlow);
-        } catch (ExecutorManagerException executorManagerException) {
-          logger.error("Unable to update execution status to READY for : {}", executionId);
-        }
-      }
-    }
-  }
-
   //TODO: BDP-3642 Add a way to call Flow container APIs using apiGateway
   @Override
   public LogData getExecutableFlowLog(ExecutableFlow exFlow, int offset, int length)
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package azkaban.executor.container;
+
+import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.apis.CoreV1Api;
+import io.kubernetes.client.openapi.models.V1DeleteOptions;
+import io.kubernetes.client.openapi.models.V1Pod;
+import java.net.HttpURLConnection;
+import java.util.List;
+
+/**
+ * {@link KubernetesPodClient} backed by the {@link CoreV1Api} of a Kubernetes cluster.
+ */
+public class CoreV1PodClient implements KubernetesPodClient {
+
+  // The kubelet keeps updating the pod status, so a replace may hit a newer resource version.
+  private static final int MAX_CONFLICT_RETRIES = 3;
+
+  private final CoreV1Api coreV1Api;
+
+  public CoreV1PodClient(final CoreV1Api coreV1Api) {
+    this.coreV1Api = coreV1Api;
+  }
+
+  @Override
+  public void createPod(final String namespace, final V1Pod pod) throws ApiException {
+    this.coreV1Api.createNamespacedPod(namespace, pod, null, null, null);
+  }
+
+  @Override
+  public void deletePod(final String namespace, final String name) throws ApiException {
+    this.coreV1Api.deleteNamespacedPod(name, namespace, null, null, null, null, null,
+        new V1DeleteOptions());
+  }
+
+  @Override
+  public List<V1Pod> listPods(final String namespace, final String labelSelector)
+      throws ApiException {
+    return this.coreV1Api.listNamespacedPod(namespace, null, null, null, null, labelSelector,
+        null, null, null, null).getItems();
+  }
+
+  @Override
+  public void labelPod(final String namespace, final String name, final String key,
+      final String value) throws ApiException {
+    for (int attempt = 1; ; attempt++) {
+      final V1Pod pod = this.coreV1Api.readNamespacedPod(name, namespace, null, null, null);
+      pod.getMetadata().putLabelsItem(key, value);
+      try {
+        // the resource version read above makes this replace fail on concurrent changes
+        this.coreV1Api.replaceNamespacedPod(name, namespace, pod, null, null, null);
+        return;
+      } catch (final ApiException e) {
+        if (e.getCode() != HttpURLConnection.HTTP_CONFLICT || attempt >= MAX_CONFLICT_RETRIES) {
+          throw e;
+        }
+      }
+    }
+  }
+}
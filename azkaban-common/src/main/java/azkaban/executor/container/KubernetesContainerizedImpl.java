@@ -26,7 +26,9 @@ import azkaban.executor.ExecutableFlowBase;
 import azkaban.executor.ExecutableNode;
 import azkaban.executor.ExecutorLoader;
 import azkaban.executor.ExecutorManagerException;
+import azkaban.executor.container.WarmPodPool.Bucket;
 import azkaban.utils.Props;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
 import io.kubernetes.client.openapi.ApiClient;
 import io.kubernetes.client.openapi.ApiException;
@@ -72,8 +74,10 @@ public class KubernetesContainerizedImpl implements ContainerizedImpl {
   public static final String SERVICE_API_VERSION_2 = "ambassador/v2";
 
   private final String namespace;
-  private final ApiClient client;
   private final CoreV1Api coreV1Api;
+  private final KubernetesPodClient podClient;
+  private final WarmPodClaimDao warmPodClaimDao;
+  private final WarmPodPool warmPodPool;
   private final Props azkProps;
   private final ExecutorLoader executorLoader;
   private final String podPrefix;
@@ -92,9 +96,20 @@ public class KubernetesContainerizedImpl implements ContainerizedImpl {
       .getLogger(KubernetesContainerizedImpl.class);
 
   @Inject
-  public KubernetesContainerizedImpl(final Props azkProps, final ExecutorLoader executorLoader)
+  public KubernetesContainerizedImpl(final Props azkProps, final ExecutorLoader executorLoader,
+      final WarmPodClaimDao warmPodClaimDao) throws ExecutorManagerException {
+    this(azkProps, executorLoader, warmPodClaimDao, null);
+  }
+
+  /**
+   * @param podClient client of the pod API, or null to use the cluster of the kube config.
+   */
+  @VisibleForTesting
+  KubernetesContainerizedImpl(final Props azkProps, final ExecutorLoader executorLoader,
+      final WarmPodClaimDao warmPodClaimDao, final KubernetesPodClient podClient)
       throws ExecutorManagerException {
     this.azkProps = azkProps;
+    this.warmPodClaimDao = warmPodClaimDao;
     this.executorLoader = executorLoader;
     this.namespace = this.azkProps
         .getString(ContainerizedDispatchManagerProperties.KUBERNETES_NAMESPACE);
@@ -136,15 +151,19 @@ public class KubernetesContainerizedImpl implements ContainerizedImpl {
       final String kubeConfigPath = this.azkProps
           .getString(ContainerizedDispatchManagerProperties.KUBERNETES_KUBE_CONFIG_PATH);
       logger.info("Kube config path is : {}", kubeConfigPath);
-      this.client =
+      final ApiClient client =
           ClientBuilder.kubeconfig(KubeConfig.loadKubeConfig(
               Files.newBufferedReader(Paths.get(kubeConfigPath), Charset.defaultCharset())))
               .build();
-      this.coreV1Api = new CoreV1Api(this.client);
+      this.coreV1Api = new CoreV1Api(client);
     } catch (final IOException exception) {
       logger.error("Unable to read kube config file: {}", exception.getMessage());
       throw new ExecutorManagerException(exception);
     }
+    this.podClient = podClient != null ? podClient : new CoreV1PodClient(this.coreV1Api);
+    this.warmPodPool = new WarmPodPool(azkProps, this.namespace, this.podPrefix, this.podClient,
+        warmPodClaimDao, executorLoader, this::getWarmPodBucket, this::createWarmPod);
+    this.warmPodPool.start();
   }
 
   /**
@@ -157,7 +176,11 @@ public class KubernetesContainerizedImpl implements ContainerizedImpl {
    */
   @Override
   public void createContainer(final int executionId) throws ExecutorManagerException {
-    createPod(executionId);
+    // Fetch execution flow from execution Id.
+    final ExecutableFlow flow = this.executorLoader.fetchExecutableFlow(executionId);
+    if (!this.warmPodPool.claim(getWarmPodBucket(flow), executionId).isPresent()) {
+      createPod(flow);
+    }
     if (isServiceRequired()) {
       createService(executionId);
     }
@@ -179,6 +202,15 @@ public class KubernetesContainerizedImpl implements ContainerizedImpl {
     }
   }
 
+  /**
+   * This method is used to delete the warm pods which have been idle for too long and are not
+   * needed to serve the queued executions.
+   */
+  @Override
+  public void deleteIdleContainers() {
+    this.warmPodPool.deleteIdlePods();
+  }
+
   /**
    * This method is used to create pod. 1. Fetch jobTypes for the flow 2. Fetch flow parameters for
    * version set and each image type if it is set. 3. If valid version set is provided then use
@@ -190,12 +222,11 @@ public class KubernetesContainerizedImpl implements ContainerizedImpl {
    * 7. Insert version set into execution_flows tables for a reference 8. Emit version set as a part
    * of flow life cycle event.
    *
-   * @param executionId
+   * @param flow
    * @throws ExecutorManagerException
    */
-  private void createPod(final int executionId) throws ExecutorManagerException {
-    // Fetch execution flow from execution Id.
-    final ExecutableFlow flow = this.executorLoader.fetchExecutableFlow(executionId);
+  private void createPod(final ExecutableFlow flow) throws ExecutorManagerException {
+    final int executionId = flow.getExecutionId();
     // Step 1: Fetch set of jobTypes for a flow from executionId
     final TreeSet<String> jobTypes = getJobTypesForFlow(flow);
     logger.info("Jobtypes for flow {} are: {}", flow.getFlowId(), jobTypes);
@@ -222,21 +253,7 @@ public class KubernetesContainerizedImpl implements ContainerizedImpl {
 
     // TODO: Populating version set -> What is there in database on top of that what is passed in
     //   flow parameters (Read it from cache. Write to both for db and cache in case of change)
-    // TODO: Below mentioned flow container image and conf version should come from database.
-    final String azkabanBaseImageVersion = getAzkabanBaseImageVersion();
-    final String azkabanConfigVersion = getAzkabanConfigVersion();
-
-    final AzKubernetesV1SpecBuilder v1SpecBuilder = new AzKubernetesV1SpecBuilder(this.clusterName,
-        Optional.empty())
-        .addFlowContainer(this.flowContainerName, azkabanBaseImageVersion,
-            ImagePullPolicy.IF_NOT_PRESENT,
-            azkabanConfigVersion)
-        .withResources(this.cpuLimit, this.cpuRequest, this.memoryLimit, this.memoryRequest);
-
-    // Create init container yaml file for each jobType
-    addInitContainerForAllJobTypes(executionId, jobTypes, v1SpecBuilder);
-
-    final V1PodSpec podSpec = v1SpecBuilder.build();
+    final V1PodSpec podSpec = createPodSpecBuilder(executionId, jobTypes).build();
 
     final ImmutableMap<String, String> labels = getLabelsForPod();
     final ImmutableMap<String, String> annotations = getAnnotationsForPod();
@@ -254,7 +271,7 @@ public class KubernetesContainerizedImpl implements ContainerizedImpl {
     // TODO: Add version set number and json in flow life cycle event so users can use this
     //   information
     try {
-      this.coreV1Api.createNamespacedPod(this.namespace, pod, null, null, null);
+      this.podClient.createPod(this.namespace, pod);
       logger.info("Dispatched pod for execution : ", executionId);
     } catch (ApiException e) {
       logger.error("Unable to create Pod: {}", e.getResponseBody());
@@ -264,6 +281,69 @@ public class KubernetesContainerizedImpl implements ContainerizedImpl {
     // TODO: Store version set id in execution_flows for execution_id
   }
 
+  /**
+   * This method is used to create the spec builder of a flow container pod with init containers
+   * for the given jobTypes.
+   *
+   * @param executionId execution to create the pod for, or -1 for a warm pod
+   * @param jobTypes
+   * @return
+   * @throws ExecutorManagerException
+   */
+  private AzKubernetesV1SpecBuilder createPodSpecBuilder(final int executionId,
+      final Set<String> jobTypes) throws ExecutorManagerException {
+    // TODO: Below mentioned flow container image and conf version should come from database.
+    final String azkabanBaseImageVersion = getAzkabanBaseImageVersion();
+    final String azkabanConfigVersion = getAzkabanConfigVersion();
+
+    final AzKubernetesV1SpecBuilder v1SpecBuilder = new AzKubernetesV1SpecBuilder(this.clusterName,
+        Optional.empty())
+        .addFlowContainer(this.flowContainerName, azkabanBaseImageVersion,
+            ImagePullPolicy.IF_NOT_PRESENT,
+            azkabanConfigVersion)
+        .withResources(this.cpuLimit, this.cpuRequest, this.memoryLimit, this.memoryRequest);
+
+    // Create init container yaml file for each jobType
+    addInitContainerForAllJobTypes(executionId, jobTypes, v1SpecBuilder);
+    return v1SpecBuilder;
+  }
+
+  /**
+   * This method is used to get the warm pod bucket of a flow. Pods of the same bucket have the
+   * same images and init containers.
+   *
+   * TODO: Use the version set of the flow once it is resolved at dispatch, until then the bucket
+   * is keyed by the base image and config versions.
+   *
+   * @param flow
+   * @return
+   */
+  @VisibleForTesting
+  Bucket getWarmPodBucket(final ExecutableFlow flow) {
+    final String versionSet = getAzkabanBaseImageVersion() + ":" + getAzkabanConfigVersion();
+    return new Bucket(versionSet, getJobTypesForFlow(flow));
+  }
+
+  /**
+   * This method is used to create a pod of the warm pod pool. The flow container of the pod waits
+   * until the pod is claimed for an execution.
+   *
+   * @param bucket
+   * @param podName
+   * @return
+   * @throws ExecutorManagerException
+   */
+  private V1Pod createWarmPod(final Bucket bucket, final String podName)
+      throws ExecutorManagerException {
+    final V1PodSpec podSpec = createPodSpecBuilder(-1, bucket.getJobTypes())
+        .addFlowContainerEnvVar(WarmPodPool.WARM_POD_NAME_ENV, podName)
+        .build();
+    return new AzKubernetesV1PodBuilder(podName, this.namespace, podSpec)
+        .withPodLabels(getLabelsForPod())
+        .withPodAnnotations(getAnnotationsForPod())
+        .build();
+  }
+
   /**
    * TODO: Get azkaban base image version from version set.
    *
@@ -393,9 +473,11 @@ public class KubernetesContainerizedImpl implements ContainerizedImpl {
    */
   private void deletePod(final int executionId) throws ExecutorManagerException {
     try {
-      final String podName = getPodName(executionId);
-      this.coreV1Api.deleteNamespacedPod(podName, this.namespace, null, null,
-          null, null, null, new V1DeleteOptions());
+      // Executions run in a warm pod if one was claimed for them
+      final String podName = this.warmPodClaimDao.fetchClaimedPod(executionId)
+          .orElse(getPodName(executionId));
+      this.podClient.deletePod(this.namespace, podName);
+      this.warmPodClaimDao.removeClaims(executionId);
       logger.info("Action: Pod Deletion, Pod Name: {}", podName);
     } catch (ApiException e) {
       logger.error("Unable to delete Pod in Kubernetes: {}", e.getResponseBody());
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package azkaban.executor.container;
+
+import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.models.V1Pod;
+import java.util.List;
+
+/**
+ * The pod operations of the Kubernetes API used by the {@link WarmPodPool}, so that the pool can
+ * be run against a fake cluster in tests.
+ */
+public interface KubernetesPodClient {
+
+  void createPod(String namespace, V1Pod pod) throws ApiException;
+
+  void deletePod(String namespace, String name) throws ApiException;
+
+  /**
+   * @param labelSelector Kubernetes label selector, e.g. "cluster=azkaban,!execution-id"
+   */
+  List<V1Pod> listPods(String namespace, String labelSelector) throws ApiException;
+
+  /**
+   * Add or overwrite a label of an existing pod.
+   */
+  void labelPod(String namespace, String name, String key, String value) throws ApiException;
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package azkaban.executor.container;
+
+import azkaban.db.DatabaseOperator;
+import azkaban.executor.ExecutorManagerException;
+import java.sql.SQLException;
+import java.util.Optional;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Records which execution a warm pod of the {@link WarmPodPool} has been claimed for. The primary
+ * key on the pod name makes the claim atomic across web servers, and the flow container running in
+ * the pod polls its row to learn the execution to run.
+ */
+@Singleton
+public class WarmPodClaimDao {
+
+  // Execution of the claims taken by the pool on the idle pods it deletes
+  public static final int REAPED_EXECUTION_ID = -1;
+
+  private static final String INSERT_CLAIM =
+      "INSERT INTO warm_pod_claims (pod_name, exec_id, claim_time) values (?,?,?)";
+  private static final String SELECT_EXEC_ID =
+      "SELECT exec_id FROM warm_pod_claims WHERE pod_name=?";
+  private static final String SELECT_POD_NAME =
+      "SELECT pod_name FROM warm_pod_claims WHERE exec_id=? ORDER BY claim_time DESC";
+  private static final String DELETE_CLAIMS = "DELETE FROM warm_pod_claims WHERE exec_id=?";
+  private static final String DELETE_CLAIM =
+      "DELETE FROM warm_pod_claims WHERE pod_name=? AND exec_id=?";
+  // SQL state class of integrity constraint violations, e.g. duplicate keys
+  private static final String INTEGRITY_CONSTRAINT_VIOLATION = "23";
+
+  private final DatabaseOperator dbOperator;
+
+  @Inject
+  public WarmPodClaimDao(final DatabaseOperator dbOperator) {
+    this.dbOperator = dbOperator;
+  }
+
+  /**
+   * Claim the pod for the execution.
+   *
+   * @return false if the pod has already been claimed.
+   */
+  public boolean claimPod(final String podName, final int executionId)
+      throws ExecutorManagerException {
+    try {
+      this.dbOperator.update(INSERT_CLAIM, podName, executionId, System.currentTimeMillis());
+      return true;
+    } catch (final SQLException e) {
+      if (e.getSQLState() != null
+          && e.getSQLState().startsWith(INTEGRITY_CONSTRAINT_VIOLATION)) {
+        return false;
+      }
+      throw new ExecutorManagerException("Failed to claim pod " + podName, e);
+    }
+  }
+
+  /**
+   * @return the execution the pod has been claimed for, if any.
+   */
+  public Optional<Integer> fetchClaimedExecution(final String podName)
+      throws ExecutorManagerException {
+    try {
+      return this.dbOperator.query(SELECT_EXEC_ID,
+          rs -> rs.next() ? Optional.of(rs.getInt(1)) : Optional.empty(), podName);
+    } catch (final SQLException e) {
+      throw new ExecutorManagerException("Failed to fetch claim of pod " + podName, e);
+    }
+  }
+
+  /**
+   * @return the pod last claimed for the execution, if any.
+   */
+  public Optional<String> fetchClaimedPod(final int executionId)
+      throws ExecutorManagerException {
+    try {
+      return this.dbOperator.query(SELECT_POD_NAME,
+          rs -> rs.next() ? Optional.of(rs.getString(1)) : Optional.empty(), executionId);
+    } catch (final SQLException e) {
+      throw new ExecutorManagerException("Failed to fetch pod of execution " + executionId, e);
+    }
+  }
+
+  /**
+   * Release the claim of the pod for the execution, if it still holds it.
+   */
+  public void releaseClaim(final String podName, final int executionId)
+      throws ExecutorManagerException {
+    try {
+      this.dbOperator.update(DELETE_CLAIM, podName, executionId);
+    } catch (final SQLException e) {
+      throw new ExecutorManagerException("Failed to release claim of pod " + podName, e);
+    }
+  }
+
+  public void removeClaims(final int executionId) throws ExecutorManagerException {
+    try {
+      this.dbOperator.update(DELETE_CLAIMS, executionId);
+    } catch (final SQLException e) {
+      throw new ExecutorManagerException(
+          "Failed to remove pod claims of execution " + executionId, e);
+    }
+  }
+}
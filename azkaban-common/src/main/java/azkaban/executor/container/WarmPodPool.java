@@ -0,0 +1,518 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package azkaban.executor.container;
+
+import azkaban.Constants.ConfigurationKeys;
+import azkaban.Constants.ContainerizedDispatchManagerProperties;
+import azkaban.executor.ExecutableFlow;
+import azkaban.executor.ExecutionReference;
+import azkaban.executor.ExecutorLoader;
+import azkaban.executor.ExecutorManagerException;
+import azkaban.executor.Status;
+import azkaban.utils.Pair;
+import azkaban.utils.Props;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import io.kubernetes.client.openapi.models.V1Pod;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pool of pre-created flow container pods, so that dispatching an execution doesn't wait for pod
+ * scheduling and image pulls. Pods are bucketed by version set and job types, as those decide the
+ * images and init containers of the pod, and an execution can only adopt a pod of its own bucket.
+ * <p>
+ * A pod is claimed for an execution through the {@link WarmPodClaimDao}, which is atomic across
+ * web servers. The flow container started in the pod waits for its claim and then runs the
+ * execution.
+ * <p>
+ * The pool is resized in the background: each bucket gets as many idle pods as it has queued
+ * executions, and buckets with a dispatch in the last {@code bucket.ttl.min} keep at least {@code
+ * min.idle.per.bucket} idle pods, within the per bucket and total max sizes. Idle pods beyond the
+ * target of their bucket are deleted by {@link #deleteIdlePods()} once they have been idle for
+ * {@code max.idle.min}. The pool claims these pods for {@link WarmPodClaimDao#REAPED_EXECUTION_ID}
+ * before deleting them, so that a pod claimed by another web server is never deleted.
+ */
+@SuppressWarnings("FutureReturnValueIgnored")
+public class WarmPodPool {
+
+  // Env variable of the flow container of a warm pod, set to the name of its pod.
+  public static final String WARM_POD_NAME_ENV = "AZ_WARM_POD_NAME";
+  public static final String WARM_POD_LABEL = "warm-pod";
+  public static final String BUCKET_LABEL = "warm-pod-bucket";
+  public static final String EXECUTION_ID_LABEL = "execution-id";
+  public static final String CREATION_TIME_ANNOTATION = "azkaban/warm-pod-creation-time";
+  public static final String WARM_POD_NAME_INFIX = "warm";
+
+  private static final Logger logger = LoggerFactory.getLogger(WarmPodPool.class);
+  private static final String CLUSTER_LABEL = "cluster";
+  private static final String PHASE_RUNNING = "Running";
+  private static final String PHASE_SUCCEEDED = "Succeeded";
+  private static final String PHASE_FAILED = "Failed";
+  private static final int LABEL_ATTEMPTS = 2;
+
+  private final boolean enabled;
+  private final String namespace;
+  private final String clusterName;
+  private final String podNamePrefix;
+  private final int maxSize;
+  private final int maxSizePerBucket;
+  private final int minIdlePerBucket;
+  private final long bucketTtlMs;
+  private final long maxIdleMs;
+  private final long refreshIntervalSec;
+  private final KubernetesPodClient podClient;
+  private final WarmPodClaimDao claimDao;
+  private final ExecutorLoader executorLoader;
+  private final Function<ExecutableFlow, Bucket> bucketResolver;
+  private final PodFactory podFactory;
+  private ScheduledExecutorService scheduler;
+
+  // All the fields below are guarded by this.
+  private final Map<String, List<IdlePod>> idlePods = new HashMap<>();
+  private final Map<String, Bucket> buckets = new HashMap<>();
+  private final Map<String, Long> lastDispatchTimes = new HashMap<>();
+  private Map<String, Integer> targetSizes = new HashMap<>();
+
+  public WarmPodPool(final Props azkProps, final String namespace, final String podNamePrefix,
+      final KubernetesPodClient podClient, final WarmPodClaimDao claimDao,
+      final ExecutorLoader executorLoader, final Function<ExecutableFlow, Bucket> bucketResolver,
+      final PodFactory podFactory) {
+    this.enabled = azkProps
+        .getBoolean(ContainerizedDispatchManagerProperties.KUBERNETES_WARM_POD_POOL_ENABLED, false);
+    this.namespace = namespace;
+    this.clusterName = azkProps.getString(ConfigurationKeys.AZKABAN_CLUSTER_NAME,
+        KubernetesContainerizedImpl.DEFAULT_CLUSTER_NAME);
+    this.podNamePrefix = podNamePrefix;
+    this.maxSize = azkProps
+        .getInt(ContainerizedDispatchManagerProperties.KUBERNETES_WARM_POD_POOL_MAX_SIZE, 20);
+    this.maxSizePerBucket = azkProps.getInt(
+        ContainerizedDispatchManagerProperties.KUBERNETES_WARM_POD_POOL_MAX_SIZE_PER_BUCKET, 5);
+    this.minIdlePerBucket = azkProps.getInt(
+        ContainerizedDispatchManagerProperties.KUBERNETES_WARM_POD_POOL_MIN_IDLE_PER_BUCKET, 1);
+    this.bucketTtlMs = Duration.ofMinutes(azkProps
+        .getLong(ContainerizedDispatchManagerProperties.KUBERNETES_WARM_POD_POOL_BUCKET_TTL_MIN,
+            60)).toMillis();
+    this.maxIdleMs = Duration.ofMinutes(azkProps
+        .getLong(ContainerizedDispatchManagerProperties.KUBERNETES_WARM_POD_POOL_MAX_IDLE_MIN,
+            30)).toMillis();
+    this.refreshIntervalSec = azkProps.getLong(
+        ContainerizedDispatchManagerProperties.KUBERNETES_WARM_POD_POOL_REFRESH_INTERVAL_SEC, 30);
+    this.podClient = podClient;
+    this.claimDao = claimDao;
+    this.executorLoader = executorLoader;
+    this.bucketResolver = bucketResolver;
+    this.podFactory = podFactory;
+  }
+
+  public boolean isEnabled() {
+    return this.enabled;
+  }
+
+  /**
+   * Resize the pool at a fixed delay. No-op if the pool is disabled or has already been started.
+   */
+  public synchronized void start() {
+    if (!this.enabled || this.scheduler != null) {
+      return;
+    }
+    logger.info("Starting warm pod pool, refreshed every {} seconds", this.refreshIntervalSec);
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("azk-warm-pod-pool").setDaemon(true).build());
+    this.scheduler.scheduleWithFixedDelay(this::refreshQuietly, 0L, this.refreshIntervalSec,
+        TimeUnit.SECONDS);
+  }
+
+  public synchronized void shutdown() {
+    if (this.scheduler != null) {
+      logger.info("Shutting down warm pod pool");
+      this.scheduler.shutdownNow();
+      this.scheduler = null;
+    }
+  }
+
+  /**
+   * Claim an idle pod of the bucket for the execution. Running pods are preferred over pods still
+   * being scheduled or pulling images.
+   *
+   * @return the name of the claimed pod, or empty if the pool has no idle pod for the bucket and
+   * a pod must be created for the execution.
+   */
+  public Optional<String> claim(final Bucket bucket, final int executionId) {
+    if (!this.enabled) {
+      return Optional.empty();
+    }
+    synchronized (this) {
+      this.buckets.put(bucket.getLabel(), bucket);
+      this.lastDispatchTimes.put(bucket.getLabel(), System.currentTimeMillis());
+    }
+    IdlePod pod;
+    while ((pod = takeIdlePod(bucket.getLabel())) != null) {
+      try {
+        // other web servers may have claimed the same pod since the last refresh
+        if (!this.claimDao.claimPod(pod.name, executionId)) {
+          continue;
+        }
+      } catch (final ExecutorManagerException e) {
+        logger.error("Failed to claim warm pod {} for execution {}", pod.name, executionId, e);
+        return Optional.empty();
+      }
+      if (!labelClaimedPod(pod.name, executionId)) {
+        // Without the label the pod stays idle for every server, and would be claimed again once
+        // the execution finishes. Give it up: delete it first, so that its container can't run
+        // the execution, then release the claim.
+        deletePodQuietly(pod.name);
+        releaseClaimQuietly(pod.name, executionId);
+        continue;
+      }
+      logger.info("Claimed warm pod {} for execution {}", pod.name, executionId);
+      return Optional.of(pod.name);
+    }
+    logger.info("No warm pod for execution {} in bucket {}", executionId, bucket);
+    return Optional.empty();
+  }
+
+  /**
+   * Label the claimed pod with its execution, which takes it out of the idle pods.
+   */
+  private boolean labelClaimedPod(final String podName, final int executionId) {
+    for (int attempt = 1; attempt <= LABEL_ATTEMPTS; attempt++) {
+      try {
+        this.podClient.labelPod(this.namespace, podName, EXECUTION_ID_LABEL,
+            String.valueOf(executionId));
+        return true;
+      } catch (final ApiException e) {
+        logger.warn("Unable to label warm pod {} with execution {} (attempt {}): {}", podName,
+            executionId, attempt, e.getResponseBody());
+      }
+    }
+    return false;
+  }
+
+  private void releaseClaimQuietly(final String podName, final int executionId) {
+    try {
+      this.claimDao.releaseClaim(podName, executionId);
+    } catch (final ExecutorManagerException e) {
+      logger.error("Unable to release claim of warm pod {} for execution {}", podName,
+          executionId, e);
+    }
+  }
+
+  private synchronized IdlePod takeIdlePod(final String bucketLabel) {
+    final List<IdlePod> pods = this.idlePods.get(bucketLabel);
+    if (pods == null || pods.isEmpty()) {
+      return null;
+    }
+    int index = 0;
+    for (int i = 0; i < pods.size(); i++) {
+      if (pods.get(i).running) {
+        index = i;
+        break;
+      }
+    }
+    return pods.remove(index);
+  }
+
+  /**
+   * Sync the idle pods with the cluster, then create the pods missing for each bucket to reach its
+   * target size.
+   */
+  @VisibleForTesting
+  void refresh() throws ApiException, ExecutorManagerException {
+    final long now = System.currentTimeMillis();
+    final Map<String, List<IdlePod>> listedPods = new HashMap<>();
+    for (final V1Pod pod : this.podClient.listPods(this.namespace, getIdlePodSelector())) {
+      final String phase = pod.getStatus() == null ? null : pod.getStatus().getPhase();
+      final String name = pod.getMetadata().getName();
+      if (PHASE_SUCCEEDED.equals(phase) || PHASE_FAILED.equals(phase)) {
+        // the flow container gave up waiting for a claim, or failed to start
+        deletePodQuietly(name);
+        continue;
+      }
+      listedPods.computeIfAbsent(pod.getMetadata().getLabels().get(BUCKET_LABEL),
+          k -> new ArrayList<>()).add(new IdlePod(name, getCreationTime(pod),
+          PHASE_RUNNING.equals(phase)));
+    }
+
+    final Map<String, Integer> queuedExecutions = new HashMap<>();
+    for (final Pair<ExecutionReference, ExecutableFlow> queued : this.executorLoader
+        .fetchQueuedFlows(Status.READY)) {
+      final Bucket bucket = this.bucketResolver.apply(queued.getSecond());
+      queuedExecutions.merge(bucket.getLabel(), 1, Integer::sum);
+      synchronized (this) {
+        this.buckets.put(bucket.getLabel(), bucket);
+      }
+    }
+
+    final List<Pair<Bucket, Integer>> podsToCreate = new ArrayList<>();
+    synchronized (this) {
+      this.idlePods.clear();
+      this.idlePods.putAll(listedPods);
+      this.targetSizes = computeTargetSizes(queuedExecutions, now);
+      int idleCount = this.idlePods.values().stream().mapToInt(List::size).sum();
+      for (final Entry<String, Integer> target : this.targetSizes.entrySet()) {
+        final int missing = target.getValue()
+            - this.idlePods.getOrDefault(target.getKey(), new ArrayList<>()).size();
+        final int count = Math.min(missing, this.maxSize - idleCount);
+        if (count > 0) {
+          podsToCreate.add(new Pair<>(this.buckets.get(target.getKey()), count));
+          idleCount += count;
+        }
+      }
+    }
+
+    for (final Pair<Bucket, Integer> create : podsToCreate) {
+      for (int i = 0; i < create.getSecond(); i++) {
+        createPod(create.getFirst());
+      }
+    }
+  }
+
+  /**
+   * Each bucket gets as many pods as queued executions, at least {@code minIdlePerBucket} if it
+   * was dispatched to recently, at most {@code maxSizePerBucket}. Buckets with the most queued
+   * executions are served first when the targets exceed the max size of the pool.
+   */
+  private Map<String, Integer> computeTargetSizes(final Map<String, Integer> queuedExecutions,
+      final long now) {
+    this.lastDispatchTimes.values().removeIf(time -> time < now - this.bucketTtlMs);
+    this.buckets.keySet().removeIf(label -> !this.lastDispatchTimes.containsKey(label)
+        && !queuedExecutions.containsKey(label));
+
+    final List<String> labels = new ArrayList<>(this.buckets.keySet());
+    labels.sort(Comparator.comparing((String label) -> queuedExecutions.getOrDefault(label, 0))
+        .reversed().thenComparing(Comparator.naturalOrder()));
+    final Map<String, Integer> targets = new HashMap<>();
+    int remaining = this.maxSize;
+    for (final String label : labels) {
+      final int minIdle = this.lastDispatchTimes.containsKey(label) ? this.minIdlePerBucket : 0;
+      final int target = Math.min(remaining, Math.min(this.maxSizePerBucket,
+          Math.max(minIdle, queuedExecutions.getOrDefault(label, 0))));
+      targets.put(label, target);
+      remaining -= target;
+    }
+    return targets;
+  }
+
+  private void createPod(final Bucket bucket) {
+    final String name = String.join("-", this.podNamePrefix, this.clusterName,
+        WARM_POD_NAME_INFIX, UUID.randomUUID().toString().substring(0, 8));
+    final long creationTime = System.currentTimeMillis();
+    try {
+      final V1Pod pod = this.podFactory.createPod(bucket, name);
+      final V1ObjectMeta metadata = pod.getMetadata();
+      // the factory may have set immutable maps
+      final Map<String, String> labels = metadata.getLabels() == null ? new HashMap<>()
+          : new HashMap<>(metadata.getLabels());
+      labels.put(CLUSTER_LABEL, this.clusterName);
+      labels.put(WARM_POD_LABEL, "true");
+      labels.put(BUCKET_LABEL, bucket.getLabel());
+      final Map<String, String> annotations = metadata.getAnnotations() == null
+          ? new HashMap<>() : new HashMap<>(metadata.getAnnotations());
+      annotations.put(CREATION_TIME_ANNOTATION, String.valueOf(creationTime));
+      metadata.labels(labels).annotations(annotations);
+      this.podClient.createPod(this.namespace, pod);
+    } catch (final ExecutorManagerException e) {
+      logger.error("Unable to build warm pod for bucket {}", bucket, e);
+      return;
+    } catch (final ApiException e) {
+      logger.error("Unable to create warm pod for bucket {}: {}", bucket, e.getResponseBody());
+      return;
+    }
+    logger.info("Created warm pod {} for bucket {}", name, bucket);
+    synchronized (this) {
+      this.idlePods.computeIfAbsent(bucket.getLabel(), k -> new ArrayList<>())
+          .add(new IdlePod(name, creationTime, false));
+    }
+  }
+
+  /**
+   * Delete the idle pods exceeding the target size of their bucket which have been idle for more
+   * than {@code maxIdleMs}, oldest first. The idle pods are those of the last refresh, so each pod
+   * is claimed first, and skipped if it has been claimed for an execution since.
+   */
+  public void deleteIdlePods() {
+    if (!this.enabled) {
+      return;
+    }
+    final long idleSince = System.currentTimeMillis() - this.maxIdleMs;
+    final List<String> podsToDelete = new ArrayList<>();
+    synchronized (this) {
+      for (final Entry<String, List<IdlePod>> entry : this.idlePods.entrySet()) {
+        final List<IdlePod> pods = entry.getValue();
+        pods.sort(Comparator.comparingLong(pod -> pod.creationTime));
+        int excess = pods.size() - this.targetSizes.getOrDefault(entry.getKey(), 0);
+        for (final Iterator<IdlePod> it = pods.iterator(); it.hasNext() && excess > 0; excess--) {
+          final IdlePod pod = it.next();
+          if (pod.creationTime > idleSince) {
+            break;
+          }
+          it.remove();
+          podsToDelete.add(pod.name);
+        }
+      }
+    }
+    for (final String name : podsToDelete) {
+      try {
+        if (!this.claimDao.claimPod(name, WarmPodClaimDao.REAPED_EXECUTION_ID)) {
+          logger.info("Not deleting warm pod {}, claimed since the last refresh", name);
+          continue;
+        }
+      } catch (final ExecutorManagerException e) {
+        logger.error("Unable to claim idle warm pod {} for deletion", name, e);
+        continue;
+      }
+      deletePodQuietly(name);
+      releaseClaimQuietly(name, WarmPodClaimDao.REAPED_EXECUTION_ID);
+    }
+  }
+
+  private void deletePodQuietly(final String name) {
+    try {
+      this.podClient.deletePod(this.namespace, name);
+      logger.info("Deleted idle warm pod {}", name);
+    } catch (final ApiException e) {
+      logger.warn("Unable to delete idle warm pod {}: {}", name, e.getResponseBody());
+    }
+  }
+
+  private void refreshQuietly() {
+    try {
+      refresh();
+    } catch (final ApiException e) {
+      logger.error("Unable to refresh warm pod pool: {}", e.getResponseBody(), e);
+    } catch (final ExecutorManagerException | RuntimeException e) {
+      logger.error("Unable to refresh warm pod pool", e);
+    }
+  }
+
+  private String getIdlePodSelector() {
+    return String.format("%s=%s,%s=true,!%s", CLUSTER_LABEL, this.clusterName, WARM_POD_LABEL,
+        EXECUTION_ID_LABEL);
+  }
+
+  private static long getCreationTime(final V1Pod pod) {
+    final Map<String, String> annotations = pod.getMetadata().getAnnotations();
+    if (annotations != null && annotations.containsKey(CREATION_TIME_ANNOTATION)) {
+      try {
+        return Long.parseLong(annotations.get(CREATION_TIME_ANNOTATION));
+      } catch (final NumberFormatException e) {
+        logger.warn("Invalid creation time of warm pod {}", pod.getMetadata().getName());
+      }
+    }
+    // reaped first
+    return 0L;
+  }
+
+  @VisibleForTesting
+  synchronized int getIdlePodCount(final Bucket bucket) {
+    return this.idlePods.getOrDefault(bucket.getLabel(), new ArrayList<>()).size();
+  }
+
+  /**
+   * Builds the pod of a bucket. Labels and annotations of the pool are added to the pod.
+   */
+  @FunctionalInterface
+  public interface PodFactory {
+
+    V1Pod createPod(Bucket bucket, String podName) throws ExecutorManagerException;
+  }
+
+  /**
+   * Pods of a bucket can run any execution with the same version set and job types.
+   */
+  public static class Bucket {
+
+    private final String versionSet;
+    private final SortedSet<String> jobTypes;
+    private final String label;
+
+    public Bucket(final String versionSet, final SortedSet<String> jobTypes) {
+      this.versionSet = versionSet;
+      this.jobTypes = ImmutableSortedSet.copyOf(jobTypes);
+      // label values are limited to 63 characters
+      this.label = DigestUtils.md5Hex(versionSet + "|" + String.join(",", this.jobTypes));
+    }
+
+    public String getVersionSet() {
+      return this.versionSet;
+    }
+
+    public SortedSet<String> getJobTypes() {
+      return this.jobTypes;
+    }
+
+    public String getLabel() {
+      return this.label;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final Bucket bucket = (Bucket) o;
+      return Objects.equals(this.versionSet, bucket.versionSet)
+          && Objects.equals(this.jobTypes, bucket.jobTypes);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(this.versionSet, this.jobTypes);
+    }
+
+    @Override
+    public String toString() {
+      return this.versionSet + " " + this.jobTypes;
+    }
+  }
+
+  private static class IdlePod {
+
+    private final String name;
+    private final long creationTime;
+    private final boolean running;
+
+    private IdlePod(final String name, final long creationTime, final boolean running) {
+      this.name = name;
+      this.creationTime = creationTime;
+      this.running = running;
+    }
+  }
+}
@@ -32,10 +32,10 @@ import java.util.Set;
 public class ExecutorComparator extends CandidateComparator<Executor> {
 
   // factor comparator names
-  private static final String NUMOFASSIGNEDFLOW_COMPARATOR_NAME = "NumberOfAssignedFlowComparator";
-  private static final String MEMORY_COMPARATOR_NAME = "Memory";
-  private static final String LSTDISPATCHED_COMPARATOR_NAME = "LastDispatched";
-  private static final String CPUUSAGE_COMPARATOR_NAME = "CpuUsage";
+  static final String NUMOFASSIGNEDFLOW_COMPARATOR_NAME = "NumberOfAssignedFlowComparator";
+  static final String MEMORY_COMPARATOR_NAME = "Memory";
+  static final String LSTDISPATCHED_COMPARATOR_NAME = "LastDispatched";
+  static final String CPUUSAGE_COMPARATOR_NAME = "CpuUsage";
   private static Map<String, ComparatorCreator> comparatorCreatorRepository = null;
 
   /**
@@ -0,0 +1,322 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.executor.selector;
+
+import azkaban.executor.ExecutableFlow;
+import azkaban.executor.Executor;
+import azkaban.executor.ExecutorInfo;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeSet;
+import org.apache.log4j.Logger;
+
+/**
+ * <pre>
+ * Executor selector which ranks executors by a numeric score instead of pairwise comparisons.
+ *
+ * The score of an executor is the weighted sum of the same factors as {@link ExecutorComparator},
+ * each normalized to [0, 1] against the range seen across all executors at the last refresh:
+ *   - remaining flow capacity, the higher the better.
+ *   - remaining memory, the higher the better.
+ *   - cpu usage, the lower the better.
+ *   - last dispatched time, the earlier the better.
+ * A factor therefore never contributes more than its weight.
+ *
+ * Scores are computed once per {@link #refresh(Collection)} and executors are kept ordered by
+ * score, so {@link #getBest(Collection, ExecutableFlow)} only walks the ranking until it finds a
+ * candidate accepted by the filters. Once a flow is dispatched, {@link #onDispatched(Executor,
+ * ExecutableFlow)} updates the local view of that executor (one more assigned flow, just
+ * dispatched, less free memory if the flow's memory usage is known) and re-ranks only that
+ * executor.
+ *
+ * NOTE: candidates which were not part of the last refresh are never selected.
+ * </pre>
+ */
+public class ExecutorScoringSelector implements Selector<Executor, ExecutableFlow> {
+
+  private static final Logger logger = Logger.getLogger(ExecutorScoringSelector.class);
+
+  // executors without statistics rank below every executor with statistics.
+  private static final double NO_STATISTICS_SCORE = -1;
+
+  private static final Comparator<ScoredExecutor> BEST_FIRST =
+      Comparator.comparingDouble((ScoredExecutor e) -> e.score).reversed()
+          .thenComparingInt(e -> e.executor.getId())
+          .thenComparingInt(e -> e.sequence);
+
+  private final ExecutorFilter filter;
+  private final FlowMemoryEstimator memoryEstimator;
+  private int flowCapacityWeight;
+  private int memoryWeight;
+  private int lastDispatchedWeight;
+  private int cpuUsageWeight;
+
+  private final TreeSet<ScoredExecutor> ranking = new TreeSet<>(BEST_FIRST);
+  private final Map<Executor, ScoredExecutor> scoredExecutors = new HashMap<>();
+  private final Range flowCapacityRange = new Range();
+  private final Range memoryRange = new Range();
+  private final Range lastDispatchedRange = new Range();
+  private final Range cpuUsageRange = new Range();
+
+  /**
+   * constructor of the class.
+   *
+   * @param filterList name list of the filters to be registered, filter feature will be disabled if
+   * a null value is passed.
+   * @param comparatorList name/weight pair list of the factors to be scored, using the same names
+   * as {@link ExecutorComparator}. All executors score the same if a null value is passed.
+   * @param memoryEstimator estimates the memory a flow will use on the executor, typically from
+   * its past executions.
+   */
+  public ExecutorScoringSelector(final Collection<String> filterList,
+      final Map<String, Integer> comparatorList, final FlowMemoryEstimator memoryEstimator) {
+    this.filter = null == filterList || filterList.isEmpty() ? null
+        : new ExecutorFilter(filterList);
+    this.memoryEstimator = memoryEstimator;
+    if (null != comparatorList) {
+      for (final Entry<String, Integer> entry : comparatorList.entrySet()) {
+        setWeight(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  public ExecutorScoringSelector(final Collection<String> filterList,
+      final Map<String, Integer> comparatorList) {
+    this(filterList, comparatorList, FlowMemoryEstimator.NONE);
+  }
+
+  private void setWeight(final String factorName, final Integer weight) {
+    if (null == weight || weight < 0) {
+      throw new IllegalArgumentException(String.format(
+          "failed to initialize executor scoring selector as the weight of factor '%s' is invalid.",
+          factorName));
+    }
+    switch (factorName) {
+      case ExecutorComparator.NUMOFASSIGNEDFLOW_COMPARATOR_NAME:
+        this.flowCapacityWeight = weight;
+        break;
+      case ExecutorComparator.MEMORY_COMPARATOR_NAME:
+        this.memoryWeight = weight;
+        break;
+      case ExecutorComparator.LSTDISPATCHED_COMPARATOR_NAME:
+        this.lastDispatchedWeight = weight;
+        break;
+      case ExecutorComparator.CPUUSAGE_COMPARATOR_NAME:
+        this.cpuUsageWeight = weight;
+        break;
+      default:
+        throw new IllegalArgumentException(String.format(
+            "failed to initialize executor scoring selector as the requested factor '%s' "
+                + "doesn't exist.", factorName));
+    }
+  }
+
+  /**
+   * Re-score all executors from their latest statistics. Should be called whenever the executor
+   * statistics are refreshed.
+   */
+  public synchronized void refresh(final Collection<Executor> executors) {
+    this.ranking.clear();
+    this.scoredExecutors.clear();
+    this.flowCapacityRange.reset();
+    this.memoryRange.reset();
+    this.lastDispatchedRange.reset();
+    this.cpuUsageRange.reset();
+
+    for (final Executor executor : executors) {
+      final ExecutorInfo stats = executor.getExecutorInfo();
+      if (null != stats) {
+        this.flowCapacityRange.include(stats.getRemainingFlowCapacity());
+        this.memoryRange.include(stats.getRemainingMemoryInMB());
+        this.lastDispatchedRange.include(stats.getLastDispatchedTime());
+        this.cpuUsageRange.include(stats.getCpuUsage());
+      }
+    }
+
+    int sequence = 0;
+    for (final Executor executor : executors) {
+      final ScoredExecutor scored = new ScoredExecutor(executor, sequence++);
+      scored.score = score(scored.view.getExecutorInfo());
+      this.scoredExecutors.put(executor, scored);
+      this.ranking.add(scored);
+    }
+    logger.debug(String.format("scored %d executors.", this.ranking.size()));
+  }
+
+  /**
+   * Account for a flow dispatched to the executor until the next refresh.
+   */
+  public synchronized void onDispatched(final Executor executor, final ExecutableFlow flow) {
+    final ScoredExecutor scored = this.scoredExecutors.get(executor);
+    if (null == scored || null == scored.view.getExecutorInfo()) {
+      return;
+    }
+    // must leave the ranking before its score changes, or the tree can't find it anymore.
+    this.ranking.remove(scored);
+    final ExecutorInfo stats = scored.view.getExecutorInfo();
+    stats.setRemainingFlowCapacity(stats.getRemainingFlowCapacity() - 1);
+    stats.setNumberOfAssignedFlows(stats.getNumberOfAssignedFlows() + 1);
+    stats.setLastDispatchedTime(System.currentTimeMillis());
+    stats.setRemainingMemoryInMB(
+        stats.getRemainingMemoryInMB() - this.memoryEstimator.estimateMemoryInMB(flow));
+    scored.score = score(stats);
+    this.ranking.add(scored);
+  }
+
+  /**
+   * Undo {@link #onDispatched(Executor, ExecutableFlow)} for a flow whose dispatch failed. The
+   * last dispatched time of the executor isn't restored.
+   */
+  public synchronized void onDispatchFailed(final Executor executor, final ExecutableFlow flow) {
+    final ScoredExecutor scored = this.scoredExecutors.get(executor);
+    if (null == scored || null == scored.view.getExecutorInfo()) {
+      return;
+    }
+    this.ranking.remove(scored);
+    final ExecutorInfo stats = scored.view.getExecutorInfo();
+    stats.setRemainingFlowCapacity(stats.getRemainingFlowCapacity() + 1);
+    stats.setNumberOfAssignedFlows(stats.getNumberOfAssignedFlows() - 1);
+    stats.setRemainingMemoryInMB(
+        stats.getRemainingMemoryInMB() + this.memoryEstimator.estimateMemoryInMB(flow));
+    scored.score = score(stats);
+    this.ranking.add(scored);
+  }
+
+  @Override
+  public synchronized Executor getBest(final Collection<Executor> candidateList,
+      final ExecutableFlow dispatchingObject) {
+    if (null == candidateList || candidateList.isEmpty()) {
+      logger.error("failed to getNext candidate as the passed candidateList is null or empty.");
+      return null;
+    }
+
+    for (final ScoredExecutor scored : this.ranking) {
+      if (candidateList.contains(scored.executor)
+          && (null == this.filter || this.filter.filterTarget(scored.view, dispatchingObject))) {
+        logger.debug(String.format("candidate selected %s with score %f", scored.executor,
+            scored.score));
+        return scored.executor;
+      }
+    }
+    logger.debug("failed to select candidate as no scored candidate passed the filters.");
+    return null;
+  }
+
+  /**
+   * @return the current score of the executor, or NaN if it was not part of the last refresh.
+   */
+  public synchronized double getScore(final Executor executor) {
+    final ScoredExecutor scored = this.scoredExecutors.get(executor);
+    return null == scored ? Double.NaN : scored.score;
+  }
+
+  private double score(final ExecutorInfo stats) {
+    if (null == stats) {
+      return NO_STATISTICS_SCORE;
+    }
+    return this.flowCapacityWeight * this.flowCapacityRange
+        .higherIsBetter(stats.getRemainingFlowCapacity())
+        + this.memoryWeight * this.memoryRange.higherIsBetter(stats.getRemainingMemoryInMB())
+        + this.lastDispatchedWeight * this.lastDispatchedRange
+        .lowerIsBetter(stats.getLastDispatchedTime())
+        + this.cpuUsageWeight * this.cpuUsageRange.lowerIsBetter(stats.getCpuUsage());
+  }
+
+  @Override
+  public String getName() {
+    return "ExecutorScoringSelector";
+  }
+
+  /**
+   * Estimates how much memory a flow will use on the executor it is dispatched to.
+   */
+  @FunctionalInterface
+  public interface FlowMemoryEstimator {
+
+    FlowMemoryEstimator NONE = flow -> 0L;
+
+    long estimateMemoryInMB(ExecutableFlow flow);
+  }
+
+  /**
+   * An executor with its score. The view is a copy of the executor whose statistics are updated
+   * on every dispatch, so that filters see the dispatched flows too.
+   */
+  private static class ScoredExecutor {
+
+    private final Executor executor;
+    private final Executor view;
+    private final int sequence;
+    private double score;
+
+    ScoredExecutor(final Executor executor, final int sequence) {
+      this.executor = executor;
+      this.sequence = sequence;
+      this.view = new Executor(executor.getId(), executor.getHost(), executor.getPort(),
+          executor.isActive());
+      final ExecutorInfo stats = executor.getExecutorInfo();
+      if (null != stats) {
+        this.view.setExecutorInfo(new ExecutorInfo(stats.getRemainingMemoryPercent(),
+            stats.getRemainingMemoryInMB(), stats.getRemainingFlowCapacity(),
+            stats.getLastDispatchedTime(), stats.getCpuUsage(), stats.getNumberOfAssignedFlows()));
+      }
+    }
+  }
+
+  /**
+   * Range of a factor across executors, used to normalize the factor to [0, 1].
+   */
+  private static class Range {
+
+    private double min;
+    private double max;
+
+    Range() {
+      reset();
+    }
+
+    void reset() {
+      this.min = Double.POSITIVE_INFINITY;
+      this.max = Double.NEGATIVE_INFINITY;
+    }
+
+    void include(final double value) {
+      this.min = Math.min(this.min, value);
+      this.max = Math.max(this.max, value);
+    }
+
+    double higherIsBetter(final double value) {
+      return clamp(1 - (this.max - value) / span());
+    }
+
+    double lowerIsBetter(final double value) {
+      return clamp(1 - (value - this.min) / span());
+    }
+
+    // when all executors are equal, any executor that gets worse drops to 0 for the factor.
+    private double span() {
+      return this.max > this.min ? this.max - this.min : 1;
+    }
+
+    private static double clamp(final double value) {
+      return Math.max(0, Math.min(1, value));
+    }
+  }
+}
@@ -22,10 +22,12 @@ import java.io.IOException;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import org.apache.commons.dbutils.ResultSetHandler;
@@ -36,6 +38,10 @@ import org.slf4j.LoggerFactory;
  * A JDBC based implementation for loading VersionSet from the backed db. This class keeps the copy
  * of entries in the version_set table locally as well to reduce the number of queries to the db.
  * <p>
+ * A version set never changes once inserted, so the local copy is read without any lock, and
+ * lookups of known version sets never query the db. Concurrent first-time lookups of the same
+ * versionSetMd5Hex share a single insert.
+ * <p>
  * This is a singleton class to be instantiated using dependency injection.
  */
 @Singleton
@@ -53,8 +59,11 @@ public class JdbcVersionSetLoader implements VersionSetLoader {
   private static final String DELETE_VSET = "DELETE FROM version_set WHERE md5=?";
 
   private final DatabaseOperator dbOperator;
-  private final Map<String, VersionSet> md5ToVersionSet = new HashMap<>();
-  private final Map<Integer, VersionSet> idToVersionSet = new HashMap<>();
+  private final Map<String, VersionSet> md5ToVersionSet = new ConcurrentHashMap<>();
+  private final Map<Integer, VersionSet> idToVersionSet = new ConcurrentHashMap<>();
+  // Inserts in progress, by versionSetMd5Hex
+  private final Map<String, CompletableFuture<Integer>> pendingInserts =
+      new ConcurrentHashMap<>();
 
   /**
    * This constructor should be instantiated using dependency injection only to make sure that that
@@ -69,18 +78,38 @@ public class JdbcVersionSetLoader implements VersionSetLoader {
   public JdbcVersionSetLoader(DatabaseOperator dbOperator) throws IOException {
     this.dbOperator = dbOperator;
     for (VersionSet versionSet : fetchAllVersionSets()) {
-      this.md5ToVersionSet.put(versionSet.getVersionSetMd5Hex(), versionSet);
-      this.idToVersionSet.put(versionSet.getVersionSetId(), versionSet);
+      cacheVersionSet(versionSet);
     }
   }
 
   /**
    * This method inserts the versionSetJsonString and versionSetMd5Hex to the Table version_set and
-   * get the versionSetId autogenerated post insertion.
+   * get the versionSetId autogenerated post insertion. Concurrent calls for the same
+   * versionSetMd5Hex wait for the first one instead of inserting again.
    */
   @Override
-  public synchronized int insertAndGetVersionSetId(String versionSetMd5Hex,
+  public int insertAndGetVersionSetId(String versionSetMd5Hex,
       String versionSetJsonString) throws IOException {
+    final CompletableFuture<Integer> insert = new CompletableFuture<>();
+    final CompletableFuture<Integer> pendingInsert = this.pendingInserts
+        .putIfAbsent(versionSetMd5Hex, insert);
+    if (pendingInsert != null) {
+      return waitForInsert(versionSetMd5Hex, pendingInsert);
+    }
+    try {
+      final int versionSetId = insertVersionSet(versionSetMd5Hex, versionSetJsonString);
+      insert.complete(versionSetId);
+      return versionSetId;
+    } catch (IOException | RuntimeException e) {
+      insert.completeExceptionally(e);
+      throw e;
+    } finally {
+      this.pendingInserts.remove(versionSetMd5Hex, insert);
+    }
+  }
+
+  private int insertVersionSet(String versionSetMd5Hex, String versionSetJsonString)
+      throws IOException {
     final SQLTransaction<Integer> insertVersionSet = transOperator -> {
       final VersionSetHandler versionSetHandler = new VersionSetHandler();
       // Check if the versionSet already exists for versionSetMd5Hex
@@ -99,9 +128,7 @@ public class JdbcVersionSetLoader implements VersionSetLoader {
     };
     try {
       Integer versionSetId = this.dbOperator.transaction(insertVersionSet);
-      VersionSet versionSet = new VersionSet(versionSetJsonString, versionSetMd5Hex, versionSetId);
-      this.md5ToVersionSet.put(versionSetMd5Hex, versionSet);
-      this.idToVersionSet.put(versionSetId, versionSet);
+      cacheVersionSet(new VersionSet(versionSetJsonString, versionSetMd5Hex, versionSetId));
       return versionSetId;
     } catch (SQLException e) {
       logger.error("Exception occurred while inserting version set and getting version id", e);
@@ -109,17 +136,33 @@ public class JdbcVersionSetLoader implements VersionSetLoader {
     }
   }
 
+  private int waitForInsert(String versionSetMd5Hex, CompletableFuture<Integer> pendingInsert)
+      throws IOException {
+    try {
+      return pendingInsert.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while inserting versionSet for versionSetMd5Hex "
+          + versionSetMd5Hex, e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException("Unable to insert and get versionSetId", e.getCause());
+    }
+  }
+
   /**
    * Deletes the versionSet row from the table version_set corresponding to versionSetMd5Hex.
    */
   @Override
-  public synchronized boolean deleteVersionSet(String versionSetMd5Hex) throws IOException {
+  public boolean deleteVersionSet(String versionSetMd5Hex) throws IOException {
     final SQLTransaction<Integer> insertVersionSet = transOperator -> transOperator
         .update(DELETE_VSET, versionSetMd5Hex);
     try {
       Integer rowsDeleted = this.dbOperator.transaction(insertVersionSet);
-      if (this.md5ToVersionSet.containsKey(versionSetMd5Hex)) {
-        VersionSet removedVersionSet = this.md5ToVersionSet.remove(versionSetMd5Hex);
+      VersionSet removedVersionSet = this.md5ToVersionSet.remove(versionSetMd5Hex);
+      if (removedVersionSet != null) {
         this.idToVersionSet.remove(removedVersionSet.getVersionSetId());
       }
       return rowsDeleted != 0;
@@ -136,10 +179,10 @@ public class JdbcVersionSetLoader implements VersionSetLoader {
    * versionSetId.
    */
   @Override
-  public synchronized int getVersionSetId(String versionSetMd5Hex, String versionSetJsonString)
+  public int getVersionSetId(String versionSetMd5Hex, String versionSetJsonString)
       throws IOException {
-    if (this.md5ToVersionSet.containsKey(versionSetMd5Hex)) {
-      VersionSet versionSet = this.md5ToVersionSet.get(versionSetMd5Hex);
+    VersionSet versionSet = this.md5ToVersionSet.get(versionSetMd5Hex);
+    if (versionSet != null) {
       return versionSet.getVersionSetId();
     }
     return insertAndGetVersionSetId(versionSetMd5Hex, versionSetJsonString);
@@ -150,10 +193,11 @@ public class JdbcVersionSetLoader implements VersionSetLoader {
    * it gets the copy from the version_set table and updates the local copy.
    */
   @Override
-  public synchronized Optional<VersionSet> getVersionSet(String versionSetMd5Hex)
+  public Optional<VersionSet> getVersionSet(String versionSetMd5Hex)
       throws IOException {
-    if (this.md5ToVersionSet.containsKey(versionSetMd5Hex)) {
-      return Optional.of(this.md5ToVersionSet.get(versionSetMd5Hex));
+    VersionSet cachedVersionSet = this.md5ToVersionSet.get(versionSetMd5Hex);
+    if (cachedVersionSet != null) {
+      return Optional.of(cachedVersionSet);
     }
     final VersionSetHandler versionSetHandler = new VersionSetHandler();
     try {
@@ -168,8 +212,7 @@ public class JdbcVersionSetLoader implements VersionSetLoader {
         return Optional.empty();
       }
       VersionSet versionSet = versionSets.get(0);
-      this.idToVersionSet.put(versionSet.getVersionSetId(), versionSet);
-      this.md5ToVersionSet.put(versionSetMd5Hex, versionSet);
+      cacheVersionSet(versionSet);
       return Optional.of(versionSet);
     } catch (SQLException e) {
       logger.error("Failed to execute: " + SELECT_VSET_FROM_MD5, e);
@@ -183,9 +226,10 @@ public class JdbcVersionSetLoader implements VersionSetLoader {
    * it gets the copy from the version_set table and updates the local copy.
    */
   @Override
-  public synchronized Optional<VersionSet> getVersionSetById(int versionSetId) throws IOException {
-    if (this.idToVersionSet.containsKey(versionSetId)) {
-      return Optional.of(this.idToVersionSet.get(versionSetId));
+  public Optional<VersionSet> getVersionSetById(int versionSetId) throws IOException {
+    VersionSet cachedVersionSet = this.idToVersionSet.get(versionSetId);
+    if (cachedVersionSet != null) {
+      return Optional.of(cachedVersionSet);
     }
     final VersionSetHandler versionSetHandler = new VersionSetHandler();
     try {
@@ -199,8 +243,7 @@ public class JdbcVersionSetLoader implements VersionSetLoader {
         return Optional.empty();
       }
       VersionSet versionSet = versionSets.get(0);
-      this.idToVersionSet.put(versionSetId, versionSet);
-      this.md5ToVersionSet.put(versionSet.getVersionSetMd5Hex(), versionSet);
+      cacheVersionSet(versionSet);
       return Optional.of(versionSet);
     } catch (SQLException e) {
       logger.error("Failed to execute: " + SELECT_VSET_FROM_ID, e);
@@ -208,11 +251,17 @@ public class JdbcVersionSetLoader implements VersionSetLoader {
     }
   }
 
+  private void cacheVersionSet(VersionSet versionSet) {
+    // Index by id first, so that a version set found by md5 can always be found by id
+    this.idToVersionSet.put(versionSet.getVersionSetId(), versionSet);
+    this.md5ToVersionSet.put(versionSet.getVersionSetMd5Hex(), versionSet);
+  }
+
   /**
    * Fetches all the rows from the version_set table and returns it as List of VersionSet.
    */
   @Override
-  public synchronized List<VersionSet> fetchAllVersionSets() throws IOException {
+  public List<VersionSet> fetchAllVersionSets() throws IOException {
     final VersionSetHandler versionSetHandler = new VersionSetHandler();
     try {
       return this.dbOperator.query(SELECT_ALL_VSET, versionSetHandler);
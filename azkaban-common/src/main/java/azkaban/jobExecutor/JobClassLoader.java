@@ -20,6 +20,7 @@ import azkaban.utils.Props;
 import com.google.common.annotations.VisibleForTesting;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -36,6 +37,8 @@ public class JobClassLoader extends URLClassLoader {
   private static final String AZKABAN_SECURITY_CLASS = "azkaban.security";
   private final String jobId;
   private final ClassLoader parent;
+  // Number of classes defined by this classloader
+  private final AtomicInteger loadedClassCount = new AtomicInteger();
 
   public JobClassLoader(final URL[] urls, final ClassLoader parent, final String jobId) {
     super(urls, parent);
@@ -94,6 +97,7 @@ public class JobClassLoader extends URLClassLoader {
       try {
         c = findClass(name);
         if (c != null) {
+          this.loadedClassCount.incrementAndGet();
           LOG.debug("Loaded class: " + name + " " + " for job " + this.jobId);
         }
       } catch (final ClassNotFoundException e) {
@@ -123,6 +127,10 @@ public class JobClassLoader extends URLClassLoader {
     return c;
   }
 
+  public int getLoadedClassCount() {
+    return this.loadedClassCount.get();
+  }
+
   @VisibleForTesting
   void addURL(Class clazz) {
     super.addURL(clazz.getProtectionDomain().getCodeSource().getLocation());
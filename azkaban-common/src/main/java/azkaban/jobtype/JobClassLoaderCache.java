@@ -0,0 +1,195 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.jobtype;
+
+import azkaban.jobExecutor.JobClassLoader;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.apache.log4j.Logger;
+
+/**
+ * Cache of jobtype {@link JobClassLoader}s. The jobs of a jobtype running with the same class path
+ * and parent classloader share a single classloader, so the jobtype jars are scanned and its
+ * classes are loaded once rather than for every job.
+ *
+ * <p>Classloaders are reference counted by the jobs using them. {@link #retireAll()} makes the
+ * next jobs use new classloaders, e.g. after the jobtype plugins are reloaded, and closes the
+ * retired classloaders once their last job has released them.
+ */
+public class JobClassLoaderCache {
+
+  private static final Logger LOGGER = Logger.getLogger(JobClassLoaderCache.class);
+
+  // Guarded by this
+  private final Map<Key, CachedClassLoader> cachedClassLoaders = new HashMap<>();
+  // All the classloaders which aren't closed yet, including the retired ones still in use
+  private final Map<JobClassLoader, CachedClassLoader> openClassLoaders = new IdentityHashMap<>();
+  // The jobtypes which have had a classloader
+  private final Set<String> jobTypes = new HashSet<>();
+  private Consumer<String> jobTypeListener = jobType -> {
+  };
+
+  /**
+   * Get the classloader for a job of the jobtype. It must be released once the job is finished.
+   */
+  public synchronized JobClassLoader acquire(final String jobType, final URL[] urls,
+      final ClassLoader parent) {
+    final Key key = new Key(jobType, urls, parent);
+    CachedClassLoader cached = this.cachedClassLoaders.get(key);
+    if (cached == null) {
+      LOGGER.info("Creating shared classloader for jobtype " + jobType);
+      cached = new CachedClassLoader(jobType, new JobClassLoader(urls, parent, jobType));
+      this.cachedClassLoaders.put(key, cached);
+      this.openClassLoaders.put(cached.classLoader, cached);
+      if (this.jobTypes.add(jobType)) {
+        this.jobTypeListener.accept(jobType);
+      }
+    }
+    cached.refCount++;
+    return cached.classLoader;
+  }
+
+  /**
+   * Release a classloader acquired for a job.
+   */
+  public void release(final ClassLoader classLoader) {
+    final CachedClassLoader cached;
+    synchronized (this) {
+      cached = this.openClassLoaders.get(classLoader);
+      if (cached == null) {
+        return;
+      }
+      cached.refCount--;
+      if (!cached.retired || cached.refCount > 0) {
+        return;
+      }
+      this.openClassLoaders.remove(classLoader);
+    }
+    close(cached);
+  }
+
+  /**
+   * Stop handing out the cached classloaders. The ones not in use are closed, the others are closed
+   * when released by their last job.
+   */
+  public void retireAll() {
+    final List<CachedClassLoader> unused = new ArrayList<>();
+    synchronized (this) {
+      for (final CachedClassLoader cached : this.cachedClassLoaders.values()) {
+        cached.retired = true;
+        if (cached.refCount == 0) {
+          this.openClassLoaders.remove(cached.classLoader);
+          unused.add(cached);
+        }
+      }
+      this.cachedClassLoaders.clear();
+    }
+    unused.forEach(JobClassLoaderCache::close);
+  }
+
+  /**
+   * @return the number of open classloaders, including retired ones still in use
+   */
+  public synchronized int getClassLoaderCount() {
+    return this.openClassLoaders.size();
+  }
+
+  /**
+   * @return the number of classes loaded by the open classloaders of the jobtype
+   */
+  public synchronized int getLoadedClassCount(final String jobType) {
+    return this.openClassLoaders.values().stream().filter(cached -> cached.jobType.equals(jobType))
+        .mapToInt(cached -> cached.classLoader.getLoadedClassCount()).sum();
+  }
+
+  /**
+   * Set the listener called with each jobtype the first time it gets a classloader, e.g. to add
+   * its metrics. It is called right away with the jobtypes which already had one.
+   */
+  public synchronized void setJobTypeListener(final Consumer<String> jobTypeListener) {
+    this.jobTypeListener = jobTypeListener;
+    this.jobTypes.forEach(jobTypeListener);
+  }
+
+  private static void close(final CachedClassLoader cached) {
+    LOGGER.info("Closing retired classloader of jobtype " + cached.jobType);
+    try {
+      cached.classLoader.close();
+    } catch (final IOException e) {
+      LOGGER.warn("Failed to close classloader of jobtype " + cached.jobType, e);
+    }
+  }
+
+  private static class CachedClassLoader {
+
+    private final String jobType;
+    private final JobClassLoader classLoader;
+    private int refCount = 0;
+    private boolean retired = false;
+
+    private CachedClassLoader(final String jobType, final JobClassLoader classLoader) {
+      this.jobType = jobType;
+      this.classLoader = classLoader;
+    }
+  }
+
+  /**
+   * Classloaders are shared by jobtype, class path and parent classloader. URLs are compared as
+   * strings to avoid the host name resolution of {@link URL#equals(Object)}, parents by identity.
+   */
+  private static class Key {
+
+    private final String jobType;
+    private final List<String> urls;
+    private final ClassLoader parent;
+
+    private Key(final String jobType, final URL[] urls, final ClassLoader parent) {
+      this.jobType = jobType;
+      this.urls = Arrays.stream(urls).map(URL::toString).collect(Collectors.toList());
+      this.parent = parent;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final Key key = (Key) o;
+      return this.jobType.equals(key.jobType) && this.urls.equals(key.urls)
+          && this.parent == key.parent;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(this.jobType, this.urls, System.identityHashCode(this.parent));
+    }
+  }
+}
@@ -53,6 +53,8 @@ public class JobTypeManager {
   private final ClassLoader parentLoader;
   private final Props globalProperties;
   private final ClusterRouter clusterRouter;
+  private final boolean classLoaderCacheEnabled;
+  private final JobClassLoaderCache classLoaderCache = new JobClassLoaderCache();
   private JobTypePluginSet pluginSet;
   // Only used to load keyStore.
   private Props keyStoreLoadProps = null;
@@ -69,6 +71,8 @@ public class JobTypeManager {
     this.parentLoader = parentClassLoader;
     this.globalProperties = globalProperties;
     this.clusterRouter = clusterRouter;
+    this.classLoaderCacheEnabled = globalProperties != null && globalProperties
+        .getBoolean(Constants.ConfigurationKeys.JOBTYPE_CLASSLOADER_CACHE_ENABLED, false);
     loadPlugins();
   }
 
@@ -93,6 +97,8 @@ public class JobTypeManager {
     synchronized (this) {
       this.pluginSet = plugins;
     }
+    // The next jobs load the reloaded plugins, running jobs keep their classloader until finished.
+    this.classLoaderCache.retireAll();
   }
 
   private void loadDefaultTypes(final JobTypePluginSet plugins)
@@ -329,6 +335,7 @@ public class JobTypeManager {
     // This is final because during build phase, you should never need to swap
     // the pluginSet for safety reasons
     final JobTypePluginSet pluginSet = getJobTypePluginSet();
+    JobClassLoader sharedClassLoader = null;
 
     try {
       final String jobType = jobProps.getString("type");
@@ -364,9 +371,16 @@ public class JobTypeManager {
       }
       logger.info(String.format("JobClassLoader URLs: %s", jobClassLoaderUrls.stream()
           .map(URL::toString).collect(Collectors.joining(", "))));
-      final ClassLoader jobClassLoader = new JobClassLoader(
-          jobClassLoaderUrls.toArray(new URL[jobClassLoaderUrls.size()]),
-          jobContextClassLoader, jobId);
+      final URL[] jobClassLoaderUrlArray =
+          jobClassLoaderUrls.toArray(new URL[jobClassLoaderUrls.size()]);
+      final ClassLoader jobClassLoader;
+      if (this.classLoaderCacheEnabled) {
+        sharedClassLoader = this.classLoaderCache
+            .acquire(jobType, jobClassLoaderUrlArray, jobContextClassLoader);
+        jobClassLoader = sharedClassLoader;
+      } else {
+        jobClassLoader = new JobClassLoader(jobClassLoaderUrlArray, jobContextClassLoader, jobId);
+      }
 
 
       // load the jobtype from JobClassLoader
@@ -384,13 +398,15 @@ public class JobTypeManager {
       jobProps = PropsUtils.resolveProps(jobProps);
 
       return new JobParams(jobTypeClass, jobProps, pluginSet.getPluginPrivateProps(jobType),
-          pluginLoadProps, jobContextClassLoader);
+          pluginLoadProps, jobContextClassLoader, sharedClassLoader);
     } catch (final Exception e) {
+      this.classLoaderCache.release(sharedClassLoader);
       logger.error("Failed to build job executor for job " + jobId
           + e.getMessage());
       throw new JobTypeManagerException("Failed to build job executor for job "
           + jobId, e);
     } catch (final Throwable t) {
+      this.classLoaderCache.release(sharedClassLoader);
       logger.error(
           "Failed to build job executor for job " + jobId + t.getMessage(), t);
       throw new JobTypeManagerException("Failed to build job executor for job "
@@ -463,6 +479,19 @@ public class JobTypeManager {
     return job;
   }
 
+  /**
+   * Release the resources held for the job once it is finished.
+   */
+  public void releaseJobParams(final JobParams jobParams) {
+    if (jobParams.sharedClassLoader != null) {
+      this.classLoaderCache.release(jobParams.sharedClassLoader);
+    }
+  }
+
+  public JobClassLoaderCache getClassLoaderCache() {
+    return this.classLoaderCache;
+  }
+
   public static final class JobParams {
 
     public final Class<? extends Object> jobClass;
@@ -470,15 +499,24 @@ public class JobTypeManager {
     public final Props jobProps;
     public final Props pluginLoadProps;
     public final Props pluginPrivateProps;
+    // Classloader of the job shared with the other jobs of the jobtype, null if not shared
+    public final ClassLoader sharedClassLoader;
 
     public JobParams(final Class<? extends Object> jobClass, final Props jobProps,
                      final Props pluginPrivateProps, final Props pluginLoadProps,
                      final ClassLoader contextClassLoader) {
+      this(jobClass, jobProps, pluginPrivateProps, pluginLoadProps, contextClassLoader, null);
+    }
+
+    public JobParams(final Class<? extends Object> jobClass, final Props jobProps,
+                     final Props pluginPrivateProps, final Props pluginLoadProps,
+                     final ClassLoader contextClassLoader, final ClassLoader sharedClassLoader) {
       this.jobClass = jobClass;
       this.contextClassLoader = contextClassLoader;
       this.jobProps = jobProps;
       this.pluginLoadProps = pluginLoadProps;
       this.pluginPrivateProps = pluginPrivateProps;
+      this.sharedClassLoader = sharedClassLoader;
     }
   }
 
@@ -17,7 +17,11 @@
 package azkaban.metrics;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
@@ -31,6 +35,12 @@ public class CommonMetrics {
   public static final String FLOW_FAIL_METER_NAME = "flow-fail-meter";
   public static final String DISPATCH_FAIL_METER_NAME = "dispatch-fail-meter";
   public static final String DISPATCH_SUCCESS_METER_NAME = "dispatch-success-meter";
+  public static final String DISPATCH_BATCH_LATENCY_TIMER_NAME = "dispatch-batch-latency";
+  public static final String DISPATCH_BATCH_SIZE_HISTOGRAM_NAME = "dispatch-batch-size";
+  public static final String DISPATCH_FAIL_EXECUTOR_COUNTER_PREFIX = "dispatch-fail-executor-";
+  public static final String CONTAINER_DISPATCH_WAIT_HISTOGRAM_NAME = "container-dispatch-wait";
+  public static final String CONTAINER_CREATION_LATENCY_HISTOGRAM_NAME =
+      "container-creation-latency";
   public static final String SEND_EMAIL_FAIL_METER_NAME = "send-email-fail-meter";
   public static final String SEND_EMAIL_SUCCESS_METER_NAME = "send-email-success-meter";
   public static final String SUBMIT_FLOW_SUCCESS_METER_NAME = "submit-flow-success-meter";
@@ -39,12 +49,26 @@ public class CommonMetrics {
   public static final String OOM_WAITING_JOB_COUNT_NAME = "OOM-waiting-job-count";
   public static final String UPLOAD_FAT_PROJECT_METER_NAME = "upload-fat-project-meter";
   public static final String UPLOAD_THIN_PROJECT_METER_NAME = "upload-thin-project-meter";
+  public static final String EXECUTABLE_FLOW_CACHE_HIT_METER_NAME =
+      "executable-flow-cache-hit-meter";
+  public static final String EXECUTABLE_FLOW_CACHE_MISS_METER_NAME =
+      "executable-flow-cache-miss-meter";
+  public static final String EXECUTABLE_FLOW_INFLATED_BYTES_METER_NAME =
+      "executable-flow-inflated-bytes-meter";
+  public static final String EMAIL_QUEUE_SIZE_GAUGE_NAME = "email-queue-size";
+  public static final String EMAIL_QUEUE_WAIT_HISTOGRAM_NAME = "email-queue-wait";
+  public static final String EMAIL_COALESCED_METER_NAME = "email-coalesced-meter";
+  public static final String EMAIL_REJECTED_METER_NAME = "email-rejected-meter";
 
   private Counter OOMWaitingJobCount;
   private final MetricsManager metricsManager;
   private Meter flowFailMeter;
   private Meter dispatchFailMeter;
   private Meter dispatchSuccessMeter;
+  private Timer dispatchBatchLatencyTimer;
+  private Histogram dispatchBatchSizeHistogram;
+  private Histogram containerDispatchWaitHistogram;
+  private Histogram containerCreationLatencyHistogram;
   private Meter sendEmailFailMeter;
   private Meter sendEmailSuccessMeter;
   private Meter submitFlowSuccessMeter;
@@ -52,6 +76,12 @@ public class CommonMetrics {
   private Meter submitFlowSkipMeter;
   private Meter uploadFatProjectMeter;
   private Meter uploadThinProjectMeter;
+  private Meter executableFlowCacheHitMeter;
+  private Meter executableFlowCacheMissMeter;
+  private Meter executableFlowInflatedBytesMeter;
+  private Histogram emailQueueWaitHistogram;
+  private Meter emailCoalescedMeter;
+  private Meter emailRejectedMeter;
 
   @Inject
   public CommonMetrics(final MetricsManager metricsManager) {
@@ -63,6 +93,14 @@ public class CommonMetrics {
     this.flowFailMeter = this.metricsManager.addMeter(FLOW_FAIL_METER_NAME);
     this.dispatchFailMeter = this.metricsManager.addMeter(DISPATCH_FAIL_METER_NAME);
     this.dispatchSuccessMeter = this.metricsManager.addMeter(DISPATCH_SUCCESS_METER_NAME);
+    this.dispatchBatchLatencyTimer = this.metricsManager
+        .addTimer(DISPATCH_BATCH_LATENCY_TIMER_NAME);
+    this.dispatchBatchSizeHistogram = this.metricsManager
+        .addHistogram(DISPATCH_BATCH_SIZE_HISTOGRAM_NAME);
+    this.containerDispatchWaitHistogram = this.metricsManager
+        .addHistogram(CONTAINER_DISPATCH_WAIT_HISTOGRAM_NAME);
+    this.containerCreationLatencyHistogram = this.metricsManager
+        .addHistogram(CONTAINER_CREATION_LATENCY_HISTOGRAM_NAME);
     this.sendEmailFailMeter = this.metricsManager.addMeter(SEND_EMAIL_FAIL_METER_NAME);
     this.sendEmailSuccessMeter = this.metricsManager.addMeter(SEND_EMAIL_SUCCESS_METER_NAME);
     this.submitFlowSuccessMeter = this.metricsManager.addMeter(SUBMIT_FLOW_SUCCESS_METER_NAME);
@@ -71,6 +109,16 @@ public class CommonMetrics {
     this.OOMWaitingJobCount = this.metricsManager.addCounter(OOM_WAITING_JOB_COUNT_NAME);
     this.uploadFatProjectMeter = this.metricsManager.addMeter(UPLOAD_FAT_PROJECT_METER_NAME);
     this.uploadThinProjectMeter = this.metricsManager.addMeter(UPLOAD_THIN_PROJECT_METER_NAME);
+    this.executableFlowCacheHitMeter = this.metricsManager
+        .addMeter(EXECUTABLE_FLOW_CACHE_HIT_METER_NAME);
+    this.executableFlowCacheMissMeter = this.metricsManager
+        .addMeter(EXECUTABLE_FLOW_CACHE_MISS_METER_NAME);
+    this.executableFlowInflatedBytesMeter = this.metricsManager
+        .addMeter(EXECUTABLE_FLOW_INFLATED_BYTES_METER_NAME);
+    this.emailQueueWaitHistogram = this.metricsManager
+        .addHistogram(EMAIL_QUEUE_WAIT_HISTOGRAM_NAME);
+    this.emailCoalescedMeter = this.metricsManager.addMeter(EMAIL_COALESCED_METER_NAME);
+    this.emailRejectedMeter = this.metricsManager.addMeter(EMAIL_REJECTED_METER_NAME);
   }
 
   /**
@@ -95,6 +143,30 @@ public class CommonMetrics {
     this.dispatchSuccessMeter.mark();
   }
 
+  /**
+   * Increment the dispatch failure counter of the executor, on top of dispatchFailMeter.
+   */
+  public void markDispatchFail(final int executorId) {
+    this.metricsManager.addCounter(DISPATCH_FAIL_EXECUTOR_COUNTER_PREFIX + executorId).inc();
+  }
+
+  /**
+   * Record the size of a batch of queued flows and the time taken to dispatch it.
+   */
+  public void recordDispatchBatch(final int batchSize, final long latencyMs) {
+    this.dispatchBatchSizeHistogram.update(batchSize);
+    this.dispatchBatchLatencyTimer.update(latencyMs, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Record the time a queued flow waited for container creation to start once picked up for
+   * dispatch, and the time taken to create its container, in milliseconds.
+   */
+  public void recordContainerDispatch(final long waitMs, final long creationMs) {
+    this.containerDispatchWaitHistogram.update(waitMs);
+    this.containerCreationLatencyHistogram.update(creationMs);
+  }
+
   /**
    * Mark sendEmailFailMeter when an email fails to be sent out.
    */
@@ -109,6 +181,35 @@ public class CommonMetrics {
     this.sendEmailSuccessMeter.mark();
   }
 
+  /**
+   * Report the number of emails waiting to be sent.
+   */
+  public void addEmailQueueSizeGauge(final Supplier<Integer> queueSize) {
+    this.metricsManager.addGauge(EMAIL_QUEUE_SIZE_GAUGE_NAME, queueSize);
+  }
+
+  /**
+   * Record how long an email waited in the queue before being sent.
+   */
+  public void recordEmailQueueWait(final long waitMs) {
+    this.emailQueueWaitHistogram.update(waitMs);
+  }
+
+  /**
+   * Mark emailCoalescedMeter when an email isn't queued because the same email is already
+   * waiting to be sent.
+   */
+  public void markEmailCoalesced() {
+    this.emailCoalescedMeter.mark();
+  }
+
+  /**
+   * Mark emailRejectedMeter when an email is dropped because the queue is full.
+   */
+  public void markEmailRejected() {
+    this.emailRejectedMeter.mark();
+  }
+
   /**
    * Mark submitFlowSuccessMeter when a flow is submitted for execution successfully.
    */
@@ -140,6 +241,22 @@ public class CommonMetrics {
    */
   public void markUploadThinProject() { this.uploadThinProjectMeter.mark(); }
 
+  /**
+   * Mark executableFlowCacheHitMeter when an execution is served from the ExecutableFlow cache.
+   */
+  public void markExecutableFlowCacheHit() {
+    this.executableFlowCacheHitMeter.mark();
+  }
+
+  /**
+   * Mark executableFlowCacheMissMeter when an execution is loaded from the DB, and the size of its
+   * inflated flow data on executableFlowInflatedBytesMeter.
+   */
+  public void markExecutableFlowCacheMiss(final long inflatedBytes) {
+    this.executableFlowCacheMissMeter.mark();
+    this.executableFlowInflatedBytesMeter.mark(inflatedBytes);
+  }
+
   /**
    * Mark the occurrence of a job waiting event due to OOM
    */
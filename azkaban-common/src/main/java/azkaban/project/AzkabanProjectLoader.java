@@ -75,6 +75,7 @@ class AzkabanProjectLoader {
   private final ArchiveUnthinner archiveUnthinner;
   private final File tempDir;
   private final int projectVersionRetention;
+  private final boolean metadataBatchUploadEnabled;
   private final ExecutorLoader executorLoader;
   private final Storage storage;
   private final ValidatorUtils validatorUtils;
@@ -106,6 +107,8 @@ class AzkabanProjectLoader {
     }
     this.projectVersionRetention = props.getInt(ConfigurationKeys.PROJECT_VERSION_RETENTION, 3);
     log.info("Project version retention is set to " + this.projectVersionRetention);
+    this.metadataBatchUploadEnabled = props
+        .getBoolean(ConfigurationKeys.PROJECT_METADATA_BATCH_UPLOAD_ENABLED, false);
   }
 
   public Map<String, ValidationReport> uploadProject(final Project project,
@@ -268,25 +271,29 @@ class AzkabanProjectLoader {
       this.projectStorageManager.uploadProject(project, newProjectVersion, archive,
           startupDependencies, uploader, uploaderIPAddr);
 
-      log.info("Uploading flow to db for project " + archive.getName());
-      this.projectLoader.uploadFlows(project, newProjectVersion, flows.values());
+      // The batch upload writes the flows and the properties of the new version in one go. The
+      // other uploads write the properties once the new version is the current one.
+      final boolean batchUpload =
+          this.metadataBatchUploadEnabled && loader instanceof DirectoryFlowLoader;
+      if (batchUpload) {
+        final DirectoryFlowLoader directoryFlowLoader = (DirectoryFlowLoader) loader;
+        final List<Props> properties =
+            new ArrayList<>(directoryFlowLoader.getJobPropsMap().values());
+        properties.addAll(directoryFlowLoader.getPropsList());
+        log.info("Uploading flows and properties to db for project " + archive.getName());
+        this.projectLoader
+            .uploadProjectMetadata(project, newProjectVersion, flows.values(), properties);
+      } else {
+        log.info("Uploading flow to db for project " + archive.getName());
+        this.projectLoader.uploadFlows(project, newProjectVersion, flows.values());
+      }
       log.info("Changing project versions for project " + archive.getName());
       this.projectLoader.changeProjectVersion(project, newProjectVersion,
           uploader.getUserId());
       project.setFlows(flows);
 
-      if (loader instanceof DirectoryFlowLoader) {
-        final DirectoryFlowLoader directoryFlowLoader = (DirectoryFlowLoader) loader;
-        log.info("Uploading Job properties");
-        this.projectLoader.uploadProjectProperties(project, new ArrayList<>(
-            directoryFlowLoader.getJobPropsMap().values()));
-        log.info("Uploading Props properties");
-        this.projectLoader.uploadProjectProperties(project, directoryFlowLoader.getPropsList());
-
-      } else if (loader instanceof DirectoryYamlFlowLoader) {
-        uploadFlowFilesRecursively(projectDir, project, newProjectVersion);
-      } else {
-        throw new ProjectManagerException("Invalid type of flow loader.");
+      if (!batchUpload) {
+        uploadProjectProperties(project, loader, projectDir, newProjectVersion);
       }
 
       this.projectLoader.postEvent(project, EventType.UPLOADED, uploader.getUserId(),
@@ -294,6 +301,23 @@ class AzkabanProjectLoader {
     }
   }
 
+  private void uploadProjectProperties(final Project project, final FlowLoader loader,
+      final File projectDir, final int newProjectVersion) throws ProjectManagerException {
+    if (loader instanceof DirectoryFlowLoader) {
+      final DirectoryFlowLoader directoryFlowLoader = (DirectoryFlowLoader) loader;
+      log.info("Uploading Job properties");
+      this.projectLoader.uploadProjectProperties(project, new ArrayList<>(
+          directoryFlowLoader.getJobPropsMap().values()));
+      log.info("Uploading Props properties");
+      this.projectLoader.uploadProjectProperties(project, directoryFlowLoader.getPropsList());
+
+    } else if (loader instanceof DirectoryYamlFlowLoader) {
+      uploadFlowFilesRecursively(projectDir, project, newProjectVersion);
+    } else {
+      throw new ProjectManagerException("Invalid type of flow loader.");
+    }
+  }
+
   private void uploadFlowFilesRecursively(final File projectDir, final Project project, final int
       newProjectVersion) {
     for (final File file : projectDir.listFiles(new SuffixFilter(Constants.FLOW_FILE_SUFFIX))) {
@@ -16,6 +16,7 @@
 
 package azkaban.project;
 
+import azkaban.Constants.ConfigurationKeys;
 import azkaban.flow.CommonJobProperties;
 import azkaban.flow.ConditionOnJobStatus;
 import azkaban.flow.Edge;
@@ -26,6 +27,7 @@ import azkaban.flow.SpecialJobTypes;
 import azkaban.project.FlowLoaderUtils.DirFilter;
 import azkaban.project.FlowLoaderUtils.SuffixFilter;
 import azkaban.project.validator.ValidationReport;
+import azkaban.utils.ParallelUtils;
 import azkaban.utils.Props;
 import java.io.File;
 import java.io.IOException;
@@ -63,6 +65,9 @@ public class DirectoryFlowLoader implements FlowLoader {
   private ArrayList<FlowProps> flowPropsList;
   private ArrayList<Props> propsList;
   private Set<String> duplicateJobs;
+  // Job files found in each directory, in the order the directories are loaded.
+  private List<List<JobFile>> jobFilesByDir;
+  private final int parallelism;
 
   /**
    * Creates a new DirectoryFlowLoader.
@@ -71,6 +76,7 @@ public class DirectoryFlowLoader implements FlowLoader {
    */
   public DirectoryFlowLoader(final Props props) {
     this.props = props;
+    this.parallelism = props.getInt(ConfigurationKeys.PROJECT_LOADER_PARALLELISM, 1);
   }
 
   /**
@@ -128,10 +134,14 @@ public class DirectoryFlowLoader implements FlowLoader {
     this.nodeDependencies = new HashMap<>();
     this.rootNodes = new HashSet<>();
     this.flowDependencies = new HashMap<>();
+    this.jobFilesByDir = new ArrayList<>();
 
-    // Load all the props files and create the Node objects
+    // Load all the props files and find the job files
     loadProjectFromDir(projectDir.getPath(), projectDir, null);
 
+    // Parse the job files and create the Node objects
+    loadJobFiles();
+
     // Create edges and find missing dependencies
     resolveDependencies();
 
@@ -168,58 +178,84 @@ public class DirectoryFlowLoader implements FlowLoader {
       this.propsList.add(parent);
     }
 
-    // Load all Job files. If there's a duplicate name, then we don't load
-    final File[] jobFiles = dir.listFiles(new SuffixFilter(JOB_SUFFIX));
-    for (final File file : jobFiles) {
-      final String jobName = getNameWithoutExtension(file);
-      try {
-        if (!this.duplicateJobs.contains(jobName)) {
-          if (this.jobPropsMap.containsKey(jobName)) {
-            this.errors.add("Duplicate job names found '" + jobName + "'.");
-            this.duplicateJobs.add(jobName);
-            this.jobPropsMap.remove(jobName);
-            this.nodeMap.remove(jobName);
-          } else {
-            final Props prop = new Props(parent, file);
-            final String relative = getRelativeFilePath(base, file.getPath());
-            prop.setSource(relative);
-
-            final Node node = new Node(jobName);
-            final String type = prop.getString("type", null);
-            if (type == null) {
-              this.errors.add("Job doesn't have type set '" + jobName + "'.");
-            }
-            node.setType(type);
+    // Job files are parsed once all the directories are walked, see loadJobFiles()
+    final List<JobFile> jobFiles = new ArrayList<>();
+    for (final File file : dir.listFiles(new SuffixFilter(JOB_SUFFIX))) {
+      jobFiles.add(new JobFile(file, getRelativeFilePath(base, file.getPath()), parent));
+    }
+    this.jobFilesByDir.add(jobFiles);
 
-            String condition = prop.getString("condition", null);
-            if (null != condition && !condition.isEmpty()) {
-              logger.info(String.format("Setting condition %s for job %s", condition, jobName));
-              node.setCondition(condition);
-            }
+    for (final File file : dir.listFiles(new DirFilter())) {
+      loadProjectFromDir(base, file, parent);
+    }
+  }
 
-            node.setJobSource(relative);
-            if (parent != null) {
-              node.setPropsSource(parent.getSource());
-            }
+  /**
+   * Parse the job files, in parallel if configured, then add them to the project in the order of
+   * their directories, as if they were loaded one by one.
+   */
+  private void loadJobFiles() {
+    final List<JobFile> allJobFiles = new ArrayList<>();
+    this.jobFilesByDir.forEach(allJobFiles::addAll);
+    ParallelUtils.map(allJobFiles, jobFile -> {
+      jobFile.parse();
+      return jobFile;
+    }, this.parallelism, "azk-project-loader-%d");
+
+    for (final List<JobFile> jobFiles : this.jobFilesByDir) {
+      // Load all Job files. If there's a duplicate name, then we don't load
+      for (final JobFile jobFile : jobFiles) {
+        addJob(jobFile);
+      }
+      validateConditions();
+    }
+  }
 
-            // Force root node
-            if (prop.getBoolean(CommonJobProperties.ROOT_NODE, false)) {
-              this.rootNodes.add(jobName);
-            }
+  private void addJob(final JobFile jobFile) {
+    final File file = jobFile.file;
+    final String jobName = getNameWithoutExtension(file);
+    try {
+      if (!this.duplicateJobs.contains(jobName)) {
+        if (this.jobPropsMap.containsKey(jobName)) {
+          this.errors.add("Duplicate job names found '" + jobName + "'.");
+          this.duplicateJobs.add(jobName);
+          this.jobPropsMap.remove(jobName);
+          this.nodeMap.remove(jobName);
+        } else {
+          final Props prop = jobFile.getProps();
+          final String relative = jobFile.relativePath;
+          final Props parent = jobFile.parent;
+
+          final Node node = new Node(jobName);
+          final String type = prop.getString("type", null);
+          if (type == null) {
+            this.errors.add("Job doesn't have type set '" + jobName + "'.");
+          }
+          node.setType(type);
 
-            this.jobPropsMap.put(jobName, prop);
-            this.nodeMap.put(jobName, node);
+          String condition = prop.getString("condition", null);
+          if (null != condition && !condition.isEmpty()) {
+            logger.info(String.format("Setting condition %s for job %s", condition, jobName));
+            node.setCondition(condition);
           }
+
+          node.setJobSource(relative);
+          if (parent != null) {
+            node.setPropsSource(parent.getSource());
+          }
+
+          // Force root node
+          if (prop.getBoolean(CommonJobProperties.ROOT_NODE, false)) {
+            this.rootNodes.add(jobName);
+          }
+
+          this.jobPropsMap.put(jobName, prop);
+          this.nodeMap.put(jobName, node);
         }
-      } catch (final IOException e) {
-        this.errors.add("Error loading job file " + file.getName() + ":"
-            + e.getMessage());
       }
-    }
-
-    validateConditions();
-    for (final File file : dir.listFiles(new DirFilter())) {
-      loadProjectFromDir(base, file, parent);
+    } catch (final IOException e) {
+      this.errors.add("Error loading job file " + file.getName() + ":"
+          + e.getMessage());
     }
   }
 
@@ -461,4 +497,37 @@ public class DirectoryFlowLoader implements FlowLoader {
     }
   }
 
+  /**
+   * A job file, parsed with the properties of its directory as parent.
+   */
+  private static class JobFile {
+
+    private final File file;
+    private final String relativePath;
+    private final Props parent;
+    private Props props;
+    private IOException error;
+
+    private JobFile(final File file, final String relativePath, final Props parent) {
+      this.file = file;
+      this.relativePath = relativePath;
+      this.parent = parent;
+    }
+
+    private void parse() {
+      try {
+        this.props = new Props(this.parent, this.file);
+        this.props.setSource(this.relativePath);
+      } catch (final IOException e) {
+        this.error = e;
+      }
+    }
+
+    private Props getProps() throws IOException {
+      if (this.error != null) {
+        throw this.error;
+      }
+      return this.props;
+    }
+  }
 }
@@ -17,6 +17,7 @@
 package azkaban.project;
 
 import azkaban.Constants;
+import azkaban.Constants.ConfigurationKeys;
 import azkaban.flow.ConditionOnJobStatus;
 import azkaban.flow.Edge;
 import azkaban.flow.Flow;
@@ -25,10 +26,12 @@ import azkaban.flow.Node;
 import azkaban.project.FlowLoaderUtils.DirFilter;
 import azkaban.project.FlowLoaderUtils.SuffixFilter;
 import azkaban.project.validator.ValidationReport;
+import azkaban.utils.ParallelUtils;
 import azkaban.utils.Props;
 import com.google.common.collect.ImmutableList;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -61,6 +64,7 @@ public class DirectoryYamlFlowLoader implements FlowLoader {
   private final Map<String, Flow> flowMap = new HashMap<>();
   private final Map<String, List<Edge>> edgeMap = new HashMap<>();
   private final Map<String, Props> jobPropsMap = new HashMap<>();
+  private final int parallelism;
 
   /**
    * Creates a new DirectoryYamlFlowLoader.
@@ -69,6 +73,7 @@ public class DirectoryYamlFlowLoader implements FlowLoader {
    */
   public DirectoryYamlFlowLoader(final Props props) {
     this.props = props;
+    this.parallelism = props.getInt(ConfigurationKeys.PROJECT_LOADER_PARALLELISM, 1);
   }
 
   /**
@@ -114,18 +119,29 @@ public class DirectoryYamlFlowLoader implements FlowLoader {
     return FlowLoaderUtils.generateFlowLoaderReport(this.errors);
   }
 
+  /**
+   * Parse the flow files, in parallel if configured, then convert them to flows in the order of
+   * their directories, as if they were loaded one by one.
+   */
   private void convertYamlFiles(final File projectDir) {
     // Todo jamiesjc: convert project yaml file.
 
-    for (final File file : projectDir.listFiles(new SuffixFilter(Constants.FLOW_FILE_SUFFIX))) {
-      final NodeBeanLoader loader = new NodeBeanLoader();
+    final List<File> flowFiles = new ArrayList<>();
+    findFlowFiles(projectDir, flowFiles);
+    final List<FlowFile> parsedFlowFiles = ParallelUtils
+        .map(flowFiles, FlowFile::parse, this.parallelism, "azk-project-loader-%d");
+
+    for (final FlowFile flowFile : parsedFlowFiles) {
+      final File file = flowFile.file;
       try {
-        final NodeBean nodeBean = loader.load(file);
-        if (!loader.validate(nodeBean)) {
+        if (flowFile.error != null) {
+          throw flowFile.error;
+        }
+        if (flowFile.azkabanFlow == null) {
           this.errors.add("Failed to validate nodeBean for " + file.getName()
               + ". Duplicate nodes found or dependency undefined.");
         } else {
-          final AzkabanFlow azkabanFlow = (AzkabanFlow) loader.toAzkabanNode(nodeBean);
+          final AzkabanFlow azkabanFlow = flowFile.azkabanFlow;
           if (this.flowMap.containsKey(azkabanFlow.getName())) {
             this.errors.add("Duplicate flows found in the project with name " + azkabanFlow
                 .getName());
@@ -139,8 +155,12 @@ public class DirectoryYamlFlowLoader implements FlowLoader {
             + e.getMessage());
       }
     }
-    for (final File file : projectDir.listFiles(new DirFilter())) {
-      convertYamlFiles(file);
+  }
+
+  private void findFlowFiles(final File dir, final List<File> flowFiles) {
+    flowFiles.addAll(Arrays.asList(dir.listFiles(new SuffixFilter(Constants.FLOW_FILE_SUFFIX))));
+    for (final File file : dir.listFiles(new DirFilter())) {
+      findFlowFiles(file, flowFiles);
     }
   }
 
@@ -309,4 +329,33 @@ public class DirectoryYamlFlowLoader implements FlowLoader {
     }
     return false;
   }
+
+  /**
+   * A flow file, parsed and validated.
+   */
+  private static class FlowFile {
+
+    private final File file;
+    // null if the flow isn't valid
+    private AzkabanFlow azkabanFlow;
+    private Exception error;
+
+    private FlowFile(final File file) {
+      this.file = file;
+    }
+
+    private static FlowFile parse(final File file) {
+      final FlowFile flowFile = new FlowFile(file);
+      final NodeBeanLoader loader = new NodeBeanLoader();
+      try {
+        final NodeBean nodeBean = loader.load(file);
+        if (loader.validate(nodeBean)) {
+          flowFile.azkabanFlow = (AzkabanFlow) loader.toAzkabanNode(nodeBean);
+        }
+      } catch (final Exception e) {
+        flowFile.error = e;
+      }
+      return flowFile;
+    }
+  }
 }
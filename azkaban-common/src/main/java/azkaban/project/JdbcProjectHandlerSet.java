@@ -147,11 +147,18 @@ class JdbcProjectHandlerSet {
 
   public static class ProjectFlowsResultHandler implements ResultSetHandler<List<Flow>> {
 
+    // Flows stored by digest are read from project_metadata_blobs, the others inline.
+    private static final String SELECT_FLOWS_BASE_QUERY =
+        "SELECT f.project_id, f.version, f.flow_id, f.modified_time, "
+            + "COALESCE(f.encoding_type, b.encoding_type), COALESCE(f.json, b.data) "
+            + "FROM project_flows f LEFT JOIN project_metadata_blobs b "
+            + "ON b.project_id = f.project_id AND b.digest = f.digest ";
+
     public static String SELECT_PROJECT_FLOW =
-        "SELECT project_id, version, flow_id, modified_time, encoding_type, json FROM project_flows WHERE project_id=? AND version=? AND flow_id=?";
+        SELECT_FLOWS_BASE_QUERY + "WHERE f.project_id=? AND f.version=? AND f.flow_id=?";
 
     public static String SELECT_ALL_PROJECT_FLOWS =
-        "SELECT project_id, version, flow_id, modified_time, encoding_type, json FROM project_flows WHERE project_id=? AND version=?";
+        SELECT_FLOWS_BASE_QUERY + "WHERE f.project_id=? AND f.version=?";
 
     @Override
     public List<Flow> handle(final ResultSet rs) throws SQLException {
@@ -184,6 +191,11 @@ class JdbcProjectHandlerSet {
             flowObj = JSONUtils.parseJSONFromString(jsonString);
           }
 
+          // the flow data stored by digest is shared by versions and doesn't hold the version
+          final Map<String, Object> flowMap = (Map<String, Object>) flowObj;
+          if (!flowMap.containsKey("version")) {
+            flowMap.put("version", rs.getInt(2));
+          }
           final Flow flow = Flow.flowFromObject(flowObj);
           flows.add(flow);
         } catch (final IOException e) {
@@ -198,11 +210,18 @@ class JdbcProjectHandlerSet {
   public static class ProjectPropertiesResultsHandler implements
       ResultSetHandler<List<Pair<String, Props>>> {
 
+    // Properties stored by digest are read from project_metadata_blobs, the others inline.
+    private static final String SELECT_PROPERTIES_BASE_QUERY =
+        "SELECT p.project_id, p.version, p.name, p.modified_time, "
+            + "COALESCE(p.encoding_type, b.encoding_type), COALESCE(p.property, b.data) "
+            + "FROM project_properties p LEFT JOIN project_metadata_blobs b "
+            + "ON b.project_id = p.project_id AND b.digest = p.digest ";
+
     public static String SELECT_PROJECT_PROPERTY =
-        "SELECT project_id, version, name, modified_time, encoding_type, property FROM project_properties WHERE project_id=? AND version=? AND name=?";
+        SELECT_PROPERTIES_BASE_QUERY + "WHERE p.project_id=? AND p.version=? AND p.name=?";
 
     public static String SELECT_PROJECT_PROPERTIES =
-        "SELECT project_id, version, name, modified_time, encoding_type, property FROM project_properties WHERE project_id=? AND version=?";
+        SELECT_PROPERTIES_BASE_QUERY + "WHERE p.project_id=? AND p.version=?";
 
     @Override
     public List<Pair<String, Props>> handle(final ResultSet rs) throws SQLException {
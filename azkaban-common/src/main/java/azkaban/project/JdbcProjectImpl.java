@@ -40,6 +40,7 @@ import azkaban.utils.JSONUtils;
 import azkaban.utils.Pair;
 import azkaban.utils.Props;
 import azkaban.utils.PropsUtils;
+import com.google.common.collect.Iterables;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.File;
@@ -48,16 +49,22 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import org.apache.commons.dbutils.ResultSetHandler;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
@@ -77,14 +84,37 @@ public class JdbcProjectImpl implements ProjectLoader {
   private static final int CHUCK_SIZE = 1024 * 1024 * 10;
   // Flow yaml files are usually small, set size limitation to 10 MB should be sufficient for now.
   private static final int MAX_FLOW_FILE_SIZE_IN_BYTES = 1024 * 1024 * 10;
+  private static final int DEFAULT_METADATA_BATCH_MAX_BYTES = 1024 * 1024 * 4;
+  private static final String INSERT_FLOW =
+      "INSERT INTO project_flows (project_id, version, flow_id, modified_time, encoding_type, json) values (?,?,?,?,?,?)";
+  private static final String INSERT_PROPERTIES =
+      "INSERT INTO project_properties (project_id, version, name, modified_time, encoding_type, property) values (?,?,?,?,?,?)";
+  private static final String INSERT_FLOW_REFERENCE =
+      "INSERT INTO project_flows (project_id, version, flow_id, modified_time, digest) values (?,?,?,?,?)";
+  private static final String INSERT_PROPERTIES_REFERENCE =
+      "INSERT INTO project_properties (project_id, version, name, modified_time, digest) values (?,?,?,?,?)";
+  private static final String INSERT_METADATA_BLOB =
+      "INSERT INTO project_metadata_blobs (project_id, digest, encoding_type, data) values (?,?,?,?)";
+  private static final String SELECT_METADATA_DIGESTS =
+      "SELECT digest FROM project_metadata_blobs WHERE project_id=?";
+  private static final String SELECT_PROJECT_FOR_UPDATE =
+      "SELECT id FROM projects WHERE id=? FOR UPDATE";
+  // rough size of the columns of a row other than the flow or properties data
+  private static final int METADATA_ROW_OVERHEAD_BYTES = 100;
   private final DatabaseOperator dbOperator;
   private final File tempDir;
   private final EncodingType defaultEncodingType = EncodingType.GZIP;
+  private final int metadataBatchMaxBytes;
+  private final boolean metadataDedupEnabled;
 
   @Inject
   public JdbcProjectImpl(final Props props, final DatabaseOperator databaseOperator) {
 
     this.dbOperator = databaseOperator;
+    this.metadataBatchMaxBytes = props.getInt(ConfigurationKeys.PROJECT_METADATA_BATCH_MAX_BYTES,
+        DEFAULT_METADATA_BATCH_MAX_BYTES);
+    this.metadataDedupEnabled = props
+        .getBoolean(ConfigurationKeys.PROJECT_METADATA_DEDUP_ENABLED, false);
     this.tempDir = new File(props.getString("project.temp.dir", "temp"));
     if (!this.tempDir.exists()) {
       if (this.tempDir.mkdirs()) {
@@ -739,7 +769,7 @@ public class JdbcProjectImpl implements ProjectLoader {
       final byte[] data = convertJsonToBytes(this.defaultEncodingType, json);
       logger.info("Flow upload " + flow.getId() + " is byte size " + data.length);
       final String UPDATE_FLOW =
-          "UPDATE project_flows SET encoding_type=?,json=? WHERE project_id=? AND version=? AND flow_id=?";
+          "UPDATE project_flows SET encoding_type=?,json=?,digest=NULL WHERE project_id=? AND version=? AND flow_id=?";
       try {
         this.dbOperator
             .update(UPDATE_FLOW, this.defaultEncodingType.getNumVal(), data, project.getId(),
@@ -760,8 +790,6 @@ public class JdbcProjectImpl implements ProjectLoader {
     final byte[] data = convertJsonToBytes(encType, json);
 
     logger.info("Flow upload " + flow.getId() + " is byte size " + data.length);
-    final String INSERT_FLOW =
-        "INSERT INTO project_flows (project_id, version, flow_id, modified_time, encoding_type, json) values (?,?,?,?,?,?)";
     try {
       this.dbOperator
           .update(INSERT_FLOW, project.getId(), version, flow.getId(), System.currentTimeMillis(),
@@ -772,6 +800,223 @@ public class JdbcProjectImpl implements ProjectLoader {
     }
   }
 
+  /**
+   * Encode the flows and properties in parallel, then insert them in batches of bounded size, in
+   * one transaction: either all of them are uploaded or none.
+   */
+  @Override
+  public void uploadProjectMetadata(final Project project, final int version,
+      final Collection<Flow> flows, final List<Props> properties) throws ProjectManagerException {
+    if (this.metadataDedupEnabled) {
+      uploadDeduplicatedProjectMetadata(project, version, flows, properties);
+      return;
+    }
+    final long modifiedTime = System.currentTimeMillis();
+    final int encodingType = this.defaultEncodingType.getNumVal();
+    final List<Object[]> flowRows;
+    final List<Object[]> propertyRows;
+    try {
+      flowRows = flows.parallelStream()
+          .map(flow -> new Object[]{project.getId(), version, flow.getId(), modifiedTime,
+              encodingType, encodeFlow(flow)})
+          .collect(Collectors.toList());
+      propertyRows = properties.parallelStream()
+          .map(props -> new Object[]{project.getId(), version, props.getSource(), modifiedTime,
+              encodingType, encodeProps(props)})
+          .collect(Collectors.toList());
+    } catch (final UncheckedIOException e) {
+      throw new ProjectManagerException("Error encoding the flows and properties of project "
+          + project.getName() + " version " + version, e.getCause());
+    }
+
+    logger.info(String.format("Uploading %d flows and %d properties of project %s version %d",
+        flowRows.size(), propertyRows.size(), project.getName(), version));
+    final SQLTransaction<Integer> transaction = transOperator -> {
+      insertInBatches(transOperator, INSERT_FLOW, flowRows);
+      insertInBatches(transOperator, INSERT_PROPERTIES, propertyRows);
+      return flowRows.size() + propertyRows.size();
+    };
+    try {
+      this.dbOperator.transaction(transaction);
+    } catch (final SQLException e) {
+      throw new ProjectManagerException("Error uploading the flows and properties of project "
+          + project.getName() + " version " + version, e);
+    }
+  }
+
+  /**
+   * Store the flows and properties once per project, by digest of their content, and only
+   * reference them from the rows of the version. The flows and properties unchanged since a
+   * previous version aren't encoded nor uploaded again.
+   *
+   * <p>The stored digests are read again in the upload transaction, after locking the project
+   * row, so that concurrent uploads and {@link #cleanOlderProjectVersion} of the same project
+   * don't insert the same blob twice or delete a blob the upload references.
+   */
+  private void uploadDeduplicatedProjectMetadata(final Project project, final int version,
+      final Collection<Flow> flows, final List<Props> properties) throws ProjectManagerException {
+    final long modifiedTime = System.currentTimeMillis();
+    // Only a hint of what to encode ahead of the transaction, checked again under the lock
+    final Set<String> storedDigests = fetchMetadataDigests(project.getId());
+    final List<MetadataEntry> flowEntries = flows.parallelStream()
+        .map(flow -> {
+          // the version is kept in the rows of the version, so that unchanged flows are identical
+          final Map<String, Object> flowObj = flow.toObject();
+          flowObj.remove("version");
+          return new MetadataEntry(flow.getId(), JSONUtils.toJSON(flowObj));
+        })
+        .collect(Collectors.toList());
+    final List<MetadataEntry> propertyEntries = properties.parallelStream()
+        .map(props -> new MetadataEntry(props.getSource(), PropsUtils.toJSONString(props, true)))
+        .collect(Collectors.toList());
+
+    final Map<String, String> newJsonByDigest = new HashMap<>();
+    for (final MetadataEntry entry : Iterables.concat(flowEntries, propertyEntries)) {
+      if (!storedDigests.contains(entry.digest)) {
+        newJsonByDigest.putIfAbsent(entry.digest, entry.json);
+      }
+    }
+    final Map<String, byte[]> encodedByDigest;
+    try {
+      encodedByDigest = newJsonByDigest.entrySet().parallelStream()
+          .collect(Collectors.toMap(Map.Entry::getKey, entry -> encodeJson(entry.getValue())));
+    } catch (final UncheckedIOException e) {
+      throw new ProjectManagerException("Error encoding the flows and properties of project "
+          + project.getName() + " version " + version, e.getCause());
+    }
+    final List<Object[]> flowRows = flowEntries.stream()
+        .map(entry -> new Object[]{project.getId(), version, entry.name, modifiedTime,
+            entry.digest})
+        .collect(Collectors.toList());
+    final List<Object[]> propertyRows = propertyEntries.stream()
+        .map(entry -> new Object[]{project.getId(), version, entry.name, modifiedTime,
+            entry.digest})
+        .collect(Collectors.toList());
+
+    final SQLTransaction<Integer> transaction = transOperator -> {
+      lockProject(transOperator, project.getId());
+      final Set<String> committedDigests = transOperator
+          .query(SELECT_METADATA_DIGESTS, new MetadataDigestsHandler(), project.getId());
+      final List<Object[]> blobRows = new ArrayList<>();
+      for (final MetadataEntry entry : Iterables.concat(flowEntries, propertyEntries)) {
+        if (committedDigests.add(entry.digest)) {
+          // Encoded ahead unless it was deleted since, by cleaning older versions
+          final byte[] data = encodedByDigest.containsKey(entry.digest)
+              ? encodedByDigest.get(entry.digest) : encodeJson(entry.json);
+          blobRows.add(new Object[]{project.getId(), entry.digest,
+              this.defaultEncodingType.getNumVal(), data});
+        }
+      }
+      logger.info(String.format("Uploading %d flows and %d properties of project %s version "
+              + "%d, %d of them changed", flowRows.size(), propertyRows.size(), project.getName(),
+          version, blobRows.size()));
+      insertInBatches(transOperator, INSERT_METADATA_BLOB, blobRows);
+      insertInBatches(transOperator, INSERT_FLOW_REFERENCE, flowRows);
+      insertInBatches(transOperator, INSERT_PROPERTIES_REFERENCE, propertyRows);
+      return blobRows.size() + flowRows.size() + propertyRows.size();
+    };
+    try {
+      this.dbOperator.transaction(transaction);
+    } catch (final SQLException | UncheckedIOException e) {
+      throw new ProjectManagerException("Error uploading the flows and properties of project "
+          + project.getName() + " version " + version, e);
+    }
+  }
+
+  private Set<String> fetchMetadataDigests(final int projectId) throws ProjectManagerException {
+    try {
+      return this.dbOperator
+          .query(SELECT_METADATA_DIGESTS, new MetadataDigestsHandler(), projectId);
+    } catch (final SQLException e) {
+      throw new ProjectManagerException(
+          "Error fetching the stored flows and properties of project " + projectId, e);
+    }
+  }
+
+  /**
+   * Lock the row of the project until the end of the transaction, serializing the transactions
+   * writing or deleting the metadata blobs of the project.
+   */
+  private static void lockProject(final DatabaseTransOperator transOperator, final int projectId)
+      throws SQLException {
+    transOperator.query(SELECT_PROJECT_FOR_UPDATE, rs -> null, projectId);
+  }
+
+  private static class MetadataDigestsHandler implements ResultSetHandler<Set<String>> {
+
+    @Override
+    public Set<String> handle(final ResultSet rs) throws SQLException {
+      final Set<String> digests = new HashSet<>();
+      while (rs.next()) {
+        digests.add(rs.getString(1));
+      }
+      return digests;
+    }
+  }
+
+  private byte[] encodeJson(final String json) {
+    try {
+      return convertJsonToBytes(this.defaultEncodingType, json);
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private byte[] encodeFlow(final Flow flow) {
+    try {
+      return convertJsonToBytes(this.defaultEncodingType, JSONUtils.toJSON(flow.toObject()));
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private byte[] encodeProps(final Props props) {
+    try {
+      return getBytes(props);
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Insert the rows in batches holding up to metadataBatchMaxBytes of encoded data, so that a large
+   * project doesn't build a single statement larger than what the DB accepts.
+   */
+  private void insertInBatches(final DatabaseTransOperator transOperator, final String insert,
+      final List<Object[]> rows) throws SQLException {
+    int batchStart = 0;
+    long batchBytes = 0;
+    for (int i = 0; i < rows.size(); i++) {
+      batchBytes += METADATA_ROW_OVERHEAD_BYTES;
+      for (final Object param : rows.get(i)) {
+        if (param instanceof byte[]) {
+          batchBytes += ((byte[]) param).length;
+        }
+      }
+      if (batchBytes >= this.metadataBatchMaxBytes || i == rows.size() - 1) {
+        transOperator.batch(insert, rows.subList(batchStart, i + 1).toArray(new Object[0][]));
+        batchStart = i + 1;
+        batchBytes = 0;
+      }
+    }
+  }
+
+  /**
+   * Flow or properties data stored by digest.
+   */
+  private static class MetadataEntry {
+
+    private final String name;
+    private final String json;
+    private final String digest;
+
+    private MetadataEntry(final String name, final String json) {
+      this.name = name;
+      this.json = json;
+      this.digest = HashUtils.SHA1.getHashStr(json);
+    }
+  }
+
   @Override
   public Flow fetchFlow(final Project project, final String flowId) throws ProjectManagerException {
     throw new UnsupportedOperationException("this method has not been instantiated.");
@@ -839,12 +1084,13 @@ public class JdbcProjectImpl implements ProjectLoader {
   private void updateProjectProperty(final Project project, final String name, final Props props)
       throws ProjectManagerException, IOException {
     final String UPDATE_PROPERTIES =
-        "UPDATE project_properties SET property=? WHERE project_id=? AND version=? AND name=?";
+        "UPDATE project_properties SET encoding_type=?,property=?,digest=NULL WHERE project_id=? AND version=? AND name=?";
 
     final byte[] propsData = getBytes(props);
     try {
       this.dbOperator
-          .update(UPDATE_PROPERTIES, propsData, project.getId(), project.getVersion(), name);
+          .update(UPDATE_PROPERTIES, this.defaultEncodingType.getNumVal(), propsData,
+              project.getId(), project.getVersion(), name);
     } catch (final SQLException e) {
       throw new ProjectManagerException(
           "Error updating property " + project.getName() + " version " + project.getVersion(), e);
@@ -853,9 +1099,6 @@ public class JdbcProjectImpl implements ProjectLoader {
 
   private void uploadProjectProperty(final Project project, final String name, final Props props)
       throws ProjectManagerException, IOException {
-    final String INSERT_PROPERTIES =
-        "INSERT INTO project_properties (project_id, version, name, modified_time, encoding_type, property) values (?,?,?,?,?,?)";
-
     final byte[] propsData = getBytes(props);
     try {
       this.dbOperator.update(INSERT_PROPERTIES, project.getId(), project.getVersion(), name,
@@ -948,11 +1191,19 @@ public class JdbcProjectImpl implements ProjectLoader {
         "DELETE FROM project_files WHERE project_id=?" + VERSION_FILTER;
     final String UPDATE_PROJECT_VERSIONS =
         "UPDATE project_versions SET num_chunks=0 WHERE project_id=?" + VERSION_FILTER;
+    final String DELETE_UNREFERENCED_METADATA_BLOBS =
+        "DELETE FROM project_metadata_blobs WHERE project_id=? AND digest NOT IN "
+            + "(SELECT digest FROM project_flows WHERE project_id=? AND digest IS NOT NULL) "
+            + "AND digest NOT IN "
+            + "(SELECT digest FROM project_properties WHERE project_id=? AND digest IS NOT NULL)";
     // Todo jamiesjc: delete flow files
 
     final SQLTransaction<Integer> cleanOlderProjectTransaction = transOperator -> {
+      // Wait for the uploads in progress, so that the blobs they reference are committed
+      lockProject(transOperator, projectId);
       transOperator.update(DELETE_FLOW, projectId, version);
       transOperator.update(DELETE_PROPERTIES, projectId, version);
+      transOperator.update(DELETE_UNREFERENCED_METADATA_BLOBS, projectId, projectId, projectId);
       transOperator.update(DELETE_PROJECT_FILES, projectId, version);
       return transOperator.update(UPDATE_PROJECT_VERSIONS, projectId, version);
     };
@@ -137,6 +137,12 @@ public interface ProjectLoader {
   void uploadFlows(Project project, int version, Collection<Flow> flows)
       throws ProjectManagerException;
 
+  /**
+   * Uploads the flows and properties of a project version together, in one transaction.
+   */
+  void uploadProjectMetadata(Project project, int version, Collection<Flow> flows,
+      List<Props> properties) throws ProjectManagerException;
+
   /**
    * Upload just one flow.
    */
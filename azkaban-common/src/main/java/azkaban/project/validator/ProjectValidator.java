@@ -31,4 +31,13 @@ public interface ProjectValidator {
    * @return The resulting ValidationReport.
    */
   ValidationReport validateProject(Project project, File projectDir, Props additionalProps);
+
+  /**
+   * Return true if the validator only reads the project directory and doesn't depend on the other
+   * validators, so that it can run at the same time as the other independent validators. The
+   * validators which aren't independent run one by one before them, in the configured order.
+   */
+  default boolean isIndependent() {
+    return false;
+  }
 }
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.project.validator;
+
+import azkaban.utils.HashUtils;
+import azkaban.utils.JSONUtils;
+import azkaban.utils.Props;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.log4j.Logger;
+
+/**
+ * Local store of the {@link ValidationReport}s of the validators, so that uploading the same
+ * project content again doesn't run the validators over it again.
+ *
+ * <p>Reports are stored as json files in the cache directory, named after their key. The key is
+ * built by the {@link XmlValidatorManager} from the validator, the validator plugins and
+ * configuration, and the content digest of the project (see {@link #getContentDigest}). Once
+ * there are a tenth more reports than the configured maximum, the least recently used ones are
+ * removed down to the maximum, so that the directory is only listed once in a while.
+ *
+ * <p>The cache directory records the fingerprint of the validator plugins and configuration its
+ * reports were generated with. Everything is removed when the plugins are loaded with another
+ * fingerprint.
+ *
+ * <p>Only the reports which didn't modify or remove any file of the project are cached, as
+ * a cached report can't apply these changes to the project again.
+ *
+ * <p>Validators are plugins which may read any file of the project, and don't declare which. So
+ * every validator is keyed on the whole project content: a change to any file, even one the
+ * validator never reads, misses the cache of all the validators. The cache only pays off for
+ * uploads of unchanged content, e.g. the same archive uploaded again, possibly through another
+ * web server sharing the cache directory.
+ */
+public class ValidationReportCache {
+
+  private static final Logger logger = Logger.getLogger(ValidationReportCache.class);
+
+  private static final String REPORT_SUFFIX = ".json";
+  private static final String FINGERPRINT_FILE = "plugins.fingerprint";
+  private static final String STATUS = "status";
+  private static final String INFO_MSGS = "info";
+  private static final String WARNING_MSGS = "warning";
+  private static final String ERROR_MSGS = "error";
+
+  private final File cacheDir;
+  private final int maxEntries;
+  private final int evictionThreshold;
+  // Number of reports in the cache directory, counted by this instance since it was last listed
+  private final AtomicInteger entries = new AtomicInteger();
+
+  /**
+   * @param pluginFingerprint fingerprint of the validator plugins and configuration
+   */
+  public ValidationReportCache(final File cacheDir, final int maxEntries,
+      final String pluginFingerprint) throws IOException {
+    this.cacheDir = cacheDir;
+    this.maxEntries = maxEntries;
+    this.evictionThreshold = maxEntries + maxEntries / 10;
+    Files.createDirectories(cacheDir.toPath());
+
+    final File fingerprintFile = new File(cacheDir, FINGERPRINT_FILE);
+    if (!fingerprintFile.exists() || !pluginFingerprint.equals(
+        new String(Files.readAllBytes(fingerprintFile.toPath()), StandardCharsets.UTF_8))) {
+      logger.info("Validator plugins changed, invalidating the validation cache in " + cacheDir);
+      invalidateAll();
+      Files.write(fingerprintFile.toPath(), pluginFingerprint.getBytes(StandardCharsets.UTF_8));
+    }
+    this.entries.set(listReportFiles().length);
+  }
+
+  /**
+   * Digest of the content of the project and of the parameters of its validation. It changes if
+   * any file of the project is added, removed, renamed or modified, whichever files the validator
+   * reads.
+   */
+  public static String getContentDigest(final String projectName, final File projectDir,
+      final Props additionalProps) throws IOException {
+    final StringBuilder content = new StringBuilder();
+    content.append(projectName).append('\n');
+    content.append(additionalProps.getFlattened()).append('\n');
+    final List<File> files = new ArrayList<>();
+    listFiles(projectDir, files);
+    final String root = projectDir.getPath();
+    for (final File file : files) {
+      content.append(file.getPath().substring(root.length())).append(':')
+          .append(HashUtils.SHA1.getHashStr(file)).append('\n');
+    }
+    return HashUtils.SHA1.getHashStr(content.toString());
+  }
+
+  private static void listFiles(final File dir, final List<File> files) {
+    final File[] children = dir.listFiles();
+    if (children == null) {
+      return;
+    }
+    Arrays.sort(children);
+    for (final File child : children) {
+      if (child.isDirectory()) {
+        listFiles(child, files);
+      } else {
+        files.add(child);
+      }
+    }
+  }
+
+  static boolean isCacheable(final ValidationReport report) {
+    return report.getClass() == ValidationReport.class && report.getModifiedFiles().isEmpty()
+        && report.getRemovedFiles().isEmpty();
+  }
+
+  /**
+   * @return the cached report, if any
+   */
+  public Optional<ValidationReport> get(final String key) {
+    final File reportFile = getReportFile(key);
+    if (!reportFile.exists()) {
+      return Optional.empty();
+    }
+    try {
+      final Map<String, Object> reportObj =
+          (Map<String, Object>) JSONUtils.parseJSONFromFile(reportFile);
+      final ValidationReport report = new ValidationReport();
+      report._status = ValidationStatus.valueOf((String) reportObj.get(STATUS));
+      report._infoMsgs.addAll((List<String>) reportObj.get(INFO_MSGS));
+      report._warningMsgs.addAll((List<String>) reportObj.get(WARNING_MSGS));
+      report._errorMsgs.addAll((List<String>) reportObj.get(ERROR_MSGS));
+      // Keep the recently used reports
+      reportFile.setLastModified(System.currentTimeMillis());
+      return Optional.of(report);
+    } catch (final IOException | RuntimeException e) {
+      logger.warn("Failed to read cached validation report " + reportFile, e);
+      if (reportFile.delete()) {
+        this.entries.decrementAndGet();
+      }
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Cache the report if it is cacheable.
+   */
+  public void put(final String key, final ValidationReport report) {
+    if (!isCacheable(report)) {
+      return;
+    }
+    final Map<String, Object> reportObj = new HashMap<>();
+    reportObj.put(STATUS, report.getStatus().name());
+    reportObj.put(INFO_MSGS, new ArrayList<>(report.getInfoMsgs()));
+    reportObj.put(WARNING_MSGS, new ArrayList<>(report.getWarningMsgs()));
+    reportObj.put(ERROR_MSGS, new ArrayList<>(report.getErrorMsgs()));
+
+    final File reportFile = getReportFile(key);
+    final boolean replaced = reportFile.exists();
+    try {
+      // Write to a temporary file first so that concurrent uploads never read a partial report
+      final File tempFile = File.createTempFile(key, ".tmp", this.cacheDir);
+      JSONUtils.toJSON(reportObj, tempFile);
+      Files.move(tempFile.toPath(), reportFile.toPath(),
+          StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (final IOException e) {
+      logger.warn("Failed to cache validation report " + key, e);
+      return;
+    }
+    if (!replaced && this.entries.incrementAndGet() > this.evictionThreshold) {
+      evict();
+    }
+  }
+
+  /**
+   * Remove all the cached reports.
+   */
+  public synchronized void invalidateAll() {
+    for (final File reportFile : listReportFiles()) {
+      reportFile.delete();
+    }
+    this.entries.set(0);
+  }
+
+  private synchronized void evict() {
+    final File[] reportFiles = listReportFiles();
+    if (reportFiles.length > this.maxEntries) {
+      Arrays.sort(reportFiles, Comparator.comparingLong(File::lastModified));
+      for (int i = 0; i < reportFiles.length - this.maxEntries; i++) {
+        reportFiles[i].delete();
+      }
+    }
+    // Also catches up with the reports other servers sharing the directory added or removed
+    this.entries.set(Math.min(reportFiles.length, this.maxEntries));
+  }
+
+  private File[] listReportFiles() {
+    final File[] reportFiles = this.cacheDir
+        .listFiles((dir, name) -> name.endsWith(REPORT_SUFFIX));
+    return reportFiles == null ? new File[0] : reportFiles;
+  }
+
+  private File getReportFile(final String key) {
+    return new File(this.cacheDir, key + REPORT_SUFFIX);
+  }
+}
@@ -39,6 +39,19 @@ public class ValidatorConfigs {
    * Key for the config param specifying the link address with detailed information about auto-fix
    **/
   public static final String VALIDATOR_AUTO_FIX_PROMPT_LINK_PARAM = "project.validators.fix.link";
+  /**
+   * Key for the config param specifying the directory caching the validation reports, no default
+   * value. Validation reports aren't cached if it isn't set.
+   **/
+  public static final String VALIDATION_CACHE_DIR = "project.validators.cache.dir";
+  /**
+   * Key for the config param specifying the maximum number of cached validation reports
+   **/
+  public static final String VALIDATION_CACHE_MAX_ENTRIES = "project.validators.cache.max.entries";
+  /**
+   * Default maximum number of cached validation reports
+   **/
+  public static final int DEFAULT_VALIDATION_CACHE_MAX_ENTRIES = 10000;
 
   private ValidatorConfigs() {
   } // Prevents instantiation
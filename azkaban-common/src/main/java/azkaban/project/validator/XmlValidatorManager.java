@@ -1,7 +1,9 @@
 package azkaban.project.validator;
 
+import azkaban.Constants.ConfigurationKeys;
 import azkaban.project.Project;
 import azkaban.utils.HashUtils;
+import azkaban.utils.ParallelUtils;
 import azkaban.utils.Props;
 import java.io.File;
 import java.io.IOException;
@@ -9,11 +11,13 @@ import java.lang.reflect.Constructor;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Optional;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
@@ -48,7 +52,9 @@ public class XmlValidatorManager implements ValidatorManager {
   private static final Logger logger = Logger.getLogger(XmlValidatorManager.class);
   private ValidatorClassLoader validatorLoader;
   private final String validatorDirPath;
+  private final int parallelism;
   private Map<String, ProjectValidator> validators;
+  private ValidationReportCache reportCache;
 
   /**
    * Load the validator plugins from the validator directory (default being validators/) into the
@@ -59,6 +65,7 @@ public class XmlValidatorManager implements ValidatorManager {
   public XmlValidatorManager(final Props props) {
     this.validatorDirPath = props
         .getString(ValidatorConfigs.VALIDATOR_PLUGIN_DIR, ValidatorConfigs.DEFAULT_VALIDATOR_DIR);
+    this.parallelism = props.getInt(ConfigurationKeys.PROJECT_LOADER_PARALLELISM, 1);
     final File validatorDir = new File(this.validatorDirPath);
     if (!validatorDir.canRead() || !validatorDir.isDirectory()) {
       logger.warn("Validator directory " + this.validatorDirPath
@@ -107,6 +114,7 @@ public class XmlValidatorManager implements ValidatorManager {
   @Override
   public void loadValidators(final Props props, final Logger log) {
     this.validators = new LinkedHashMap<>();
+    this.reportCache = createReportCache(props);
     if (!props.containsKey(ValidatorConfigs.XML_FILE_PARAM)) {
       logger.warn(
           "Azkaban properties file does not contain the key " + ValidatorConfigs.XML_FILE_PARAM);
@@ -155,6 +163,49 @@ public class XmlValidatorManager implements ValidatorManager {
     }
   }
 
+  /**
+   * Create the cache of the validation reports, if configured. Reports cached with other validator
+   * plugins or configuration are invalidated.
+   */
+  private ValidationReportCache createReportCache(final Props props) {
+    final String cacheDir = props.getString(ValidatorConfigs.VALIDATION_CACHE_DIR, null);
+    if (cacheDir == null) {
+      return null;
+    }
+    try {
+      return new ValidationReportCache(new File(cacheDir),
+          props.getInt(ValidatorConfigs.VALIDATION_CACHE_MAX_ENTRIES,
+              ValidatorConfigs.DEFAULT_VALIDATION_CACHE_MAX_ENTRIES),
+          getPluginFingerprint(props));
+    } catch (final IOException e) {
+      logger.warn("Cannot create the validation cache in " + cacheDir
+          + ", validation reports won't be cached.", e);
+      return null;
+    }
+  }
+
+  /**
+   * Fingerprint of the validator jars and of the validator xml configuration.
+   */
+  private String getPluginFingerprint(final Props props) throws IOException {
+    final StringBuilder fingerprint = new StringBuilder();
+    final File[] validatorFiles = new File(this.validatorDirPath).listFiles();
+    if (validatorFiles != null) {
+      Arrays.sort(validatorFiles);
+      for (final File f : validatorFiles) {
+        if (f.getName().endsWith(".jar")) {
+          fingerprint.append(f.getName()).append(':').append(HashUtils.SHA1.getHashStr(f))
+              .append('\n');
+        }
+      }
+    }
+    final File xmlFile = new File(props.getString(ValidatorConfigs.XML_FILE_PARAM, ""));
+    if (xmlFile.isFile()) {
+      fingerprint.append(HashUtils.SHA1.getHashStr(xmlFile));
+    }
+    return HashUtils.SHA1.getHashStr(fingerprint.toString());
+  }
+
   private void parseValidatorTag(final Node node, final Props props, final Logger log) {
     final NamedNodeMap validatorAttrMap = node.getAttributes();
     final Node classNameAttr = validatorAttrMap.getNamedItem(CLASSNAME_ATTR);
@@ -231,15 +282,112 @@ public class XmlValidatorManager implements ValidatorManager {
   public Map<String, ValidationReport> validate(final Project project, final File projectDir, final Props additionalProps) {
     final Props nonNullAdditionalProps = additionalProps == null ? new Props() : additionalProps;
 
+    // The digest of the content the next validator validates, recomputed whenever a validator
+    // modifies the project, so that reports are cached under the content they were made for
+    String contentDigest = getContentDigest(project, projectDir, nonNullAdditionalProps);
+
+    // The reports are kept in the order of the validators, whichever finishes first.
     final Map<String, ValidationReport> reports = new LinkedHashMap<>();
+    final List<Entry<String, ProjectValidator>> independentValidators = new ArrayList<>();
     for (final Entry<String, ProjectValidator> validator : this.validators.entrySet()) {
-      reports.put(validator.getKey(), validator.getValue().validateProject(project, projectDir, nonNullAdditionalProps));
-      logger.info("Validation status of validator " + validator.getKey() + " is "
-          + reports.get(validator.getKey()).getStatus());
+      if (this.parallelism > 1 && validator.getValue().isIndependent()) {
+        // Run after the other validators, so they are looked up in the cache then
+        reports.put(validator.getKey(), null);
+        independentValidators.add(validator);
+        continue;
+      }
+      final Optional<ValidationReport> cachedReport = getCachedReport(validator, contentDigest);
+      if (cachedReport.isPresent()) {
+        reports.put(validator.getKey(), cachedReport.get());
+        logger.info("Validation status of validator " + validator.getKey() + " is "
+            + cachedReport.get().getStatus() + " (cached)");
+      } else {
+        final ValidationReport report = validator.getValue()
+            .validateProject(project, projectDir, nonNullAdditionalProps);
+        reports.put(validator.getKey(), report);
+        cacheReport(validator, contentDigest, report);
+        if (modifiesProject(report)) {
+          contentDigest = getContentDigest(project, projectDir, nonNullAdditionalProps);
+        }
+        logger.info("Validation status of validator " + validator.getKey() + " is "
+            + report.getStatus());
+      }
+    }
+
+    final List<Entry<String, ProjectValidator>> uncachedValidators = new ArrayList<>();
+    for (final Entry<String, ProjectValidator> validator : independentValidators) {
+      final Optional<ValidationReport> cachedReport = getCachedReport(validator, contentDigest);
+      if (cachedReport.isPresent()) {
+        reports.put(validator.getKey(), cachedReport.get());
+        logger.info("Validation status of validator " + validator.getKey() + " is "
+            + cachedReport.get().getStatus() + " (cached)");
+      } else {
+        uncachedValidators.add(validator);
+      }
+    }
+    final List<ValidationReport> independentReports = ParallelUtils.map(uncachedValidators,
+        validator -> validator.getValue()
+            .validateProject(project, projectDir, nonNullAdditionalProps),
+        this.parallelism, "azk-project-validator-%d");
+    // Validators running at the same time as one modifying the project may have seen either
+    // content, so none of their reports is cached then
+    final boolean modified = independentReports.stream()
+        .anyMatch(XmlValidatorManager::modifiesProject);
+    for (int i = 0; i < uncachedValidators.size(); i++) {
+      final String validatorName = uncachedValidators.get(i).getKey();
+      reports.put(validatorName, independentReports.get(i));
+      if (!modified) {
+        cacheReport(uncachedValidators.get(i), contentDigest, independentReports.get(i));
+      }
+      logger.info("Validation status of validator " + validatorName + " is "
+          + independentReports.get(i).getStatus());
     }
     return reports;
   }
 
+  private static boolean modifiesProject(final ValidationReport report) {
+    return !report.getModifiedFiles().isEmpty() || !report.getRemovedFiles().isEmpty();
+  }
+
+  /**
+   * @return the content digest of the project, or null if the reports aren't cached
+   */
+  private String getContentDigest(final Project project, final File projectDir,
+      final Props additionalProps) {
+    if (this.reportCache == null || this.validators.isEmpty()) {
+      return null;
+    }
+    try {
+      return ValidationReportCache
+          .getContentDigest(String.valueOf(project.getName()), projectDir, additionalProps);
+    } catch (final IOException e) {
+      logger.warn("Cannot compute the content digest of " + projectDir
+          + ", validation reports won't be cached.", e);
+      return null;
+    }
+  }
+
+  private Optional<ValidationReport> getCachedReport(
+      final Entry<String, ProjectValidator> validator, final String contentDigest) {
+    if (contentDigest == null) {
+      return Optional.empty();
+    }
+    return this.reportCache.get(getReportCacheKey(validator, contentDigest));
+  }
+
+  private void cacheReport(final Entry<String, ProjectValidator> validator,
+      final String contentDigest, final ValidationReport report) {
+    if (contentDigest != null) {
+      this.reportCache.put(getReportCacheKey(validator, contentDigest), report);
+    }
+  }
+
+  private static String getReportCacheKey(final Entry<String, ProjectValidator> validator,
+      final String contentDigest) {
+    return HashUtils.SHA1.getHashStr(validator.getKey() + '\n'
+        + validator.getValue().getClass().getName() + '\n' + contentDigest);
+  }
+
   @Override
   public List<String> getValidatorsInfo() {
     final List<String> info = new ArrayList<>();
@@ -91,6 +91,8 @@ public class ProjectStorageManager {
       final File startupDependencies,
       final User uploader,
       final String uploaderIPAddr) {
+    // The archive may be stored under the key of an old artifact being cleaned up
+    this.storageCleaner.awaitCleanup(project.getId());
     byte[] md5 = null;
     if (!(this.storage instanceof DatabaseStorage)) {
       md5 = computeHash(localFile);
@@ -18,19 +18,35 @@
 package azkaban.storage;
 
 import static azkaban.Constants.ConfigurationKeys.AZKABAN_STORAGE_ARTIFACT_MAX_RETENTION;
+import static azkaban.Constants.ConfigurationKeys.AZKABAN_STORAGE_CLEANUP_ASYNC_ENABLED;
+import static azkaban.Constants.ConfigurationKeys.AZKABAN_STORAGE_CLEANUP_PARALLELISM;
 import static com.google.common.base.Preconditions.checkArgument;
 
 import azkaban.db.DatabaseOperator;
 import azkaban.spi.Storage;
 import azkaban.utils.Pair;
+import azkaban.utils.ParallelUtils;
 import azkaban.utils.Props;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import org.apache.log4j.Logger;
@@ -41,6 +57,10 @@ public class StorageCleaner {
   // Delete records of all older versions
   static final String SQL_DELETE_RESOURCE_ID = "DELETE FROM project_versions WHERE resource_id=?";
 
+  // Delete the records of the given versions of a project
+  static final String SQL_DELETE_PROJECT_RESOURCE_ID = "DELETE FROM project_versions WHERE "
+      + "project_id=? AND resource_id=? AND version<=?";
+
   /**
    * The query must sort the versions in reverse order for the cleanup operation to work correctly!
    * TODO spyne: Refactor database storage cleanup to use this
@@ -52,9 +72,15 @@ public class StorageCleaner {
       + "project_id=? AND resource_id IS NOT NULL ORDER BY version DESC";
 
   private static final Logger log = Logger.getLogger(StorageCleaner.class);
+  private static final long SHUTDOWN_TIMEOUT_MINUTES = 1;
   private final DatabaseOperator databaseOperator;
   private final int maxArtifactsPerProject;
   private final Storage storage;
+  private final int parallelism;
+  // Runs the cleanups in the background, null if they are run by the calling threads
+  private final ExecutorService cleanupExecutor;
+  // Background cleanups queued or running, by project id. Each removes itself once done.
+  private final Map<Integer, CompletableFuture<Void>> pendingCleanups = new ConcurrentHashMap<>();
 
   @Inject
   public StorageCleaner(final Props props, final Storage storage,
@@ -66,6 +92,13 @@ public class StorageCleaner {
     checkArgument(this.maxArtifactsPerProject >= 0,
         String.format("Invalid value for %s : %d", AZKABAN_STORAGE_ARTIFACT_MAX_RETENTION,
             this.maxArtifactsPerProject));
+    this.parallelism = props.getInt(AZKABAN_STORAGE_CLEANUP_PARALLELISM, 4);
+    if (props.getBoolean(AZKABAN_STORAGE_CLEANUP_ASYNC_ENABLED, false)) {
+      this.cleanupExecutor = Executors.newSingleThreadExecutor(
+          new ThreadFactoryBuilder().setNameFormat("azk-storage-cleaner").setDaemon(true).build());
+    } else {
+      this.cleanupExecutor = null;
+    }
 
     if (isCleanupPermitted()) {
       log.info(String.format("%s Config: Max %d artifact(s) retained per project",
@@ -95,12 +128,38 @@ public class StorageCleaner {
    * upload - If the storage cleanup succeeds and the DB cleanup fails, the DB will be cleaned up in
    * the next attempt.
    *
+   * With {@link azkaban.Constants.ConfigurationKeys#AZKABAN_STORAGE_CLEANUP_ASYNC_ENABLED}, the
+   * cleanup is queued and this returns immediately, see {@link #cleanupInBackground}. A cleanup of
+   * a project requested while another one is pending for the project is skipped.
+   *
    * @param projectId project ID
    */
   public void cleanupProjectArtifacts(final int projectId, final List<Integer> versionsToExclude) {
     if (!isCleanupPermitted()) {
       return;
     }
+    if (this.cleanupExecutor != null) {
+      final CompletableFuture<Void> cleanup = new CompletableFuture<>();
+      if (this.pendingCleanups.putIfAbsent(projectId, cleanup) != null) {
+        return;
+      }
+      try {
+        this.cleanupExecutor.execute(() -> {
+          try {
+            cleanupInBackground(projectId, versionsToExclude);
+          } finally {
+            this.pendingCleanups.remove(projectId, cleanup);
+            cleanup.complete(null);
+          }
+        });
+      } catch (final RejectedExecutionException e) {
+        // Shut down, the cleanup is attempted again on the next upload
+        log.warn("Skipping cleanup of Project: " + projectId + ", the cleaner is shut down.");
+        this.pendingCleanups.remove(projectId, cleanup);
+        cleanup.complete(null);
+      }
+      return;
+    }
     final Set<String> allResourceIds = findResourceIdsToDelete(projectId, versionsToExclude);
     if (allResourceIds.size() == 0) {
       return;
@@ -110,6 +169,144 @@ public class StorageCleaner {
     allResourceIds.forEach(this::delete);
   }
 
+  /**
+   * Wait for the pending background cleanup of the project, if any. Artifacts are stored by
+   * content, so this must be called before storing a new artifact of the project: it could be one
+   * the cleanup is deleting.
+   */
+  public void awaitCleanup(final int projectId) {
+    final CompletableFuture<Void> pending = this.pendingCleanups.get(projectId);
+    if (pending == null) {
+      return;
+    }
+    try {
+      pending.get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (final ExecutionException e) {
+      log.error("Error performing cleanup of Project: " + projectId, e);
+    }
+  }
+
+  /**
+   * Stop accepting background cleanups and wait for the pending ones to finish.
+   */
+  public void shutdown() {
+    if (this.cleanupExecutor == null) {
+      return;
+    }
+    this.cleanupExecutor.shutdown();
+    try {
+      if (!this.cleanupExecutor.awaitTermination(SHUTDOWN_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+        log.warn("Timed out waiting for the pending cleanups of " + this.pendingCleanups.keySet());
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @VisibleForTesting
+  int getPendingCleanupCount() {
+    return this.pendingCleanups.size();
+  }
+
+  /**
+   * Cleanup run in the background.
+   *
+   * The number of the versions to keep referencing each resource id is counted, and the resource
+   * ids no longer referenced are deleted from the storage, up to the configured parallelism at
+   * once. The records of the resource ids deleted from the storage are then removed from the DB
+   * in one batch. Only the records loaded for the cleanup are removed, not those of versions
+   * uploaded in the meantime.
+   *
+   * The storage is still cleaned up before the DB. If the cleanup stops after deleting an artifact
+   * from the storage but before removing its records, the next cleanup finds the artifact missing
+   * from the storage and removes the records.
+   */
+  @VisibleForTesting
+  void cleanupInBackground(final int projectId, final List<Integer> versionsToExclude) {
+    try {
+      final List<Pair<String, Integer>> resourceIdOrderedList =
+          fetchResourceIdOrderedList(projectId);
+      if (resourceIdOrderedList.size() <= this.maxArtifactsPerProject) {
+        return;
+      }
+      final Map<String, Integer> referenceCounts = new HashMap<>();
+      for (int i = 0; i < resourceIdOrderedList.size(); i++) {
+        final Pair<String, Integer> pair = resourceIdOrderedList.get(i);
+        final boolean keep =
+            i < this.maxArtifactsPerProject || versionsToExclude.contains(pair.getSecond());
+        referenceCounts.merge(pair.getFirst(), keep ? 1 : 0, Integer::sum);
+      }
+      final List<String> unreferencedResourceIds = new ArrayList<>();
+      referenceCounts.forEach((resourceId, count) -> {
+        if (count == 0) {
+          unreferencedResourceIds.add(resourceId);
+        }
+      });
+      if (unreferencedResourceIds.isEmpty()) {
+        return;
+      }
+
+      log.warn(String.format("Deleting project artifacts [id: %d]: %s", projectId,
+          unreferencedResourceIds));
+      final List<Boolean> deleted = ParallelUtils.map(unreferencedResourceIds,
+          this::deleteFromStorage, this.parallelism, "azk-storage-cleaner-%d");
+      final List<String> deletedResourceIds = new ArrayList<>();
+      for (int i = 0; i < unreferencedResourceIds.size(); i++) {
+        if (deleted.get(i)) {
+          deletedResourceIds.add(unreferencedResourceIds.get(i));
+        }
+      }
+      // The list is sorted by descending version
+      removeDbEntries(projectId, resourceIdOrderedList.get(0).getSecond(), deletedResourceIds);
+    } catch (final Exception e) {
+      log.error("Error performing cleanup of Project: " + projectId, e);
+    }
+  }
+
+  /**
+   * @return true if the artifact was deleted from the storage, or was already missing
+   */
+  private boolean deleteFromStorage(final String resourceId) {
+    try {
+      if (this.storage.deleteProject(resourceId) || !existsInStorage(resourceId)) {
+        return true;
+      }
+    } catch (final RuntimeException e) {
+      log.error("Error while deleting resourceId: " + resourceId, e);
+    }
+    log.info("Failed to delete resourceId: " + resourceId);
+    return false;
+  }
+
+  private boolean existsInStorage(final String resourceId) {
+    try (final InputStream inputStream = this.storage.getProject(resourceId)) {
+      return inputStream != null;
+    } catch (final FileNotFoundException e) {
+      return false;
+    } catch (final IOException e) {
+      log.warn("Unable to check if resourceId exists: " + resourceId, e);
+      return true;
+    }
+  }
+
+  private void removeDbEntries(final int projectId, final int maxVersion,
+      final List<String> resourceIds) {
+    if (resourceIds.isEmpty()) {
+      return;
+    }
+    final Object[][] params = new Object[resourceIds.size()][];
+    for (int i = 0; i < resourceIds.size(); i++) {
+      params[i] = new Object[]{projectId, resourceIds.get(i), maxVersion};
+    }
+    try {
+      this.databaseOperator.batch(SQL_DELETE_PROJECT_RESOURCE_ID, params);
+    } catch (final SQLException e) {
+      log.error("Error while deleting DB metadata resource IDs: " + resourceIds, e);
+    }
+  }
+
   private Set<String> findResourceIdsToDelete(final int projectId,
       final List<Integer> versionsToExclude) {
     final List<Pair<String, Integer>> resourceIdOrderedList = fetchResourceIdOrderedList(projectId);
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.utils;
+
+import azkaban.Constants.ConfigurationKeys;
+import azkaban.metrics.CommonMetrics;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.mail.MessagingException;
+import org.apache.log4j.Logger;
+
+/**
+ * Sends the emails created by the {@link Emailer} from a bounded queue on a few background
+ * threads, so that a slow or unavailable mail server doesn't hold the threads alerting users, e.g.
+ * the ones finalizing flows.
+ *
+ * <p>Each thread keeps its SMTP connection open between emails, and closes it once idle. When
+ * the queue is full, senders wait for a free slot for a short time and the email is dropped if
+ * there is still none. An email whose SMTP connection can't be opened twice in a row is reported
+ * as failed to its sender.
+ *
+ * <p>Emails are coalesced while they wait to be sent: an email isn't queued if one to the same
+ * recipients about the same alert, e.g. the failure of a given flow, is already queued. The queued
+ * email is sent and the later ones are dropped, so that a burst of executions of a flow failing
+ * while the mail server is slow sends one alert. Emails without an alert, e.g. SLA emails, are
+ * only coalesced with identical ones, and never if they have attachments. An email queued after
+ * the previous one was sent is always sent.
+ *
+ * <p>On {@link #shutdown()}, the queued emails are given some time to be sent.
+ */
+@Singleton
+public class EmailDispatcher {
+
+  private static final Logger logger = Logger.getLogger(EmailDispatcher.class);
+  // Max time a thread waits for an email before checking whether it should stop
+  private static final long POLL_TIMEOUT_MS = 1000;
+
+  private final boolean enabled;
+  private final BlockingQueue<QueuedEmail> queue;
+  // Keys of the emails in the queue, to coalesce the emails about the same alert
+  private final Set<List<Object>> queuedEmailKeys = ConcurrentHashMap.newKeySet();
+  private final long enqueueTimeoutMs;
+  private final long idleTimeoutMs;
+  private final long shutdownTimeoutMs;
+  private final CommonMetrics commonMetrics;
+  private final ExecutorService workers;
+  private volatile boolean shutdown = false;
+
+  @Inject
+  public EmailDispatcher(final Props props, final CommonMetrics commonMetrics) {
+    this.enabled = props.getBoolean(ConfigurationKeys.MAIL_ASYNC_ENABLED, false);
+    this.queue = new ArrayBlockingQueue<>(
+        props.getInt(ConfigurationKeys.MAIL_ASYNC_QUEUE_SIZE, 1000));
+    this.enqueueTimeoutMs = props
+        .getLong(ConfigurationKeys.MAIL_ASYNC_ENQUEUE_TIMEOUT_MILLIS, 1000);
+    this.idleTimeoutMs = props
+        .getLong(ConfigurationKeys.MAIL_ASYNC_IDLE_TIMEOUT_MILLIS, TimeUnit.MINUTES.toMillis(1));
+    this.shutdownTimeoutMs = props.getLong(ConfigurationKeys.MAIL_ASYNC_SHUTDOWN_TIMEOUT_MILLIS,
+        TimeUnit.SECONDS.toMillis(30));
+    this.commonMetrics = commonMetrics;
+
+    if (this.enabled) {
+      final int threads = props.getInt(ConfigurationKeys.MAIL_ASYNC_THREADS, 2);
+      this.workers = Executors.newFixedThreadPool(threads,
+          new ThreadFactoryBuilder().setNameFormat("azk-email-dispatcher-%d").setDaemon(true)
+              .build());
+      for (int i = 0; i < threads; i++) {
+        this.workers.submit(this::sendQueuedEmails);
+      }
+      commonMetrics.addEmailQueueSizeGauge(this.queue::size);
+    } else {
+      this.workers = null;
+    }
+  }
+
+  /**
+   * Create a disabled dispatcher: emails are sent by the threads creating them.
+   */
+  EmailDispatcher() {
+    this.enabled = false;
+    this.queue = new ArrayBlockingQueue<>(1);
+    this.enqueueTimeoutMs = 0;
+    this.idleTimeoutMs = 0;
+    this.shutdownTimeoutMs = 0;
+    this.commonMetrics = null;
+    this.workers = null;
+  }
+
+  public boolean isEnabled() {
+    return this.enabled;
+  }
+
+  /**
+   * Queue the email to be sent.
+   *
+   * @param alertKey identifies the alert the email is about, e.g. the failure of a flow, null if
+   * it's about no alert
+   * @param send sends the email with the given open sender, reporting the result
+   * @param onSenderFailure reports the email as failed when no sender could be opened for it
+   * @return false if the email was dropped because the queue is full or the dispatcher is shut
+   * down
+   */
+  public boolean dispatch(final EmailMessage message, final String alertKey,
+      final Consumer<JavaxMailSender> send, final Consumer<Exception> onSenderFailure) {
+    if (this.shutdown) {
+      logger.error("Email dispatcher is shut down, dropping email: " + message.getSubject());
+      this.commonMetrics.markEmailRejected();
+      return false;
+    }
+    final List<Object> key = getKey(message, alertKey);
+    if (key != null && !this.queuedEmailKeys.add(key)) {
+      logger.info("Email about the same alert already queued, not sending it: "
+          + message.getSubject());
+      this.commonMetrics.markEmailCoalesced();
+      return true;
+    }
+
+    try {
+      if (this.queue.offer(new QueuedEmail(message, key, send, onSenderFailure),
+          this.enqueueTimeoutMs,
+          TimeUnit.MILLISECONDS)) {
+        return true;
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (key != null) {
+      this.queuedEmailKeys.remove(key);
+    }
+    logger.error("Email queue is full, dropping email: " + message.getSubject());
+    this.commonMetrics.markEmailRejected();
+    return false;
+  }
+
+  /**
+   * Stop accepting emails, wait up to {@link ConfigurationKeys#MAIL_ASYNC_SHUTDOWN_TIMEOUT_MILLIS}
+   * for the queued ones to be sent, then close the SMTP connections.
+   */
+  public void shutdown() {
+    this.shutdown = true;
+    if (this.workers == null) {
+      return;
+    }
+    this.workers.shutdown();
+    try {
+      if (!this.workers.awaitTermination(this.shutdownTimeoutMs, TimeUnit.MILLISECONDS)) {
+        logger.warn("Timed out sending the queued emails, dropping " + this.queue.size()
+            + " of them.");
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      this.workers.shutdownNow();
+    }
+  }
+
+  @VisibleForTesting
+  int getQueueSize() {
+    return this.queue.size();
+  }
+
+  /**
+   * @return the key of the emails coalesced with this one, or null if it can't be coalesced
+   */
+  private static List<Object> getKey(final EmailMessage message, final String alertKey) {
+    final List<Object> key = new ArrayList<>();
+    key.add(new ArrayList<>(message.getToAddresses()));
+    if (alertKey != null) {
+      key.add(alertKey);
+    } else if (message.hasAttachments()) {
+      return null;
+    } else {
+      key.add(message.getSubject());
+      key.add(message.getBody());
+    }
+    return key;
+  }
+
+  private void sendQueuedEmails() {
+    JavaxMailSender sender = null;
+    Properties senderProperties = null;
+    long idleSince = System.currentTimeMillis();
+    try {
+      // Once shut down, send the emails left in the queue
+      while (!this.shutdown || !this.queue.isEmpty()) {
+        final QueuedEmail email = this.queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        if (email == null) {
+          if (sender != null
+              && System.currentTimeMillis() - idleSince >= this.idleTimeoutMs) {
+            closeQuietly(sender);
+            sender = null;
+          }
+          continue;
+        }
+        // Identical emails queued from now on are sent again
+        if (email.key != null) {
+          this.queuedEmailKeys.remove(email.key);
+        }
+        this.commonMetrics.recordEmailQueueWait(System.currentTimeMillis() - email.queueTime);
+
+        final Properties properties = email.message.getSmtpProperties();
+        if (sender == null || !properties.equals(senderProperties)) {
+          closeQuietly(sender);
+          sender = null;
+          try {
+            sender = createSender(email.message);
+            senderProperties = properties;
+          } catch (final MessagingException | RuntimeException e) {
+            email.onSenderFailure.accept(e);
+            idleSince = System.currentTimeMillis();
+            continue;
+          }
+        }
+        try {
+          email.send.accept(sender);
+        } catch (final RuntimeException e) {
+          logger.error("Failed to send email: " + email.message.getSubject(), e);
+        }
+        idleSince = System.currentTimeMillis();
+      }
+    } catch (final InterruptedException e) {
+      logger.info("Email dispatcher interrupted, stopping.");
+    } finally {
+      closeQuietly(sender);
+    }
+  }
+
+  /**
+   * Open an SMTP connection for the email, trying a second time if the first attempt fails.
+   */
+  private static JavaxMailSender createSender(final EmailMessage message)
+      throws MessagingException {
+    try {
+      return message.createSender();
+    } catch (final MessagingException | RuntimeException e) {
+      logger.warn("Failed to create the SMTP sender for email: " + message.getSubject()
+          + ", retrying", e);
+    }
+    return message.createSender();
+  }
+
+  private static void closeQuietly(final JavaxMailSender sender) {
+    if (sender != null) {
+      try {
+        sender.close();
+      } catch (final MessagingException | RuntimeException e) {
+        logger.warn("Failed to close the SMTP connection", e);
+      }
+    }
+  }
+
+  private static class QueuedEmail {
+
+    private final EmailMessage message;
+    private final List<Object> key;
+    private final Consumer<JavaxMailSender> send;
+    private final Consumer<Exception> onSenderFailure;
+    private final long queueTime = System.currentTimeMillis();
+
+    private QueuedEmail(final EmailMessage message, final List<Object> key,
+        final Consumer<JavaxMailSender> send, final Consumer<Exception> onSenderFailure) {
+      this.message = message;
+      this.key = key;
+      this.send = send;
+      this.onSenderFailure = onSenderFailure;
+    }
+  }
+}
@@ -164,6 +164,36 @@ public class EmailMessage {
 
   public void sendEmail() throws MessagingException {
     checkSettings();
+    final JavaxMailSender sender = createSender();
+    final Message message = createMessage(sender);
+
+    retryConnectToSMTPServer(sender);
+    retrySendMessage(sender, message);
+    sender.close();
+  }
+
+  /**
+   * Send the email with a sender kept open to send other emails, connecting it if needed. The
+   * sender must have been created by {@link #createSender()} from an email with the same
+   * {@link #getSmtpProperties()}.
+   */
+  public void sendEmail(final JavaxMailSender sender) throws MessagingException {
+    checkSettings();
+    final Message message = createMessage(sender);
+    if (!sender.isConnected()) {
+      retryConnectToSMTPServer(sender);
+    }
+    retrySendMessage(sender, message);
+  }
+
+  JavaxMailSender createSender() throws MessagingException {
+    return this.creator.createSender(getSmtpProperties());
+  }
+
+  /**
+   * @return the properties of the SMTP session to send the email
+   */
+  Properties getSmtpProperties() {
     final Properties props = new Properties();
     if (this._usesAuth) {
       props.put("mail.smtp.auth", "true");
@@ -178,8 +208,10 @@ public class EmailMessage {
     props.put("mail.smtp.connectiontimeout", _connectionTimeout);
     props.put("mail.smtp.starttls.enable", this._tls);
     props.put("mail.smtp.ssl.trust", this._mailHost);
+    return props;
+  }
 
-    final JavaxMailSender sender = this.creator.createSender(props);
+  private Message createMessage(final JavaxMailSender sender) throws MessagingException {
     final Message message = sender.createMessage();
 
     final InternetAddress from = new InternetAddress(this._fromAddress, false);
@@ -209,10 +241,7 @@ public class EmailMessage {
     } else {
       message.setContent(this._body.toString(), this._mimeType);
     }
-
-    retryConnectToSMTPServer(sender);
-    retrySendMessage(sender, message);
-    sender.close();
+    return message;
   }
 
   private void connectToSMTPServer(final JavaxMailSender s) throws MessagingException {
@@ -291,4 +320,12 @@ public class EmailMessage {
     return this._mailPort;
   }
 
+  public List<String> getToAddresses() {
+    return this._toAddress;
+  }
+
+  public boolean hasAttachments() {
+    return !this._attachments.isEmpty();
+  }
+
 }
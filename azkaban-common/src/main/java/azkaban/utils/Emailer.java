@@ -55,12 +55,20 @@ public class Emailer extends AbstractMailer implements Alerter {
   private final String clientPortNumber;
   private final String azkabanName;
   private final ExecutorLoader executorLoader;
+  private final EmailDispatcher emailDispatcher;
 
-  @Inject
   public Emailer(final Props props, final CommonMetrics commonMetrics,
       final EmailMessageCreator messageCreator, final ExecutorLoader executorLoader) {
+    this(props, commonMetrics, messageCreator, executorLoader, new EmailDispatcher());
+  }
+
+  @Inject
+  public Emailer(final Props props, final CommonMetrics commonMetrics,
+      final EmailMessageCreator messageCreator, final ExecutorLoader executorLoader,
+      final EmailDispatcher emailDispatcher) {
     super(props, messageCreator);
     this.executorLoader = requireNonNull(executorLoader, "executorLoader is null.");
+    this.emailDispatcher = requireNonNull(emailDispatcher, "emailDispatcher is null.");
     this.commonMetrics = requireNonNull(commonMetrics, "commonMetrics is null.");
     this.azkabanName = props.getString("azkaban.name", "azkaban");
 
@@ -120,7 +128,8 @@ public class Emailer extends AbstractMailer implements Alerter {
     final boolean mailCreated = mailCreator.createFirstErrorMessage(flow, message, this.azkabanName,
         this.scheme, this.clientHostname, this.clientPortNumber);
     sendEmail(message, mailCreated,
-        "first error email message for execution " + flow.getExecutionId());
+        "first error email message for execution " + flow.getExecutionId(),
+        getFlowAlertKey("first error", flow));
   }
 
   @Override
@@ -141,7 +150,8 @@ public class Emailer extends AbstractMailer implements Alerter {
 
     final boolean mailCreated = mailCreator.createErrorEmail(flow, last72hoursExecutions, message,
         this.azkabanName, this.scheme, this.clientHostname, this.clientPortNumber, extraReasons);
-    sendEmail(message, mailCreated, "error email message for execution " + flow.getExecutionId());
+    sendEmail(message, mailCreated, "error email message for execution " + flow.getExecutionId(),
+        getFlowAlertKey("error", flow));
   }
 
   @Override
@@ -150,7 +160,9 @@ public class Emailer extends AbstractMailer implements Alerter {
     final MailCreator mailCreator = getMailCreator(flow);
     final boolean mailCreated = mailCreator.createSuccessEmail(flow, message, this.azkabanName,
         this.scheme, this.clientHostname, this.clientPortNumber);
-    sendEmail(message, mailCreated, "success email message for execution " + flow.getExecutionId());
+    sendEmail(message, mailCreated,
+        "success email message for execution " + flow.getExecutionId(),
+        getFlowAlertKey("success", flow));
   }
 
   /**
@@ -239,20 +251,57 @@ public class Emailer extends AbstractMailer implements Alerter {
 
   public void sendEmail(final EmailMessage message, final boolean mailCreated,
       final String operation) {
+    sendEmail(message, mailCreated, operation, null);
+  }
+
+  /**
+   * @param alertKey identifies the alert the email is about, for the dispatcher to send one email
+   * per alert and recipients, null if it's about no alert
+   */
+  private void sendEmail(final EmailMessage message, final boolean mailCreated,
+      final String operation, final String alertKey) {
     if (mailCreated) {
-      try {
+      if (this.emailDispatcher.isEnabled()) {
+        this.emailDispatcher.dispatch(message, alertKey,
+            sender -> sendEmail(message, sender, operation), e -> onSendFailure(operation, e));
+      } else {
+        sendEmail(message, null, operation);
+      }
+    }
+  }
+
+  /**
+   * @param sender the open sender to send the email with, null to open a new one
+   */
+  private void sendEmail(final EmailMessage message, final JavaxMailSender sender,
+      final String operation) {
+    try {
+      if (sender == null) {
         message.sendEmail();
-        logger.info("Sent " + operation);
-        this.commonMetrics.markSendEmailSuccess();
-      } catch (final Exception e) {
-        logger.error("Failed to send " + operation, e);
-        if (!(e instanceof AddressException)) {
-          this.commonMetrics.markSendEmailFail();
-        }
+      } else {
+        message.sendEmail(sender);
       }
+      logger.info("Sent " + operation);
+      this.commonMetrics.markSendEmailSuccess();
+    } catch (final Exception e) {
+      onSendFailure(operation, e);
+    }
+  }
+
+  private void onSendFailure(final String operation, final Exception e) {
+    logger.error("Failed to send " + operation, e);
+    if (!(e instanceof AddressException)) {
+      this.commonMetrics.markSendEmailFail();
     }
   }
 
+  /**
+   * @return the key of the alert of the given kind about the flow, the same for all its executions
+   */
+  private static String getFlowAlertKey(final String alert, final ExecutableFlow flow) {
+    return alert + " " + flow.getProjectId() + "." + flow.getFlowId();
+  }
+
   private String getJobOrFlowName(final SlaOption slaOption) {
     if (org.apache.commons.lang.StringUtils.isNotBlank(slaOption.getJobName())) {
       return slaOption.getFlowName() + ":" + slaOption.getJobName();
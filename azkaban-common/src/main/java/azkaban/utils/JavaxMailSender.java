@@ -43,6 +43,10 @@ public class JavaxMailSender {
     this.t.sendMessage(message, recipients);
   }
 
+  public boolean isConnected() {
+    return this.t.isConnected();
+  }
+
   public void close() throws MessagingException {
     this.t.close();
   }
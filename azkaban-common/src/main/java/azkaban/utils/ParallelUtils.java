@@ -0,0 +1,78 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.utils;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Utils to run independent tasks on several threads.
+ */
+public class ParallelUtils {
+
+  private ParallelUtils() {
+  }
+
+  /**
+   * Apply the function to every item, on up to parallelism threads, and return the results in the
+   * order of the items. With a parallelism of 1 the items are mapped on the calling thread.
+   *
+   * @param threadNameFormat name format of the threads, e.g. "azk-project-loader-%d"
+   * @throws RuntimeException thrown by the function for one of the items
+   */
+  public static <T, R> List<R> map(final List<T> items, final Function<T, R> function,
+      final int parallelism, final String threadNameFormat) {
+    final List<R> results = new ArrayList<>(items.size());
+    if (parallelism <= 1 || items.size() <= 1) {
+      for (final T item : items) {
+        results.add(function.apply(item));
+      }
+      return results;
+    }
+
+    final ExecutorService executor = Executors.newFixedThreadPool(
+        Math.min(parallelism, items.size()),
+        new ThreadFactoryBuilder().setNameFormat(threadNameFormat).setDaemon(true).build());
+    try {
+      final List<Callable<R>> tasks = new ArrayList<>(items.size());
+      for (final T item : items) {
+        tasks.add(() -> function.apply(item));
+      }
+      for (final Future<R> future : executor.invokeAll(tasks)) {
+        results.add(future.get());
+      }
+      return results;
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for the tasks", e);
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -440,6 +440,35 @@ public class ExecutableFlowTest {
     Assert.assertNull(updateObject.get("nodes"));
   }
 
+  @Test
+  public void testUpdateObjectFollowsUpdateTimeChanges() throws Exception {
+    final ExecutableFlow exFlow = new ExecutableFlow(this.project, this.project.getFlow("jobe"));
+    exFlow.setExecutionId(101);
+    final ExecutableFlow copyFlow = ExecutableFlow.createExecutableFlow(
+        JSONUtils.parseJSONFromString(JSONUtils.toJSON(exFlow.toObject())), exFlow.getStatus());
+    final ExecutableFlowBase jobb = (ExecutableFlowBase) exFlow.getExecutableNode("jobb");
+    final ExecutableNode innerJobA = jobb.getExecutableNode("innerJobA");
+
+    innerJobA.setUpdateTime(100);
+    Map<String, Object> updateObject = exFlow.toUpdateObject(50);
+    Assert.assertEquals(1, ((List) updateObject.get("nodes")).size());
+    Assert.assertEquals(1,
+        ((List) ((Map<String, Object>) ((List) updateObject.get("nodes")).get(0)).get("nodes"))
+            .size());
+
+    // Update times can go back, e.g. when a node is cancelled with an earlier time
+    innerJobA.cancelNode(40);
+    Assert.assertNull(exFlow.toUpdateObject(50).get("nodes"));
+    updateObject = exFlow.toUpdateObject(30);
+    Assert.assertEquals(1, ((List) updateObject.get("nodes")).size());
+
+    // Applied updates are tracked too
+    copyFlow.applyUpdateObject(updateObject);
+    testEquals(exFlow, copyFlow);
+    Assert.assertEquals(updateObject, copyFlow.toUpdateObject(30));
+    Assert.assertNull(copyFlow.toUpdateObject(40).get("nodes"));
+  }
+
   private void assertNotNull(final ExecutableNode... nodes) {
     for (final ExecutableNode node : nodes) {
       Assert.assertNotNull(node);
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import azkaban.flow.Edge;
+import azkaban.flow.Flow;
+import azkaban.flow.Node;
+import azkaban.flow.SpecialJobTypes;
+import azkaban.project.Project;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compares the time taken to build the update object of a 5,000 node execution with a handful of
+ * updated nodes, as polled by the web servers, with going through all the nodes to find the
+ * updated ones, as {@link ExecutableFlowBase#toUpdateObject(long)} used to.
+ */
+@Ignore("Benchmark, run manually")
+public class ExecutableFlowUpdateBenchmark {
+
+  private static final int NUM_SUBFLOWS = 50;
+  private static final int JOBS_PER_SUBFLOW = 99;
+  private static final int UPDATED_NODES = 5;
+  private static final int ITERATIONS = 10000;
+
+  private static ExecutableFlow createExecutableFlow() {
+    final Project project = new Project(1, "benchmark");
+    final Map<String, Flow> flows = new HashMap<>();
+    final Flow rootFlow = new Flow("root");
+    for (int i = 0; i < NUM_SUBFLOWS; i++) {
+      final Flow subFlow = new Flow("subflow" + i);
+      for (int j = 0; j < JOBS_PER_SUBFLOW; j++) {
+        final Node node = new Node("job" + j);
+        node.setType("command");
+        subFlow.addNode(node);
+        if (j > 0) {
+          subFlow.addEdge(new Edge("job" + (j - 1), "job" + j));
+        }
+      }
+      flows.put(subFlow.getId(), subFlow);
+
+      final Node subFlowNode = new Node("subflow" + i);
+      subFlowNode.setType(SpecialJobTypes.EMBEDDED_FLOW_TYPE);
+      subFlowNode.setEmbeddedFlowId(subFlow.getId());
+      rootFlow.addNode(subFlowNode);
+    }
+    flows.put(rootFlow.getId(), rootFlow);
+    project.setFlows(flows);
+    return new ExecutableFlow(project, rootFlow);
+  }
+
+  /**
+   * Counts the nodes updated after lastUpdateTime by going through all of them.
+   */
+  private static int countUpdatedNodes(final ExecutableFlowBase flow, final long lastUpdateTime) {
+    int count = 0;
+    for (final ExecutableNode node : flow.getExecutableNodes()) {
+      if (node instanceof ExecutableFlowBase) {
+        count += countUpdatedNodes((ExecutableFlowBase) node, lastUpdateTime);
+      } else if (node.getUpdateTime() > lastUpdateTime) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private static int countUpdatedNodes(final Map<String, Object> updateObject) {
+    int count = 0;
+    final List<Map<String, Object>> nodes = (List<Map<String, Object>>) updateObject.get("nodes");
+    if (nodes != null) {
+      for (final Map<String, Object> node : nodes) {
+        count += node.containsKey("nodes") ? countUpdatedNodes(node) : 1;
+      }
+    }
+    return count;
+  }
+
+  @Test
+  public void benchmarkToUpdateObject() {
+    final ExecutableFlow flow = createExecutableFlow();
+    final List<ExecutableNode> jobs = new ArrayList<>();
+    for (final ExecutableNode subFlow : flow.getExecutableNodes()) {
+      jobs.addAll(((ExecutableFlowBase) subFlow).getExecutableNodes());
+    }
+    for (final ExecutableNode job : jobs) {
+      job.setUpdateTime(1000);
+    }
+    for (int i = 0; i < UPDATED_NODES; i++) {
+      jobs.get(i * jobs.size() / UPDATED_NODES).setUpdateTime(2000);
+    }
+
+    for (int round = 0; round < 5; round++) {
+      long startNanos = System.nanoTime();
+      int fullScanCount = 0;
+      for (int i = 0; i < ITERATIONS; i++) {
+        fullScanCount = countUpdatedNodes(flow, 1500);
+      }
+      final long fullScanNanos = (System.nanoTime() - startNanos) / ITERATIONS;
+
+      startNanos = System.nanoTime();
+      Map<String, Object> updateObject = null;
+      for (int i = 0; i < ITERATIONS; i++) {
+        updateObject = flow.toUpdateObject(1500);
+      }
+      final long indexedNanos = (System.nanoTime() - startNanos) / ITERATIONS;
+
+      assertThat(countUpdatedNodes(updateObject)).isEqualTo(fullScanCount)
+          .isEqualTo(UPDATED_NODES);
+      System.out.println(String.format(
+          "%d nodes, %d updated: %8d ns per poll going through all nodes, %8d ns indexed",
+          jobs.size() + NUM_SUBFLOWS, UPDATED_NODES, fullScanNanos, indexedNanos));
+    }
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package azkaban.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import azkaban.Constants.ConfigurationKeys;
+import azkaban.executor.ExecutionChangeStream.ExecutionChanges;
+import azkaban.utils.Props;
+import azkaban.utils.TestUtils;
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ExecutionChangeStreamTest {
+
+  private static final int EXEC_ID = 11;
+
+  private ExecutionChangeStream changeStream;
+  private ExecutableFlow flow;
+  private ExecutableNode job1;
+  private ExecutableNode job2;
+
+  @Before
+  public void setUp() throws Exception {
+    final Props props = new Props();
+    props.put(ConfigurationKeys.EXECUTION_CHANGES_MAX_WAITERS, 1);
+    this.changeStream = new ExecutionChangeStream(props);
+    this.flow = TestUtils.createTestExecutableFlow("exectest1", "exec1");
+    this.flow.setExecutionId(EXEC_ID);
+    this.job1 = this.flow.getExecutableNodes().get(0);
+    this.job2 = this.flow.getExecutableNodes().get(1);
+  }
+
+  private Optional<ExecutionChanges<Set<ExecutableNode>>> getChanges(final long sinceVersion,
+      final long waitMs) throws InterruptedException, IOException {
+    return this.changeStream.getChanges(EXEC_ID, sinceVersion, waitMs,
+        (flow, changedNodes) -> changedNodes);
+  }
+
+  private CompletableFuture<ExecutionChanges<Set<ExecutableNode>>> waitForChanges(
+      final long sinceVersion) {
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        return getChanges(sinceVersion, TimeUnit.SECONDS.toMillis(10)).get();
+      } catch (final InterruptedException | IOException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+  }
+
+  @Test
+  public void testWaitersCappedByJettyThreads() {
+    final Props props = new Props();
+    assertThat(new ExecutionChangeStream(props).getMaxWaiters()).isEqualTo(5);
+    props.put("jetty.maxThreads", 8);
+    props.put(ConfigurationKeys.EXECUTION_CHANGES_MAX_WAITERS, 50);
+    assertThat(new ExecutionChangeStream(props).getMaxWaiters()).isEqualTo(2);
+  }
+
+  @Test
+  public void testChangesSinceVersion() throws Exception {
+    assertThat(getChanges(0, 0)).isEmpty();
+
+    this.changeStream.publish(this.flow, ImmutableSet.of(this.flow, this.job1));
+    this.changeStream.publish(this.flow, ImmutableSet.of(this.flow, this.job2));
+
+    final ExecutionChanges<Set<ExecutableNode>> allChanges = getChanges(0, 0).get();
+    assertThat(allChanges.getVersion()).isEqualTo(2);
+    assertThat(allChanges.getSnapshot()).containsOnly(this.flow, this.job1, this.job2);
+    assertThat(getChanges(1, 0).get().getSnapshot())
+        .containsOnly(this.flow, this.job2);
+    assertThat(getChanges(2, 0).get().getSnapshot()).isEmpty();
+  }
+
+  @Test
+  public void testWaitForNextChange() throws Exception {
+    this.changeStream.publish(this.flow, Collections.singleton(this.flow));
+    final CompletableFuture<ExecutionChanges<Set<ExecutableNode>>> changes = waitForChanges(1);
+    azkaban.test.TestUtils.await().until(() -> this.changeStream.getWaiterCount() == 1);
+    // too many waiters, returns immediately
+    assertThat(getChanges(1, TimeUnit.SECONDS.toMillis(10)).get().getVersion()).isEqualTo(1);
+    assertThat(changes).isNotDone();
+
+    this.changeStream.publish(this.flow, Collections.singleton(this.job1));
+    assertThat(changes.get(10, TimeUnit.SECONDS).getSnapshot()).containsOnly(this.job1);
+    assertThat(this.changeStream.getWaiterCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void testCompleteWakesWaiters() throws Exception {
+    this.changeStream.publish(this.flow, Collections.singleton(this.flow));
+    final CompletableFuture<ExecutionChanges<Set<ExecutableNode>>> changes = waitForChanges(1);
+    azkaban.test.TestUtils.await().until(() -> this.changeStream.getWaiterCount() == 1);
+
+    this.changeStream.retainAll(Collections.emptySet());
+    assertThat(changes.get(10, TimeUnit.SECONDS).isCompleted()).isTrue();
+    assertThat(getChanges(0, 0)).isEmpty();
+  }
+
+  @Test
+  public void testWaitTimesOut() throws Exception {
+    this.changeStream.publish(this.flow, Collections.singleton(this.flow));
+    final ExecutionChanges<Set<ExecutableNode>> changes = getChanges(1, 10).get();
+    assertThat(changes.getVersion()).isEqualTo(1);
+    assertThat(changes.getSnapshot()).isEmpty();
+    assertThat(changes.isCompleted()).isFalse();
+  }
+
+  @Test
+  public void testNoUpdateWhileSnapshotIsTaken() throws Exception {
+    this.changeStream.publish(this.flow, Collections.singleton(this.flow));
+    final Status status = this.flow.getStatus();
+    final CountDownLatch snapshotStarted = new CountDownLatch(1);
+    final CountDownLatch releaseSnapshot = new CountDownLatch(1);
+    final CompletableFuture<Status> snapshot = CompletableFuture.supplyAsync(() -> {
+      try {
+        return this.changeStream.getChanges(EXEC_ID, 0, 0, (flow, changedNodes) -> {
+          snapshotStarted.countDown();
+          try {
+            releaseSnapshot.await();
+          } catch (final InterruptedException e) {
+            throw new IllegalStateException(e);
+          }
+          return flow.getStatus();
+        }).get().getSnapshot();
+      } catch (final InterruptedException | IOException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    assertThat(snapshotStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+    final CompletableFuture<Void> update = CompletableFuture.runAsync(() -> this.changeStream
+        .applyUpdate(this.flow, updatedNodes -> {
+          this.flow.setStatus(Status.SUCCEEDED);
+          updatedNodes.add(this.flow);
+        }));
+    // The update waits for the snapshot
+    assertThat(update).isNotDone();
+    releaseSnapshot.countDown();
+    update.get(10, TimeUnit.SECONDS);
+    assertThat(snapshot.get(10, TimeUnit.SECONDS)).isEqualTo(status);
+    assertThat(getChanges(1, 0).get().getVersion()).isEqualTo(2);
+  }
+}
@@ -22,8 +22,11 @@ import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import azkaban.Constants.ConfigurationKeys;
 import azkaban.db.DatabaseOperator;
 import azkaban.db.DatabaseTransOperator;
+import azkaban.metrics.CommonMetrics;
+import azkaban.metrics.MetricsManager;
 import azkaban.project.JdbcProjectImpl;
 import azkaban.project.ProjectLoader;
 import azkaban.test.Utils;
@@ -33,17 +36,22 @@ import azkaban.utils.Pair;
 import azkaban.utils.Props;
 import azkaban.utils.TestUtils;
 import azkaban.utils.TimeUtils;
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.ImmutableList;
 import java.io.File;
 import java.io.IOException;
 import java.sql.SQLException;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -190,6 +198,193 @@ public class ExecutionFlowDaoTest {
     }
   }
 
+  @Test
+  public void fetchFlowHistorySummaries() throws Exception {
+    createTestProject();
+    final ExecutableFlow flow = createTestFlow();
+    this.executionFlowDao.uploadExecutableFlow(flow);
+    flow.setStatus(Status.SUCCEEDED);
+    flow.setStartTime(1000L);
+    flow.setEndTime(2000L);
+    this.executionFlowDao.updateExecutableFlow(flow);
+
+    final List<ExecutionSummary> summaries1 = this.executionFlowDao
+        .fetchFlowHistorySummaries(0, 2);
+    assertThat(summaries1).hasSize(1);
+    final ExecutionSummary summary = summaries1.get(0);
+    assertThat(summary.getExecutionId()).isEqualTo(flow.getExecutionId());
+    assertThat(summary.getProjectId()).isEqualTo(flow.getProjectId());
+    assertThat(summary.getVersion()).isEqualTo(flow.getVersion());
+    assertThat(summary.getFlowId()).isEqualTo(flow.getFlowId());
+    assertThat(summary.getStatus()).isEqualTo(Status.SUCCEEDED);
+    assertThat(summary.getSubmitUser()).isEqualTo(flow.getSubmitUser());
+    assertThat(summary.getSubmitTime()).isEqualTo(flow.getSubmitTime());
+    assertThat(summary.getStartTime()).isEqualTo(1000L);
+    assertThat(summary.getEndTime()).isEqualTo(2000L);
+
+    assertThat(this.executionFlowDao
+        .fetchFlowHistorySummaries(flow.getProjectId(), flow.getFlowId(), 0, 2)).hasSize(1);
+    assertThat(this.executionFlowDao.fetchFlowHistorySummaries(flow.getProjectId(),
+        flow.getFlowId(), 0, 2, Status.SUCCEEDED)).hasSize(1);
+    assertThat(this.executionFlowDao.fetchFlowHistorySummaries(flow.getProjectId(),
+        flow.getFlowId(), 0, 2, Status.FAILED)).isEmpty();
+    assertThat(this.executionFlowDao
+        .fetchFlowHistorySummaries("exectest1", "", "", 0, -1, -1, 0, 16))
+        .extracting(ExecutionSummary::getExecutionId).containsExactly(flow.getExecutionId());
+  }
+
+  @Test
+  public void fetchFlowHistoryFromSearchIndex() throws Exception {
+    final ExecutableFlow flow1 = createExecution(1000L, Status.SUCCEEDED);
+    final ExecutableFlow flow2 = createExecution(2000L, Status.FAILED);
+    final ExecutableFlow flow3 = createExecution(3000L, Status.SUCCEEDED);
+
+    final Props indexProps = new Props();
+    indexProps.put(ConfigurationKeys.AZKABAN_EXECUTION_SEARCH_INDEX_ENABLED, "true");
+    // synced by the test only
+    indexProps.put(ConfigurationKeys.AZKABAN_EXECUTION_SEARCH_INDEX_SYNC_INTERVAL_MS,
+        TimeUnit.HOURS.toMillis(1));
+    final ExecutionSearchIndexManager searchIndexManager =
+        new ExecutionSearchIndexManager(indexProps, dbOperator);
+    final ExecutionFlowDao indexedDao =
+        new ExecutionFlowDao(dbOperator, this.mysqlNamedLock, searchIndexManager);
+    assertThat(searchIndexManager.search("", "exec", "", 0, -1, -1, 0, 10)).isEmpty();
+    // not indexed before the index is started
+    indexedDao.updateExecutableFlow(flow1);
+    assertThat(searchIndexManager.getIndex().size()).isEqualTo(0);
+    searchIndexManager.start();
+    azkaban.test.TestUtils.await().until(searchIndexManager::isReady);
+
+    final int succeeded = Status.SUCCEEDED.getNumVal();
+    assertThat(searchIndexManager.search("", "EXEC", "Test", succeeded, -1, -1, 0, 10))
+        .contains(ImmutableList.of(flow3.getExecutionId(), flow1.getExecutionId()));
+    assertThat(indexedDao.fetchFlowHistory("", "exec", "test", succeeded, -1, -1, 0, 10))
+        .extracting(ExecutableFlow::getExecutionId)
+        .containsExactlyElementsOf(this.executionFlowDao
+            .fetchFlowHistory("", "exec", "test", succeeded, -1, -1, 0, 10).stream()
+            .map(ExecutableFlow::getExecutionId).collect(Collectors.toList()))
+        .containsExactly(flow3.getExecutionId(), flow1.getExecutionId());
+    assertThat(indexedDao.fetchFlowHistorySummaries("", "ex_c1", "", 0, 1500L, -1, 1, 10))
+        .extracting(ExecutionSummary::getExecutionId).containsExactly(flow2.getExecutionId());
+
+    // updated through the indexed dao
+    flow2.setStatus(Status.SUCCEEDED);
+    indexedDao.updateExecutableFlow(flow2);
+    assertThat(searchIndexManager.search("", "exec", "", succeeded, -1, -1, 0, 10)).contains(
+        ImmutableList.of(flow3.getExecutionId(), flow2.getExecutionId(), flow1.getExecutionId()));
+
+    // updated by another server
+    flow1.setStatus(Status.KILLED);
+    this.executionFlowDao.updateExecutableFlow(flow1);
+    searchIndexManager.sync();
+    assertThat(searchIndexManager.search("", "exec", "", succeeded, -1, -1, 0, 10))
+        .contains(ImmutableList.of(flow3.getExecutionId(), flow2.getExecutionId()));
+
+    // uploaded through the indexed dao
+    final ExecutableFlow flow4 = createTestFlow();
+    flow4.setStatus(Status.PREPARING);
+    indexedDao.uploadExecutableFlow(flow4);
+    assertThat(searchIndexManager.search("", "exec", "", Status.PREPARING.getNumVal(), -1, -1,
+        0, 10)).contains(ImmutableList.of(flow4.getExecutionId()));
+    searchIndexManager.shutdown();
+  }
+
+  @Test
+  public void searchIndexTrimmedOnUpload() throws Exception {
+    createExecution(1000L, Status.SUCCEEDED);
+    final Props indexProps = new Props();
+    indexProps.put(ConfigurationKeys.AZKABAN_EXECUTION_SEARCH_INDEX_ENABLED, "true");
+    indexProps.put(ConfigurationKeys.AZKABAN_EXECUTION_SEARCH_INDEX_SYNC_INTERVAL_MS,
+        TimeUnit.HOURS.toMillis(1));
+    indexProps.put(ConfigurationKeys.AZKABAN_EXECUTION_SEARCH_INDEX_MAX_EXECUTIONS, 1);
+    final ExecutionSearchIndexManager searchIndexManager =
+        new ExecutionSearchIndexManager(indexProps, dbOperator);
+    final ExecutionFlowDao indexedDao =
+        new ExecutionFlowDao(dbOperator, this.mysqlNamedLock, searchIndexManager);
+    searchIndexManager.start();
+    azkaban.test.TestUtils.await().until(searchIndexManager::isReady);
+
+    // trimmed by the uploads of this server, without waiting for a sync
+    for (int i = 0; i < 3; i++) {
+      indexedDao.uploadExecutableFlow(createTestFlow());
+    }
+    assertThat(searchIndexManager.getIndex().size()).isEqualTo(1);
+    searchIndexManager.shutdown();
+  }
+
+  @Test
+  public void loadSearchIndexWithMaxExecutions() throws Exception {
+    final ExecutableFlow flow1 = createExecution(1000L, Status.SUCCEEDED);
+    final ExecutableFlow flow2 = createExecution(2000L, Status.SUCCEEDED);
+    final ExecutableFlow flow3 = createExecution(3000L, Status.SUCCEEDED);
+
+    final Props indexProps = new Props();
+    indexProps.put(ConfigurationKeys.AZKABAN_EXECUTION_SEARCH_INDEX_ENABLED, "true");
+    indexProps.put(ConfigurationKeys.AZKABAN_EXECUTION_SEARCH_INDEX_MAX_EXECUTIONS, 2);
+    final ExecutionSearchIndexManager searchIndexManager =
+        new ExecutionSearchIndexManager(indexProps, dbOperator);
+    searchIndexManager.load();
+
+    assertThat(searchIndexManager.getIndex().size()).isEqualTo(2);
+    assertThat(searchIndexManager.getIndex().getLowerBound()).isEqualTo(flow2.getExecutionId());
+    assertThat(searchIndexManager.search("", "exec", "", 0, -1, -1, 0, 2))
+        .contains(ImmutableList.of(flow3.getExecutionId(), flow2.getExecutionId()));
+    // flow1 is only in the DB
+    assertThat(searchIndexManager.search("", "exec", "", 0, -1, -1, 0, 3)).isEmpty();
+    assertThat(flow1.getExecutionId()).isLessThan(flow2.getExecutionId());
+  }
+
+  @Test
+  public void fetchExecutableFlowFromCache() throws Exception {
+    final Props cacheProps = new Props();
+    cacheProps.put(ConfigurationKeys.EXECUTABLE_FLOW_CACHE_ENABLED, "true");
+    final MetricRegistry metricRegistry = new MetricRegistry();
+    final ExecutableFlowCache flowCache = new ExecutableFlowCache(cacheProps,
+        new CommonMetrics(new MetricsManager(metricRegistry)));
+    final ExecutionFlowDao cachedDao = new ExecutionFlowDao(dbOperator, this.mysqlNamedLock,
+        new ExecutionSearchIndexManager(new Props(), dbOperator), flowCache);
+    final ExecutableFlow flow = createTestFlow();
+    this.executionFlowDao.uploadExecutableFlow(flow);
+    final int execId = flow.getExecutionId();
+
+    final ExecutableFlow fetched = cachedDao.fetchExecutableFlow(execId);
+    assertTwoFlowSame(fetched, flow);
+    final ExecutableFlow cached = cachedDao.fetchExecutableFlow(execId);
+    assertTwoFlowSame(cached, flow);
+    assertThat(metricRegistry.meter(CommonMetrics.EXECUTABLE_FLOW_CACHE_MISS_METER_NAME)
+        .getCount()).isEqualTo(1);
+    assertThat(metricRegistry.meter(CommonMetrics.EXECUTABLE_FLOW_CACHE_HIT_METER_NAME)
+        .getCount()).isEqualTo(1);
+    assertThat(metricRegistry.meter(CommonMetrics.EXECUTABLE_FLOW_INFLATED_BYTES_METER_NAME)
+        .getCount()).isGreaterThan(0);
+
+    // every read gets its own copy
+    assertThat(cached).isNotSameAs(fetched);
+    final Status nodeStatus = flow.getExecutableNodes().get(0).getStatus();
+    cached.getExecutableNodes().get(0).setStatus(Status.KILLED);
+    cached.getExecutionOptions().getFlowParameters().put("param", "value");
+    final ExecutableFlow copy = cachedDao.fetchExecutableFlow(execId);
+    assertThat(copy.getExecutableNodes().get(0).getStatus()).isEqualTo(nodeStatus);
+    assertThat(copy.getExecutionOptions().getFlowParameters()).doesNotContainKey("param");
+
+    // updated by another server
+    flow.setStatus(Status.RUNNING);
+    flow.setUpdateTime(flow.getUpdateTime() + 1);
+    this.executionFlowDao.updateExecutableFlow(flow);
+    assertThat(cachedDao.fetchExecutableFlow(execId).getStatus()).isEqualTo(Status.RUNNING);
+    assertThat(metricRegistry.meter(CommonMetrics.EXECUTABLE_FLOW_CACHE_MISS_METER_NAME)
+        .getCount()).isEqualTo(2);
+
+    // only the status column updated
+    dbOperator.update("UPDATE execution_flows SET status = ? WHERE exec_id = ?",
+        Status.KILLED.getNumVal(), execId);
+    assertThat(cachedDao.fetchExecutableFlow(execId).getStatus()).isEqualTo(Status.KILLED);
+
+    dbOperator.update("DELETE FROM execution_flows");
+    assertThat(cachedDao.fetchExecutableFlow(execId)).isNull();
+    assertThat(flowCache.size()).isEqualTo(0);
+  }
+
   @Test
   public void testAdvancedFilter() throws Exception {
     createTestProject();
@@ -511,43 +706,6 @@ public class ExecutionFlowDaoTest {
     assertThat(inOutProps.getSecond().get("hello")).isEqualTo("output");
   }
 
-  @Test
-  public void testSelectAndUpdateExecution() throws Exception {
-    final ExecutableFlow flow = TestUtils.createTestExecutableFlow("exectest1", "exec1");
-    flow.setStatus(Status.PREPARING);
-    flow.setSubmitTime(System.currentTimeMillis());
-    this.executionFlowDao.uploadExecutableFlow(flow);
-    final Executor executor = this.executorDao.addExecutor("localhost", 12345);
-    assertThat(this.executionFlowDao.selectAndUpdateExecution(executor.getId(), true))
-        .isEqualTo(flow.getExecutionId());
-    assertThat(this.executorDao.fetchExecutorByExecutionId(flow.getExecutionId())).isEqualTo
-        (executor);
-  }
-
-  @Test
-  public void testLockSuccessSelectAndUpdateExecutionWithLocking() throws Exception {
-    when(mysqlNamedLock.getLock(any(DatabaseTransOperator.class), any(String.class), any(Integer.class)))
-        .thenReturn(true);
-    when(mysqlNamedLock.releaseLock(any(DatabaseTransOperator.class), any(String.class))).thenReturn(true);
-    final long currentTime = System.currentTimeMillis();
-    final ExecutableFlow flow1 = submitNewFlow("exectest1", "exec1", currentTime,
-        ExecutionOptions.DEFAULT_FLOW_PRIORITY);
-    final Executor executor1 = this.executorDao.addExecutor("localhost", 12345);
-    assertThat(this.executionFlowDao.selectAndUpdateExecutionWithLocking(executor1.getId(), true))
-        .isEqualTo(flow1.getExecutionId());
-  }
-
-  @Test
-  public void testLockFailureSelectAndUpdateExecutionWithLocking() throws Exception {
-    when(mysqlNamedLock.getLock(any(DatabaseTransOperator.class), any(String.class), any(Integer.class)))
-        .thenReturn(false);
-    final long currentTime = System.currentTimeMillis();
-    final ExecutableFlow flow1 = submitNewFlow("exectest1", "exec1", currentTime,
-        ExecutionOptions.DEFAULT_FLOW_PRIORITY);
-    final Executor executor1 = this.executorDao.addExecutor("localhost", 12345);
-    assertThat(this.executionFlowDao.selectAndUpdateExecutionWithLocking(executor1.getId(), true)).isEqualTo(-1);
-  }
-
   /**
    * This test method is written to verify that selectAndUpdateExecutionWithLocking is working as
    * expected when batch select is disabled and execution status to select READY.
@@ -637,73 +795,86 @@ public class ExecutionFlowDaoTest {
   }
 
   @Test
-  public void testSelectAndUpdateExecutionWithPriority() throws Exception {
-    // Selecting executions when DB is empty
-    assertThat(this.executionFlowDao.selectAndUpdateExecution(-1, true))
-        .as("Expected no execution selected")
-        .isEqualTo(-1);
+  public void testSelectAndUpdateExecutions() throws Exception {
+    assertThat(this.executionFlowDao.selectAndUpdateExecutions(-1, true, 2)).isEmpty();
 
     final long currentTime = System.currentTimeMillis();
-    final ExecutableFlow lowPriorityFlow1 = submitNewFlow("exectest1", "exec1", currentTime,
+    final ExecutableFlow lowPriorityFlow = submitNewFlow("exectest1", "exec1", currentTime,
         ExecutionOptions.DEFAULT_FLOW_PRIORITY);
-
     final ExecutableFlow highPriorityFlow = submitNewFlow("exectest1", "exec1", currentTime + 5,
         ExecutionOptions.DEFAULT_FLOW_PRIORITY + 5);
+    final ExecutableFlow mediumPriorityFlow = submitNewFlow("exectest1", "exec1",
+        currentTime + 10, ExecutionOptions.DEFAULT_FLOW_PRIORITY + 3);
+    final Executor executor = this.executorDao.addExecutor("localhost", 12345);
 
-    final ExecutableFlow lowPriorityFlow2 = submitNewFlow("exectest1", "exec1", currentTime + 10,
-        ExecutionOptions.DEFAULT_FLOW_PRIORITY + 3);
-
-    assertThat(this.executionFlowDao.selectAndUpdateExecution(-1, true))
-        .as("Expected flow with highest priority")
-        .isEqualTo(highPriorityFlow.getExecutionId());
-
-    assertThat(this.executionFlowDao.selectAndUpdateExecution(-1, true))
-        .as("Expected second flow with highest priority")
-        .isEqualTo(lowPriorityFlow2.getExecutionId());
-
-    assertThat(this.executionFlowDao.selectAndUpdateExecution(-1, true))
-        .as("Expected flow with lowest priority")
-        .isEqualTo(lowPriorityFlow1.getExecutionId());
-
-    // Selecting executions when there are no more submitted flows left
-    assertThat(this.executionFlowDao.selectAndUpdateExecution(-1, true))
-        .as("Expected no execution selected")
-        .isEqualTo(-1);
+    assertThat(this.executionFlowDao.selectAndUpdateExecutions(executor.getId(), true, 2))
+        .containsExactly(highPriorityFlow.getExecutionId(), mediumPriorityFlow.getExecutionId());
+    assertThat(this.executorDao.fetchExecutorByExecutionId(highPriorityFlow.getExecutionId()))
+        .isEqualTo(executor);
+    assertThat(this.executorDao.fetchExecutorByExecutionId(mediumPriorityFlow.getExecutionId()))
+        .isEqualTo(executor);
+
+    assertThat(this.executionFlowDao.selectAndUpdateExecutions(executor.getId(), true, 2))
+        .containsExactly(lowPriorityFlow.getExecutionId());
+    assertThat(this.executionFlowDao.selectAndUpdateExecutions(executor.getId(), true, 2))
+        .isEmpty();
   }
 
   @Test
-  public void testSelectAndUpdateExecutionWithSamePriority() throws Exception {
-    // Selecting executions when DB is empty
-    assertThat(this.executionFlowDao.selectAndUpdateExecution(-1, true))
-        .as("Expected no execution selected")
-        .isEqualTo(-1);
-
+  public void testSelectAndUpdateExecutionsWithSamePriority() throws Exception {
     final long currentTime = System.currentTimeMillis();
     final ExecutableFlow submittedFlow1 = submitNewFlow("exectest1", "exec1", currentTime,
         ExecutionOptions.DEFAULT_FLOW_PRIORITY + 3);
-
     final ExecutableFlow submittedFlow2 = submitNewFlow("exectest1", "exec1", currentTime + 5,
         ExecutionOptions.DEFAULT_FLOW_PRIORITY + 3);
-
     final ExecutableFlow submittedFlow3 = submitNewFlow("exectest1", "exec1", currentTime + 10,
         ExecutionOptions.DEFAULT_FLOW_PRIORITY + 3);
 
-    assertThat(this.executionFlowDao.selectAndUpdateExecution(-1, true))
-        .as("Expected first flow submitted")
-        .isEqualTo(submittedFlow1.getExecutionId());
+    // Same priority executions are claimed in submit order
+    assertThat(this.executionFlowDao.selectAndUpdateExecutions(-1, true, 2))
+        .containsExactly(submittedFlow1.getExecutionId(), submittedFlow2.getExecutionId());
+    assertThat(this.executionFlowDao.selectAndUpdateExecutions(-1, true, 2))
+        .containsExactly(submittedFlow3.getExecutionId());
+  }
 
-    assertThat(this.executionFlowDao.selectAndUpdateExecution(-1, true))
-        .as("Expected second flow submitted")
-        .isEqualTo(submittedFlow2.getExecutionId());
+  @Test
+  public void testSelectAndUpdateExecutionsWithLocking() throws Exception {
+    when(this.mysqlNamedLock.getLock(any(DatabaseTransOperator.class), any(String.class),
+        any(Integer.class))).thenReturn(false, true);
+    when(this.mysqlNamedLock.releaseLock(any(DatabaseTransOperator.class), any(String.class)))
+        .thenReturn(true);
+    final ExecutableFlow flow = submitNewFlow("exectest1", "exec1", System.currentTimeMillis(),
+        ExecutionOptions.DEFAULT_FLOW_PRIORITY);
+    final Executor executor = this.executorDao.addExecutor("localhost", 12345);
 
-    assertThat(this.executionFlowDao.selectAndUpdateExecution(-1, true))
-        .as("Expected last flow submitted")
-        .isEqualTo(submittedFlow3.getExecutionId());
+    assertThat(this.executionFlowDao.selectAndUpdateExecutionsWithLocking(executor.getId(), true,
+        2)).isEmpty();
+    assertThat(this.executionFlowDao.selectAndUpdateExecutionsWithLocking(executor.getId(), true,
+        2)).containsExactly(flow.getExecutionId());
+  }
 
-    // Selecting executions when there are no more submitted flows left
-    assertThat(this.executionFlowDao.selectAndUpdateExecution(-1, true))
-        .as("Expected no execution selected")
-        .isEqualTo(-1);
+  @Test
+  public void testUpdateExecutionStatuses() throws Exception {
+    final long currentTime = System.currentTimeMillis();
+    final ExecutableFlow flow1 = submitNewFlow("exectest1", "exec1", currentTime,
+        ExecutionOptions.DEFAULT_FLOW_PRIORITY, Status.DISPATCHING);
+    final ExecutableFlow flow2 = submitNewFlow("exectest1", "exec1", currentTime,
+        ExecutionOptions.DEFAULT_FLOW_PRIORITY, Status.DISPATCHING);
+    final ExecutableFlow flow3 = submitNewFlow("exectest1", "exec1", currentTime,
+        ExecutionOptions.DEFAULT_FLOW_PRIORITY, Status.PREPARING);
+
+    assertThat(this.executionFlowDao.updateExecutionStatuses(Collections.emptyList(),
+        Status.DISPATCHING, Status.READY)).isEqualTo(0);
+    // executions which already moved on are left untouched
+    assertThat(this.executionFlowDao.updateExecutionStatuses(Arrays.asList(
+        flow1.getExecutionId(), flow2.getExecutionId(), flow3.getExecutionId()),
+        Status.DISPATCHING, Status.READY)).isEqualTo(2);
+    assertThat(this.executionFlowDao.fetchExecutableFlow(flow1.getExecutionId()).getStatus())
+        .isEqualTo(Status.READY);
+    assertThat(this.executionFlowDao.fetchExecutableFlow(flow2.getExecutionId()).getStatus())
+        .isEqualTo(Status.READY);
+    assertThat(this.executionFlowDao.fetchExecutableFlow(flow3.getExecutionId()).getStatus())
+        .isEqualTo(Status.PREPARING);
   }
 
   @Test
@@ -18,12 +18,17 @@ package azkaban.executor;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import azkaban.Constants.ConfigurationKeys;
 import azkaban.db.DatabaseOperator;
 import azkaban.test.Utils;
 import azkaban.test.executions.ExecutionsTestUtil;
 import azkaban.utils.FileIOUtils.LogData;
+import azkaban.utils.Props;
 import java.io.File;
 import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.dbutils.handlers.ScalarHandler;
+import org.joda.time.DateTimeUtils;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -33,6 +38,7 @@ import org.junit.Test;
 public class ExecutionLogsDaoTest {
 
   private static final String LOG_TEST_DIR_NAME = "logtest";
+  private static final long DAY_MS = TimeUnit.DAYS.toMillis(1);
   private static DatabaseOperator dbOperator;
   private ExecutionLogsDao executionLogsDao;
 
@@ -57,7 +63,9 @@ public class ExecutionLogsDaoTest {
   }
 
   @After
-  public void clearDB() {
+  public void clearDB() throws Exception {
+    DateTimeUtils.setCurrentMillisSystem();
+    createBucketedDao().removeExpiredBuckets(Long.MAX_VALUE);
     try {
       dbOperator.update("delete from execution_logs");
     } catch (final SQLException e) {
@@ -65,6 +73,34 @@ public class ExecutionLogsDaoTest {
     }
   }
 
+  private static ExecutionLogsDao createBucketedDao() {
+    return createBucketedDao(DAY_MS);
+  }
+
+  private static ExecutionLogsDao createBucketedDao(final long bucketMs) {
+    final Props props = new Props();
+    props.put(ConfigurationKeys.EXECUTION_LOGS_BUCKETS_ENABLED, "true");
+    props.put(ConfigurationKeys.EXECUTION_LOGS_BUCKET_MS, bucketMs);
+    return new ExecutionLogsDao(dbOperator, props);
+  }
+
+  private static long countRows(final String table) throws SQLException {
+    return dbOperator.query("SELECT COUNT(*) FROM " + table, new ScalarHandler<Long>());
+  }
+
+  /**
+   * Insert rows of 1 byte logs of the execution, uploaded at uploadTime.
+   */
+  private static void insertSyntheticRows(final String table, final int execId, final int rows,
+      final long uploadTime) throws SQLException {
+    final Object[][] params = new Object[rows][];
+    for (int i = 0; i < rows; i++) {
+      params[i] = new Object[]{execId, "job" + i, 0, 1, 0, 1, new byte[]{'a'}, uploadTime};
+    }
+    dbOperator.batch("INSERT INTO " + table + " (exec_id, name, attempt, enc_type, start_byte, "
+        + "end_byte, log, upload_time) VALUES (?,?,?,?,?,?,?,?)", params);
+  }
+
   @Test
   public void testSmallUploadLog() throws ExecutorManagerException {
     final File logDir = ExecutionsTestUtil.getFlowDir(LOG_TEST_DIR_NAME);
@@ -149,4 +185,98 @@ public class ExecutionLogsDaoTest {
     totalRemovedRecords = executionLogsDao.removeExecutionLogsByTime(currentTimeMillis2, 2);
     assertThat(totalRemovedRecords).isEqualTo(4);
   }
+
+  @Test
+  public void testBucketedUploadLog() throws Exception {
+    final File logDir = ExecutionsTestUtil.getFlowDir(LOG_TEST_DIR_NAME);
+    final File[] smallLog = {new File(logDir, "log1.log"), new File(logDir, "log2.log"),
+        new File(logDir, "log3.log")};
+    final File[] largeLog = {new File(logDir, "largeLog1.log")};
+
+    // Logs uploaded before the buckets were enabled are still read
+    this.executionLogsDao.uploadLogFile(1, "smallFiles", 0, smallLog);
+
+    final ExecutionLogsDao bucketedDao = createBucketedDao();
+    DateTimeUtils.setCurrentMillisFixed(10 * DAY_MS + 1000);
+    bucketedDao.uploadLogFile(2, "smallFiles", 0, smallLog);
+    DateTimeUtils.setCurrentMillisFixed(11 * DAY_MS + 1000);
+    bucketedDao.uploadLogFile(3, "largeFiles", 0, largeLog);
+    bucketedDao.uploadLogFile(2, "largeFiles", 0, largeLog);
+
+    assertThat(countRows("execution_logs")).isEqualTo(1);
+    assertThat(countRows(ExecutionLogsDao.getBucketTable(10))).isEqualTo(1);
+    assertThat(countRows(ExecutionLogsDao.getBucketTable(11))).isEqualTo(6);
+
+    assertThat(bucketedDao.fetchLogs(1, "smallFiles", 0, 0, 50000).getLength()).isEqualTo(53);
+    assertThat(bucketedDao.fetchLogs(2, "smallFiles", 0, 0, 50000).getLength()).isEqualTo(53);
+    assertThat(bucketedDao.fetchLogs(2, "smallFiles", 0, 10, 20).getLength()).isEqualTo(20);
+    assertThat(bucketedDao.fetchLogs(2, "largeFiles", 0, 1000, 64000).getLength())
+        .isEqualTo(64000);
+    assertThat(bucketedDao.fetchLogs(3, "largeFiles", 0, 0, 64000).getLength())
+        .isEqualTo(64000);
+    assertThat(bucketedDao.fetchLogs(3, "smallFiles", 0, 0, 50000)).isNull();
+    assertThat(bucketedDao.fetchLogs(4, "largeFiles", 0, 0, 50000)).isNull();
+  }
+
+  @Test
+  public void testBucketedLogsAfterBucketsDisabled() throws Exception {
+    final File logDir = ExecutionsTestUtil.getFlowDir(LOG_TEST_DIR_NAME);
+    final File[] smallLog = {new File(logDir, "log1.log"), new File(logDir, "log2.log"),
+        new File(logDir, "log3.log")};
+    DateTimeUtils.setCurrentMillisFixed(10 * DAY_MS + 1000);
+    createBucketedDao().uploadLogFile(1, "smallFiles", 0, smallLog);
+    DateTimeUtils.setCurrentMillisSystem();
+
+    // Disabling the buckets only moves the uploads back to execution_logs
+    assertThat(this.executionLogsDao.fetchLogs(1, "smallFiles", 0, 0, 50000).getLength())
+        .isEqualTo(53);
+    this.executionLogsDao.removeExecutionLogsByTime(11 * DAY_MS, 1000);
+    assertThat(this.executionLogsDao.fetchLogs(1, "smallFiles", 0, 0, 50000)).isNull();
+  }
+
+  @Test
+  public void testBucketedLogCleanup() throws Exception {
+    final File logDir = ExecutionsTestUtil.getFlowDir(LOG_TEST_DIR_NAME);
+    final File[] smallLog = {new File(logDir, "log1.log")};
+    final ExecutionLogsDao bucketedDao = createBucketedDao();
+    final int rowsPerBucket = 20000;
+    for (int day = 10; day < 15; day++) {
+      DateTimeUtils.setCurrentMillisFixed(day * DAY_MS + 1000);
+      bucketedDao.uploadLogFile(day, "smallFile", 0, smallLog);
+      insertSyntheticRows(ExecutionLogsDao.getBucketTable(day), day, rowsPerBucket,
+          day * DAY_MS + 1000);
+    }
+    // Rows left from before the buckets were enabled are deleted row by row
+    insertSyntheticRows("execution_logs", 1, 3, 9 * DAY_MS);
+    DateTimeUtils.setCurrentMillisSystem();
+
+    // Only the buckets whose logs are all older than the cutoff are dropped
+    final int removedRows = bucketedDao.removeExecutionLogsByTime(13 * DAY_MS - 1, 1000);
+    assertThat(removedRows).isEqualTo(3);
+    assertThat(bucketedDao.fetchLogs(10, "smallFile", 0, 0, 50000)).isNull();
+    assertThat(bucketedDao.fetchLogs(11, "smallFile", 0, 0, 50000)).isNull();
+    assertThat(bucketedDao.fetchLogs(12, "smallFile", 0, 0, 50000)).isNotNull();
+    assertThat(bucketedDao.fetchLogs(14, "smallFile", 0, 0, 50000)).isNotNull();
+    assertThat(countRows(ExecutionLogsDao.getBucketTable(12))).isEqualTo(rowsPerBucket + 1);
+
+    assertThat(bucketedDao.removeExpiredBuckets(13 * DAY_MS)).isEqualTo(1);
+    assertThat(bucketedDao.fetchLogs(12, "smallFile", 0, 0, 50000)).isNull();
+    assertThat(bucketedDao.removeExpiredBuckets(13 * DAY_MS)).isEqualTo(0);
+  }
+
+  @Test
+  public void testBucketExpiryAfterBucketSizeChange() throws Exception {
+    final File logDir = ExecutionsTestUtil.getFlowDir(LOG_TEST_DIR_NAME);
+    final File[] smallLog = {new File(logDir, "log1.log")};
+    DateTimeUtils.setCurrentMillisFixed(10 * DAY_MS + 1000);
+    createBucketedDao().uploadLogFile(1, "smallFile", 0, smallLog);
+    DateTimeUtils.setCurrentMillisSystem();
+
+    // Hourly buckets: the daily bucket 10 must not be taken for an hour of the first day
+    final ExecutionLogsDao hourlyDao = createBucketedDao(TimeUnit.HOURS.toMillis(1));
+    assertThat(hourlyDao.removeExpiredBuckets(11 * DAY_MS - 1)).isEqualTo(0);
+    assertThat(hourlyDao.fetchLogs(1, "smallFile", 0, 0, 50000)).isNotNull();
+    assertThat(hourlyDao.removeExpiredBuckets(11 * DAY_MS)).isEqualTo(1);
+    assertThat(hourlyDao.fetchLogs(1, "smallFile", 0, 0, 50000)).isNull();
+  }
 }
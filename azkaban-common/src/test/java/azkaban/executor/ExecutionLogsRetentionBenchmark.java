@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import azkaban.Constants.ConfigurationKeys;
+import azkaban.db.DatabaseOperator;
+import azkaban.test.Utils;
+import azkaban.test.executions.ExecutionsTestUtil;
+import azkaban.utils.Props;
+import java.io.File;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import org.joda.time.DateTimeUtils;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compares the time taken to remove the expired execution logs by deleting rows from
+ * execution_logs, as the logs cleaner does by default, with dropping expired time buckets, over
+ * millions of synthetic log rows in the H2 test DB.
+ */
+@Ignore("Benchmark, run manually")
+public class ExecutionLogsRetentionBenchmark {
+
+  private static final long DAY_MS = TimeUnit.DAYS.toMillis(1);
+  private static final int DAYS = 10;
+  private static final int ROWS_PER_DAY = 200000;
+  private static final int BATCH_SIZE = 10000;
+  private static final int RECORD_CLEANUP_LIMIT = 1000;
+
+  private static DatabaseOperator dbOperator;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    dbOperator = Utils.initTestDB();
+  }
+
+  @AfterClass
+  public static void destroyDB() throws SQLException {
+    DateTimeUtils.setCurrentMillisSystem();
+    dbOperator.update("DROP ALL OBJECTS");
+    dbOperator.update("SHUTDOWN");
+  }
+
+  @Test
+  public void benchmarkRowDeletes() throws Exception {
+    final ExecutionLogsDao dao = new ExecutionLogsDao(dbOperator);
+    for (int day = 0; day < DAYS; day++) {
+      insertRows("execution_logs", day);
+    }
+
+    final long startNanos = System.nanoTime();
+    int removedRows = 0;
+    int removedBatch;
+    do {
+      removedBatch = dao.removeExecutionLogsBatch(DAYS / 2 * DAY_MS, RECORD_CLEANUP_LIMIT);
+      removedRows += removedBatch;
+    } while (removedBatch == RECORD_CLEANUP_LIMIT);
+    final long millis = (System.nanoTime() - startNanos) / 1000000;
+
+    assertThat(removedRows).isEqualTo(DAYS / 2 * ROWS_PER_DAY);
+    System.out.println(String.format("%d of %d rows removed: %6d ms deleting rows",
+        removedRows, DAYS * ROWS_PER_DAY, millis));
+  }
+
+  @Test
+  public void benchmarkBucketDrops() throws Exception {
+    final Props props = new Props();
+    props.put(ConfigurationKeys.EXECUTION_LOGS_BUCKETS_ENABLED, "true");
+    props.put(ConfigurationKeys.EXECUTION_LOGS_BUCKET_MS, DAY_MS);
+    final ExecutionLogsDao dao = new ExecutionLogsDao(dbOperator, props);
+    final File log = new File(ExecutionsTestUtil.getFlowDir("logtest"), "log1.log");
+    for (int day = 0; day < DAYS; day++) {
+      // Create the bucket of the day
+      DateTimeUtils.setCurrentMillisFixed(day * DAY_MS);
+      dao.uploadLogFile(day, "log", 0, log);
+      insertRows(ExecutionLogsDao.getBucketTable(day), day);
+    }
+    DateTimeUtils.setCurrentMillisSystem();
+
+    final long startNanos = System.nanoTime();
+    final int droppedBuckets = dao.removeExpiredBuckets(DAYS / 2 * DAY_MS);
+    final long millis = (System.nanoTime() - startNanos) / 1000000;
+
+    assertThat(droppedBuckets).isEqualTo(DAYS / 2);
+    System.out.println(String.format("%d of %d rows removed: %6d ms dropping buckets",
+        DAYS / 2 * ROWS_PER_DAY, DAYS * ROWS_PER_DAY, millis));
+  }
+
+  private static void insertRows(final String table, final int day) throws SQLException {
+    final byte[] log = new byte[64];
+    for (int start = 0; start < ROWS_PER_DAY; start += BATCH_SIZE) {
+      final Object[][] params = new Object[BATCH_SIZE][];
+      for (int i = 0; i < BATCH_SIZE; i++) {
+        params[i] = new Object[]{day, "job", 0, 1, (start + i) * 64, (start + i + 1) * 64, log,
+            day * DAY_MS + i};
+      }
+      dbOperator.batch("INSERT INTO " + table + " (exec_id, name, attempt, enc_type, "
+          + "start_byte, end_byte, log, upload_time) VALUES (?,?,?,?,?,?,?,?)", params);
+    }
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import azkaban.Constants.ConfigurationKeys;
+import azkaban.db.DatabaseOperator;
+import azkaban.test.Utils;
+import azkaban.utils.Props;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.function.Supplier;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Measures the time the {@link ExecutionSearchIndexManager} takes to load 2M synthetic executions
+ * from the H2 test DB, and the latency of the flow history search over them. Needs a heap of
+ * about 4 GB.
+ */
+@Ignore("Benchmark, run manually")
+public class ExecutionSearchIndexBenchmark {
+
+  private static final int NUM_EXECUTIONS = 2_000_000;
+  private static final int INSERT_BATCH_SIZE = 10_000;
+  private static final int NUM_PROJECTS = 2000;
+  private static final int FLOWS_PER_PROJECT = 10;
+  private static final int NUM_USERS = 500;
+  private static final int PAGE_SIZE = 16;
+  private static final int ROUNDS = 5;
+  private static final Status[] STATUSES = {Status.SUCCEEDED, Status.SUCCEEDED, Status.SUCCEEDED,
+      Status.FAILED, Status.KILLED, Status.RUNNING};
+
+  private static DatabaseOperator dbOperator;
+  private ExecutionSearchIndex index;
+
+  @BeforeClass
+  public static void setUpDB() throws Exception {
+    dbOperator = Utils.initTestDB();
+    final Random random = new Random(42);
+    final List<Object[]> projects = new ArrayList<>();
+    for (int project = 0; project < NUM_PROJECTS; project++) {
+      projects.add(new Object[]{project, "project-" + project});
+    }
+    dbOperator.batch("INSERT INTO projects (id, name, active, modified_time, create_time, "
+        + "version, last_modified_by) VALUES (?, ?, true, 0, 0, 1, 'user')",
+        projects.toArray(new Object[0][]));
+
+    final List<Object[]> executions = new ArrayList<>();
+    long time = 1_500_000_000_000L;
+    for (int execId = 1; execId <= NUM_EXECUTIONS; execId++) {
+      final int project = random.nextInt(NUM_PROJECTS);
+      final String flow = "flow_" + project + "_" + random.nextInt(FLOWS_PER_PROJECT);
+      time += random.nextInt(1000);
+      executions.add(new Object[]{execId, project, flow, "user" + random.nextInt(NUM_USERS),
+          STATUSES[random.nextInt(STATUSES.length)].getNumVal(), time,
+          time + random.nextInt(3_600_000)});
+      if (executions.size() == INSERT_BATCH_SIZE) {
+        insertExecutions(executions);
+      }
+    }
+    insertExecutions(executions);
+  }
+
+  private static void insertExecutions(final List<Object[]> executions) throws SQLException {
+    if (!executions.isEmpty()) {
+      dbOperator.batch("INSERT INTO execution_flows (exec_id, project_id, version, flow_id, "
+              + "submit_user, status, start_time, end_time, update_time) "
+              + "VALUES (?, ?, 1, ?, ?, ?, ?, ?, 0)",
+          executions.toArray(new Object[0][]));
+      executions.clear();
+    }
+  }
+
+  @AfterClass
+  public static void destroyDB() throws SQLException {
+    dbOperator.update("DROP ALL OBJECTS");
+    dbOperator.update("SHUTDOWN");
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    final Props props = new Props();
+    props.put(ConfigurationKeys.AZKABAN_EXECUTION_SEARCH_INDEX_ENABLED, "true");
+    final ExecutionSearchIndexManager manager = new ExecutionSearchIndexManager(props, dbOperator);
+    final long start = System.currentTimeMillis();
+    manager.load();
+    System.out.println(String.format("loaded %d executions in %d ms", NUM_EXECUTIONS,
+        System.currentTimeMillis() - start));
+    this.index = manager.getIndex();
+    assertThat(this.index.size()).isEqualTo(NUM_EXECUTIONS);
+  }
+
+  @Test
+  public void benchmarkSearch() {
+    for (int round = 0; round < ROUNDS; round++) {
+      // the search box of the history page
+      time("flow contains, first page", () -> this.index
+          .search(null, "flow_1234_", null, 0, -1, -1, 0, PAGE_SIZE));
+      time("flow contains, deep page", () -> this.index
+          .search(null, "flow_1234_", null, 0, -1, -1, 20 * PAGE_SIZE, PAGE_SIZE));
+      // the advanced filter
+      time("project, user and status", () -> this.index
+          .search("project-12", null, "user7", Status.FAILED.getNumVal(), -1, -1, 0, PAGE_SIZE));
+      time("short user term", () -> this.index
+          .search(null, null, "r4", Status.KILLED.getNumVal(), -1, -1, 0, PAGE_SIZE));
+      time("no match", () -> this.index
+          .search(null, "no_such_flow", null, 0, -1, -1, 0, PAGE_SIZE));
+      time("status only", () -> this.index
+          .search(null, null, null, Status.RUNNING.getNumVal(), -1, -1, 0, PAGE_SIZE));
+    }
+  }
+
+  private static void time(final String name, final Supplier<Optional<List<Integer>>> search) {
+    final long start = System.nanoTime();
+    assertThat(search.get()).isPresent();
+    System.out.println(String.format("%s: %.2f ms", name, (System.nanoTime() - start) / 1e6));
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ExecutionSearchIndexTest {
+
+  private static final int SUCCEEDED = Status.SUCCEEDED.getNumVal();
+  private static final int FAILED = Status.FAILED.getNumVal();
+
+  private ExecutionSearchIndex index;
+
+  @Before
+  public void setUp() {
+    this.index = new ExecutionSearchIndex();
+    this.index.setProjectName(1, "Search-Project");
+    this.index.setProjectName(2, "other");
+    this.index.index(1, 1, "daily_report", "alice", SUCCEEDED, 100, 200);
+    this.index.index(2, 1, "hourly_report", "bob", FAILED, 300, 400);
+    this.index.index(3, 2, "daily_load", "alice", SUCCEEDED, 500, 600);
+    this.index.index(4, 2, "cleanup", null, SUCCEEDED, 700, 800);
+  }
+
+  @Test
+  public void searchWithoutFilters() {
+    assertThat(this.index.search(null, "", null, 0, -1, -1, 0, 10))
+        .contains(ImmutableList.of(4, 3, 2, 1));
+    assertThat(this.index.search(null, null, null, 0, -1, -1, 1, 2))
+        .contains(ImmutableList.of(3, 2));
+  }
+
+  @Test
+  public void searchContainsIsCaseInsensitive() {
+    assertThat(this.index.search("PROJECT", null, null, 0, -1, -1, 0, 10))
+        .contains(ImmutableList.of(2, 1));
+    assertThat(this.index.search(null, "Report", null, 0, -1, -1, 0, 10))
+        .contains(ImmutableList.of(2, 1));
+    assertThat(this.index.search(null, null, "LIC", 0, -1, -1, 0, 10))
+        .contains(ImmutableList.of(3, 1));
+    // short terms skip the trigram lookup
+    assertThat(this.index.search(null, "ly", null, 0, -1, -1, 0, 10))
+        .contains(ImmutableList.of(3, 2, 1));
+  }
+
+  @Test
+  public void searchWithWildcards() {
+    assertThat(this.index.search(null, "%daily%", null, 0, -1, -1, 0, 10))
+        .contains(ImmutableList.of(3, 1));
+    assertThat(this.index.search(null, "daily_r", null, 0, -1, -1, 0, 10))
+        .contains(ImmutableList.of(1));
+    assertThat(this.index.search(null, "ly%rep", null, 0, -1, -1, 0, 10))
+        .contains(ImmutableList.of(2, 1));
+    assertThat(this.index.search(null, "daily\\_report", null, 0, -1, -1, 0, 10)).isEmpty();
+  }
+
+  @Test
+  public void searchCombinesFilters() {
+    assertThat(this.index.search("other", "daily", "alice", SUCCEEDED, -1, -1, 0, 10))
+        .contains(ImmutableList.of(3));
+    assertThat(this.index.search(null, "report", null, FAILED, -1, -1, 0, 10))
+        .contains(ImmutableList.of(2));
+    // start_time > ? and end_time < ?
+    assertThat(this.index.search(null, null, null, 0, 100, 800, 0, 10))
+        .contains(ImmutableList.of(3, 2));
+    // null users never match a user filter
+    assertThat(this.index.search(null, "clean", "%", 0, -1, -1, 0, 10))
+        .contains(ImmutableList.of());
+    assertThat(this.index.search("unknown", null, null, 0, -1, -1, 0, 10))
+        .contains(ImmutableList.of());
+  }
+
+  @Test
+  public void indexUpdatesAndOutOfOrderExecutions() {
+    this.index.index(1, 1, "daily_report", "alice", FAILED, 100, 900);
+    this.index.index(10, 2, "daily_load", "carol", SUCCEEDED, 1000, 1100);
+    this.index.index(7, 1, "daily_report", "carol", SUCCEEDED, 1000, 1100);
+
+    assertThat(this.index.size()).isEqualTo(6);
+    assertThat(this.index.search(null, "daily", null, SUCCEEDED, -1, -1, 0, 10))
+        .contains(ImmutableList.of(10, 7, 3));
+    assertThat(this.index.search(null, null, null, FAILED, -1, -1, 0, 10))
+        .contains(ImmutableList.of(2, 1));
+  }
+
+  @Test
+  public void searchByStatusFollowsStatusChanges() {
+    this.index.index(2, 1, "hourly_report", "bob", SUCCEEDED, 300, 400);
+    this.index.index(3, 2, "daily_load", "alice", FAILED, 500, 600);
+
+    assertThat(this.index.search(null, null, null, FAILED, -1, -1, 0, 10))
+        .contains(ImmutableList.of(3));
+    assertThat(this.index.search(null, null, null, SUCCEEDED, -1, -1, 0, 10))
+        .contains(ImmutableList.of(4, 2, 1));
+    assertThat(this.index.search(null, null, null, Status.RUNNING.getNumVal(), -1, -1, 0, 10))
+        .contains(ImmutableList.of());
+    this.index.trimTo(2);
+    assertThat(this.index.search(null, null, null, FAILED, -1, -1, 0, 1))
+        .contains(ImmutableList.of(3));
+  }
+
+  @Test
+  public void searchBelowLowerBoundFallsBack() {
+    this.index.trimTo(2);
+
+    assertThat(this.index.getLowerBound()).isEqualTo(3);
+    assertThat(this.index.size()).isEqualTo(2);
+    assertThat(this.index.search(null, null, null, 0, -1, -1, 0, 2))
+        .contains(ImmutableList.of(4, 3));
+    // a full page can be served, but not a partial one
+    assertThat(this.index.search(null, "daily", null, 0, -1, -1, 0, 1))
+        .contains(ImmutableList.of(3));
+    assertThat(this.index.search(null, "daily", null, 0, -1, -1, 0, 2)).isEmpty();
+    // executions below the lower bound are ignored
+    this.index.index(1, 1, "daily_report", "alice", FAILED, 100, 900);
+    assertThat(this.index.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void unsupportedPageFallsBack() {
+    assertThat(this.index.search(null, null, null, 0, -1, -1, -1, 10)).isEmpty();
+    assertThat(this.index.search(null, null, null, 0, -1, -1, 0, 0)).isEmpty();
+  }
+}
@@ -58,6 +58,7 @@ public class ExecutorDaoTest {
   @After
   public void clearDB() {
     try {
+      dbOperator.update("delete from executor_load");
       dbOperator.update("delete from executors");
     } catch (final SQLException e) {
       e.printStackTrace();
@@ -177,6 +178,21 @@ public class ExecutorDaoTest {
   }
 
   /* Test Executor reactivation */
+  @Test
+  public void testRemovingExecutorRemovesItsLoad() throws Exception {
+    final Executor executor = this.executorDao.addExecutor("localhost1", 12345);
+    final Executor other = this.executorDao.addExecutor("localhost2", 12345);
+    final ExecutorLoadDao executorLoadDao = new ExecutorLoadDao(dbOperator);
+    executorLoadDao.updateExecutorLoad(new ExecutorLoadReport(executor.getId(),
+        new ExecutorInfo(50.0, 1024, 10, 100L, 1.5, 2), 2, 0, 1000L));
+    executorLoadDao.updateExecutorLoad(new ExecutorLoadReport(other.getId(),
+        new ExecutorInfo(50.0, 1024, 10, 100L, 1.5, 2), 2, 0, 1000L));
+
+    this.executorDao.removeExecutor("localhost1", 12345);
+    assertThat(executorLoadDao.fetchExecutorLoads()).extracting(ExecutorLoadReport::getExecutorId)
+        .containsExactly(other.getId());
+  }
+
   @Test
   public void testExecutorActivation() throws Exception {
     final Executor executor = this.executorDao.addExecutor("localhost1", 12345);
@@ -53,6 +53,7 @@ public class ExecutorHealthCheckerTest {
   private ExecutorApiGateway apiGateway;
   private Alerter mailAlerter;
   private AlerterHolder alerterHolder;
+  private ExecutorLoadDao executorLoadDao;
   private ExecutableFlow flow1;
   private ExecutableFlow flow2;
   private Executor executor1;
@@ -67,8 +68,9 @@ public class ExecutorHealthCheckerTest {
     this.mailAlerter = mock(Alerter.class);
     this.alerterHolder = mock(AlerterHolder.class);
     this.apiGateway = mock(ExecutorApiGateway.class);
+    this.executorLoadDao = mock(ExecutorLoadDao.class);
     this.executorHealthChecker = new ExecutorHealthChecker(this.props, this.loader, this
-        .apiGateway, this.alerterHolder);
+        .apiGateway, this.alerterHolder, new ExecutorLoadMonitor(this.props, this.executorLoadDao));
     this.flow1 = TestUtils.createTestExecutableFlow("exectest1", "exec1");
     this.flow1.getExecutionOptions().setFailureEmails(Arrays.asList(FLOW_ADMIN_EMAIL.split(",")));
     this.flow1.setExecutionId(EXECUTION_ID_11);
@@ -98,6 +100,46 @@ public class ExecutorHealthCheckerTest {
     verifyZeroInteractions(this.alerterHolder);
   }
 
+  /**
+   * Test executor is not pinged when it has pushed a fresh load report, and is pinged again once
+   * the report gets stale.
+   */
+  @Test
+  public void checkExecutorHealthWithLoadReport() throws Exception {
+    this.props.put(ConfigurationKeys.AZKABAN_EXECUTOR_LOAD_REPORT_ENABLED, true);
+    final ExecutorLoadMonitor monitor = new ExecutorLoadMonitor(this.props, this.executorLoadDao);
+    this.executorHealthChecker = new ExecutorHealthChecker(this.props, this.loader,
+        this.apiGateway, this.alerterHolder, monitor);
+    this.activeFlows.put(EXECUTION_ID_11, new Pair<>(
+        new ExecutionReference(EXECUTION_ID_11, this.executor1), this.flow1));
+
+    when(this.executorLoadDao.fetchExecutorLoads()).thenReturn(ImmutableList.of(
+        new ExecutorLoadReport(this.executor1.getId(), new ExecutorInfo(), 1, 0,
+            System.currentTimeMillis())));
+    monitor.refresh();
+    this.executorHealthChecker.checkExecutorHealth();
+    verifyZeroInteractions(this.apiGateway);
+    assertThat(this.flow1.getStatus()).isEqualTo(Status.RUNNING);
+
+    when(this.executorLoadDao.fetchExecutorLoads()).thenReturn(ImmutableList.of(
+        new ExecutorLoadReport(this.executor1.getId(), new ExecutorInfo(), 1, 0,
+            System.currentTimeMillis() - ExecutorLoadMonitor.DEFAULT_STALE_THRESHOLD.toMillis()
+                - 1000)));
+    monitor.refresh();
+    when(this.apiGateway.callWithExecutionId(this.executor1.getHost(), this.executor1.getPort(),
+        ConnectorParams.PING_ACTION, null, null)).thenReturn(ImmutableMap.of(ConnectorParams
+        .STATUS_PARAM, ConnectorParams.RESPONSE_ALIVE));
+    this.executorHealthChecker.checkExecutorHealth();
+    verify(this.apiGateway).callWithExecutionId(this.executor1.getHost(), this.executor1.getPort(),
+        ConnectorParams.PING_ACTION, null, null);
+    verifyZeroInteractions(this.alerterHolder);
+
+    // The report of a removed executor is forgotten
+    when(this.executorLoadDao.fetchExecutorLoads()).thenReturn(ImmutableList.of());
+    monitor.refresh();
+    assertThat(monitor.getLatestReport(this.executor1.getId())).isEmpty();
+  }
+
   /**
    * Test running flow is finalized when its executor is removed from DB.
    */
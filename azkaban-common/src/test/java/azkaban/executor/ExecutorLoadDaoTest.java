@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import azkaban.db.DatabaseOperator;
+import azkaban.test.Utils;
+import java.sql.SQLException;
+import java.util.List;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ExecutorLoadDaoTest {
+
+  private static DatabaseOperator dbOperator;
+  private ExecutorLoadDao executorLoadDao;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    dbOperator = Utils.initTestDB();
+  }
+
+  @AfterClass
+  public static void destroyDB() throws Exception {
+    try {
+      dbOperator.update("DROP ALL OBJECTS");
+      dbOperator.update("SHUTDOWN");
+    } catch (final SQLException e) {
+      e.printStackTrace();
+    }
+  }
+
+  @Before
+  public void setup() {
+    this.executorLoadDao = new ExecutorLoadDao(dbOperator);
+  }
+
+  @After
+  public void clearDB() {
+    try {
+      dbOperator.update("delete from executor_load");
+    } catch (final SQLException e) {
+      e.printStackTrace();
+    }
+  }
+
+  @Test
+  public void testFetchEmptyExecutorLoads() throws Exception {
+    assertThat(this.executorLoadDao.fetchExecutorLoads()).isEmpty();
+  }
+
+  /* Test a second report of the same executor overwrites the first one */
+  @Test
+  public void testUpdateExecutorLoad() throws Exception {
+    this.executorLoadDao.updateExecutorLoad(new ExecutorLoadReport(1,
+        new ExecutorInfo(50.0, 1024, 10, 100L, 1.5, 2), 2, 0, 1000L));
+    this.executorLoadDao.updateExecutorLoad(new ExecutorLoadReport(2,
+        new ExecutorInfo(80.0, 4096, 12, 200L, 0.5, 0), 0, 0, 1000L));
+    this.executorLoadDao.updateExecutorLoad(new ExecutorLoadReport(1,
+        new ExecutorInfo(40.0, 512, 7, 300L, 2.5, 5), 3, 2, 2000L));
+
+    final List<ExecutorLoadReport> reports = this.executorLoadDao.fetchExecutorLoads();
+    assertThat(reports).hasSize(2);
+    final ExecutorLoadReport report = reports.stream().filter(r -> r.getExecutorId() == 1)
+        .findFirst().get();
+    assertThat(report.getReportTime()).isEqualTo(2000L);
+    assertThat(report.getNumRunningFlows()).isEqualTo(3);
+    assertThat(report.getNumQueuedFlows()).isEqualTo(2);
+    assertThat(report.getExecutorInfo()).isEqualTo(new ExecutorInfo(40.0, 512, 7, 300L, 2.5, 5));
+  }
+}
@@ -29,6 +29,7 @@ import static org.mockito.Mockito.when;
 import azkaban.Constants;
 import azkaban.Constants.ConfigurationKeys;
 import azkaban.alert.Alerter;
+import azkaban.executor.selector.ExecutorScoringSelector.FlowMemoryEstimator;
 import azkaban.metrics.CommonMetrics;
 import azkaban.metrics.MetricsManager;
 import azkaban.user.User;
@@ -63,8 +64,9 @@ import org.mockito.stubbing.Answer;
 public class ExecutorManagerTest {
 
   private final Map<Integer, Pair<ExecutionReference, ExecutableFlow>> activeFlows = new HashMap<>();
+  private final MetricRegistry metricRegistry = new MetricRegistry();
   private final CommonMetrics commonMetrics = new CommonMetrics(
-      new MetricsManager(new MetricRegistry()));
+      new MetricsManager(this.metricRegistry));
   private ExecutorManager manager;
   private ExecutorLoader loader;
   private Props props;
@@ -155,12 +157,14 @@ public class ExecutorManagerTest {
     final RunningExecutionsUpdaterThread updaterThread = new RunningExecutionsUpdaterThread(
         new RunningExecutionsUpdater(
             this.updaterStage, this.alertHolder, this.commonMetrics, this.apiGateway,
-            this.runningExecutions, executionFinalizer, this.loader), this.runningExecutions);
+            this.runningExecutions, executionFinalizer, this.loader,
+            new ExecutionChangeStream(this.props)), this.runningExecutions);
     updaterThread.waitTimeIdleMs = 0;
     updaterThread.waitTimeMs = 0;
     final ExecutorManager executorManager = new ExecutorManager(this.props, this.loader,
         this.commonMetrics, this.apiGateway, this.runningExecutions, activeExecutors,
-        this.updaterStage, executionFinalizer, updaterThread);
+        this.updaterStage, executionFinalizer, updaterThread,
+        new ExecutorLoadMonitor(this.props, mock(ExecutorLoadDao.class)), FlowMemoryEstimator.NONE);
     executorManager.setSleepAfterDispatchFailure(Duration.ZERO);
     executorManager.initialize();
     return executorManager;
@@ -329,6 +333,36 @@ public class ExecutorManagerTest {
     verify(this.loader, Mockito.times(1)).unassignExecutor(-1);
   }
 
+  /**
+   * Same as testDispatchException, with queued flows dispatched in batches: the failed flow is
+   * re-queued and dispatched to the other executor by the next batch.
+   */
+  @Test
+  public void testBatchDispatchException() throws Exception {
+    this.props.put(ConfigurationKeys.QUEUEPROCESSING_DISPATCH_BATCH_SIZE, 10);
+    testSetUpForRunningFlows();
+    this.manager.start();
+    final ExecutableFlow flow1 = TestUtils.createTestExecutableFlow("exectest1", "exec1");
+    doReturn(flow1).when(this.loader).fetchExecutableFlow(-1);
+    mockFlowDoesNotExist();
+    when(this.apiGateway.callWithExecutable(any(), any(), eq(ConnectorParams.EXECUTE_ACTION)))
+        .thenThrow(new ExecutorManagerException("Mocked dispatch exception"))
+        .thenReturn(null);
+    this.manager.submitExecutableFlow(flow1, this.user.getUserId());
+    waitFlowFinished(flow1);
+    verify(this.apiGateway)
+        .callWithExecutable(flow1, this.manager.fetchExecutor(1), ConnectorParams.EXECUTE_ACTION);
+    verify(this.apiGateway)
+        .callWithExecutable(flow1, this.manager.fetchExecutor(2), ConnectorParams.EXECUTE_ACTION);
+    verify(this.loader, Mockito.times(1)).unassignExecutor(-1);
+    assertThat(this.metricRegistry.counter(
+        CommonMetrics.DISPATCH_FAIL_EXECUTOR_COUNTER_PREFIX + 1).getCount()
+        + this.metricRegistry.counter(
+        CommonMetrics.DISPATCH_FAIL_EXECUTOR_COUNTER_PREFIX + 2).getCount()).isEqualTo(1);
+    assertThat(this.metricRegistry.timer(CommonMetrics.DISPATCH_BATCH_LATENCY_TIMER_NAME)
+        .getCount()).isGreaterThanOrEqualTo(2);
+  }
+
   /**
    * ExecutorManager should try to dispatch to all executors & when both fail it should remove the
    * execution from queue and finalize it.
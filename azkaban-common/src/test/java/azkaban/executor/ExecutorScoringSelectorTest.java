@@ -0,0 +1,167 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import azkaban.executor.selector.ExecutorComparator;
+import azkaban.executor.selector.ExecutorScoringSelector;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ExecutorScoringSelectorTest {
+
+  private final List<Executor> executors = new ArrayList<>();
+  private final ExecutableFlow flow = new ExecutableFlow();
+  private Map<String, Integer> weights;
+
+  @Before
+  public void setUp() {
+    this.weights = new HashMap<>();
+    for (final String name : ExecutorComparator.getAvailableComparatorNames()) {
+      this.weights.put(name, 1);
+    }
+    final long now = System.currentTimeMillis();
+    this.executors.add(createExecutor(1, new ExecutorInfo(50, 8192, 10, now - 1000, 2.0, 5)));
+    this.executors.add(createExecutor(2, new ExecutorInfo(80, 16384, 15, now - 2000, 1.0, 0)));
+    this.executors.add(createExecutor(3, new ExecutorInfo(20, 4096, 5, now - 500, 4.0, 10)));
+  }
+
+  private static Executor createExecutor(final int id, final ExecutorInfo info) {
+    final Executor executor = new Executor(id, "host" + id, 12345, true);
+    executor.setExecutorInfo(info);
+    return executor;
+  }
+
+  @Test
+  public void testSelectsHighestScore() {
+    final ExecutorScoringSelector selector = new ExecutorScoringSelector(null, this.weights);
+    selector.refresh(this.executors);
+    // executor 2 is the best on every factor, executor 3 the worst
+    assertThat(selector.getScore(this.executors.get(1))).isEqualTo(4.0);
+    assertThat(selector.getScore(this.executors.get(2))).isEqualTo(0.0);
+    assertThat(selector.getBest(this.executors, this.flow)).isEqualTo(this.executors.get(1));
+  }
+
+  @Test
+  public void testSkipsExecutorsNotInCandidates() {
+    final ExecutorScoringSelector selector = new ExecutorScoringSelector(null, this.weights);
+    selector.refresh(this.executors);
+    assertThat(selector.getBest(ImmutableList.of(this.executors.get(0), this.executors.get(2)),
+        this.flow)).isEqualTo(this.executors.get(0));
+    assertThat(selector.getBest(ImmutableList.of(), this.flow)).isNull();
+  }
+
+  @Test
+  public void testDispatchRotatesEqualExecutors() {
+    final long lastDispatched = System.currentTimeMillis() - 1000;
+    final List<Executor> equalExecutors = new ArrayList<>();
+    for (int id = 1; id <= 3; id++) {
+      equalExecutors.add(createExecutor(id, new ExecutorInfo(50, 8192, 10, lastDispatched, 1.0,
+          0)));
+    }
+    final ExecutorScoringSelector selector = new ExecutorScoringSelector(null, this.weights);
+    selector.refresh(equalExecutors);
+
+    final List<Executor> selected = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      final Executor executor = selector.getBest(equalExecutors, this.flow);
+      selector.onDispatched(executor, this.flow);
+      selected.add(executor);
+    }
+    assertThat(selected).containsExactlyInAnyOrderElementsOf(equalExecutors);
+    // the original statistics are left untouched
+    assertThat(equalExecutors.get(0).getExecutorInfo().getRemainingFlowCapacity()).isEqualTo(10);
+  }
+
+  @Test
+  public void testFiltersSeeDispatchedFlows() {
+    final ExecutorScoringSelector selector = new ExecutorScoringSelector(
+        ImmutableList.of("StaticRemainingFlowSize"),
+        ImmutableMap.of("NumberOfAssignedFlowComparator", 1));
+    final List<Executor> executors = ImmutableList.of(
+        createExecutor(1, new ExecutorInfo(50, 8192, 2, 0, 1.0, 0)),
+        createExecutor(2, new ExecutorInfo(50, 8192, 1, 0, 1.0, 0)));
+    selector.refresh(executors);
+
+    for (int i = 0; i < 3; i++) {
+      final Executor executor = selector.getBest(executors, this.flow);
+      assertThat(executor).isNotNull();
+      selector.onDispatched(executor, this.flow);
+    }
+    // all the remaining flow capacity is used
+    assertThat(selector.getBest(executors, this.flow)).isNull();
+  }
+
+  @Test
+  public void testMemoryEstimate() {
+    final ExecutorScoringSelector selector = new ExecutorScoringSelector(null,
+        ImmutableMap.of("Memory", 1), flow -> 8192L);
+    final List<Executor> executors = ImmutableList.of(
+        createExecutor(1, new ExecutorInfo(50, 16384, 10, 0, 1.0, 0)),
+        createExecutor(2, new ExecutorInfo(50, 12288, 10, 0, 1.0, 0)),
+        createExecutor(3, new ExecutorInfo(50, 4096, 10, 0, 1.0, 0)));
+    selector.refresh(executors);
+
+    assertThat(selector.getBest(executors, this.flow)).isEqualTo(executors.get(0));
+    selector.onDispatched(executors.get(0), this.flow);
+    // executor 1 is expected to have 8G left once the flow runs, less than executor 2
+    assertThat(selector.getBest(executors, this.flow)).isEqualTo(executors.get(1));
+  }
+
+  @Test
+  public void testDispatchFailureRestoresExecutor() {
+    final ExecutorScoringSelector selector = new ExecutorScoringSelector(null,
+        ImmutableMap.of("Memory", 1), flow -> 8192L);
+    final List<Executor> executors = ImmutableList.of(
+        createExecutor(1, new ExecutorInfo(50, 16384, 10, 0, 1.0, 0)),
+        createExecutor(2, new ExecutorInfo(50, 12288, 10, 0, 1.0, 0)));
+    selector.refresh(executors);
+    final double score = selector.getScore(executors.get(0));
+
+    selector.onDispatched(executors.get(0), this.flow);
+    assertThat(selector.getBest(executors, this.flow)).isEqualTo(executors.get(1));
+    selector.onDispatchFailed(executors.get(0), this.flow);
+    assertThat(selector.getScore(executors.get(0))).isEqualTo(score);
+    assertThat(selector.getBest(executors, this.flow)).isEqualTo(executors.get(0));
+  }
+
+  @Test
+  public void testExecutorWithoutStatisticsRanksLast() {
+    this.executors.get(1).setExecutorInfo(null);
+    final ExecutorScoringSelector selector = new ExecutorScoringSelector(null, this.weights);
+    selector.refresh(this.executors);
+    assertThat(selector.getBest(ImmutableList.of(this.executors.get(1), this.executors.get(2)),
+        this.flow)).isEqualTo(this.executors.get(2));
+    assertThat(selector.getScore(createExecutor(4, new ExecutorInfo()))).isNaN();
+  }
+
+  @Test
+  public void testInvalidFactor() {
+    assertThatThrownBy(() -> new ExecutorScoringSelector(null, ImmutableMap.of("Disk", 1)))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new ExecutorScoringSelector(null, ImmutableMap.of("Memory", -1)))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import azkaban.executor.selector.ExecutorComparator;
+import azkaban.executor.selector.ExecutorFilter;
+import azkaban.executor.selector.ExecutorScoringSelector;
+import azkaban.executor.selector.ExecutorSelector;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compares the dispatch throughput of {@link ExecutorSelector} and {@link
+ * ExecutorScoringSelector}, selecting executors the same way the queue processor of {@link
+ * ExecutorManager} does.
+ */
+@Ignore("Benchmark, run manually")
+public class ExecutorSelectorBenchmark {
+
+  private static final int NUM_EXECUTORS = 200;
+  private static final int NUM_QUEUED_FLOWS = 10000;
+  // default of azkaban.activeexecutor.refresh.flowinterval
+  private static final int REFRESH_INTERVAL_IN_FLOWS = 5;
+  private static final int ROUNDS = 5;
+
+  private final List<Executor> executors = new ArrayList<>();
+  private final List<ExecutableFlow> flows = new ArrayList<>();
+  private final List<String> filters = new ArrayList<>(ExecutorFilter.getAvailableFilterNames());
+  private final Map<String, Integer> weights = new HashMap<>();
+
+  @Before
+  public void setUp() {
+    final Random random = new Random(42);
+    final long now = System.currentTimeMillis();
+    for (int id = 1; id <= NUM_EXECUTORS; id++) {
+      final Executor executor = new Executor(id, "host" + id, 12345, true);
+      executor.setExecutorInfo(new ExecutorInfo(random.nextDouble() * 100,
+          8 * 1024 + random.nextInt(56 * 1024), 1000 + random.nextInt(1000),
+          now - random.nextInt(60000), random.nextDouble() * 90, random.nextInt(30)));
+      this.executors.add(executor);
+    }
+    for (int i = 0; i < NUM_QUEUED_FLOWS; i++) {
+      final ExecutableFlow flow = new ExecutableFlow();
+      flow.setExecutionId(i);
+      this.flows.add(flow);
+    }
+    for (final String name : ExecutorComparator.getAvailableComparatorNames()) {
+      this.weights.put(name, 1);
+    }
+  }
+
+  @Test
+  public void benchmarkDispatch() {
+    for (int round = 0; round < ROUNDS; round++) {
+      final long comparatorNanos = timeComparatorSelector();
+      final long scoringNanos = timeScoringSelector();
+      System.out.println(String.format(
+          "round %d: %d executors, %d flows - ExecutorSelector %.0f flows/s, "
+              + "ExecutorScoringSelector %.0f flows/s", round, NUM_EXECUTORS, NUM_QUEUED_FLOWS,
+          flowsPerSecond(comparatorNanos), flowsPerSecond(scoringNanos)));
+    }
+  }
+
+  private static double flowsPerSecond(final long nanos) {
+    return NUM_QUEUED_FLOWS * 1e9 / nanos;
+  }
+
+  private long timeComparatorSelector() {
+    final long start = System.nanoTime();
+    for (final ExecutableFlow flow : this.flows) {
+      final Set<Executor> remainingExecutors = new HashSet<>(this.executors);
+      final ExecutorSelector selector = new ExecutorSelector(this.filters, this.weights);
+      assertThat(selector.getBest(remainingExecutors, flow)).isNotNull();
+    }
+    return System.nanoTime() - start;
+  }
+
+  private long timeScoringSelector() {
+    final long start = System.nanoTime();
+    final ExecutorScoringSelector selector = new ExecutorScoringSelector(this.filters,
+        this.weights);
+    int dispatched = 0;
+    for (final ExecutableFlow flow : this.flows) {
+      if (dispatched++ % REFRESH_INTERVAL_IN_FLOWS == 0) {
+        selector.refresh(this.executors);
+      }
+      final Set<Executor> remainingExecutors = new HashSet<>(this.executors);
+      final Executor executor = selector.getBest(remainingExecutors, flow);
+      assertThat(executor).isNotNull();
+      selector.onDispatched(executor, flow);
+    }
+    return System.nanoTime() - start;
+  }
+}
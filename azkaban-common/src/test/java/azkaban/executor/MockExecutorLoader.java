@@ -25,6 +25,8 @@ import java.io.File;
 import java.io.IOException;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
@@ -252,6 +254,33 @@ public class MockExecutorLoader implements ExecutorLoader {
     return new ArrayList<>();
   }
 
+  @Override
+  public List<ExecutionSummary> fetchFlowHistorySummaries(final int skip, final int num)
+      throws ExecutorManagerException {
+    return new ArrayList<>();
+  }
+
+  @Override
+  public List<ExecutionSummary> fetchFlowHistorySummaries(final int projectId,
+      final String flowId, final int skip, final int num) throws ExecutorManagerException {
+    return new ArrayList<>();
+  }
+
+  @Override
+  public List<ExecutionSummary> fetchFlowHistorySummaries(final int projectId,
+      final String flowId, final int skip, final int num, final Status status)
+      throws ExecutorManagerException {
+    return new ArrayList<>();
+  }
+
+  @Override
+  public List<ExecutionSummary> fetchFlowHistorySummaries(final String projContain,
+      final String flowContains, final String userNameContains, final int status,
+      final long startData, final long endData, final int skip, final int num)
+      throws ExecutorManagerException {
+    return new ArrayList<>();
+  }
+
   @Override
   public List<ExecutableJobInfo> fetchJobHistory(final int projectId, final String jobId,
       final int skip, final int size) throws ExecutorManagerException {
@@ -486,15 +515,15 @@ public class MockExecutorLoader implements ExecutorLoader {
   }
 
   @Override
-  public int selectAndUpdateExecution(final int executorId, final boolean isActive)
-      throws ExecutorManagerException {
-    return 1;
+  public List<Integer> selectAndUpdateExecutions(final int executorId, final boolean isActive,
+      final int limit) throws ExecutorManagerException {
+    return Collections.singletonList(1);
   }
 
   @Override
-  public int selectAndUpdateExecutionWithLocking(final int executorId, final boolean isActive)
-      throws ExecutorManagerException {
-    return 1;
+  public List<Integer> selectAndUpdateExecutionsWithLocking(final int executorId,
+      final boolean isActive, final int limit) throws ExecutorManagerException {
+    return Collections.singletonList(1);
   }
 
   @Override
@@ -506,6 +535,20 @@ public class MockExecutorLoader implements ExecutorLoader {
     return executions;
   }
 
+  @Override
+  public int updateExecutionStatuses(final Collection<Integer> execIds,
+      final Status expectedStatus, final Status newStatus) {
+    int updated = 0;
+    for (final Integer execId : execIds) {
+      final ExecutableFlow flow = this.flows.get(execId);
+      if (flow != null && flow.getStatus() == expectedStatus) {
+        flow.setStatus(newStatus);
+        updated++;
+      }
+    }
+    return updated;
+  }
+
   @Override
   public ExecutableRampMap fetchExecutableRampMap() throws ExecutorManagerException {
     ExecutableRampMap map = ExecutableRampMap.createInstance();
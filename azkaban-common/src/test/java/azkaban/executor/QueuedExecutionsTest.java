@@ -148,6 +148,19 @@ public class QueuedExecutionsTest {
     Assert.assertEquals(queue.fetchHead(), dataList.get(1));
   }
 
+  /* Test fetchHeads method */
+  @Test
+  public void testFetchHeads() throws IOException, ExecutorManagerException,
+      InterruptedException {
+    final QueuedExecutions queue = new QueuedExecutions(5);
+    final List<Pair<ExecutionReference, ExecutableFlow>> dataList = getDummyData();
+    queue.enqueueAll(dataList);
+    Assert.assertEquals(queue.fetchHeads(1), dataList.subList(0, 1));
+    Assert.assertEquals(queue.fetchHeads(5), dataList.subList(1, dataList.size()));
+    Assert.assertFalse(queue.hasExecution(dataList.get(1).getSecond().getExecutionId()));
+    Assert.assertTrue(queue.isEmpty());
+  }
+
   /* Test isFull method */
   @Test
   public void testIsFull() throws IOException, ExecutorManagerException,
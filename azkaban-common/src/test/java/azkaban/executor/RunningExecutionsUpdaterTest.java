@@ -1,5 +1,6 @@
 package azkaban.executor;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.doReturn;
@@ -11,11 +12,13 @@ import static org.mockito.Mockito.when;
 import azkaban.alert.Alerter;
 import azkaban.metrics.CommonMetrics;
 import azkaban.utils.Pair;
+import azkaban.utils.Props;
 import com.google.common.collect.ImmutableMap;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.joda.time.DateTimeUtils;
 import org.junit.After;
 import org.junit.Before;
@@ -46,6 +49,7 @@ public class RunningExecutionsUpdaterTest {
 
   private ExecutableFlow execution;
   private RunningExecutions runningExecutions;
+  private ExecutionChangeStream executionChangeStream;
   private Executor activeExecutor;
 
   private RunningExecutionsUpdater updater;
@@ -59,9 +63,10 @@ public class RunningExecutionsUpdaterTest {
     this.runningExecutions = new RunningExecutions();
     this.runningExecutions.get().put(EXECUTION_ID_77, new Pair<>(
         new ExecutionReference(EXECUTION_ID_77, this.activeExecutor), this.execution));
+    this.executionChangeStream = new ExecutionChangeStream(new Props());
     this.updater = new RunningExecutionsUpdater(this.updaterStage, this.alerterHolder,
         this.commonMetrics, this.apiGateway, this.runningExecutions, this.executionFinalizer,
-        this.executorLoader);
+        this.executorLoader, this.executionChangeStream);
     when(this.alerterHolder.get("email")).thenReturn(this.mailAlerter);
   }
 
@@ -76,6 +81,10 @@ public class RunningExecutionsUpdaterTest {
     this.updater.updateExecutions();
     verifyCallUpdateApi();
     verifyZeroInteractions(this.executionFinalizer);
+    final ExecutionChangeStream.ExecutionChanges<Set<ExecutableNode>> changes = this
+        .executionChangeStream.getChanges(EXECUTION_ID_77, 0, 0, (flow, nodes) -> nodes).get();
+    assertThat(changes.getVersion()).isEqualTo(1);
+    assertThat(changes.getSnapshot()).containsExactly(this.execution);
   }
 
   @Test
@@ -84,6 +93,8 @@ public class RunningExecutionsUpdaterTest {
     this.updater.updateExecutions();
     verifyCallUpdateApi();
     verifyFinalizeFlow();
+    assertThat(this.executionChangeStream.getChanges(EXECUTION_ID_77, 0, 0,
+        (flow, nodes) -> nodes)).isEmpty();
   }
 
   @Test
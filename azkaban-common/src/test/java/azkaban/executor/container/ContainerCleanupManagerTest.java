@@ -102,6 +102,13 @@ public class ContainerCleanupManagerTest {
       verify(this.containerImpl).deleteContainer(flow.getExecutionId());
     }
   }
-}
-
 
+  @Test
+  public void testExceptionInDeletingIdleContainers() throws Exception {
+    doThrow(new RuntimeException("mock runtime exception"))
+        .when(this.containerImpl).deleteIdleContainers();
+    // Verifies that exception is consumed, otherwise this test will fail with exception.
+    this.cleaner.deleteIdleContainers();
+    verify(this.containerImpl).deleteIdleContainers();
+  }
+}
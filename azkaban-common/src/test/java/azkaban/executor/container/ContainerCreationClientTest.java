@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package azkaban.executor.container;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+import azkaban.Constants.ContainerizedDispatchManagerProperties;
+import azkaban.executor.ExecutorManagerException;
+import azkaban.executor.container.ContainerCreationClient.CircuitState;
+import azkaban.metrics.CommonMetrics;
+import azkaban.metrics.MetricsManager;
+import azkaban.utils.Props;
+import com.codahale.metrics.MetricRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ContainerCreationClientTest {
+
+  private final MetricRegistry metricRegistry = new MetricRegistry();
+  private ContainerizedImpl containerizedImpl;
+  private ContainerCreationClient client;
+
+  @Before
+  public void setUp() {
+    final Props props = new Props();
+    props.put(ContainerizedDispatchManagerProperties.CONTAINERIZED_CREATION_MAX_IN_FLIGHT, 2);
+    props.put(ContainerizedDispatchManagerProperties
+        .CONTAINERIZED_CREATION_CIRCUIT_BREAKER_FAILURE_THRESHOLD, 2);
+    props.put(
+        ContainerizedDispatchManagerProperties.CONTAINERIZED_CREATION_CIRCUIT_BREAKER_OPEN_SEC, 0);
+    this.containerizedImpl = mock(ContainerizedImpl.class);
+    this.client = new ContainerCreationClient(props, this.containerizedImpl,
+        new CommonMetrics(new MetricsManager(this.metricRegistry)));
+  }
+
+  @After
+  public void tearDown() {
+    this.client.shutdown();
+  }
+
+  @Test
+  public void testInFlightCreationsAreBounded() throws Exception {
+    final CountDownLatch creationLatch = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      creationLatch.await();
+      return null;
+    }).when(this.containerizedImpl).createContainer(anyInt());
+
+    assertThat(this.client.acquire(5, 0)).isEqualTo(2);
+    this.client.release(1);
+    this.client.createContainer(1, System.currentTimeMillis());
+    assertThat(this.client.acquire(5, 0)).isEqualTo(1);
+    this.client.createContainer(2, System.currentTimeMillis());
+    assertThat(this.client.acquire(5, 0)).isEqualTo(0);
+
+    creationLatch.countDown();
+    assertThat(this.client.acquire(5, TimeUnit.SECONDS.toMillis(10))).isGreaterThan(0);
+    assertThat(this.metricRegistry
+        .histogram(CommonMetrics.CONTAINER_CREATION_LATENCY_HISTOGRAM_NAME).getCount())
+        .isGreaterThan(0);
+  }
+
+  @Test
+  public void testCircuitOpensAfterConsecutiveFailures() throws Exception {
+    doThrow(new ExecutorManagerException("creation failed")).when(this.containerizedImpl)
+        .createContainer(anyInt());
+
+    assertThat(this.client.acquire(2, 0)).isEqualTo(2);
+    assertThatThrownBy(() -> this.client.createContainer(1, System.currentTimeMillis()).get())
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(ExecutorManagerException.class);
+    assertThat(this.client.getCircuitState()).isEqualTo(CircuitState.CLOSED);
+    assertThatThrownBy(() -> this.client.createContainer(2, System.currentTimeMillis()).get())
+        .hasCauseInstanceOf(ExecutorManagerException.class);
+    assertThat(this.client.getCircuitState()).isEqualTo(CircuitState.OPEN);
+    assertThat(this.client.getAvailableSlots()).isEqualTo(2);
+
+    // once the open duration elapsed, a single trial creation is allowed
+    assertThat(this.client.acquire(2, 0)).isEqualTo(1);
+    assertThat(this.client.getCircuitState()).isEqualTo(CircuitState.HALF_OPEN);
+    assertThat(this.client.acquire(2, 0)).isEqualTo(0);
+    // an unused trial can be reserved again
+    this.client.release(1);
+    assertThat(this.client.acquire(2, 0)).isEqualTo(1);
+
+    doAnswer(invocation -> null).when(this.containerizedImpl).createContainer(anyInt());
+    this.client.createContainer(3, System.currentTimeMillis()).get();
+    assertThat(this.client.getCircuitState()).isEqualTo(CircuitState.CLOSED);
+    assertThat(this.client.acquire(2, 0)).isEqualTo(2);
+  }
+
+  @Test
+  public void testRejectedCreationReleasesSlot() throws Exception {
+    this.client.shutdown();
+    assertThat(this.client.acquire(2, 0)).isEqualTo(2);
+    assertThatThrownBy(() -> this.client.createContainer(1, System.currentTimeMillis()).get())
+        .hasCauseInstanceOf(RejectedExecutionException.class);
+    assertThat(this.client.getAvailableSlots()).isEqualTo(1);
+    assertThat(this.client.getCircuitState()).isEqualTo(CircuitState.CLOSED);
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package azkaban.executor.container;
+
+import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.models.V1Pod;
+import io.kubernetes.client.openapi.models.V1PodStatus;
+import java.net.HttpURLConnection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory {@link KubernetesPodClient} for tests. Pods are created in the "Pending" phase, tests
+ * move them to other phases with {@link #setPhase(String, String, String)}. Label selectors
+ * support the equality ("key=value") and non-existence ("!key") requirements. Labelling the pods
+ * given to {@link #failLabels(String)} fails.
+ */
+public class FakeKubernetesPodClient implements KubernetesPodClient {
+
+  private final Map<String, V1Pod> pods = new LinkedHashMap<>();
+  private final Set<String> failedLabelPods = new HashSet<>();
+
+  @Override
+  public synchronized void createPod(final String namespace, final V1Pod pod)
+      throws ApiException {
+    final String key = key(namespace, pod.getMetadata().getName());
+    if (this.pods.containsKey(key)) {
+      throw new ApiException(HttpURLConnection.HTTP_CONFLICT, "pod already exists");
+    }
+    pod.setStatus(new V1PodStatus().phase("Pending"));
+    this.pods.put(key, pod);
+  }
+
+  @Override
+  public synchronized void deletePod(final String namespace, final String name)
+      throws ApiException {
+    if (this.pods.remove(key(namespace, name)) == null) {
+      throw new ApiException(HttpURLConnection.HTTP_NOT_FOUND, "pod not found");
+    }
+  }
+
+  @Override
+  public synchronized List<V1Pod> listPods(final String namespace, final String labelSelector) {
+    return this.pods.entrySet().stream()
+        .filter(e -> e.getKey().startsWith(namespace + "/"))
+        .map(Map.Entry::getValue)
+        .filter(pod -> matches(pod, labelSelector))
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public synchronized void labelPod(final String namespace, final String name, final String key,
+      final String value) throws ApiException {
+    if (this.failedLabelPods.contains(name)) {
+      throw new ApiException(HttpURLConnection.HTTP_INTERNAL_ERROR, "label failed");
+    }
+    getPod(namespace, name).getMetadata().putLabelsItem(key, value);
+  }
+
+  public synchronized void failLabels(final String name) {
+    this.failedLabelPods.add(name);
+  }
+
+  public synchronized V1Pod getPod(final String namespace, final String name)
+      throws ApiException {
+    final V1Pod pod = this.pods.get(key(namespace, name));
+    if (pod == null) {
+      throw new ApiException(HttpURLConnection.HTTP_NOT_FOUND, "pod not found");
+    }
+    return pod;
+  }
+
+  public synchronized List<String> getPodNames() {
+    return this.pods.keySet().stream()
+        .map(key -> key.substring(key.indexOf('/') + 1))
+        .collect(Collectors.toList());
+  }
+
+  public synchronized void setPhase(final String namespace, final String name, final String phase)
+      throws ApiException {
+    getPod(namespace, name).getStatus().setPhase(phase);
+  }
+
+  private static boolean matches(final V1Pod pod, final String labelSelector) {
+    if (labelSelector == null || labelSelector.isEmpty()) {
+      return true;
+    }
+    final Map<String, String> labels = pod.getMetadata().getLabels() == null
+        ? Collections.emptyMap() : pod.getMetadata().getLabels();
+    for (final String requirement : labelSelector.split(",")) {
+      if (requirement.startsWith("!")) {
+        if (labels.containsKey(requirement.substring(1))) {
+          return false;
+        }
+      } else {
+        final String[] keyValue = requirement.split("=", 2);
+        if (!keyValue[1].equals(labels.get(keyValue[0]))) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static String key(final String namespace, final String name) {
+    return namespace + "/" + name;
+  }
+}
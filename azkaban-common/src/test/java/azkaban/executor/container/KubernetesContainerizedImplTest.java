@@ -17,6 +17,8 @@ package azkaban.executor.container;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import azkaban.Constants.ContainerizedDispatchManagerProperties;
 import azkaban.executor.ExecutableFlow;
@@ -24,6 +26,9 @@ import azkaban.executor.ExecutorLoader;
 import azkaban.executor.Status;
 import azkaban.utils.Props;
 import azkaban.utils.TestUtils;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import io.kubernetes.client.openapi.models.V1Pod;
+import java.util.Optional;
 import java.util.TreeSet;
 import org.junit.Before;
 import org.junit.Test;
@@ -36,6 +41,8 @@ public class KubernetesContainerizedImplTest {
   private static final Props props = new Props();
   private KubernetesContainerizedImpl kubernetesContainerizedImpl;
   private ExecutorLoader executorLoader;
+  private WarmPodClaimDao warmPodClaimDao;
+  private FakeKubernetesPodClient podClient;
 
   @Before
   public void setup() throws Exception {
@@ -43,8 +50,11 @@ public class KubernetesContainerizedImplTest {
     this.props.put(ContainerizedDispatchManagerProperties.KUBERNETES_KUBE_CONFIG_PATH, "src/test"
         + "/resources/container/kubeconfig");
     this.executorLoader = mock(ExecutorLoader.class);
+    this.warmPodClaimDao = mock(WarmPodClaimDao.class);
+    when(this.warmPodClaimDao.fetchClaimedPod(1)).thenReturn(Optional.empty());
+    this.podClient = new FakeKubernetesPodClient();
     this.kubernetesContainerizedImpl = new KubernetesContainerizedImpl(this.props,
-        this.executorLoader);
+        this.executorLoader, this.warmPodClaimDao, this.podClient);
   }
 
   @Test
@@ -58,6 +68,29 @@ public class KubernetesContainerizedImplTest {
     assertThat(jobTypes.size()).isEqualTo(1);
   }
 
+  @Test
+  public void testCreateAndDeleteContainer() throws Exception {
+    final ExecutableFlow flow = createTestFlow();
+    flow.setExecutionId(1);
+    when(this.executorLoader.fetchExecutableFlow(1)).thenReturn(flow);
+
+    this.kubernetesContainerizedImpl.createContainer(1);
+    assertThat(this.podClient.getPodNames()).containsExactly("fc-dep-azkaban-1");
+    this.kubernetesContainerizedImpl.deleteContainer(1);
+    assertThat(this.podClient.getPodNames()).isEmpty();
+  }
+
+  @Test
+  public void testDeleteContainerOfWarmPod() throws Exception {
+    this.podClient.createPod("dev-namespace",
+        new V1Pod().metadata(new V1ObjectMeta().name("fc-dep-azkaban-warm-1")));
+    when(this.warmPodClaimDao.fetchClaimedPod(1)).thenReturn(Optional.of("fc-dep-azkaban-warm-1"));
+
+    this.kubernetesContainerizedImpl.deleteContainer(1);
+    assertThat(this.podClient.getPodNames()).isEmpty();
+    verify(this.warmPodClaimDao).removeClaims(1);
+  }
+
   private ExecutableFlow createTestFlow() throws Exception {
     return TestUtils.createTestExecutableFlow("exectest1", "exec1");
   }
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package azkaban.executor.container;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import azkaban.db.DatabaseOperator;
+import azkaban.test.Utils;
+import java.sql.SQLException;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class WarmPodClaimDaoTest {
+
+  private static DatabaseOperator dbOperator;
+  private WarmPodClaimDao warmPodClaimDao;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    dbOperator = Utils.initTestDB();
+  }
+
+  @AfterClass
+  public static void destroyDB() throws Exception {
+    try {
+      dbOperator.update("DROP ALL OBJECTS");
+      dbOperator.update("SHUTDOWN");
+    } catch (final SQLException e) {
+      e.printStackTrace();
+    }
+  }
+
+  @Before
+  public void setup() {
+    this.warmPodClaimDao = new WarmPodClaimDao(dbOperator);
+  }
+
+  @After
+  public void clearDB() {
+    try {
+      dbOperator.update("delete from warm_pod_claims");
+    } catch (final SQLException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /* Test a pod can only be claimed once */
+  @Test
+  public void testClaimPod() throws Exception {
+    assertThat(this.warmPodClaimDao.fetchClaimedExecution("pod-1")).isEmpty();
+    assertThat(this.warmPodClaimDao.claimPod("pod-1", 1)).isTrue();
+    assertThat(this.warmPodClaimDao.claimPod("pod-1", 2)).isFalse();
+    assertThat(this.warmPodClaimDao.claimPod("pod-2", 2)).isTrue();
+
+    assertThat(this.warmPodClaimDao.fetchClaimedExecution("pod-1")).contains(1);
+    assertThat(this.warmPodClaimDao.fetchClaimedPod(2)).contains("pod-2");
+  }
+
+  @Test
+  public void testRemoveClaims() throws Exception {
+    this.warmPodClaimDao.claimPod("pod-1", 1);
+    this.warmPodClaimDao.removeClaims(1);
+
+    assertThat(this.warmPodClaimDao.fetchClaimedPod(1)).isEmpty();
+    assertThat(this.warmPodClaimDao.fetchClaimedExecution("pod-1")).isEmpty();
+  }
+
+  @Test
+  public void testReleaseClaim() throws Exception {
+    this.warmPodClaimDao.claimPod("pod-1", 1);
+    // only the claim of the given execution is released
+    this.warmPodClaimDao.releaseClaim("pod-1", 2);
+    assertThat(this.warmPodClaimDao.fetchClaimedExecution("pod-1")).contains(1);
+
+    this.warmPodClaimDao.releaseClaim("pod-1", 1);
+    assertThat(this.warmPodClaimDao.fetchClaimedExecution("pod-1")).isEmpty();
+    assertThat(this.warmPodClaimDao.claimPod("pod-1", 2)).isTrue();
+  }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package azkaban.executor.container;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import azkaban.Constants.ContainerizedDispatchManagerProperties;
+import azkaban.executor.ExecutableFlow;
+import azkaban.executor.ExecutionReference;
+import azkaban.executor.ExecutorLoader;
+import azkaban.executor.Status;
+import azkaban.executor.container.WarmPodPool.Bucket;
+import azkaban.utils.Pair;
+import azkaban.utils.Props;
+import com.google.common.collect.ImmutableSortedSet;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import io.kubernetes.client.openapi.models.V1Pod;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WarmPodPoolTest {
+
+  private static final String NAMESPACE = "dev-namespace";
+  private static final Bucket SPARK = new Bucket("v1", ImmutableSortedSet.of("command", "spark"));
+  private static final Bucket PIG = new Bucket("v1", ImmutableSortedSet.of("pig"));
+  private static final Bucket HIVE = new Bucket("v2", ImmutableSortedSet.of("hive"));
+
+  private final FakeKubernetesPodClient podClient = new FakeKubernetesPodClient();
+  private final Map<Integer, Bucket> executionBuckets = new HashMap<>();
+  private final List<Pair<ExecutionReference, ExecutableFlow>> queuedFlows = new ArrayList<>();
+  private Props props;
+  private ExecutorLoader executorLoader;
+  private WarmPodClaimDao claimDao;
+
+  @Before
+  public void setUp() throws Exception {
+    this.props = new Props();
+    this.props.put(ContainerizedDispatchManagerProperties.KUBERNETES_WARM_POD_POOL_ENABLED,
+        "true");
+    this.props.put(ContainerizedDispatchManagerProperties.KUBERNETES_WARM_POD_POOL_MAX_SIZE, 4);
+    this.props.put(
+        ContainerizedDispatchManagerProperties.KUBERNETES_WARM_POD_POOL_MAX_SIZE_PER_BUCKET, 2);
+    this.props.put(
+        ContainerizedDispatchManagerProperties.KUBERNETES_WARM_POD_POOL_MAX_IDLE_MIN, 0);
+    this.executorLoader = mock(ExecutorLoader.class);
+    when(this.executorLoader.fetchQueuedFlows(Status.READY)).thenReturn(this.queuedFlows);
+    this.claimDao = mock(WarmPodClaimDao.class);
+    when(this.claimDao.claimPod(anyString(), anyInt())).thenReturn(true);
+  }
+
+  private WarmPodPool createPool() {
+    return new WarmPodPool(this.props, NAMESPACE, "fc-dep", this.podClient, this.claimDao,
+        this.executorLoader, flow -> this.executionBuckets.get(flow.getExecutionId()),
+        (bucket, podName) -> new V1Pod().metadata(new V1ObjectMeta().name(podName)));
+  }
+
+  private void queue(final int executionId, final Bucket bucket) {
+    final ExecutableFlow flow = new ExecutableFlow();
+    flow.setExecutionId(executionId);
+    this.executionBuckets.put(executionId, bucket);
+    this.queuedFlows.add(new Pair<>(new ExecutionReference(executionId), flow));
+  }
+
+  private List<String> getPodNames(final Bucket bucket) {
+    final List<String> names = new ArrayList<>();
+    for (final V1Pod pod : this.podClient
+        .listPods(NAMESPACE, WarmPodPool.BUCKET_LABEL + "=" + bucket.getLabel())) {
+      names.add(pod.getMetadata().getName());
+    }
+    return names;
+  }
+
+  @Test
+  public void testRefreshSizesBucketsFromQueuedExecutions() throws Exception {
+    queue(1, SPARK);
+    queue(2, SPARK);
+    queue(3, SPARK);
+    queue(4, PIG);
+    queue(5, PIG);
+    queue(6, HIVE);
+    final WarmPodPool pool = createPool();
+    pool.refresh();
+
+    // 2 pods at most per bucket and 4 in total, buckets with most queued executions first
+    assertThat(getPodNames(SPARK)).hasSize(2);
+    assertThat(getPodNames(PIG)).hasSize(2);
+    assertThat(getPodNames(HIVE)).isEmpty();
+    final V1Pod pod = this.podClient.getPod(NAMESPACE, getPodNames(SPARK).get(0));
+    assertThat(pod.getMetadata().getLabels()).containsEntry(WarmPodPool.WARM_POD_LABEL, "true")
+        .containsEntry("cluster", "azkaban");
+    assertThat(pod.getMetadata().getAnnotations())
+        .containsKey(WarmPodPool.CREATION_TIME_ANNOTATION);
+
+    // existing idle pods are kept
+    pool.refresh();
+    assertThat(this.podClient.getPodNames()).hasSize(4);
+  }
+
+  @Test
+  public void testClaimPrefersRunningPods() throws Exception {
+    queue(1, SPARK);
+    queue(2, SPARK);
+    final WarmPodPool pool = createPool();
+    pool.refresh();
+    final String runningPod = getPodNames(SPARK).get(1);
+    this.podClient.setPhase(NAMESPACE, runningPod, "Running");
+    pool.refresh();
+
+    assertThat(pool.claim(SPARK, 1)).contains(runningPod);
+    verify(this.claimDao).claimPod(runningPod, 1);
+    assertThat(this.podClient.getPod(NAMESPACE, runningPod).getMetadata().getLabels())
+        .containsEntry(WarmPodPool.EXECUTION_ID_LABEL, "1");
+    assertThat(pool.claim(SPARK, 2)).contains(getPodNames(SPARK).get(0));
+    assertThat(pool.claim(SPARK, 3)).isEmpty();
+    assertThat(pool.claim(PIG, 4)).isEmpty();
+
+    // claimed pods are no longer idle
+    this.queuedFlows.clear();
+    pool.refresh();
+    assertThat(pool.getIdlePodCount(SPARK)).isEqualTo(1);
+  }
+
+  @Test
+  public void testClaimSkipsPodsClaimedByOtherServers() throws Exception {
+    queue(1, SPARK);
+    queue(2, SPARK);
+    final WarmPodPool pool = createPool();
+    pool.refresh();
+    final List<String> pods = getPodNames(SPARK);
+    when(this.claimDao.claimPod(pods.get(0), 1)).thenReturn(false);
+
+    assertThat(pool.claim(SPARK, 1)).contains(pods.get(1));
+    assertThat(pool.getIdlePodCount(SPARK)).isEqualTo(0);
+  }
+
+  @Test
+  public void testClaimGivesUpPodsFailingToBeLabelled() throws Exception {
+    queue(1, SPARK);
+    queue(2, SPARK);
+    final WarmPodPool pool = createPool();
+    pool.refresh();
+    final List<String> pods = getPodNames(SPARK);
+    this.podClient.failLabels(pods.get(0));
+
+    assertThat(pool.claim(SPARK, 1)).contains(pods.get(1));
+    // the unlabelled pod would stay idle, it is deleted and its claim released
+    verify(this.claimDao).releaseClaim(pods.get(0), 1);
+    assertThat(this.podClient.getPodNames()).containsExactly(pods.get(1));
+  }
+
+  @Test
+  public void testDeleteIdlePodsSkipsPodsClaimedSinceRefresh() throws Exception {
+    queue(1, SPARK);
+    queue(2, SPARK);
+    final WarmPodPool pool = createPool();
+    pool.refresh();
+    final List<String> pods = getPodNames(SPARK);
+    // claimed by another web server after the refresh
+    when(this.claimDao.claimPod(pods.get(0), WarmPodClaimDao.REAPED_EXECUTION_ID))
+        .thenReturn(false);
+
+    this.queuedFlows.clear();
+    pool.refresh();
+    pool.deleteIdlePods();
+    assertThat(this.podClient.getPodNames()).containsExactly(pods.get(0));
+    verify(this.claimDao).releaseClaim(pods.get(1), WarmPodClaimDao.REAPED_EXECUTION_ID);
+  }
+
+  @Test
+  public void testRecentlyDispatchedBucketsKeepIdlePods() throws Exception {
+    final WarmPodPool pool = createPool();
+    assertThat(pool.claim(HIVE, 1)).isEmpty();
+    pool.refresh();
+
+    assertThat(getPodNames(HIVE)).hasSize(1);
+    assertThat(pool.getIdlePodCount(HIVE)).isEqualTo(1);
+    // pods within the target size are not reaped
+    pool.deleteIdlePods();
+    assertThat(getPodNames(HIVE)).hasSize(1);
+  }
+
+  @Test
+  public void testDeleteIdlePods() throws Exception {
+    queue(1, SPARK);
+    queue(2, SPARK);
+    queue(3, PIG);
+    final WarmPodPool pool = createPool();
+    pool.refresh();
+    final String failedPod = getPodNames(PIG).get(0);
+    this.podClient.setPhase(NAMESPACE, failedPod, "Failed");
+
+    // the queue is drained by cold starts, so the pods are no longer needed
+    this.queuedFlows.clear();
+    pool.refresh();
+    assertThat(this.podClient.getPodNames()).doesNotContain(failedPod).hasSize(2);
+    pool.deleteIdlePods();
+    assertThat(this.podClient.getPodNames()).isEmpty();
+    assertThat(pool.getIdlePodCount(SPARK)).isEqualTo(0);
+  }
+
+  @Test
+  public void testDisabledPool() throws Exception {
+    this.props.put(ContainerizedDispatchManagerProperties.KUBERNETES_WARM_POD_POOL_ENABLED,
+        "false");
+    final WarmPodPool pool = createPool();
+    assertThat(pool.claim(SPARK, 1)).isEqualTo(Optional.empty());
+    pool.deleteIdlePods();
+    assertThat(this.podClient.getPodNames()).isEmpty();
+  }
+}
@@ -20,8 +20,16 @@ import azkaban.db.DatabaseOperator;
 import azkaban.test.Utils;
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.Before;
@@ -50,7 +58,9 @@ public class JdbcVersionSetLoaderTest {
   }
 
   @Before
-  public void setup() throws IOException {
+  public void setup() throws Exception {
+    dbOperator.update("DELETE FROM version_set");
+    dbOperator.update("ALTER TABLE version_set ALTER COLUMN id RESTART WITH 1");
     this.loader = new JdbcVersionSetLoader(dbOperator);
   }
 
@@ -118,4 +128,67 @@ public class JdbcVersionSetLoaderTest {
     versionSets = loaderSpy.fetchAllVersionSets();
     Assert.assertEquals(1, versionSets.size());
   }
+
+  /**
+   * Looks up the same version sets from many threads, first while they are inserted and then once
+   * they are known.
+   */
+  @Test
+  public void testConcurrentLookups() throws Exception {
+    final int numVersionSets = 4;
+    final int numThreads = 16;
+    final ExecutorService executorService = Executors.newFixedThreadPool(numThreads);
+    try {
+      final List<Map<String, Integer>> insertedIds = lookUpConcurrently(this.loader,
+          executorService, numThreads, numVersionSets);
+      for (final Map<String, Integer> ids : insertedIds) {
+        Assert.assertEquals(insertedIds.get(0), ids);
+      }
+      Assert.assertEquals(numVersionSets, this.loader.fetchAllVersionSets().size());
+
+      // Known version sets are served without querying the db
+      final DatabaseOperator dbOperatorSpy = Mockito.spy(dbOperator);
+      final VersionSetLoader cachedLoader = new JdbcVersionSetLoader(dbOperatorSpy);
+      Mockito.clearInvocations(dbOperatorSpy);
+      final List<Map<String, Integer>> cachedIds = lookUpConcurrently(cachedLoader,
+          executorService, numThreads, numVersionSets);
+      for (final Map<String, Integer> ids : cachedIds) {
+        Assert.assertEquals(insertedIds.get(0), ids);
+      }
+      Mockito.verifyZeroInteractions(dbOperatorSpy);
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  /**
+   * @return for each thread, the ids it got for each md5
+   */
+  private static List<Map<String, Integer>> lookUpConcurrently(final VersionSetLoader loader,
+      final ExecutorService executorService, final int numThreads, final int numVersionSets)
+      throws Exception {
+    final CountDownLatch start = new CountDownLatch(1);
+    final List<Future<Map<String, Integer>>> futures = new ArrayList<>();
+    for (int i = 0; i < numThreads; i++) {
+      futures.add(executorService.submit(() -> {
+        start.await();
+        final Map<String, Integer> ids = new HashMap<>();
+        for (int j = 0; j < numVersionSets; j++) {
+          final String md5 = String.format("%032x", j);
+          final int versionSetId = loader.getVersionSetId(md5, "{\"key\":\"" + j + "\"}");
+          Assert.assertEquals(md5, loader.getVersionSet(md5).get().getVersionSetMd5Hex());
+          Assert.assertEquals(md5, loader.getVersionSetById(versionSetId).get()
+              .getVersionSetMd5Hex());
+          ids.put(md5, versionSetId);
+        }
+        return ids;
+      }));
+    }
+    start.countDown();
+    final List<Map<String, Integer>> ids = new ArrayList<>();
+    for (final Future<Map<String, Integer>> future : futures) {
+      ids.add(future.get(30, TimeUnit.SECONDS));
+    }
+    return ids;
+  }
 }
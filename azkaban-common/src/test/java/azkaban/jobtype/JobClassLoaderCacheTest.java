@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package azkaban.jobtype;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import azkaban.jobExecutor.JobClassLoader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit tests for {@link JobClassLoaderCache}.
+ */
+public class JobClassLoaderCacheTest {
+
+  private static final String RESOURCE_FILE = "resource.txt";
+  @Rule
+  public final TemporaryFolder testDir = new TemporaryFolder();
+  private final JobClassLoaderCache cache = new JobClassLoaderCache();
+  private final ClassLoader parent = getClass().getClassLoader();
+  private URL[] urls;
+
+  @Before
+  public void setUp() throws IOException {
+    final File jarFile = this.testDir.newFile("test.jar");
+    try (final JarOutputStream out = new JarOutputStream(new FileOutputStream(jarFile))) {
+      out.putNextEntry(new ZipEntry(RESOURCE_FILE));
+      out.write("hello".getBytes(UTF_8));
+      out.closeEntry();
+    }
+    this.urls = new URL[]{jarFile.toURI().toURL()};
+  }
+
+  @Test
+  public void testClassLoaderSharedPerJobTypeAndParent() {
+    final JobClassLoader classLoader = this.cache.acquire("java", this.urls, this.parent);
+    assertThat(this.cache.acquire("java", this.urls.clone(), this.parent))
+        .isSameAs(classLoader);
+    assertThat(this.cache.acquire("hadoopJava", this.urls, this.parent))
+        .isNotSameAs(classLoader);
+    assertThat(this.cache.acquire("java", this.urls, new URLClassLoader(new URL[0])))
+        .isNotSameAs(classLoader);
+    assertThat(this.cache.getClassLoaderCount()).isEqualTo(3);
+    assertThat(classLoader.getResource(RESOURCE_FILE)).isNotNull();
+
+    // classloaders in the cache are kept open for the next jobs
+    this.cache.release(classLoader);
+    this.cache.release(classLoader);
+    assertThat(this.cache.getClassLoaderCount()).isEqualTo(3);
+    assertThat(this.cache.acquire("java", this.urls, this.parent)).isSameAs(classLoader);
+  }
+
+  @Test
+  public void testRetiredClassLoaderClosedOnceReleased() {
+    final JobClassLoader unused = this.cache.acquire("java", this.urls, this.parent);
+    this.cache.release(unused);
+    final JobClassLoader used = this.cache.acquire("hadoopJava", this.urls, this.parent);
+
+    this.cache.retireAll();
+    assertThat(unused.getResource(RESOURCE_FILE)).isNull();
+    assertThat(used.getResource(RESOURCE_FILE)).isNotNull();
+    assertThat(this.cache.getClassLoaderCount()).isEqualTo(1);
+
+    // the next jobs get a new classloader
+    final JobClassLoader reloaded = this.cache.acquire("hadoopJava", this.urls, this.parent);
+    assertThat(reloaded).isNotSameAs(used);
+
+    this.cache.release(used);
+    assertThat(used.getResource(RESOURCE_FILE)).isNull();
+    assertThat(reloaded.getResource(RESOURCE_FILE)).isNotNull();
+    assertThat(this.cache.getClassLoaderCount()).isEqualTo(1);
+  }
+}
@@ -18,6 +18,7 @@ package azkaban.project;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import azkaban.Constants.ConfigurationKeys;
 import azkaban.flow.Flow;
 import azkaban.test.executions.ExecutionsTestUtil;
 import azkaban.utils.Props;
@@ -29,6 +30,8 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Map;
+import java.util.stream.Collectors;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
@@ -127,4 +130,57 @@ public class DirectoryFlowLoaderTest {
       }
     }
   }
+
+  @Test
+  public void testParallelLoadMatchesSequentialLoad() throws Exception {
+    final Props parallelProps = new Props();
+    parallelProps.put(ConfigurationKeys.PROJECT_LOADER_PARALLELISM, 4);
+
+    for (final String flowDir : new String[]{"exectest1", "embedded", "embedded_bad"}) {
+      final DirectoryFlowLoader sequentialLoader = new DirectoryFlowLoader(new Props());
+      sequentialLoader.loadProjectFlow(this.project, ExecutionsTestUtil.getFlowDir(flowDir));
+      final DirectoryFlowLoader parallelLoader = new DirectoryFlowLoader(parallelProps);
+      parallelLoader.loadProjectFlow(this.project, ExecutionsTestUtil.getFlowDir(flowDir));
+      assertSameResults(sequentialLoader, parallelLoader);
+    }
+  }
+
+  @Test
+  public void testParallelLoadMassiveFlow() throws Exception {
+    final Props parallelProps = new Props();
+    parallelProps.put(ConfigurationKeys.PROJECT_LOADER_PARALLELISM, 4);
+
+    File projectDir = null;
+    try (InputStream is = new FileInputStream(
+        ExecutionsTestUtil.getDataRootDir() + "/massive-flows/massive-flows.tar.bz2")) {
+      projectDir = decompressTarBZ2(is);
+
+      final DirectoryFlowLoader sequentialLoader = new DirectoryFlowLoader(new Props());
+      sequentialLoader.loadProjectFlow(this.project, projectDir);
+      final DirectoryFlowLoader parallelLoader = new DirectoryFlowLoader(parallelProps);
+      parallelLoader.loadProjectFlow(this.project, projectDir);
+
+      assertThat(parallelLoader.getJobPropsMap()).isNotEmpty();
+      assertSameResults(sequentialLoader, parallelLoader);
+    } finally {
+      if (projectDir != null) {
+        MoreFiles.deleteRecursively(projectDir.toPath(), RecursiveDeleteOption.ALLOW_INSECURE);
+      }
+    }
+  }
+
+  private static void assertSameResults(final DirectoryFlowLoader expected,
+      final DirectoryFlowLoader actual) {
+    assertThat(actual.getErrors()).isEqualTo(expected.getErrors());
+    assertThat(toObjects(actual.getFlowMap())).isEqualTo(toObjects(expected.getFlowMap()));
+    assertThat(actual.getJobPropsMap()).isEqualTo(expected.getJobPropsMap());
+    assertThat(actual.getPropsList().stream().map(Props::getSource).collect(Collectors.toList()))
+        .isEqualTo(expected.getPropsList().stream().map(Props::getSource)
+            .collect(Collectors.toList()));
+  }
+
+  private static Map<String, Map<String, Object>> toObjects(final Map<String, Flow> flowMap) {
+    return flowMap.entrySet().stream()
+        .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().toObject()));
+  }
 }
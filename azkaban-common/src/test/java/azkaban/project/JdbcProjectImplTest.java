@@ -19,6 +19,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.Assertions.catchThrowable;
 
+import azkaban.Constants.ConfigurationKeys;
 import azkaban.db.DatabaseOperator;
 import azkaban.flow.Flow;
 import azkaban.test.Utils;
@@ -36,6 +37,10 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 import org.apache.commons.io.FileUtils;
 import org.junit.After;
 import org.junit.AfterClass;
@@ -410,6 +415,149 @@ public class JdbcProjectImplTest {
     Assert.assertEquals(propsMap.get("source2").get("keyaaa"), "valueaaa");
   }
 
+  @Test
+  public void testUploadProjectMetadata() throws Exception {
+    final Props batchProps = new Props();
+    // a few hundred bytes, so that the rows are inserted in several batches
+    batchProps.put(ConfigurationKeys.PROJECT_METADATA_BATCH_MAX_BYTES, 300);
+    final ProjectLoader batchLoader = new JdbcProjectImpl(batchProps, dbOperator);
+    final List<Flow> flows = new ArrayList<>();
+    final List<Props> properties = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      flows.add(new Flow("flow" + i));
+      final Props jobProps = new Props();
+      jobProps.setSource("job" + i + ".job");
+      jobProps.put("type", "command");
+      jobProps.put("command", "echo " + i);
+      properties.add(jobProps);
+    }
+
+    createThreeProjects();
+    final Project project = this.loader.fetchProjectByName("mytestProject");
+    batchLoader.uploadProjectMetadata(project, project.getVersion(), flows, properties);
+
+    assertThat(this.loader.fetchAllProjectFlows(project)).extracting(Flow::getId)
+        .containsOnlyElementsOf(flows.stream().map(Flow::getId).collect(Collectors.toList()))
+        .hasSize(10);
+    final Map<String, Props> propsMap = this.loader
+        .fetchProjectProperties(project.getId(), project.getVersion());
+    assertThat(propsMap).hasSize(10);
+    assertThat(propsMap.get("job7.job").get("command")).isEqualTo("echo 7");
+  }
+
+  @Test
+  public void testUploadProjectMetadataIsAtomic() throws Exception {
+    final Props jobProps = new Props();
+    jobProps.setSource("job.job");
+    jobProps.put("type", "command");
+
+    createThreeProjects();
+    final Project project = this.loader.fetchProjectByName("mytestProject");
+    // the same properties twice fail on the primary key
+    assertThatThrownBy(() -> this.loader.uploadProjectMetadata(project, project.getVersion(),
+        Collections.singletonList(new Flow("flow1")), Arrays.asList(jobProps, jobProps)))
+        .isInstanceOf(ProjectManagerException.class);
+
+    assertThat(this.loader.fetchAllProjectFlows(project)).isEmpty();
+    assertThat(this.loader.fetchProjectProperties(project.getId(), project.getVersion()))
+        .isNull();
+  }
+
+  @Test
+  public void testUploadDeduplicatedProjectMetadata() throws Exception {
+    final Props dedupProps = new Props();
+    dedupProps.put(ConfigurationKeys.PROJECT_METADATA_DEDUP_ENABLED, "true");
+    final ProjectLoader dedupLoader = new JdbcProjectImpl(dedupProps, dbOperator);
+    final List<Flow> flows = new ArrayList<>();
+    final List<Props> properties = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      flows.add(new Flow("flow" + i));
+      final Props jobProps = new Props();
+      jobProps.setSource("job" + i + ".job");
+      jobProps.put("command", "echo " + i);
+      properties.add(jobProps);
+    }
+
+    createThreeProjects();
+    final Project project = this.loader.fetchProjectByName("mytestProject");
+    // version 1 uploaded before deduplication, with the data inline
+    flows.forEach(flow -> flow.setVersion(1));
+    this.loader.uploadProjectMetadata(project, 1, flows, properties);
+    dedupLoader.uploadProjectMetadata(project, 2, flows, properties);
+    assertThat(countRows("project_metadata_blobs")).isEqualTo(20);
+
+    // re-upload with one changed file
+    properties.get(3).put("command", "echo changed");
+    flows.forEach(flow -> flow.setVersion(3));
+    dedupLoader.uploadProjectMetadata(project, 3, flows, properties);
+    assertThat(countRows("project_metadata_blobs")).isEqualTo(21);
+    assertThat(countRows("project_flows")).isEqualTo(30);
+
+    for (int version = 1; version <= 3; version++) {
+      project.setVersion(version);
+      final List<Flow> fetchedFlows = this.loader.fetchAllProjectFlows(project);
+      assertThat(fetchedFlows).hasSize(10);
+      for (final Flow flow : fetchedFlows) {
+        assertThat(flow.getVersion()).isEqualTo(version);
+      }
+      final Map<String, Props> propsMap = this.loader
+          .fetchProjectProperties(project.getId(), version);
+      assertThat(propsMap).hasSize(10);
+      assertThat(propsMap.get("job3.job").get("command"))
+          .isEqualTo(version == 3 ? "echo changed" : "echo 3");
+      assertThat(this.loader.fetchProjectProperty(project.getId(), version, "job5.job")
+          .get("command")).isEqualTo("echo 5");
+    }
+
+    // the data is deleted once no version references it
+    this.loader.cleanOlderProjectVersion(project.getId(), 3, Collections.emptyList());
+    assertThat(countRows("project_metadata_blobs")).isEqualTo(20);
+    project.setVersion(3);
+    assertThat(this.loader.fetchAllProjectFlows(project)).hasSize(10);
+  }
+
+  @Test
+  public void testConcurrentDeduplicatedUploads() throws Exception {
+    final Props dedupProps = new Props();
+    dedupProps.put(ConfigurationKeys.PROJECT_METADATA_DEDUP_ENABLED, "true");
+    final ProjectLoader dedupLoader = new JdbcProjectImpl(dedupProps, dbOperator);
+    final List<Flow> flows = new ArrayList<>();
+    final List<Props> properties = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      flows.add(new Flow("flow" + i));
+      final Props jobProps = new Props();
+      jobProps.setSource("job" + i + ".job");
+      jobProps.put("command", "echo " + i);
+      properties.add(jobProps);
+    }
+    createThreeProjects();
+    final Project project = this.loader.fetchProjectByName("mytestProject");
+
+    // the same new files uploaded by several versions at once are stored once
+    final ExecutorService uploaders = Executors.newFixedThreadPool(4);
+    final List<Future<?>> uploads = new ArrayList<>();
+    for (int version = 1; version <= 4; version++) {
+      final int uploadVersion = version;
+      uploads.add(uploaders.submit(() -> {
+        dedupLoader.uploadProjectMetadata(project, uploadVersion, flows, properties);
+        return null;
+      }));
+    }
+    for (final Future<?> upload : uploads) {
+      upload.get();
+    }
+    uploaders.shutdown();
+    assertThat(countRows("project_metadata_blobs")).isEqualTo(20);
+    assertThat(countRows("project_flows")).isEqualTo(40);
+  }
+
+  private static int countRows(final String table) throws SQLException {
+    return dbOperator.query("SELECT COUNT(*) FROM " + table, rs -> {
+      rs.next();
+      return rs.getInt(1);
+    });
+  }
+
   @Test
   public void cleanOlderProjectVersion() {
     createThreeProjects();
@@ -522,6 +670,7 @@ public class JdbcProjectImplTest {
       dbOperator.update("TRUNCATE TABLE project_files");
       dbOperator.update("TRUNCATE TABLE project_events");
       dbOperator.update("TRUNCATE TABLE project_flow_files");
+      dbOperator.update("TRUNCATE TABLE project_metadata_blobs");
     } catch (final SQLException e) {
       e.printStackTrace();
     }
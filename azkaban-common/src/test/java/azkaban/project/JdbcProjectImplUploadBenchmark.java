@@ -0,0 +1,126 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.project;
+
+import azkaban.Constants.ConfigurationKeys;
+import azkaban.db.DatabaseOperator;
+import azkaban.flow.Edge;
+import azkaban.flow.Flow;
+import azkaban.flow.Node;
+import azkaban.test.Utils;
+import azkaban.user.User;
+import azkaban.utils.Props;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compares the time taken to upload the flows and properties of a large project with one insert
+ * per flow and per properties, as the project upload used to, with
+ * {@link JdbcProjectImpl#uploadProjectMetadata}, and with the flows and properties deduplicated
+ * across versions, against the H2 test DB.
+ */
+@Ignore("Benchmark, run manually")
+public class JdbcProjectImplUploadBenchmark {
+
+  private static final int NUM_FLOWS = 300;
+  private static final int JOBS_PER_FLOW = 10;
+  private static final int ROUNDS = 5;
+
+  private static DatabaseOperator dbOperator;
+  private static JdbcProjectImpl loader;
+  private static Project project;
+  private static List<Flow> flows;
+  private static List<Props> properties;
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    dbOperator = Utils.initTestDB();
+    loader = new JdbcProjectImpl(new Props(), dbOperator);
+    project = loader.createNewProject("benchmark", "benchmark", new User("user"));
+
+    flows = new ArrayList<>();
+    properties = new ArrayList<>();
+    for (int i = 0; i < NUM_FLOWS; i++) {
+      final Flow flow = new Flow("flow" + i);
+      for (int j = 0; j < JOBS_PER_FLOW; j++) {
+        final String jobName = "flow" + i + "_job" + j;
+        final Node node = new Node(jobName);
+        node.setType("command");
+        node.setJobSource(jobName + ".job");
+        flow.addNode(node);
+        if (j > 0) {
+          flow.addEdge(new Edge("flow" + i + "_job" + (j - 1), jobName));
+        }
+
+        final Props jobProps = new Props();
+        jobProps.setSource(jobName + ".job");
+        jobProps.put("type", "command");
+        jobProps.put("command", "echo " + jobName);
+        properties.add(jobProps);
+      }
+      flows.add(flow);
+    }
+  }
+
+  @AfterClass
+  public static void destroyDB() throws SQLException {
+    dbOperator.update("DROP ALL OBJECTS");
+    dbOperator.update("SHUTDOWN");
+  }
+
+  @Test
+  public void benchmarkUploadProjectMetadata() throws Exception {
+    for (int round = 0; round < ROUNDS; round++) {
+      final int rowVersion = 100 + 2 * round + 1;
+      long startNanos = System.nanoTime();
+      loader.uploadFlows(project, rowVersion, flows);
+      project.setVersion(rowVersion);
+      loader.uploadProjectProperties(project, properties);
+      final long rowMillis = (System.nanoTime() - startNanos) / 1000000;
+
+      final int batchVersion = 100 + 2 * round + 2;
+      startNanos = System.nanoTime();
+      loader.uploadProjectMetadata(project, batchVersion, flows, properties);
+      final long batchMillis = (System.nanoTime() - startNanos) / 1000000;
+
+      System.out.println(String.format("%d flows, %d properties: %6d ms per row %6d ms batched",
+          flows.size(), properties.size(), rowMillis, batchMillis));
+    }
+  }
+
+  @Test
+  public void benchmarkDeduplicatedReupload() throws Exception {
+    final Props dedupProps = new Props();
+    dedupProps.put(ConfigurationKeys.PROJECT_METADATA_DEDUP_ENABLED, "true");
+    final JdbcProjectImpl dedupLoader = new JdbcProjectImpl(dedupProps, dbOperator);
+    dedupLoader.uploadProjectMetadata(project, 200, flows, properties);
+    for (int round = 0; round < ROUNDS; round++) {
+      // one changed file per re-upload
+      properties.get(round).put("command", "echo changed " + round);
+      final long startNanos = System.nanoTime();
+      dedupLoader.uploadProjectMetadata(project, 201 + round, flows, properties);
+      final long dedupMillis = (System.nanoTime() - startNanos) / 1000000;
+      System.out.println(String.format("%d flows, %d properties, 1 changed: %6d ms deduplicated",
+          flows.size(), properties.size(), dedupMillis));
+    }
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.project.validator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import azkaban.utils.Props;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ValidationReportCacheTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private File cacheDir;
+  private ValidationReport report;
+
+  @Before
+  public void setUp() throws Exception {
+    this.cacheDir = this.temp.newFolder("cache");
+    this.report = new ValidationReport();
+    this.report.addErrorMsgs(Collections.singleton("error"));
+    this.report.addWarningMsgs(Collections.singleton("warning"));
+    this.report.addErrorLevelInfoMsg("info");
+  }
+
+  @Test
+  public void testPutAndGet() throws Exception {
+    final ValidationReportCache cache = new ValidationReportCache(this.cacheDir, 10, "plugins");
+    assertThat(cache.get("key1")).isEmpty();
+    cache.put("key1", this.report);
+    assertThat(cache.get("key1")).contains(this.report);
+
+    // Reports are kept across restarts with the same plugins
+    assertThat(new ValidationReportCache(this.cacheDir, 10, "plugins").get("key1"))
+        .contains(this.report);
+  }
+
+  @Test
+  public void testInvalidatedWhenPluginsChange() throws Exception {
+    new ValidationReportCache(this.cacheDir, 10, "plugins").put("key1", this.report);
+    assertThat(new ValidationReportCache(this.cacheDir, 10, "new plugins").get("key1"))
+        .isEmpty();
+  }
+
+  @Test
+  public void testEvictLeastRecentlyUsed() throws Exception {
+    final ValidationReportCache cache = new ValidationReportCache(this.cacheDir, 2, "plugins");
+    cache.put("key1", this.report);
+    cache.put("key2", this.report);
+    new File(this.cacheDir, "key1.json").setLastModified(1000);
+    new File(this.cacheDir, "key2.json").setLastModified(2000);
+    cache.put("key3", this.report);
+
+    assertThat(cache.get("key1")).isEmpty();
+    assertThat(cache.get("key2")).isPresent();
+    assertThat(cache.get("key3")).isPresent();
+  }
+
+  @Test
+  public void testEvictOnlyPastThreshold() throws Exception {
+    final ValidationReportCache cache = new ValidationReportCache(this.cacheDir, 10, "plugins");
+    for (int i = 0; i < 11; i++) {
+      cache.put("key" + i, this.report);
+    }
+    // The cache may hold a tenth more reports than the maximum before it is listed and evicted
+    assertThat(this.cacheDir.listFiles((dir, name) -> name.endsWith(".json"))).hasSize(11);
+
+    cache.put("key11", this.report);
+    assertThat(this.cacheDir.listFiles((dir, name) -> name.endsWith(".json"))).hasSize(10);
+  }
+
+  @Test
+  public void testContentDigest() throws Exception {
+    final File projectDir = this.temp.newFolder("project");
+    final File jobFile = new File(projectDir, "dir/job.job");
+    jobFile.getParentFile().mkdirs();
+    Files.write(jobFile.toPath(), "type=command".getBytes(StandardCharsets.UTF_8));
+    final String digest = ValidationReportCache.getContentDigest("p", projectDir, new Props());
+
+    assertThat(ValidationReportCache.getContentDigest("p", projectDir, new Props()))
+        .isEqualTo(digest);
+    assertThat(ValidationReportCache.getContentDigest("other", projectDir, new Props()))
+        .isNotEqualTo(digest);
+
+    jobFile.renameTo(new File(projectDir, "dir/renamed.job"));
+    assertThat(ValidationReportCache.getContentDigest("p", projectDir, new Props()))
+        .isNotEqualTo(digest);
+  }
+}
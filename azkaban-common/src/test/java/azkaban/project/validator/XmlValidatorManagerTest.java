@@ -3,6 +3,7 @@ package azkaban.project.validator;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.*;
 
+import azkaban.Constants.ConfigurationKeys;
 import azkaban.project.Project;
 import azkaban.utils.HashUtils;
 import azkaban.utils.Props;
@@ -10,9 +11,18 @@ import com.google.common.io.Resources;
 import java.io.File;
 import java.lang.reflect.Field;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.internal.util.reflection.FieldSetter;
 
 
@@ -20,6 +30,9 @@ public class XmlValidatorManagerTest {
 
   private final Props baseProps = new Props();
 
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
   /**
    * Test that no validator directory exists when there is no xml configuration.
    */
@@ -127,4 +140,122 @@ public class XmlValidatorManagerTest {
     // Make sure we get the cache key we expected (the SHA1 of the one cache key returned)
     assertEquals(expectedResultingCacheKey, manager.getCacheKey(project, projectDir, props));
   }
+
+  @Test
+  public void testValidateIndependentValidatorsInParallel() throws Exception {
+    final Project project = mock(Project.class);
+    final File projectDir = mock(File.class);
+    final Props props = new Props();
+    props.put(ConfigurationKeys.PROJECT_LOADER_PARALLELISM, 2);
+    final XmlValidatorManager manager = new XmlValidatorManager(props);
+
+    // Each independent validator waits for the other one, so they must run at the same time
+    final CountDownLatch running = new CountDownLatch(2);
+    final Map<String, ProjectValidator> mockedValidators = new LinkedHashMap<>();
+    final Map<String, ValidationReport> expectedResultingReports = new LinkedHashMap<>();
+    for (final String name : new String[]{"INDEPENDENT1", "DEPENDENT", "INDEPENDENT2"}) {
+      final ProjectValidator mockValidator = mock(ProjectValidator.class);
+      final ValidationReport report = new ValidationReport();
+      when(mockValidator.isIndependent()).thenReturn(name.startsWith("INDEPENDENT"));
+      when(mockValidator.validateProject(project, projectDir, props)).thenAnswer(invocation -> {
+        if (name.startsWith("INDEPENDENT")) {
+          running.countDown();
+          running.await(10, TimeUnit.SECONDS);
+        }
+        return report;
+      });
+      mockedValidators.put(name, mockValidator);
+      expectedResultingReports.put(name, report);
+    }
+
+    final Field validatorsField = manager.getClass().getDeclaredField("validators");
+    validatorsField.setAccessible(true);
+    FieldSetter.setField(manager, validatorsField, mockedValidators);
+
+    final Map<String, ValidationReport> reports = manager.validate(project, projectDir, props);
+    assertEquals(0, running.getCount());
+    // The reports are in the order of the validators
+    assertEquals(new ArrayList<>(expectedResultingReports.entrySet()),
+        new ArrayList<>(reports.entrySet()));
+  }
+
+  @Test
+  public void testValidateWithCachedReports() throws Exception {
+    final Project project = mock(Project.class);
+    when(project.getName()).thenReturn("myTestProject");
+    final File projectDir = this.temp.newFolder("project");
+    final File jobFile = new File(projectDir, "job.job");
+    Files.write(jobFile.toPath(), "type=command".getBytes(StandardCharsets.UTF_8));
+    final Props props = new Props();
+    props.put(ValidatorConfigs.VALIDATION_CACHE_DIR, this.temp.newFolder("cache").getPath());
+    final XmlValidatorManager manager = new XmlValidatorManager(props);
+
+    final ValidationReport sampleReport = new ValidationReport();
+    sampleReport.addWarningMsgs(Collections.singleton("warning"));
+    final ProjectValidator mockValidator = mock(ProjectValidator.class);
+    when(mockValidator.validateProject(project, projectDir, props)).thenReturn(sampleReport);
+    final Map<String, ProjectValidator> mockedValidators = new HashMap<>();
+    mockedValidators.put("TEST", mockValidator);
+    final Field validatorsField = manager.getClass().getDeclaredField("validators");
+    validatorsField.setAccessible(true);
+    FieldSetter.setField(manager, validatorsField, mockedValidators);
+
+    assertEquals(sampleReport, manager.validate(project, projectDir, props).get("TEST"));
+    // Same content, the cached report is used
+    assertEquals(sampleReport, manager.validate(project, projectDir, props).get("TEST"));
+    verify(mockValidator, times(1)).validateProject(project, projectDir, props);
+
+    // Changed content, the project is validated again
+    Files.write(jobFile.toPath(), "type=noop".getBytes(StandardCharsets.UTF_8));
+    assertEquals(sampleReport, manager.validate(project, projectDir, props).get("TEST"));
+    verify(mockValidator, times(2)).validateProject(project, projectDir, props);
+
+    // Reports modifying the project aren't cached
+    sampleReport.addModifiedFile(jobFile);
+    Files.write(jobFile.toPath(), "type=flow".getBytes(StandardCharsets.UTF_8));
+    manager.validate(project, projectDir, props);
+    manager.validate(project, projectDir, props);
+    verify(mockValidator, times(4)).validateProject(project, projectDir, props);
+  }
+
+  @Test
+  public void testCacheReportsUnderModifiedContent() throws Exception {
+    final Project project = mock(Project.class);
+    when(project.getName()).thenReturn("myTestProject");
+    final File projectDir = this.temp.newFolder("project");
+    final File jobFile = new File(projectDir, "job.job");
+    Files.write(jobFile.toPath(), "type=command".getBytes(StandardCharsets.UTF_8));
+    final Props props = new Props();
+    props.put(ValidatorConfigs.VALIDATION_CACHE_DIR, this.temp.newFolder("cache").getPath());
+    final XmlValidatorManager manager = new XmlValidatorManager(props);
+
+    // The first validator rewrites command jobs to noop jobs, the second one sees the result
+    final ProjectValidator modifyingValidator = mock(ProjectValidator.class);
+    when(modifyingValidator.validateProject(project, projectDir, props)).thenAnswer(invocation -> {
+      final ValidationReport report = new ValidationReport();
+      if (new String(Files.readAllBytes(jobFile.toPath()), StandardCharsets.UTF_8)
+          .equals("type=command")) {
+        Files.write(jobFile.toPath(), "type=noop".getBytes(StandardCharsets.UTF_8));
+        report.addModifiedFile(jobFile);
+      }
+      return report;
+    });
+    final ProjectValidator checkingValidator = mock(ProjectValidator.class);
+    when(checkingValidator.validateProject(project, projectDir, props))
+        .thenReturn(new ValidationReport());
+    final Map<String, ProjectValidator> mockedValidators = new LinkedHashMap<>();
+    mockedValidators.put("MODIFYING", modifyingValidator);
+    mockedValidators.put("CHECKING", checkingValidator);
+    final Field validatorsField = manager.getClass().getDeclaredField("validators");
+    validatorsField.setAccessible(true);
+    FieldSetter.setField(manager, validatorsField, mockedValidators);
+
+    manager.validate(project, projectDir, props);
+    verify(checkingValidator, times(1)).validateProject(project, projectDir, props);
+
+    // The report of the second validator was cached under the content it validated
+    manager.validate(project, projectDir, props);
+    verify(modifyingValidator, times(2)).validateProject(project, projectDir, props);
+    verify(checkingValidator, times(1)).validateProject(project, projectDir, props);
+  }
 }
@@ -18,7 +18,9 @@
 package azkaban.storage;
 
 import static azkaban.Constants.ConfigurationKeys.AZKABAN_STORAGE_ARTIFACT_MAX_RETENTION;
+import static azkaban.Constants.ConfigurationKeys.AZKABAN_STORAGE_CLEANUP_ASYNC_ENABLED;
 import static azkaban.storage.StorageCleaner.SQL_DELETE_RESOURCE_ID;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
@@ -26,31 +28,71 @@ import static org.mockito.Matchers.anyObject;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.anyVararg;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import azkaban.AzkabanCommonModuleConfig;
 import azkaban.db.DatabaseOperator;
+import azkaban.spi.ProjectStorageMetadata;
 import azkaban.spi.Storage;
+import azkaban.test.Utils;
+import azkaban.utils.HashUtils;
 import azkaban.utils.Pair;
 import azkaban.utils.Props;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import org.apache.commons.dbutils.QueryRunner;
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
 import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class StorageCleanerTest {
 
   public static final int TEST_PROJECT_ID = 14;
+  private static final String SQL_INSERT_PROJECT_VERSION = "INSERT INTO project_versions "
+      + "(project_id, version, upload_time, uploader, resource_id) VALUES (?,?,?,?,?)";
+  private static final String SQL_FETCH_VERSIONS =
+      "SELECT version FROM project_versions WHERE project_id=? ORDER BY version";
+
+  private static DatabaseOperator testDbOperator;
+
+  @Rule
+  public final TemporaryFolder temporaryFolder = new TemporaryFolder();
 
   private Storage storage;
   private DatabaseOperator databaseOperator;
 
+  @BeforeClass
+  public static void setUpDB() throws Exception {
+    testDbOperator = Utils.initTestDB();
+  }
+
+  @AfterClass
+  public static void destroyDB() throws Exception {
+    testDbOperator.update("DROP ALL OBJECTS");
+    testDbOperator.update("SHUTDOWN");
+  }
+
   @Before
   public void setUp() throws Exception {
+    testDbOperator.update("DELETE FROM project_versions");
+
     this.databaseOperator = mock(DatabaseOperator.class);
     this.storage = mock(Storage.class);
 
@@ -120,4 +162,139 @@ public class StorageCleanerTest {
     // Verify there was no db update due to previous deletion failure
     verify(this.databaseOperator, never()).update(SQL_DELETE_RESOURCE_ID, "14/14-7.zip");
   }
+
+  private LocalStorage createLocalStorage() throws Exception {
+    final AzkabanCommonModuleConfig config = mock(AzkabanCommonModuleConfig.class);
+    when(config.getLocalStorageBaseDirPath())
+        .thenReturn(this.temporaryFolder.newFolder().getCanonicalPath());
+    return new LocalStorage(config);
+  }
+
+  private static StorageCleaner createBackgroundCleaner(final Storage storage,
+      final DatabaseOperator databaseOperator) {
+    final Props props = new Props();
+    props.put(AZKABAN_STORAGE_ARTIFACT_MAX_RETENTION, 2);
+    props.put(AZKABAN_STORAGE_CLEANUP_ASYNC_ENABLED, "true");
+    return new StorageCleaner(props, storage, databaseOperator);
+  }
+
+  /**
+   * Store the artifacts of versions 1 to 6 of the test project, the same one for versions 2 and
+   * 4, and record them in project_versions.
+   *
+   * @return the resource ids by version
+   */
+  private Map<Integer, String> uploadVersions(final Storage storage) throws Exception {
+    final String[] contents = {"a", "b", "c", "b", "d", "e"};
+    final Map<Integer, String> resourceIds = new HashMap<>();
+    for (int version = 1; version <= contents.length; version++) {
+      final File file = this.temporaryFolder.newFile();
+      FileUtils.writeStringToFile(file, contents[version - 1], StandardCharsets.UTF_8);
+      final String resourceId = storage.putProject(new ProjectStorageMetadata(TEST_PROJECT_ID,
+          version, "user", HashUtils.MD5.getHashBytes(file), "127.0.0.1"), file);
+      testDbOperator.update(SQL_INSERT_PROJECT_VERSION, TEST_PROJECT_ID, version,
+          System.currentTimeMillis(), "user", resourceId);
+      resourceIds.put(version, resourceId);
+    }
+    return resourceIds;
+  }
+
+  private static List<Integer> fetchVersions() throws SQLException {
+    return testDbOperator.query(SQL_FETCH_VERSIONS, rs -> {
+      final List<Integer> versions = new ArrayList<>();
+      while (rs.next()) {
+        versions.add(rs.getInt(1));
+      }
+      return versions;
+    }, TEST_PROJECT_ID);
+  }
+
+  private static boolean exists(final LocalStorage storage, final String resourceId) {
+    return new File(storage.rootDirectory, resourceId).exists();
+  }
+
+  @Test
+  public void testBackgroundCleanup() throws Exception {
+    final LocalStorage localStorage = createLocalStorage();
+    final Map<Integer, String> resourceIds = uploadVersions(localStorage);
+    final StorageCleaner storageCleaner = createBackgroundCleaner(localStorage, testDbOperator);
+
+    // Keep the last 2 versions and version 4, which shares its artifact with version 2
+    storageCleaner.cleanupProjectArtifacts(TEST_PROJECT_ID, Arrays.asList(4));
+    storageCleaner.awaitCleanup(TEST_PROJECT_ID);
+
+    assertThat(exists(localStorage, resourceIds.get(1))).isFalse();
+    assertThat(exists(localStorage, resourceIds.get(3))).isFalse();
+    assertThat(exists(localStorage, resourceIds.get(2))).isTrue();
+    assertThat(exists(localStorage, resourceIds.get(5))).isTrue();
+    assertThat(exists(localStorage, resourceIds.get(6))).isTrue();
+    assertThat(fetchVersions()).containsExactly(2, 4, 5, 6);
+  }
+
+  @Test
+  public void testShutdownDrainsBackgroundCleanups() throws Exception {
+    final LocalStorage localStorage = createLocalStorage();
+    final Map<Integer, String> resourceIds = uploadVersions(localStorage);
+    final StorageCleaner storageCleaner = createBackgroundCleaner(localStorage, testDbOperator);
+
+    storageCleaner.cleanupProjectArtifacts(TEST_PROJECT_ID, Collections.emptyList());
+    storageCleaner.shutdown();
+    assertThat(storageCleaner.getPendingCleanupCount()).isEqualTo(0);
+    assertThat(exists(localStorage, resourceIds.get(1))).isFalse();
+    assertThat(fetchVersions()).containsExactly(5, 6);
+
+    // skipped once shut down
+    storageCleaner.cleanupProjectArtifacts(TEST_PROJECT_ID, Collections.emptyList());
+    assertThat(storageCleaner.getPendingCleanupCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void testBackgroundCleanupRecoversFromCrashBeforeDbCleanup() throws Exception {
+    final LocalStorage localStorage = createLocalStorage();
+    final Map<Integer, String> resourceIds = uploadVersions(localStorage);
+
+    // The cleanup stops after deleting the artifacts from the storage
+    final DatabaseOperator failingDbOperator =
+        new DatabaseOperator(new QueryRunner(testDbOperator.getDataSource())) {
+          @Override
+          public int[] batch(final String sqlCommand, final Object[]... params)
+              throws SQLException {
+            throw new SQLException("crash");
+          }
+        };
+    createBackgroundCleaner(localStorage, failingDbOperator)
+        .cleanupInBackground(TEST_PROJECT_ID, Arrays.asList(4));
+    assertThat(exists(localStorage, resourceIds.get(1))).isFalse();
+    assertThat(exists(localStorage, resourceIds.get(3))).isFalse();
+    assertThat(fetchVersions()).containsExactly(1, 2, 3, 4, 5, 6);
+
+    // The next cleanup removes the records of the missing artifacts
+    createBackgroundCleaner(localStorage, testDbOperator)
+        .cleanupInBackground(TEST_PROJECT_ID, Arrays.asList(4));
+    assertThat(fetchVersions()).containsExactly(2, 4, 5, 6);
+    assertThat(exists(localStorage, resourceIds.get(2))).isTrue();
+  }
+
+  @Test
+  public void testBackgroundCleanupRecoversFromCrashDuringStorageCleanup() throws Exception {
+    final LocalStorage localStorage = createLocalStorage();
+    final Map<Integer, String> resourceIds = uploadVersions(localStorage);
+
+    // Deleting one of the artifacts fails
+    final LocalStorage failingStorage = spy(localStorage);
+    doThrow(new RuntimeException("crash")).when(failingStorage)
+        .deleteProject(resourceIds.get(3));
+    createBackgroundCleaner(failingStorage, testDbOperator)
+        .cleanupInBackground(TEST_PROJECT_ID, Arrays.asList(4));
+
+    // The records of an artifact are only removed once it is deleted from the storage
+    assertThat(exists(localStorage, resourceIds.get(1))).isFalse();
+    assertThat(exists(localStorage, resourceIds.get(3))).isTrue();
+    assertThat(fetchVersions()).containsExactly(2, 3, 4, 5, 6);
+
+    createBackgroundCleaner(localStorage, testDbOperator)
+        .cleanupInBackground(TEST_PROJECT_ID, Arrays.asList(4));
+    assertThat(exists(localStorage, resourceIds.get(3))).isFalse();
+    assertThat(fetchVersions()).containsExactly(2, 4, 5, 6);
+  }
 }
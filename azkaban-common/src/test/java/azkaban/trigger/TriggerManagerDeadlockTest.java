@@ -21,8 +21,11 @@ import static org.mockito.Mockito.mock;
 import azkaban.Constants.ConfigurationKeys;
 import azkaban.executor.ActiveExecutors;
 import azkaban.executor.AlerterHolder;
+import azkaban.executor.ExecutionChangeStream;
 import azkaban.executor.ExecutionFinalizer;
 import azkaban.executor.ExecutorApiGateway;
+import azkaban.executor.ExecutorLoadDao;
+import azkaban.executor.ExecutorLoadMonitor;
 import azkaban.executor.ExecutorLoader;
 import azkaban.executor.ExecutorManager;
 import azkaban.executor.ExecutorManagerException;
@@ -31,6 +34,7 @@ import azkaban.executor.MockExecutorLoader;
 import azkaban.executor.RunningExecutions;
 import azkaban.executor.RunningExecutionsUpdater;
 import azkaban.executor.RunningExecutionsUpdaterThread;
+import azkaban.executor.selector.ExecutorScoringSelector.FlowMemoryEstimator;
 import azkaban.metrics.CommonMetrics;
 import azkaban.metrics.MetricsManager;
 import azkaban.trigger.builtin.CreateTriggerAction;
@@ -80,13 +84,15 @@ public class TriggerManagerDeadlockTest {
     final RunningExecutionsUpdaterThread updaterThread = getRunningExecutionsUpdaterThread();
     return new ExecutorManager(props, this.execLoader, this.commonMetrics, this.apiGateway,
         this.runningExecutions, activeExecutors, this.updaterStage, this.executionFinalizer,
-        updaterThread);
+        updaterThread, new ExecutorLoadMonitor(props, mock(ExecutorLoadDao.class)),
+        FlowMemoryEstimator.NONE);
   }
 
   private RunningExecutionsUpdaterThread getRunningExecutionsUpdaterThread() {
     return new RunningExecutionsUpdaterThread(new RunningExecutionsUpdater(
         this.updaterStage, this.alertHolder, this.commonMetrics, this.apiGateway,
-        this.runningExecutions, this.executionFinalizer, this.execLoader), this.runningExecutions);
+        this.runningExecutions, this.executionFinalizer, this.execLoader,
+        new ExecutionChangeStream(new Props())), this.runningExecutions);
   }
 
   @After
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import azkaban.Constants.ConfigurationKeys;
+import azkaban.executor.MockExecutorLoader;
+import azkaban.metrics.CommonMetrics;
+import azkaban.metrics.MetricsManager;
+import azkaban.test.TestUtils;
+import com.codahale.metrics.MetricRegistry;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.mail.MessagingException;
+import javax.mail.NoSuchProviderException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EmailDispatcherTest {
+
+  private static final List<String> RECIPIENTS = Collections.singletonList("to@example.com");
+
+  private Props props;
+  private MetricRegistry metricRegistry;
+  private CommonMetrics commonMetrics;
+  private List<String> sentSubjects;
+  private AtomicInteger connections;
+  private EmailDispatcher dispatcher;
+
+  @Before
+  public void setUp() {
+    this.props = new Props();
+    this.props.put("mail.sender", "azkaban@example.com");
+    this.props.put(ConfigurationKeys.MAIL_ASYNC_ENABLED, "true");
+    this.props.put(ConfigurationKeys.MAIL_ASYNC_THREADS, 1);
+    this.metricRegistry = new MetricRegistry();
+    this.commonMetrics = new CommonMetrics(new MetricsManager(this.metricRegistry));
+    this.sentSubjects = FakeMailSender.newSentSubjects();
+    this.connections = new AtomicInteger();
+  }
+
+  @After
+  public void tearDown() {
+    if (this.dispatcher != null) {
+      this.dispatcher.shutdown();
+    }
+  }
+
+  private Emailer createEmailer(final long sendDelayMs) {
+    return createEmailer(FakeMailSender.createMessageCreator(this.props, sendDelayMs,
+        this.sentSubjects, this.connections));
+  }
+
+  private Emailer createEmailer(final EmailMessageCreator messageCreator) {
+    this.dispatcher = new EmailDispatcher(this.props, this.commonMetrics);
+    return new Emailer(this.props, this.commonMetrics, messageCreator, new MockExecutorLoader(),
+        this.dispatcher);
+  }
+
+  /**
+   * @return a message creator failing to create the first senderFailures senders
+   */
+  private EmailMessageCreator createFailingMessageCreator(final int senderFailures) {
+    final AtomicInteger failuresLeft = new AtomicInteger(senderFailures);
+    return new EmailMessageCreator(this.props) {
+      @Override
+      public JavaxMailSender createSender(final Properties senderProps)
+          throws NoSuchProviderException {
+        if (failuresLeft.getAndDecrement() > 0) {
+          throw new NoSuchProviderException("Mocked sender failure");
+        }
+        return new FakeMailSender(senderProps, 0, EmailDispatcherTest.this.sentSubjects,
+            EmailDispatcherTest.this.connections);
+      }
+    };
+  }
+
+  @Test
+  public void testSendOnOneConnection() {
+    final Emailer emailer = createEmailer(0);
+    emailer.sendEmail(RECIPIENTS, "subject1", "body");
+    emailer.sendEmail(RECIPIENTS, "subject2", "body");
+    emailer.sendEmail(RECIPIENTS, "subject3", "body");
+
+    TestUtils.await().until(() -> this.sentSubjects.size() == 3);
+    assertThat(this.sentSubjects).containsExactly("subject1", "subject2", "subject3");
+    assertThat(this.connections.get()).isEqualTo(1);
+    assertThat(this.metricRegistry.meter(CommonMetrics.SEND_EMAIL_SUCCESS_METER_NAME).getCount())
+        .isEqualTo(3);
+  }
+
+  @Test
+  public void testCoalesceQueuedEmails() {
+    final Emailer emailer = createEmailer(500);
+    emailer.sendEmail(RECIPIENTS, "sending", "body");
+    TestUtils.await().until(() -> this.dispatcher.getQueueSize() == 0);
+
+    // While the first email is being sent, the same email is only queued once
+    emailer.sendEmail(RECIPIENTS, "queued", "body");
+    emailer.sendEmail(RECIPIENTS, "queued", "body");
+    emailer.sendEmail(Collections.singletonList("other@example.com"), "queued", "body");
+
+    TestUtils.await().until(() -> this.sentSubjects.size() == 3);
+    assertThat(this.sentSubjects).containsExactly("sending", "queued", "queued");
+    assertThat(this.metricRegistry.meter(CommonMetrics.EMAIL_COALESCED_METER_NAME).getCount())
+        .isEqualTo(1);
+  }
+
+  @Test
+  public void testCoalesceQueuedAlertsOfSameFlow() {
+    final EmailMessageCreator messageCreator = FakeMailSender.createMessageCreator(this.props,
+        500, this.sentSubjects, this.connections);
+    this.dispatcher = new EmailDispatcher(this.props, this.commonMetrics);
+    dispatchAlert(messageCreator, RECIPIENTS, "sending", "error 1.flow");
+    TestUtils.await().until(() -> this.dispatcher.getQueueSize() == 0);
+
+    // While the first alert is being sent, the later failures of the same flow to the same
+    // recipients are sent once, whatever their content
+    dispatchAlert(messageCreator, RECIPIENTS, "execution 2 failed", "error 1.flow");
+    dispatchAlert(messageCreator, RECIPIENTS, "execution 3 failed", "error 1.flow");
+    dispatchAlert(messageCreator, RECIPIENTS, "other flow failed", "error 1.other");
+    dispatchAlert(messageCreator, Collections.singletonList("other@example.com"),
+        "execution 3 failed", "error 1.flow");
+
+    TestUtils.await().until(() -> this.sentSubjects.size() == 4);
+    assertThat(this.sentSubjects).containsExactly("sending", "execution 2 failed",
+        "other flow failed", "execution 3 failed");
+    assertThat(this.metricRegistry.meter(CommonMetrics.EMAIL_COALESCED_METER_NAME).getCount())
+        .isEqualTo(1);
+  }
+
+  private void dispatchAlert(final EmailMessageCreator messageCreator,
+      final List<String> recipients, final String subject, final String alertKey) {
+    final EmailMessage message = messageCreator.createMessage();
+    message.addAllToAddress(recipients);
+    message.setSubject(subject);
+    message.setBody("body");
+    assertThat(this.dispatcher.dispatch(message, alertKey, sender -> {
+      try {
+        message.sendEmail(sender);
+      } catch (final MessagingException e) {
+        throw new IllegalStateException(e);
+      }
+    }, e -> {
+    })).isTrue();
+  }
+
+  @Test
+  public void testRejectWhenQueueIsFull() {
+    this.props.put(ConfigurationKeys.MAIL_ASYNC_QUEUE_SIZE, 1);
+    this.props.put(ConfigurationKeys.MAIL_ASYNC_ENQUEUE_TIMEOUT_MILLIS, 0);
+    final Emailer emailer = createEmailer(500);
+    emailer.sendEmail(RECIPIENTS, "sending", "body");
+    TestUtils.await().until(() -> this.dispatcher.getQueueSize() == 0);
+
+    emailer.sendEmail(RECIPIENTS, "queued", "body");
+    emailer.sendEmail(RECIPIENTS, "rejected", "body");
+
+    TestUtils.await().until(() -> this.sentSubjects.size() == 2);
+    assertThat(this.sentSubjects).containsExactly("sending", "queued");
+    assertThat(this.metricRegistry.meter(CommonMetrics.EMAIL_REJECTED_METER_NAME).getCount())
+        .isEqualTo(1);
+  }
+
+  @Test
+  public void testRetrySenderCreationOnce() {
+    final Emailer emailer = createEmailer(createFailingMessageCreator(1));
+    emailer.sendEmail(RECIPIENTS, "subject", "body");
+
+    TestUtils.await().until(() -> this.sentSubjects.size() == 1);
+    assertThat(this.metricRegistry.meter(CommonMetrics.SEND_EMAIL_SUCCESS_METER_NAME).getCount())
+        .isEqualTo(1);
+    assertThat(this.metricRegistry.meter(CommonMetrics.SEND_EMAIL_FAIL_METER_NAME).getCount())
+        .isZero();
+  }
+
+  @Test
+  public void testReportSenderCreationFailure() {
+    final Emailer emailer = createEmailer(createFailingMessageCreator(2));
+    emailer.sendEmail(RECIPIENTS, "failed", "body");
+    TestUtils.await().until(() ->
+        this.metricRegistry.meter(CommonMetrics.SEND_EMAIL_FAIL_METER_NAME).getCount() == 1);
+
+    // The next email opens a new sender
+    emailer.sendEmail(RECIPIENTS, "sent", "body");
+    TestUtils.await().until(() -> this.sentSubjects.size() == 1);
+    assertThat(this.sentSubjects).containsExactly("sent");
+  }
+
+  @Test
+  public void testShutdownSendsQueuedEmails() {
+    final Emailer emailer = createEmailer(100);
+    emailer.sendEmail(RECIPIENTS, "subject1", "body");
+    emailer.sendEmail(RECIPIENTS, "subject2", "body");
+    emailer.sendEmail(RECIPIENTS, "subject3", "body");
+
+    this.dispatcher.shutdown();
+    assertThat(this.sentSubjects).containsExactly("subject1", "subject2", "subject3");
+
+    // Emails are rejected once shut down
+    emailer.sendEmail(RECIPIENTS, "rejected", "body");
+    assertThat(this.metricRegistry.meter(CommonMetrics.EMAIL_REJECTED_METER_NAME).getCount())
+        .isEqualTo(1);
+  }
+}
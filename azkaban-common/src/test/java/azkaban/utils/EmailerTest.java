@@ -25,6 +25,7 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import azkaban.Constants.ConfigurationKeys;
 import azkaban.executor.ExecutableFlow;
 import azkaban.executor.Executor;
 import azkaban.executor.ExecutorLoader;
@@ -41,7 +42,10 @@ import com.codahale.metrics.MetricRegistry;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.mail.internet.AddressException;
+import org.awaitility.Awaitility;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -176,4 +180,30 @@ public class EmailerTest {
     emailer.alertOnError(exFlow);
     verify(commonMetrics, never()).markSendEmailFail();
   }
+
+  @Test
+  public void testAlertOnErrorDoesNotWaitForSlowMailServer() throws Exception {
+    final Flow flow = this.project.getFlow("jobe");
+    flow.addFailureEmails(this.receiveAddrList);
+    final ExecutableFlow exFlow = new ExecutableFlow(this.project, flow);
+
+    this.props.put("mail.sender", "azkaban@domain.com");
+    this.props.put(ConfigurationKeys.MAIL_ASYNC_ENABLED, "true");
+    final List<String> sentSubjects = FakeMailSender.newSentSubjects();
+    final CommonMetrics commonMetrics = new CommonMetrics(new MetricsManager(new MetricRegistry()));
+    final EmailDispatcher dispatcher = new EmailDispatcher(this.props, commonMetrics);
+    final Emailer emailer = new Emailer(this.props, commonMetrics,
+        FakeMailSender.createMessageCreator(this.props, 2000, sentSubjects, new AtomicInteger()),
+        this.executorLoader, dispatcher);
+    try {
+      final long startMs = System.currentTimeMillis();
+      emailer.alertOnError(exFlow);
+      assertThat(System.currentTimeMillis() - startMs).isLessThan(1000);
+
+      Awaitility.await().atMost(10, TimeUnit.SECONDS).until(() -> !sentSubjects.isEmpty());
+      assertThat(sentSubjects).containsExactly("Flow 'jobe' has failed on azkaban");
+    } finally {
+      dispatcher.shutdown();
+    }
+  }
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.utils;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.mail.Address;
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.NoSuchProviderException;
+
+/**
+ * In-process stand-in for an SMTP server, taking sendDelayMs to accept each message like a slow
+ * mail relay.
+ */
+public class FakeMailSender extends JavaxMailSender {
+
+  private final long sendDelayMs;
+  private final List<String> sentSubjects;
+  private final AtomicInteger connections;
+  private volatile boolean connected = false;
+
+  public FakeMailSender(final Properties props, final long sendDelayMs,
+      final List<String> sentSubjects, final AtomicInteger connections)
+      throws NoSuchProviderException {
+    super(props);
+    this.sendDelayMs = sendDelayMs;
+    this.sentSubjects = sentSubjects;
+    this.connections = connections;
+  }
+
+  /**
+   * @return a message creator whose senders record the subjects of the sent messages in
+   * sentSubjects and count their connections in connections
+   */
+  public static EmailMessageCreator createMessageCreator(final Props props,
+      final long sendDelayMs, final List<String> sentSubjects, final AtomicInteger connections) {
+    return new EmailMessageCreator(props) {
+      @Override
+      public JavaxMailSender createSender(final Properties senderProps)
+          throws NoSuchProviderException {
+        return new FakeMailSender(senderProps, sendDelayMs, sentSubjects, connections);
+      }
+    };
+  }
+
+  public static List<String> newSentSubjects() {
+    return new CopyOnWriteArrayList<>();
+  }
+
+  @Override
+  public void connect(final String mailHost, final int mailPort, final String mailUser,
+      final String mailPassword) {
+    connect();
+  }
+
+  @Override
+  public void connect() {
+    this.connections.incrementAndGet();
+    this.connected = true;
+  }
+
+  @Override
+  public boolean isConnected() {
+    return this.connected;
+  }
+
+  @Override
+  public void sendMessage(final Message message, final Address[] recipients)
+      throws MessagingException {
+    if (!this.connected) {
+      throw new MessagingException("Not connected");
+    }
+    try {
+      Thread.sleep(this.sendDelayMs);
+    } catch (final InterruptedException e) {
+      throw new MessagingException("Interrupted", e);
+    }
+    this.sentSubjects.add(message.getSubject());
+  }
+
+  @Override
+  public void close() {
+    this.connected = false;
+  }
+}
@@ -107,6 +107,24 @@ public class DatabaseTransOperator {
     }
   }
 
+  /**
+   * Execute a batch operation on the connection of this transaction.
+   *
+   * @param sqlCommand sqlCommand template
+   * @param params parameters, one array per row
+   * @return number of rows affected per statement
+   */
+  public int[] batch(final String sqlCommand, final Object[]... params) throws SQLException {
+    try {
+      return this.queryRunner.batch(this.conn, sqlCommand, params);
+    } catch (final SQLException ex) {
+      //RETRY Logic should be implemented here if needed.
+      throw ex;
+    } finally {
+      // Note: CAN NOT CLOSE CONNECTION HERE.
+    }
+  }
+
   /**
    * @return the JDBC connection associated with this operator.
    */
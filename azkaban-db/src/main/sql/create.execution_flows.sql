@@ -30,3 +30,5 @@ CREATE INDEX executor_id
   ON execution_flows (executor_id);
 CREATE INDEX ex_flows_staus
   ON execution_flows (status);
+CREATE INDEX ex_flows_update_time
+  ON execution_flows (update_time);
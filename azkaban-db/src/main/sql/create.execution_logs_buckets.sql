@@ -0,0 +1,12 @@
+-- Time buckets of the execution logs, when execution.logs.buckets.enabled is set. The logs
+-- uploaded during a bucket are stored in the table execution_logs_<bucket_id>, which is dropped
+-- as a whole once end_time, the end of the bucket when it was created, is past the retention.
+-- Log reads are routed to the buckets by execution id.
+CREATE TABLE execution_logs_buckets (
+  bucket_id   BIGINT NOT NULL,
+  min_exec_id INT    NOT NULL,
+  max_exec_id INT    NOT NULL,
+  start_time  BIGINT NOT NULL,
+  end_time    BIGINT NOT NULL,
+  PRIMARY KEY (bucket_id)
+);
@@ -0,0 +1,11 @@
+CREATE TABLE executor_load (
+  executor_id              INT    NOT NULL PRIMARY KEY,
+  cpu_usage                DOUBLE NOT NULL,
+  remaining_memory_mb      BIGINT NOT NULL,
+  remaining_memory_percent DOUBLE NOT NULL,
+  remaining_flow_capacity  INT    NOT NULL,
+  num_running_flows        INT    NOT NULL,
+  num_queued_flows         INT    NOT NULL,
+  last_dispatched_time     BIGINT NOT NULL,
+  report_time              BIGINT NOT NULL
+);
@@ -5,6 +5,7 @@ CREATE TABLE project_flows (
   modified_time BIGINT NOT NULL,
   encoding_type TINYINT,
   json          MEDIUMBLOB,
+  digest        VARCHAR(64),
   PRIMARY KEY (project_id, version, flow_id)
 );
 
@@ -0,0 +1,7 @@
+CREATE TABLE project_metadata_blobs (
+  project_id    INT         NOT NULL,
+  digest        VARCHAR(64) NOT NULL,
+  encoding_type TINYINT,
+  data          MEDIUMBLOB,
+  PRIMARY KEY (project_id, digest)
+);
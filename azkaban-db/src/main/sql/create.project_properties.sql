@@ -5,6 +5,7 @@ CREATE TABLE project_properties (
   modified_time BIGINT NOT NULL,
   encoding_type TINYINT,
   property      BLOB,
+  digest        VARCHAR(64),
   PRIMARY KEY (project_id, version, name)
 );
 
@@ -0,0 +1,9 @@
+CREATE TABLE warm_pod_claims (
+  pod_name   VARCHAR(128) NOT NULL,
+  exec_id    INT          NOT NULL,
+  claim_time BIGINT       NOT NULL,
+  PRIMARY KEY (pod_name)
+);
+
+CREATE INDEX warm_pod_claims_exec_id
+  ON warm_pod_claims (exec_id);
@@ -0,0 +1,58 @@
+-- DB Migration from release 3.105.0 to 3.106.0
+-- Executors push their load (cpu, memory, running and queued flows) to executor_load at a fixed
+-- rate when azkaban.executor.load.report.enabled is set, so web servers no longer need to poll
+-- each executor's /serverStatistics endpoint.
+--
+CREATE TABLE executor_load (
+  executor_id              INT    NOT NULL PRIMARY KEY,
+  cpu_usage                DOUBLE NOT NULL,
+  remaining_memory_mb      BIGINT NOT NULL,
+  remaining_memory_percent DOUBLE NOT NULL,
+  remaining_flow_capacity  INT    NOT NULL,
+  num_running_flows        INT    NOT NULL,
+  num_queued_flows         INT    NOT NULL,
+  last_dispatched_time     BIGINT NOT NULL,
+  report_time              BIGINT NOT NULL
+);
+
+-- The execution search index of web servers picks up updated executions by update_time.
+CREATE INDEX ex_flows_update_time
+  ON execution_flows (update_time);
+
+-- Executions dispatched to a pre-warmed flow container pod are recorded here. The pod waits for
+-- its row to learn the execution it has to run.
+CREATE TABLE warm_pod_claims (
+  pod_name   VARCHAR(128) NOT NULL,
+  exec_id    INT          NOT NULL,
+  claim_time BIGINT       NOT NULL,
+  PRIMARY KEY (pod_name)
+);
+
+CREATE INDEX warm_pod_claims_exec_id
+  ON warm_pod_claims (exec_id);
+
+-- Flows and properties unchanged between project versions are stored once, in
+-- project_metadata_blobs, and referenced by digest from project_flows and project_properties.
+-- Rows without a digest keep their data inline.
+ALTER TABLE project_flows ADD COLUMN digest VARCHAR(64);
+ALTER TABLE project_properties ADD COLUMN digest VARCHAR(64);
+
+CREATE TABLE project_metadata_blobs (
+  project_id    INT         NOT NULL,
+  digest        VARCHAR(64) NOT NULL,
+  encoding_type TINYINT,
+  data          MEDIUMBLOB,
+  PRIMARY KEY (project_id, digest)
+);
+
+-- Time buckets of the execution logs, when execution.logs.buckets.enabled is set. The logs
+-- uploaded during a bucket are stored in the table execution_logs_<bucket_id>, which is dropped
+-- as a whole once end_time, the end of the bucket when it was created, is past the retention.
+CREATE TABLE execution_logs_buckets (
+  bucket_id   BIGINT NOT NULL,
+  min_exec_id INT    NOT NULL,
+  max_exec_id INT    NOT NULL,
+  start_time  BIGINT NOT NULL,
+  end_time    BIGINT NOT NULL,
+  PRIMARY KEY (bucket_id)
+);
@@ -17,6 +17,7 @@
 package azkaban.container;
 
 import static azkaban.ServiceProvider.SERVICE_PROVIDER;
+import static java.util.Objects.requireNonNull;
 
 import azkaban.AzkabanCommonModule;
 import azkaban.Constants;
@@ -45,19 +46,24 @@ import azkaban.executor.FetchActiveFlowDao;
 import azkaban.executor.JdbcExecutorLoader;
 import azkaban.executor.NumExecutionsDao;
 import azkaban.executor.Status;
+import azkaban.executor.container.WarmPodClaimDao;
+import azkaban.executor.container.WarmPodPool;
 import azkaban.jobtype.HadoopJobUtils;
 import azkaban.jobtype.HadoopProxy;
 import azkaban.jobtype.JobTypeManager;
 import azkaban.metrics.CommonMetrics;
 import azkaban.metrics.MetricsManager;
 import azkaban.project.JdbcProjectImpl;
+import azkaban.project.ProjectFileHandler;
 import azkaban.project.ProjectLoader;
 import azkaban.security.commons.HadoopSecurityManager;
 import azkaban.server.AzkabanServer;
+import azkaban.storage.ProjectStorageManager;
 import azkaban.utils.Props;
 import azkaban.utils.StdOutErrRedirect;
 import azkaban.utils.Utils;
 import com.codahale.metrics.MetricRegistry;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import java.io.File;
@@ -68,6 +74,7 @@ import java.nio.file.Paths;
 import java.security.KeyStore;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -86,12 +93,14 @@ public class FlowContainer {
   private static final String JOBTYPE_DIR = "jobtypes";
   private static final String CONF_ARG = "-conf";
   private static final String CONF_DIR = "conf";
+  private static final long WARM_POD_CLAIM_POLL_INTERVAL_MS = 1000;
 
   private static final Logger logger = Logger.getLogger(FlowContainer.class);
 
   // FlowRunnerManager specific code
   private final ExecutorService executorService;
   private final ExecutorLoader executorLoader;
+  private final WarmPodClaimDao warmPodClaimDao;
   private final ProjectLoader projectLoader;
   private final JobTypeManager jobTypeManager;
   //private final AzkabanEventReporter azkabanEventReporter;
@@ -129,6 +138,7 @@ public class FlowContainer {
         new QueryRunner(dataSource));
 
     this.executorLoader = setupDao(dbOperator);
+    this.warmPodClaimDao = new WarmPodClaimDao(dbOperator);
 
     // project Loader
     this.projectLoader = new JdbcProjectImpl(this.azKabanProps, dbOperator);
@@ -183,17 +193,24 @@ public class FlowContainer {
   public static void main(final String[] args) throws IOException, ExecutorManagerException {
     // Redirect all std out and err messages into log4j
     StdOutErrRedirect.redirectOutAndErrToLog();
-    // Get all the arguments
-    final String execIdStr = args[0];
-    final String projectZipName = args[1];
-    // Process Execution ID.
+    // A warm pod is started before its execution is known, the execution is read from its claim
+    final String warmPodName = System.getenv(WarmPodPool.WARM_POD_NAME_ENV);
     int execId = 0;
-    try {
-      execId = Integer.parseInt(execIdStr);
-    } catch (NumberFormatException ne) {
-      System.out.printf("Execution ID %s is invalid %n", args[0]);
+    String projectZipName = null;
+    if (warmPodName == null) {
+      // Get all the arguments
+      final String execIdStr = args[0];
+      projectZipName = args[1];
+      // Process Execution ID.
+      try {
+        execId = Integer.parseInt(execIdStr);
+      } catch (NumberFormatException ne) {
+        System.out.printf("Execution ID %s is invalid %n", args[0]);
+      }
+      System.out.printf("Execution ID = %d%n", execId);
+    } else {
+      System.out.printf("Warm pod %s waiting for an execution%n", warmPodName);
     }
-    System.out.printf("Execution ID = %d%n", execId);
 
     // Setup work directories
     final Path currentWorkingDir = Paths.get("").toAbsolutePath();
@@ -205,13 +222,15 @@ public class FlowContainer {
     // TODO: Need to revisit
     System.out.println("Creating project dir");
     Files.createDirectory(projectDirPath);
-    Path projectZipPath = Paths.get(projectDirPath.toString(), projectZipName);
-    System.out.println("moving projectDir:" + projectZipName + ": to " +
-        projectZipPath);
-    Files.move(Paths.get(projectZipName), projectZipPath);
-    // TODO : revisit this logic,
-    // Unzip the project zip
-    FlowContainer.unzipFile(projectZipPath.toString(), projectDirPath);
+    if (projectZipName != null) {
+      Path projectZipPath = Paths.get(projectDirPath.toString(), projectZipName);
+      System.out.println("moving projectDir:" + projectZipName + ": to " +
+          projectZipPath);
+      Files.move(Paths.get(projectZipName), projectZipPath);
+      // TODO : revisit this logic,
+      // Unzip the project zip
+      FlowContainer.unzipFile(projectZipPath.toString(), projectDirPath);
+    }
 
     // TODO : Deepak - throw away after directory setup is final.
     Path pwd = Paths.get("").toAbsolutePath();
@@ -232,10 +251,73 @@ public class FlowContainer {
     final FlowContainer flowContainer =
         new FlowContainer(projectDirPath, props);
 
+    if (warmPodName != null) {
+      final Optional<Integer> claimedExecId = claimExecution(flowContainer.warmPodClaimDao,
+          warmPodName, WARM_POD_CLAIM_POLL_INTERVAL_MS, flowContainer.executorLoader,
+          SERVICE_PROVIDER.getInstance(ProjectStorageManager.class), projectDirPath);
+      if (!claimedExecId.isPresent()) {
+        return;
+      }
+      execId = claimedExecId.get();
+      System.out.printf("Execution ID = %d%n", execId);
+    }
+
     // Use some execId to execute the flow
     flowContainer.submitFlow(execId);
   }
 
+  /**
+   * Wait until the warm pod running this container is claimed for an execution, then download the
+   * project of the execution, which isn't known when the pod starts, into the project directory.
+   *
+   * @return the claimed execution id, or empty if interrupted while waiting.
+   */
+  @VisibleForTesting
+  static Optional<Integer> claimExecution(final WarmPodClaimDao warmPodClaimDao,
+      final String podName, final long pollIntervalMs, final ExecutorLoader executorLoader,
+      final ProjectStorageManager projectStorageManager, final Path projectDirPath)
+      throws ExecutorManagerException, IOException {
+    final Optional<Integer> execId = waitForClaim(warmPodClaimDao, podName, pollIntervalMs);
+    if (execId.isPresent()) {
+      final ExecutableFlow flow = executorLoader.fetchExecutableFlow(execId.get());
+      if (flow == null) {
+        throw new ExecutorManagerException("Error loading flow with exec " + execId.get());
+      }
+      final ProjectFileHandler projectFile = requireNonNull(projectStorageManager
+          .getProjectFile(flow.getProjectId(), flow.getVersion()));
+      try {
+        unzipFile(projectFile.getLocalFile().getPath(), projectDirPath);
+      } finally {
+        projectFile.deleteLocalFile();
+      }
+    }
+    return execId;
+  }
+
+  /**
+   * Wait until the warm pod running this container is claimed for an execution. The container is
+   * fully set up by then, which saves its start time to the execution.
+   *
+   * The claims of the pool deleting the pod are ignored.
+   *
+   * @return the claimed execution id, or empty if interrupted while waiting.
+   */
+  private static Optional<Integer> waitForClaim(final WarmPodClaimDao warmPodClaimDao,
+      final String podName, final long pollIntervalMs) throws ExecutorManagerException {
+    Optional<Integer> execId;
+    while (!(execId = warmPodClaimDao.fetchClaimedExecution(podName)).isPresent()
+        || execId.get() == WarmPodClaimDao.REAPED_EXECUTION_ID) {
+      try {
+        Thread.sleep(pollIntervalMs);
+      } catch (final InterruptedException e) {
+        logger.info("Interrupted while waiting for a claim of warm pod " + podName);
+        Thread.currentThread().interrupt();
+        return Optional.empty();
+      }
+    }
+    return execId;
+  }
+
   // Set Azkaban Props
   private static Props setAzkabanProps(final Path jobtypePluginPath) {
     final Map<String, String> propsMap = new HashMap<>();
@@ -315,7 +397,7 @@ public class FlowContainer {
     final ExecutionFlowDao executionFlowDao = new ExecutionFlowDao(dbOperator, null);
     final ExecutorDao executorDao = new ExecutorDao(dbOperator);
     final ExecutionJobDao executionJobDao = new ExecutionJobDao(dbOperator);
-    final ExecutionLogsDao executionLogsDao = new ExecutionLogsDao(dbOperator);
+    final ExecutionLogsDao executionLogsDao = new ExecutionLogsDao(dbOperator, this.azKabanProps);
     final ExecutorEventsDao executorEventsDao = new ExecutorEventsDao(dbOperator);
     final ActiveExecutingFlowsDao activeExecutingFlowsDao =
         new ActiveExecutingFlowsDao(dbOperator);
@@ -46,6 +46,7 @@ import azkaban.metrics.MetricsManager;
 import azkaban.server.AzkabanServer;
 import azkaban.server.IMBeanRegistrable;
 import azkaban.server.MBeanRegistrationManager;
+import azkaban.utils.EmailDispatcher;
 import azkaban.utils.FileIOUtils;
 import azkaban.utils.Props;
 import azkaban.utils.StdOutErrRedirect;
@@ -96,6 +97,9 @@ public class AzkabanExecutorServer implements IMBeanRegistrable {
   private final FlowRunnerManager runnerManager;
   private final FlowRampManager rampManager;
   private final MetricsManager metricsManager;
+  private final ExecutorLoadReporter loadReporter;
+  private final ServerStatisticsSampler statisticsSampler;
+  private final EmailDispatcher emailDispatcher;
   private final Props props;
   private final Server server;
   private final Context root;
@@ -106,6 +110,9 @@ public class AzkabanExecutorServer implements IMBeanRegistrable {
       final FlowRunnerManager runnerManager,
       final FlowRampManager rampManager,
       final MetricsManager metricsManager,
+      final ExecutorLoadReporter loadReporter,
+      final ServerStatisticsSampler statisticsSampler,
+      final EmailDispatcher emailDispatcher,
       @Named(EXEC_JETTY_SERVER) final Server server,
       @Named(EXEC_ROOT_CONTEXT) final Context root) {
     this.props = props;
@@ -114,6 +121,9 @@ public class AzkabanExecutorServer implements IMBeanRegistrable {
     this.rampManager = rampManager;
 
     this.metricsManager = metricsManager;
+    this.loadReporter = loadReporter;
+    this.statisticsSampler = statisticsSampler;
+    this.emailDispatcher = emailDispatcher;
     this.server = server;
     this.root = root;
   }
@@ -179,6 +189,8 @@ public class AzkabanExecutorServer implements IMBeanRegistrable {
 
         final String host = AzkabanExecutorServer.app.getHost();
         final int port = AzkabanExecutorServer.app.getPort();
+        // so that no load report is written back once the executor is removed
+        AzkabanExecutorServer.app.loadReporter.shutdown();
         try {
           AzkabanExecutorServer.logger.info(String
               .format("Removing executor(host: %s, port: %s) entry from database...", host, port));
@@ -246,6 +258,9 @@ public class AzkabanExecutorServer implements IMBeanRegistrable {
 
     loadCustomJMXAttributeProcessor(this.props);
 
+    // Before the statistics are served or reported
+    this.statisticsSampler.start();
+
     // Before starting, make FlowRunnerManager accept executions if active=true
     initActive();
 
@@ -304,14 +319,15 @@ public class AzkabanExecutorServer implements IMBeanRegistrable {
       final String host = requireNonNull(getHost());
       final int port = getPort();
       checkState(port != -1);
-      final Executor executor = this.executionLoader.fetchExecutor(host, port);
+      Executor executor = this.executionLoader.fetchExecutor(host, port);
       if (executor == null) {
         logger.info("This executor wasn't found in the DB. Adding self.");
-        this.executionLoader.addExecutor(host, port);
+        executor = this.executionLoader.addExecutor(host, port);
       } else {
         logger.info("This executor is already in the DB. Found: " + executor);
       }
       // If executor already exists, ignore it
+      this.loadReporter.start(executor.getId());
     } catch (final ExecutorManagerException e) {
       logger.error("Error inserting executor entry into DB", e);
       throw e;
@@ -516,10 +532,14 @@ public class AzkabanExecutorServer implements IMBeanRegistrable {
    * Shutdown the server now! (unsafe)
    */
   public void shutdownNow() throws Exception {
+    this.loadReporter.shutdown();
+    this.statisticsSampler.shutdown();
     this.server.stop();
     this.server.destroy();
     getFlowRampManager().shutdownNow();
     getFlowRunnerManager().shutdownNow();
+    // after the flows, which may still alert when they are killed
+    this.emailDispatcher.shutdown();
     this.mbeanRegistrationManager.closeMBeans();
   }
 
@@ -66,14 +66,16 @@ public class ExecJettyServerModule extends AbstractModule {
   @Provides
   @Named(EXEC_ROOT_CONTEXT)
   @Singleton
-  private Context createRootContext(@Named(EXEC_JETTY_SERVER) final Server server) {
+  private Context createRootContext(@Named(EXEC_JETTY_SERVER) final Server server,
+      final ServerStatisticsSampler statisticsSampler) {
     final Context root = new Context(server, "/", Context.SESSIONS);
     root.setMaxFormContentSize(MAX_FORM_CONTENT_SIZE);
 
     root.addServlet(new ServletHolder(new ExecutorServlet()), "/executor");
     root.addServlet(new ServletHolder(new JMXHttpServlet()), "/jmx");
     root.addServlet(new ServletHolder(new StatsServlet()), "/stats");
-    root.addServlet(new ServletHolder(new ServerStatisticsServlet()), "/serverStatistics");
+    root.addServlet(new ServletHolder(new ServerStatisticsServlet(statisticsSampler)),
+        "/serverStatistics");
     return root;
   }
 
@@ -17,11 +17,15 @@
 package azkaban.execapp;
 
 import azkaban.execapp.metric.ProjectCacheHitRatio;
+import azkaban.jobtype.JobClassLoaderCache;
+import azkaban.jobtype.JobTypeManager;
 import azkaban.metrics.MetricsManager;
 import com.codahale.metrics.Counter;
 import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.Timer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
@@ -44,6 +48,13 @@ public class ExecMetrics {
   public static final String JOB_SUCCESS_METER_NAME = "job-success-meter";
   public static final String JOB_KILLED_METER_NAME = "job-killed-meter";
   public static final String POLLING_FREQUENCY_METER_NAME = "polling-frequency-meter";
+  public static final String EMPTY_POLL_METER_NAME = "empty-poll-meter";
+  public static final String EMPTY_POLL_RATIO_NAME = "empty-poll-ratio";
+  public static final String POLL_CLAIM_TIMER_NAME = "poll-claim-timer";
+  public static final String JOBTYPE_CLASSLOADER_COUNT_NAME = "jobtype-classloader-count";
+  public static final String JOBTYPE_LOADED_CLASS_COUNT_NAME = "jobtype-loaded-class-count";
+  public static final String METASPACE_USED_NAME = "metaspace-used";
+  private static final String METASPACE_POOL_NAME = "Metaspace";
 
   private final MetricsManager metricsManager;
   private final Timer flowSetupTimer;
@@ -57,6 +68,8 @@ public class ExecMetrics {
   private final Meter jobSuccessMeter;
   private final Meter jobKilledMeter;
   private final Meter pollingFrequencyMeter;
+  private final Meter emptyPollMeter;
+  private final Timer pollClaimTimer;
   // TODO ypadron-in: add metrics to measure the time between flow submission and flow execution
   // preparation/start after clock skew issues in execution times are resolved.
 
@@ -78,6 +91,9 @@ public class ExecMetrics {
     this.jobSuccessMeter = this.metricsManager.addMeter(JOB_SUCCESS_METER_NAME);
     this.jobKilledMeter = this.metricsManager.addMeter(JOB_KILLED_METER_NAME);
     this.pollingFrequencyMeter = this.metricsManager.addMeter(POLLING_FREQUENCY_METER_NAME);
+    this.emptyPollMeter = this.metricsManager.addMeter(EMPTY_POLL_METER_NAME);
+    this.metricsManager.addGauge(EMPTY_POLL_RATIO_NAME, this::getEmptyPollRatio);
+    this.pollClaimTimer = this.metricsManager.addTimer(POLL_CLAIM_TIMER_NAME);
   }
 
   ProjectCacheHitRatio getProjectCacheHitRatio() {
@@ -91,6 +107,32 @@ public class ExecMetrics {
         .addGauge(NUM_QUEUED_FLOWS_NAME, flowRunnerManager::getNumQueuedFlows);
   }
 
+  /**
+   * Add the metrics of the jobtype classloaders. Metaspace can't be attributed to a classloader,
+   * so the classes loaded by the classloaders of each jobtype are reported along with the JVM
+   * metaspace, to tell which jobtype fills it.
+   */
+  public void addJobTypeManagerMetrics(final JobTypeManager jobTypeManager) {
+    final JobClassLoaderCache classLoaderCache = jobTypeManager.getClassLoaderCache();
+    this.metricsManager
+        .addGauge(JOBTYPE_CLASSLOADER_COUNT_NAME, classLoaderCache::getClassLoaderCount);
+    classLoaderCache.setJobTypeListener(jobType -> this.metricsManager.addGauge(
+        getJobTypeLoadedClassCountName(jobType),
+        () -> classLoaderCache.getLoadedClassCount(jobType)));
+    for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (METASPACE_POOL_NAME.equals(pool.getName())) {
+        this.metricsManager.addGauge(METASPACE_USED_NAME, () -> pool.getUsage().getUsed());
+      }
+    }
+  }
+
+  /**
+   * @return the name of the gauge of the classes loaded by the classloaders of the jobtype
+   */
+  public static String getJobTypeLoadedClassCountName(final String jobType) {
+    return JOBTYPE_LOADED_CLASS_COUNT_NAME + "-" + jobType;
+  }
+
   /**
    * @return the {@link Timer.Context} for the timer.
    */
@@ -170,4 +212,26 @@ public class ExecMetrics {
     this.pollingFrequencyMeter.mark();
   }
 
+  /**
+   * Record an execution poll event which found no execution.
+   */
+  public void markEmptyPoll() {
+    this.emptyPollMeter.mark();
+  }
+
+  /**
+   * @return the {@link Timer.Context} for the time taken to claim executions in a poll.
+   */
+  public Timer.Context getPollClaimTimerContext() {
+    return this.pollClaimTimer.time();
+  }
+
+  /**
+   * @return the ratio of polls which found no execution over the last minute.
+   */
+  double getEmptyPollRatio() {
+    final double pollRate = this.pollingFrequencyMeter.getOneMinuteRate();
+    return pollRate > 0 ? this.emptyPollMeter.getOneMinuteRate() / pollRate : 0;
+  }
+
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.execapp;
+
+import azkaban.Constants.ConfigurationKeys;
+import azkaban.executor.ExecutorInfo;
+import azkaban.executor.ExecutorLoadDao;
+import azkaban.executor.ExecutorLoadMonitor;
+import azkaban.executor.ExecutorLoadReport;
+import azkaban.executor.ExecutorManagerException;
+import azkaban.utils.Props;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.apache.log4j.Logger;
+
+/**
+ * Pushes this executor's load to the DB at a fixed rate, so web servers can pick executors from
+ * the latest reports (see {@link ExecutorLoadMonitor}) instead of polling /serverStatistics.
+ */
+@Singleton
+public class ExecutorLoadReporter {
+
+  private static final Logger logger = Logger.getLogger(ExecutorLoadReporter.class);
+  private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+  private final ExecutorLoadDao executorLoadDao;
+  private final ServerStatisticsSampler statisticsSampler;
+  private final FlowRunnerManager flowRunnerManager;
+  private final boolean enabled;
+  private final long reportIntervalMs;
+  private ScheduledExecutorService scheduler;
+  private int executorId;
+
+  @Inject
+  public ExecutorLoadReporter(final Props props, final ExecutorLoadDao executorLoadDao,
+      final ServerStatisticsSampler statisticsSampler, final FlowRunnerManager flowRunnerManager) {
+    this.executorLoadDao = executorLoadDao;
+    this.statisticsSampler = statisticsSampler;
+    this.flowRunnerManager = flowRunnerManager;
+    this.enabled = props.getBoolean(ConfigurationKeys.AZKABAN_EXECUTOR_LOAD_REPORT_ENABLED, false);
+    this.reportIntervalMs = props.getLong(
+        ConfigurationKeys.AZKABAN_EXECUTOR_LOAD_REPORT_INTERVAL_MS,
+        ExecutorLoadMonitor.DEFAULT_REPORT_INTERVAL.toMillis());
+  }
+
+  /**
+   * Start reporting the load of the given executor. No-op if load reporting is disabled.
+   */
+  public synchronized void start(final int executorId) {
+    if (!this.enabled || this.scheduler != null) {
+      return;
+    }
+    logger.info("Starting load reporting for executor id " + executorId);
+    this.executorId = executorId;
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("azk-executor-load-reporter").setDaemon(true)
+            .build());
+    this.scheduler.scheduleAtFixedRate(this::reportQuietly, 0L, this.reportIntervalMs,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stop reporting, waiting for the report in progress if any, so that no report is written once
+   * this returns, e.g. after the executor is removed.
+   */
+  public synchronized void shutdown() {
+    if (this.scheduler != null) {
+      logger.info("Shutting down load reporting for executor id " + this.executorId);
+      this.scheduler.shutdownNow();
+      try {
+        if (!this.scheduler.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+          logger.warn("Timed out waiting for the load report in progress.");
+        }
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      this.scheduler = null;
+    }
+  }
+
+  @VisibleForTesting
+  void report() throws ExecutorManagerException {
+    final ExecutorInfo stats = this.statisticsSampler.getStatistics();
+    // flow counts change much faster than memory and load, so take them at report time
+    final int numRunningFlows = this.flowRunnerManager.getNumRunningFlows();
+    final int numQueuedFlows = this.flowRunnerManager.getNumQueuedFlows();
+    final ExecutorInfo info = new ExecutorInfo(stats.getRemainingMemoryPercent(),
+        stats.getRemainingMemoryInMB(),
+        this.flowRunnerManager.getMaxNumRunningFlows() - numRunningFlows - numQueuedFlows,
+        this.flowRunnerManager.getLastFlowSubmittedTime(), stats.getCpuUsage(),
+        numRunningFlows + numQueuedFlows);
+    this.executorLoadDao.updateExecutorLoad(new ExecutorLoadReport(this.executorId, info,
+        numRunningFlows, numQueuedFlows, System.currentTimeMillis()));
+  }
+
+  private void reportQuietly() {
+    try {
+      report();
+    } catch (final ExecutorManagerException | RuntimeException e) {
+      logger.error("Failed to report load of executor id " + this.executorId, e);
+    }
+  }
+}
@@ -267,6 +267,7 @@ public class FlowRunnerManager implements EventListener<Event>,
         this.executionDirectory);
 
     this.execMetrics.addFlowRunnerManagerMetrics(this);
+    this.execMetrics.addJobTypeManagerMetrics(this.jobtypeManager);
 
     this.cleanerThread = new CleanerThread();
     this.cleanerThread.start();
@@ -1070,15 +1071,24 @@ public class FlowRunnerManager implements EventListener<Event>,
   }
 
   /**
-   * Polls new executions from DB periodically and submits the executions to run on the executor.
+   * Polls the DB for queued executions and claims up to {@link
+   * ConfigurationKeys#AZKABAN_POLLING_MAX_CLAIMS} of them per poll, bounded by the free flow
+   * threads. When several executions were requested and all of them were claimed, polls again
+   * right away as more are likely queued. Doubles the interval up to {@link
+   * ConfigurationKeys#AZKABAN_POLLING_MAX_INTERVAL_MS} while the queue is empty.
    */
   private class PollingService {
 
     private final ScheduledExecutorService scheduler;
     private final PollingCriteria pollingCriteria;
+    private final int maxClaims;
+    private final long maxPollingIntervalMs;
     private long pollingIntervalMs;
     private int executorId = -1;
     private int numRetries = 0;
+    private int numEmptyPolls = 0;
+    // polls scheduled before a restart must not schedule the next poll
+    private int generation = 0;
     private ScheduledFuture<?> futureTask;
 
     public PollingService(final long pollingIntervalMs, final PollingCriteria pollingCriteria) {
@@ -1086,11 +1096,16 @@ public class FlowRunnerManager implements EventListener<Event>,
       this.scheduler = Executors.newSingleThreadScheduledExecutor(
           new ThreadFactoryBuilder().setNameFormat("azk-polling-service").build());
       this.pollingCriteria = pollingCriteria;
+      this.maxClaims = Math.max(1, FlowRunnerManager.this.azkabanProps
+          .getInt(ConfigurationKeys.AZKABAN_POLLING_MAX_CLAIMS, 1));
+      this.maxPollingIntervalMs = FlowRunnerManager.this.azkabanProps
+          .getLong(ConfigurationKeys.AZKABAN_POLLING_MAX_INTERVAL_MS, pollingIntervalMs);
     }
 
-    public void start() {
-      this.futureTask = this.scheduler.scheduleAtFixedRate(() -> pollExecution(), 0L,
-          this.pollingIntervalMs, TimeUnit.MILLISECONDS);
+    public synchronized void start() {
+      this.generation++;
+      this.numEmptyPolls = 0;
+      scheduleNextPoll(0L, this.generation);
 
       if (this.futureTask == null) {
         FlowRunnerManager.LOGGER.error(String.format("Unable to start a polling interval of %d "
@@ -1102,13 +1117,12 @@ public class FlowRunnerManager implements EventListener<Event>,
     }
 
     /**
-     * Cancels the existing polling schedule and starts a new one. This can be used to change the
-     * polling interval because a polling interval of an existing schedule can not be changed.
+     * Cancels the existing polling schedule and starts a new one with the new polling interval.
      *
      * @param newPollingIntervalMs The desired polling interval.
      * @return true if a restart has happened with the new polling interval.
      */
-    public boolean restart(final long newPollingIntervalMs) {
+    public synchronized boolean restart(final long newPollingIntervalMs) {
       if (newPollingIntervalMs <= 0) {
         FlowRunnerManager.LOGGER.error(String.format("Can not set a negative polling interval: %d "
             + "milliseconds", newPollingIntervalMs));
@@ -1118,13 +1132,8 @@ public class FlowRunnerManager implements EventListener<Event>,
       if (this.futureTask != null) {
         FlowRunnerManager.LOGGER.info(String.format("Canceling the existing polling schedule (%d "
             + "ms)", this.pollingIntervalMs));
-        if (!this.futureTask.cancel(false)) {
-          FlowRunnerManager.LOGGER.error(String.format(
-              "Failure in canceling the existing polling schedule (%d ms) prevented us from "
-                  + "setting a new polling schedule (%d ms)",
-              this.pollingIntervalMs, newPollingIntervalMs));
-          return false;
-        }
+        // a poll already running won't schedule the next one, as start() bumps the generation
+        this.futureTask.cancel(false);
       }
 
       this.pollingIntervalMs = newPollingIntervalMs;
@@ -1132,7 +1141,28 @@ public class FlowRunnerManager implements EventListener<Event>,
       return (this.futureTask != null);
     }
 
-    private void pollExecution() {
+    private synchronized void scheduleNextPoll(final long delayMs, final int pollGeneration) {
+      if (pollGeneration != this.generation || this.scheduler.isShutdown()) {
+        return;
+      }
+      this.futureTask = this.scheduler.schedule(() -> pollAndScheduleNext(pollGeneration),
+          delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void pollAndScheduleNext(final int pollGeneration) {
+      long nextPollDelayMs = this.pollingIntervalMs;
+      try {
+        nextPollDelayMs = pollExecutions();
+      } catch (final RuntimeException e) {
+        FlowRunnerManager.LOGGER.error("Failed to poll executions ", e);
+      }
+      scheduleNextPoll(nextPollDelayMs, pollGeneration);
+    }
+
+    /**
+     * @return the delay before the next poll.
+     */
+    private long pollExecutions() {
       if (this.executorId == -1) {
         if (AzkabanExecutorServer.getApp() != null) {
           try {
@@ -1144,48 +1174,87 @@ public class FlowRunnerManager implements EventListener<Event>,
             FlowRunnerManager.LOGGER.error("Failed to fetch executor ", e);
           }
         }
-      } else if (this.pollingCriteria.shouldPoll()) {
+        return this.pollingIntervalMs;
+      }
+      if (!this.pollingCriteria.shouldPoll()) {
+        return this.pollingIntervalMs;
+      }
+
+      // flows submitted beyond the free threads wait in the executor queue, so claim at least
+      // one like a single-claim poll would
+      final int freeFlowThreads = getMaxNumRunningFlows() - getNumRunningFlows()
+          - getNumQueuedFlows();
+      final int limit = Math.min(this.maxClaims, Math.max(1, freeFlowThreads));
+      final List<Integer> execIds;
+      final Timer.Context claimTimer = FlowRunnerManager.this.execMetrics
+          .getPollClaimTimerContext();
+      try {
+        if (FlowRunnerManager.this.azkabanProps
+            .getBoolean(ConfigurationKeys.AZKABAN_POLLING_LOCK_ENABLED, false)) {
+          execIds = FlowRunnerManager.this.executorLoader.selectAndUpdateExecutionsWithLocking(
+              this.executorId, FlowRunnerManager.this.active, limit);
+        } else {
+          execIds = FlowRunnerManager.this.executorLoader.selectAndUpdateExecutions(
+              this.executorId, FlowRunnerManager.this.active, limit);
+        }
+      } catch (final ExecutorManagerException e) {
+        FlowRunnerManager.LOGGER.error("Failed to claim executions ", e);
+        FlowRunnerManager.this.commonMetrics.markDispatchFail();
+        return nextRetryDelayMs();
+      } finally {
+        claimTimer.stop();
+      }
+      FlowRunnerManager.this.execMetrics.markOnePoll();
+
+      if (execIds.isEmpty()) {
+        FlowRunnerManager.LOGGER.debug("Polling found no flow in the queue.");
+        FlowRunnerManager.this.execMetrics.markEmptyPoll();
+        this.numEmptyPolls++;
+        return emptyPollDelayMs();
+      }
+      this.numEmptyPolls = 0;
+
+      boolean failed = false;
+      for (final int execId : execIds) {
+        FlowRunnerManager.LOGGER.info("Polling found a flow. Submitting flow " + execId);
         try {
-          final int execId;
-          if (FlowRunnerManager.this.azkabanProps
-              .getBoolean(ConfigurationKeys.AZKABAN_POLLING_LOCK_ENABLED, false)) {
-            execId = FlowRunnerManager.this.executorLoader.selectAndUpdateExecutionWithLocking(
-                this.executorId, FlowRunnerManager.this.active);
-          } else {
-            execId = FlowRunnerManager.this.executorLoader.selectAndUpdateExecution(this.executorId,
-                FlowRunnerManager.this.active);
-          }
-          FlowRunnerManager.this.execMetrics.markOnePoll();
-          if (execId == -1) {
-            FlowRunnerManager.LOGGER.info("Polling found no flow in the queue.");
-          } else {
-            FlowRunnerManager.LOGGER.info("Polling found a flow. Submitting flow " + execId);
-            try {
-              submitFlow(execId);
-              FlowRunnerManager.this.commonMetrics.markDispatchSuccess();
-              this.numRetries = 0;
-            } catch (final ExecutorManagerException e) {
-              // If the flow fails to be submitted, then unset its executor id in DB so that other
-              // executors can pick up this flow and submit again.
-              FlowRunnerManager.this.executorLoader.unsetExecutorIdForExecution(execId);
-              throw new ExecutorManagerException(
-                  "Unset executor id " + this.executorId + " for execution " + execId, e);
-            }
-          }
+          submitFlow(execId);
+          FlowRunnerManager.this.commonMetrics.markDispatchSuccess();
         } catch (final Exception e) {
-          FlowRunnerManager.LOGGER.error("Failed to submit flow ", e);
+          FlowRunnerManager.LOGGER.error("Failed to submit flow " + execId, e);
           FlowRunnerManager.this.commonMetrics.markDispatchFail();
-          this.numRetries = this.numRetries + 1;
+          failed = true;
           try {
-            // Implement exponential backoff retries when flow submission fails,
-            // i.e., sleep 1s, 2s, 4s, 8s ... before next retries.
-            Thread.sleep((long) (Math.pow(2, this.numRetries) * 1000));
-          } catch (final InterruptedException ie) {
-            FlowRunnerManager.LOGGER
-                .warn("Sleep after flow submission failure was interrupted - ignoring");
+            // If the flow fails to be submitted, then unset its executor id in DB so that other
+            // executors can pick up this flow and submit again.
+            FlowRunnerManager.this.executorLoader.unsetExecutorIdForExecution(execId);
+          } catch (final ExecutorManagerException ue) {
+            FlowRunnerManager.LOGGER.error(
+                "Failed to unset executor id " + this.executorId + " for execution " + execId, ue);
           }
         }
       }
+      if (failed) {
+        return nextRetryDelayMs();
+      }
+      this.numRetries = 0;
+      // the queue may hold more executions if every requested one was claimed. Single-claim
+      // polls keep the polling interval, as before batch claims.
+      return limit > 1 && execIds.size() == limit ? 0L : this.pollingIntervalMs;
+    }
+
+    /**
+     * Exponential back-off when flow submission fails, i.e., wait 2s, 4s, 8s ... before the next
+     * poll.
+     */
+    private long nextRetryDelayMs() {
+      this.numRetries = this.numRetries + 1;
+      return (long) (Math.pow(2, this.numRetries) * 1000);
+    }
+
+    private long emptyPollDelayMs() {
+      final double delayMs = this.pollingIntervalMs * Math.pow(2, this.numEmptyPolls - 1);
+      return (long) Math.max(this.pollingIntervalMs, Math.min(this.maxPollingIntervalMs, delayMs));
     }
 
     public void shutdown() {
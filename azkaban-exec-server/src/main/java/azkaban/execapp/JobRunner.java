@@ -100,6 +100,7 @@ public class JobRunner extends EventHandler implements Runnable {
   private volatile boolean killed = false;
   private BlockingStatus currentBlockStatus = null;
   private final ClassLoader threadClassLoader;
+  private JobTypeManager.JobParams jobParams = null;
 
   private volatile long timeInQueue = -1;
   private volatile long jobKillTime = -1;
@@ -582,6 +583,9 @@ public class JobRunner extends EventHandler implements Runnable {
       throw e;
     } finally {
       Thread.currentThread().setContextClassLoader(this.threadClassLoader);
+      if (this.jobParams != null) {
+        this.jobtypeManager.releaseJobParams(this.jobParams);
+      }
     }
   }
 
@@ -749,6 +753,7 @@ public class JobRunner extends EventHandler implements Runnable {
         long jobCreationStartMillis = System.currentTimeMillis();
         final JobTypeManager.JobParams jobParams = this.jobtypeManager
             .createJobParams(this.jobId, this.props, this.logger);
+        this.jobParams = jobParams;
         Thread.currentThread().setContextClassLoader(jobParams.contextClassLoader);
         this.job = JobTypeManager.createJob(this.jobId, jobParams, this.logger);
         this.logger.info(String.format("%s creation took %s milliseconds.",
@@ -0,0 +1,325 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.execapp;
+
+import static azkaban.Constants.ConfigurationKeys.EXECUTOR_STATISTICS_SAMPLE_INTERVAL_MS;
+
+import azkaban.executor.ExecutorInfo;
+import azkaban.utils.JSONUtils;
+import azkaban.utils.Props;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.apache.log4j.Logger;
+
+/**
+ * Samples executor statistics in the background, between {@link #start()} and {@link
+ * #shutdown()}, and caches the result for {@link ServerStatisticsServlet}.
+ *
+ * Memory and load figures are read straight from /proc/meminfo and /proc/loadavg into a reused
+ * buffer instead of forking bash/cat/grep. Each sample is serialized to JSON once, so serving a
+ * request only copies the cached bytes to the response.
+ *
+ * Note: memory and load sampling is designed for Linux only. On other systems those figures are
+ * left at 0.
+ */
+@Singleton
+public class ServerStatisticsSampler {
+
+  private static final Logger logger = Logger.getLogger(ServerStatisticsSampler.class);
+
+  static final String MEM_INFO_FILE = "/proc/meminfo";
+  static final String LOAD_AVG_FILE = "/proc/loadavg";
+  static final long DEFAULT_SAMPLE_INTERVAL_MS = 1000;
+
+  private static final byte[] MEM_TOTAL = bytes("MemTotal");
+  // total free memory = free + buffers + cached + swapCached, same as the former bash based check
+  private static final byte[][] MEM_FREE_KEYS = {bytes("MemFree"), bytes("Buffers"),
+      bytes("Cached"), bytes("SwapCached")};
+
+  // /proc/meminfo is around 1.5 kB on current kernels
+  private static final int PROC_FILE_BUFFER_SIZE = 16 * 1024;
+
+  private final byte[] buffer = new byte[PROC_FILE_BUFFER_SIZE];
+  private final boolean memInfoExists = new File(MEM_INFO_FILE).exists();
+  private final boolean loadAvgExists = new File(LOAD_AVG_FILE).exists();
+  private final long sampleIntervalMs;
+  private ScheduledExecutorService scheduler;
+
+  private volatile Snapshot snapshot = new Snapshot(new ExecutorInfo(), 0);
+
+  @Inject
+  public ServerStatisticsSampler(final Props props) {
+    this.sampleIntervalMs = props
+        .getLong(EXECUTOR_STATISTICS_SAMPLE_INTERVAL_MS, DEFAULT_SAMPLE_INTERVAL_MS);
+    if (!this.memInfoExists || !this.loadAvgExists) {
+      logger.error("failed to find one or more files from the following list, executor "
+          + "statistics will be incomplete - '" + MEM_INFO_FILE + "', '" + LOAD_AVG_FILE + "'");
+    }
+  }
+
+  /**
+   * Take a first sample, then sample at a fixed rate. No-op if already started.
+   */
+  public synchronized void start() {
+    if (this.scheduler != null) {
+      return;
+    }
+    sample();
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("azk-server-statistics-sampler").setDaemon(true)
+            .build());
+    this.scheduler.scheduleAtFixedRate(this::sampleQuietly, this.sampleIntervalMs,
+        this.sampleIntervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  private static byte[] bytes(final String s) {
+    return s.getBytes(StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * @return the latest statistics. The returned object must not be modified.
+   */
+  public ExecutorInfo getStatistics() {
+    return this.snapshot.stats;
+  }
+
+  /**
+   * @return the latest statistics serialized as JSON. The returned array must not be modified.
+   */
+  public byte[] getStatisticsJson() {
+    return this.snapshot.json;
+  }
+
+  /**
+   * @return time in milliseconds at which the latest statistics were taken.
+   */
+  public long getLastSampleTime() {
+    return this.snapshot.sampleTime;
+  }
+
+  public synchronized void shutdown() {
+    if (this.scheduler != null) {
+      this.scheduler.shutdownNow();
+      this.scheduler = null;
+    }
+  }
+
+  private void sampleQuietly() {
+    try {
+      sample();
+    } catch (final RuntimeException e) {
+      logger.error("failed to sample executor statistics", e);
+    }
+  }
+
+  /**
+   * Take a fresh sample and publish it. Synchronized as the buffer is shared between the
+   * background sampler and callers asking for uncached statistics.
+   */
+  synchronized void sample() {
+    final ExecutorInfo stats = new ExecutorInfo();
+    fillRemainingMemoryPercent(stats);
+    fillRemainingFlowCapacityAndLastDispatchedTime(stats);
+    fillCpuUsage(stats);
+    this.snapshot = new Snapshot(stats, System.currentTimeMillis());
+  }
+
+  /**
+   * fill the result set with the percent of the remaining system memory on the server.
+   *
+   * NOTE: a double value will be used to present the remaining memory, a returning value of '55.6'
+   * means 55.6%
+   */
+  synchronized void fillRemainingMemoryPercent(final ExecutorInfo stats) {
+    if (!this.memInfoExists) {
+      return;
+    }
+    final int length = readProcFile(MEM_INFO_FILE);
+    if (length <= 0) {
+      return;
+    }
+
+    final long totalMemory = parseMemInfoField(this.buffer, length, MEM_TOTAL);
+    long totalFreeMemory = 0;
+    for (final byte[] key : MEM_FREE_KEYS) {
+      final long value = parseMemInfoField(this.buffer, length, key);
+      if (value < 0) {
+        logger.error("failed to get total/free memory info as " + new String(key,
+            StandardCharsets.US_ASCII) + " is missing from " + MEM_INFO_FILE);
+        return;
+      }
+      totalFreeMemory += value;
+    }
+
+    // the number got from the proc file is in KBs we want to see the number in MBs so we are
+    // dividing it by 1024.
+    stats.setRemainingMemoryInMB(totalFreeMemory / 1024);
+    stats.setRemainingMemoryPercent(
+        totalMemory <= 0 ? 0 : ((double) totalFreeMemory / (double) totalMemory) * 100);
+  }
+
+  /**
+   * fill the result set with the remaining flow capacity and last dispatched time.
+   */
+  void fillRemainingFlowCapacityAndLastDispatchedTime(final ExecutorInfo stats) {
+    final AzkabanExecutorServer server = AzkabanExecutorServer.getApp();
+    if (server != null) {
+      final FlowRunnerManager runnerMgr = server.getFlowRunnerManager();
+      final int assignedFlows = runnerMgr.getNumRunningFlows() + runnerMgr.getNumQueuedFlows();
+      stats.setRemainingFlowCapacity(runnerMgr.getMaxNumRunningFlows() - assignedFlows);
+      stats.setNumberOfAssignedFlows(assignedFlows);
+      stats.setLastDispatchedTime(runnerMgr.getLastFlowSubmittedTime());
+    } else {
+      logger.error("failed to get data for remaining flow capacity or LastDispatchedTime"
+          + " as the AzkabanExecutorServer has yet been initialized.");
+    }
+  }
+
+  /**
+   * fill the result set with the 1 minute system load average from /proc/loadavg.
+   */
+  synchronized void fillCpuUsage(final ExecutorInfo stats) {
+    if (!this.loadAvgExists) {
+      return;
+    }
+    final int length = readProcFile(LOAD_AVG_FILE);
+    if (length <= 0) {
+      return;
+    }
+    final double cpuUsage = parseLeadingDouble(this.buffer, length);
+    if (cpuUsage < 0) {
+      logger.error("yielding 0.0 for CPU usage as " + LOAD_AVG_FILE + " content is invalid");
+      return;
+    }
+    stats.setCpuUpsage(cpuUsage);
+  }
+
+  /**
+   * Read a proc file into the shared buffer.
+   *
+   * @return number of bytes read, -1 on error
+   */
+  private int readProcFile(final String path) {
+    try (final FileInputStream in = new FileInputStream(path)) {
+      int length = 0;
+      int read;
+      while (length < this.buffer.length
+          && (read = in.read(this.buffer, length, this.buffer.length - length)) > 0) {
+        length += read;
+      }
+      return length;
+    } catch (final IOException e) {
+      logger.error("failed to read " + path, e);
+      return -1;
+    }
+  }
+
+  /**
+   * Find a "key: value kB" line in meminfo content and parse its value.
+   *
+   * @return the value in kB, -1 if the key is missing or its value is malformed
+   */
+  static long parseMemInfoField(final byte[] content, final int length, final byte[] key) {
+    int lineStart = 0;
+    while (lineStart < length) {
+      if (startsWithKey(content, lineStart, length, key)) {
+        int pos = lineStart + key.length + 1;
+        while (pos < length && content[pos] == ' ') {
+          pos++;
+        }
+        long value = 0;
+        int digits = 0;
+        while (pos < length && content[pos] >= '0' && content[pos] <= '9') {
+          value = value * 10 + (content[pos] - '0');
+          digits++;
+          pos++;
+        }
+        return digits > 0 ? value : -1;
+      }
+      while (lineStart < length && content[lineStart] != '\n') {
+        lineStart++;
+      }
+      lineStart++;
+    }
+    return -1;
+  }
+
+  private static boolean startsWithKey(final byte[] content, final int offset, final int length,
+      final byte[] key) {
+    if (offset + key.length >= length || content[offset + key.length] != ':') {
+      return false;
+    }
+    for (int i = 0; i < key.length; i++) {
+      if (content[offset + i] != key[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Parse the first non-negative decimal number of the content, e.g. "0.52" from
+   * "0.52 0.58 0.59 1/467 10214".
+   *
+   * @return the number, -1 if the content does not start with a number
+   */
+  static double parseLeadingDouble(final byte[] content, final int length) {
+    int pos = 0;
+    long integerPart = 0;
+    int digits = 0;
+    while (pos < length && content[pos] >= '0' && content[pos] <= '9') {
+      integerPart = integerPart * 10 + (content[pos] - '0');
+      digits++;
+      pos++;
+    }
+    if (digits == 0) {
+      return -1;
+    }
+    double fraction = 0;
+    if (pos < length && content[pos] == '.') {
+      pos++;
+      double scale = 0.1;
+      while (pos < length && content[pos] >= '0' && content[pos] <= '9') {
+        fraction += (content[pos] - '0') * scale;
+        scale /= 10;
+        pos++;
+      }
+    }
+    return integerPart + fraction;
+  }
+
+  private static class Snapshot {
+
+    private final ExecutorInfo stats;
+    private final byte[] json;
+    private final long sampleTime;
+
+    Snapshot(final ExecutorInfo stats, final long sampleTime) {
+      this.stats = stats;
+      this.json = JSONUtils.toJSON(stats, true).getBytes(StandardCharsets.UTF_8);
+      this.sampleTime = sampleTime;
+    }
+  }
+}
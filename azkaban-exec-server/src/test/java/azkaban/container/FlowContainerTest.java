@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.container;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import azkaban.db.DatabaseOperator;
+import azkaban.executor.ExecutableFlow;
+import azkaban.executor.ExecutorLoader;
+import azkaban.executor.container.WarmPodClaimDao;
+import azkaban.project.ProjectFileHandler;
+import azkaban.storage.ProjectStorageManager;
+import azkaban.test.Utils;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FlowContainerTest {
+
+  private static final String POD_NAME = "warm-pod-1";
+  private static final int EXEC_ID = 42;
+  private static DatabaseOperator dbOperator;
+
+  @Rule
+  public final TemporaryFolder temp = new TemporaryFolder();
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    dbOperator = Utils.initTestDB();
+  }
+
+  @AfterClass
+  public static void destroyDB() throws Exception {
+    try {
+      dbOperator.update("DROP ALL OBJECTS");
+      dbOperator.update("SHUTDOWN");
+    } catch (final SQLException e) {
+      e.printStackTrace();
+    }
+  }
+
+  @After
+  public void clearDB() throws Exception {
+    dbOperator.update("delete from warm_pod_claims");
+  }
+
+  private File createProjectZip() throws Exception {
+    final File zipFile = this.temp.newFile("project.zip");
+    try (final ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zipFile))) {
+      out.putNextEntry(new ZipEntry("basic.flow"));
+      out.write("nodes: []".getBytes(StandardCharsets.UTF_8));
+      out.closeEntry();
+    }
+    return zipFile;
+  }
+
+  /**
+   * A warm pod claimed for an execution downloads the project of the execution before running it.
+   */
+  @Test
+  public void testClaimedWarmPodDownloadsProject() throws Exception {
+    final WarmPodClaimDao warmPodClaimDao = new WarmPodClaimDao(dbOperator);
+    final ExecutableFlow flow = new ExecutableFlow();
+    flow.setExecutionId(EXEC_ID);
+    flow.setProjectId(3);
+    flow.setVersion(7);
+    final ExecutorLoader executorLoader = mock(ExecutorLoader.class);
+    when(executorLoader.fetchExecutableFlow(EXEC_ID)).thenReturn(flow);
+    final ProjectFileHandler projectFile = new ProjectFileHandler(3, 7, 0L, "user", "zip",
+        "project.zip", 1, null, Collections.emptySet(), null, null);
+    projectFile.setLocalFile(createProjectZip());
+    final ProjectStorageManager projectStorageManager = mock(ProjectStorageManager.class);
+    when(projectStorageManager.getProjectFile(3, 7)).thenReturn(projectFile);
+    final Path projectDir = this.temp.newFolder("project").toPath();
+
+    final CompletableFuture<Optional<Integer>> claimed = CompletableFuture.supplyAsync(() -> {
+      try {
+        return FlowContainer.claimExecution(warmPodClaimDao, POD_NAME, 10, executorLoader,
+            projectStorageManager, projectDir);
+      } catch (final Exception e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    // Nothing is downloaded until the pod is claimed
+    assertThat(claimed).isNotDone();
+    assertThat(projectDir.toFile().list()).isEmpty();
+
+    assertThat(warmPodClaimDao.claimPod(POD_NAME, EXEC_ID)).isTrue();
+    assertThat(claimed.get(10, TimeUnit.SECONDS)).contains(EXEC_ID);
+    assertThat(new String(Files.readAllBytes(projectDir.resolve("basic.flow")),
+        StandardCharsets.UTF_8)).isEqualTo("nodes: []");
+  }
+}
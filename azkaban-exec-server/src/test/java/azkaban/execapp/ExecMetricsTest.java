@@ -17,26 +17,35 @@
 package azkaban.execapp;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
+import azkaban.jobtype.JobClassLoaderCache;
+import azkaban.jobtype.JobTypeManager;
 import azkaban.metrics.MetricsManager;
 import azkaban.metrics.MetricsTestUtility;
+import com.codahale.metrics.Gauge;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Snapshot;
 import com.codahale.metrics.Timer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Map;
 import org.junit.Before;
 import org.junit.Test;
 
 /** Tests for executor metrics */
 public class ExecMetricsTest {
 
+  private MetricRegistry metricRegistry;
   private MetricsTestUtility testUtil;
   private ExecMetrics metrics;
 
   @Before
   public void setUp() {
-    final MetricRegistry metricRegistry = new MetricRegistry();
-    this.testUtil = new MetricsTestUtility(metricRegistry);
-    this.metrics = new ExecMetrics(new MetricsManager(metricRegistry));
+    this.metricRegistry = new MetricRegistry();
+    this.testUtil = new MetricsTestUtility(this.metricRegistry);
+    this.metrics = new ExecMetrics(new MetricsManager(this.metricRegistry));
   }
 
   @Test
@@ -55,4 +64,23 @@ public class ExecMetricsTest {
     assertThat(snapshot.getMax()).isGreaterThanOrEqualTo(10);
   }
 
+  @Test
+  public void testJobTypeLoadedClassCountPerJobType() {
+    final JobClassLoaderCache classLoaderCache = new JobClassLoaderCache();
+    final JobTypeManager jobTypeManager = mock(JobTypeManager.class);
+    when(jobTypeManager.getClassLoaderCache()).thenReturn(classLoaderCache);
+    final ClassLoader parent = getClass().getClassLoader();
+    classLoaderCache.acquire("java", new URL[0], parent);
+
+    this.metrics.addJobTypeManagerMetrics(jobTypeManager);
+    classLoaderCache.acquire("hadoopJava", new URL[0], parent);
+    classLoaderCache.acquire("java", new URL[0], new URLClassLoader(new URL[0]));
+
+    final Map<String, Gauge> gauges = this.metricRegistry.getGauges();
+    assertThat(gauges.get(ExecMetrics.JOBTYPE_CLASSLOADER_COUNT_NAME).getValue()).isEqualTo(3);
+    assertThat(gauges.get(ExecMetrics.getJobTypeLoadedClassCountName("java")).getValue())
+        .isEqualTo(0);
+    assertThat(gauges.get(ExecMetrics.getJobTypeLoadedClassCountName("hadoopJava")).getValue())
+        .isEqualTo(0);
+  }
 }
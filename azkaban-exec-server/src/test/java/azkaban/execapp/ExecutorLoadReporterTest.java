@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.execapp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import azkaban.Constants.ConfigurationKeys;
+import azkaban.executor.ExecutorInfo;
+import azkaban.executor.ExecutorLoadDao;
+import azkaban.executor.ExecutorLoadReport;
+import azkaban.utils.Props;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class ExecutorLoadReporterTest {
+
+  private static final long REPORT_INTERVAL_MS = 50;
+
+  private Props props;
+  private ExecutorLoadDao executorLoadDao;
+  private ServerStatisticsSampler statisticsSampler;
+  private FlowRunnerManager flowRunnerManager;
+  private ExecutorLoadReporter reporter;
+
+  @Before
+  public void setUp() {
+    this.props = new Props();
+    this.props.put(ConfigurationKeys.AZKABAN_EXECUTOR_LOAD_REPORT_ENABLED, "true");
+    this.props.put(ConfigurationKeys.AZKABAN_EXECUTOR_LOAD_REPORT_INTERVAL_MS,
+        REPORT_INTERVAL_MS);
+    this.executorLoadDao = mock(ExecutorLoadDao.class);
+    this.statisticsSampler = mock(ServerStatisticsSampler.class);
+    when(this.statisticsSampler.getStatistics())
+        .thenReturn(new ExecutorInfo(40.0, 2048, 0, 0L, 1.5, 0));
+    this.flowRunnerManager = mock(FlowRunnerManager.class);
+    when(this.flowRunnerManager.getMaxNumRunningFlows()).thenReturn(30);
+    when(this.flowRunnerManager.getNumRunningFlows()).thenReturn(5);
+    when(this.flowRunnerManager.getNumQueuedFlows()).thenReturn(3);
+    when(this.flowRunnerManager.getLastFlowSubmittedTime()).thenReturn(1000L);
+    this.reporter = createReporter();
+  }
+
+  @After
+  public void tearDown() {
+    this.reporter.shutdown();
+  }
+
+  private ExecutorLoadReporter createReporter() {
+    return new ExecutorLoadReporter(this.props, this.executorLoadDao, this.statisticsSampler,
+        this.flowRunnerManager);
+  }
+
+  @Test
+  public void testReportContents() throws Exception {
+    final long before = System.currentTimeMillis();
+    this.reporter.start(7);
+    final ArgumentCaptor<ExecutorLoadReport> captor =
+        ArgumentCaptor.forClass(ExecutorLoadReport.class);
+    verify(this.executorLoadDao, timeout(5000).atLeastOnce()).updateExecutorLoad(captor.capture());
+
+    final ExecutorLoadReport report = captor.getValue();
+    assertThat(report.getExecutorId()).isEqualTo(7);
+    assertThat(report.getNumRunningFlows()).isEqualTo(5);
+    assertThat(report.getNumQueuedFlows()).isEqualTo(3);
+    assertThat(report.getReportTime()).isGreaterThanOrEqualTo(before);
+    // memory and load from the sampler, flows from the flow runner manager
+    assertThat(report.getExecutorInfo()).isEqualTo(new ExecutorInfo(40.0, 2048, 22, 1000L, 1.5, 8));
+  }
+
+  @Test
+  public void testReportAtFixedRateUntilShutdown() throws Exception {
+    this.reporter.start(7);
+    verify(this.executorLoadDao, timeout(5000).atLeast(3)).updateExecutorLoad(any());
+
+    this.reporter.shutdown();
+    final int reports = mockingDetails(this.executorLoadDao).getInvocations().size();
+    verify(this.executorLoadDao, after(3 * REPORT_INTERVAL_MS).times(reports))
+        .updateExecutorLoad(any());
+  }
+
+  @Test
+  public void testNoReportWhenDisabled() throws Exception {
+    this.props.put(ConfigurationKeys.AZKABAN_EXECUTOR_LOAD_REPORT_ENABLED, "false");
+    this.reporter = createReporter();
+    this.reporter.start(7);
+    verify(this.executorLoadDao, after(3 * REPORT_INTERVAL_MS).never()).updateExecutorLoad(any());
+  }
+}
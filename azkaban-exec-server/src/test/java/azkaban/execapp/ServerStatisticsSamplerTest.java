@@ -0,0 +1,83 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.execapp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+public class ServerStatisticsSamplerTest {
+
+  private static final byte[] MEM_INFO = ("MemTotal:       65894264 kB\n"
+      + "MemFree:        57753844 kB\n"
+      + "MemAvailable:   60000000 kB\n"
+      + "Buffers:          305552 kB\n"
+      + "Cached:          3802432 kB\n"
+      + "SwapCached:            0 kB\n").getBytes(StandardCharsets.US_ASCII);
+
+  private static long parse(final String key) {
+    return ServerStatisticsSampler.parseMemInfoField(MEM_INFO, MEM_INFO.length,
+        key.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  @Test
+  public void parseMemInfoField() {
+    assertThat(parse("MemTotal")).isEqualTo(65894264L);
+    assertThat(parse("MemFree")).isEqualTo(57753844L);
+    assertThat(parse("Buffers")).isEqualTo(305552L);
+    assertThat(parse("SwapCached")).isEqualTo(0L);
+  }
+
+  @Test
+  public void parseMemInfoFieldDoesNotMatchPrefix() {
+    // "Cached" must not match the "SwapCached" line, and a key must be followed by ':'
+    assertThat(parse("Cached")).isEqualTo(3802432L);
+    assertThat(parse("Mem")).isEqualTo(-1L);
+  }
+
+  @Test
+  public void parseMemInfoFieldMissingOrMalformed() {
+    assertThat(parse("SwapFree")).isEqualTo(-1L);
+    final byte[] malformed = "MemFree:        foo kB\n".getBytes(StandardCharsets.US_ASCII);
+    assertThat(ServerStatisticsSampler.parseMemInfoField(malformed, malformed.length,
+        "MemFree".getBytes(StandardCharsets.US_ASCII))).isEqualTo(-1L);
+  }
+
+  @Test
+  public void parseMemInfoFieldHonorsLength() {
+    // only the first line is valid content, the rest of the buffer is stale
+    final int firstLineLength = "MemTotal:       65894264 kB\n".length();
+    assertThat(ServerStatisticsSampler.parseMemInfoField(MEM_INFO, firstLineLength,
+        "MemFree".getBytes(StandardCharsets.US_ASCII))).isEqualTo(-1L);
+  }
+
+  @Test
+  public void parseLoadAverage() {
+    final byte[] loadAvg = "2.57 0.58 0.59 1/467 10214\n".getBytes(StandardCharsets.US_ASCII);
+    assertThat(ServerStatisticsSampler.parseLeadingDouble(loadAvg, loadAvg.length))
+        .isCloseTo(2.57, offset(1e-9));
+  }
+
+  @Test
+  public void parseInvalidLoadAverage() {
+    final byte[] loadAvg = "abc".getBytes(StandardCharsets.US_ASCII);
+    assertThat(ServerStatisticsSampler.parseLeadingDouble(loadAvg, loadAvg.length))
+        .isEqualTo(-1.0);
+  }
+}
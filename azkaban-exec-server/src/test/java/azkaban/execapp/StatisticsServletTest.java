@@ -1,21 +1,35 @@
 package azkaban.execapp;
 
 import azkaban.executor.ExecutorInfo;
+import azkaban.utils.Props;
+import org.junit.After;
 import org.junit.Assert;
+import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 
 @Ignore
 public class StatisticsServletTest {
 
-  private final MockStatisticsServlet statServlet = new MockStatisticsServlet();
+  private ServerStatisticsSampler sampler;
+
+  @Before
+  public void setUp() {
+    this.sampler = new ServerStatisticsSampler(new Props());
+    this.sampler.start();
+  }
+
+  @After
+  public void tearDown() {
+    this.sampler.shutdown();
+  }
 
   @Test
   public void testFillMemory() {
     final ExecutorInfo stats = new ExecutorInfo();
-    this.statServlet.callFillRemainingMemoryPercent(stats);
+    this.sampler.fillRemainingMemoryPercent(stats);
     // assume any machine that runs this test should
-    // have bash and top available and at least got some remaining memory.
+    // have /proc/meminfo available and at least got some remaining memory.
     Assert.assertTrue(stats.getRemainingMemoryInMB() > 0);
     Assert.assertTrue(stats.getRemainingMemoryPercent() > 0);
   }
@@ -23,61 +37,27 @@ public class StatisticsServletTest {
   @Test
   public void testFillCpu() {
     final ExecutorInfo stats = new ExecutorInfo();
-    this.statServlet.callFillCpuUsage(stats);
+    this.sampler.fillCpuUsage(stats);
     Assert.assertTrue(stats.getCpuUsage() > 0);
   }
 
   @Test
   public void testPopulateStatistics() {
-    this.statServlet.callPopulateStatistics();
-    Assert.assertNotNull(this.statServlet.getStastics());
-    Assert.assertTrue(this.statServlet.getStastics().getRemainingMemoryInMB() > 0);
-    Assert.assertTrue(this.statServlet.getStastics().getRemainingMemoryPercent() > 0);
-    Assert.assertTrue(this.statServlet.getStastics().getCpuUsage() > 0);
+    this.sampler.sample();
+    Assert.assertNotNull(this.sampler.getStatistics());
+    Assert.assertTrue(this.sampler.getStatistics().getRemainingMemoryInMB() > 0);
+    Assert.assertTrue(this.sampler.getStatistics().getRemainingMemoryPercent() > 0);
+    Assert.assertTrue(this.sampler.getStatistics().getCpuUsage() > 0);
   }
 
   @Test
-  public void testPopulateStatisticsCache() {
-    this.statServlet.callPopulateStatistics();
-    final long updatedTime = this.statServlet.getUpdatedTime();
-    while (System.currentTimeMillis() - updatedTime < 1000) {
-      this.statServlet.callPopulateStatistics();
-      Assert.assertEquals(updatedTime, this.statServlet.getUpdatedTime());
-    }
-
-    try {
-      Thread.sleep(1000);
-    } catch (final InterruptedException e) {
-    }
-
-    // make sure cache expires after timeout.
-    this.statServlet.callPopulateStatistics();
-    Assert.assertNotEquals(updatedTime, this.statServlet.getUpdatedTime());
-  }
-
-  private static class MockStatisticsServlet extends ServerStatisticsServlet {
-
-    /** */
-    private static final long serialVersionUID = 1L;
-
-    public ExecutorInfo getStastics() {
-      return cachedstats;
-    }
-
-    public long getUpdatedTime() {
-      return lastRefreshedTime;
-    }
-
-    public void callPopulateStatistics() {
-      this.populateStatistics(false);
-    }
-
-    public void callFillCpuUsage(final ExecutorInfo stats) {
-      this.fillCpuUsage(stats);
-    }
-
-    public void callFillRemainingMemoryPercent(final ExecutorInfo stats) {
-      this.fillRemainingMemoryPercent(stats);
-    }
+  public void testPopulateStatisticsCache() throws Exception {
+    final long updatedTime = this.sampler.getLastSampleTime();
+    final byte[] cachedJson = this.sampler.getStatisticsJson();
+    Assert.assertSame(cachedJson, this.sampler.getStatisticsJson());
+
+    // make sure the background sampler refreshes the cache.
+    Thread.sleep(ServerStatisticsSampler.DEFAULT_SAMPLE_INTERVAL_MS * 2);
+    Assert.assertNotEquals(updatedTime, this.sampler.getLastSampleTime());
   }
 }
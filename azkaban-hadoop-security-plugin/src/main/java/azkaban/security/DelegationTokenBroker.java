@@ -0,0 +1,375 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package azkaban.security;
+
+import azkaban.Constants.ConfigurationKeys;
+import azkaban.Constants.FlowProperties;
+import azkaban.Constants.JobProperties;
+import azkaban.security.commons.HadoopSecurityManager;
+import azkaban.security.commons.HadoopSecurityManagerException;
+import azkaban.utils.Props;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.Striped;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.function.LongSupplier;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.security.Credentials;
+import org.apache.hadoop.security.token.Token;
+import org.apache.hadoop.security.token.TokenIdentifier;
+import org.apache.hadoop.security.token.delegation.AbstractDelegationTokenIdentifier;
+import org.apache.log4j.Logger;
+
+/**
+ * Executor local broker of Hadoop delegation tokens. Jobs proxying the same user and asking for the
+ * same set of tokens share a single token file, fetched once from the name nodes, job tracker,
+ * job history server and hive metastores, instead of fetching a token set per job.
+ *
+ * <p>The shared token file is hard linked at the token file location of each job, so it keeps the
+ * ownership and permissions the {@link HadoopSecurityManager} gave it. A shared token file is
+ * reused until its reuse period ends or until its first token gets close to its max date, after
+ * which the next job fetches a new set. The tokens of a replaced set are cancelled once the last
+ * job using them has finished, and so are the tokens no job has used for the idle period.
+ *
+ * <p>The broker is loaded by the parent classloader of the jobtype classloaders, like the rest of
+ * the azkaban.security package, so all the jobs of the executor share it. A background reaper
+ * cancels the expired and idle token sets and deletes their files, even when no other job runs.
+ *
+ * <p>Token reuse is disabled by default. Jobs registering custom credentials (job SSL, OAuth) are
+ * never shared, as their credentials can depend on any job property.
+ */
+public class DelegationTokenBroker {
+
+  public static final String TOKEN_REUSE_ENABLED = "hadoop.token.reuse.enabled";
+  // Max time a token set is shared across jobs
+  public static final String TOKEN_REUSE_MAX_SEC = "hadoop.token.reuse.max.sec";
+  // A token set is no longer shared when one of its tokens is this close to its max date
+  public static final String TOKEN_REUSE_RENEW_MARGIN_SEC = "hadoop.token.reuse.renew.margin.sec";
+  // A token set no job used for this long is cancelled
+  public static final String TOKEN_REUSE_IDLE_SEC = "hadoop.token.reuse.idle.sec";
+  // Interval of the reaper cancelling the expired and idle token sets
+  public static final String TOKEN_REUSE_REAP_INTERVAL_SEC = "hadoop.token.reuse.reap.interval.sec";
+
+  private static final Logger LOGGER = Logger.getLogger(DelegationTokenBroker.class);
+
+  private static final String OBTAIN_JOBHISTORYSERVER_TOKEN = "obtain.jobhistoryserver.token";
+  private static final String OTHER_NAMENODES_TO_GET_TOKEN = "other_namenodes";
+  // Job properties deciding which tokens are fetched and who owns the token file
+  private static final List<String> TOKEN_SET_PROPERTIES = Arrays.asList(
+      HadoopSecurityManager.OBTAIN_NAMENODE_TOKEN,
+      HadoopSecurityManager.OBTAIN_JOBTRACKER_TOKEN,
+      HadoopSecurityManager.OBTAIN_HCAT_TOKEN,
+      OBTAIN_JOBHISTORYSERVER_TOKEN,
+      OTHER_NAMENODES_TO_GET_TOKEN,
+      JobProperties.EXTRA_HCAT_CLUSTERS,
+      JobProperties.EXTRA_HCAT_LOCATION,
+      HadoopSecurityManager.DOMAIN_NAME,
+      ConfigurationKeys.SECURITY_USER_GROUP);
+  private static final int FETCH_LOCK_STRIPES = 64;
+
+  private static final DelegationTokenBroker INSTANCE =
+      new DelegationTokenBroker(System::currentTimeMillis, true);
+
+  private final LongSupplier currentTimeMillis;
+  private final boolean reaperEnabled;
+  // Guarded by this, started with the first shared token set
+  private ScheduledExecutorService reaper;
+  private final Striped<Lock> fetchLocks = Striped.lock(FETCH_LOCK_STRIPES);
+  // Guarded by this
+  private final Map<String, SharedTokens> sharedTokens = new HashMap<>();
+  private final Set<SharedTokens> replacedTokens = new HashSet<>();
+  private final Map<String, SharedTokens> tokenFileToSharedTokens = new HashMap<>();
+
+  @VisibleForTesting
+  DelegationTokenBroker(final LongSupplier currentTimeMillis, final boolean reaperEnabled) {
+    this.currentTimeMillis = currentTimeMillis;
+    this.reaperEnabled = reaperEnabled;
+  }
+
+  public static DelegationTokenBroker getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Write the tokens for the job to tokenFile, reusing the token set of an earlier job when token
+   * reuse is enabled.
+   *
+   * @param tokenSource security manager fetching the tokens when none can be reused
+   */
+  public void prefetchToken(final HadoopSecurityManager tokenSource, final File tokenFile,
+      final Props props, final Logger logger) throws HadoopSecurityManagerException {
+    final String key = getTokenSetKey(tokenSource, props);
+    if (key == null) {
+      tokenSource.prefetchToken(tokenFile, props, logger);
+      return;
+    }
+    cancelUnusedTokens(logger);
+
+    final Lock fetchLock = this.fetchLocks.get(key);
+    fetchLock.lock();
+    try {
+      SharedTokens tokens = acquireSharedTokens(key);
+      if (tokens == null) {
+        tokens = fetchSharedTokens(tokenSource, key, props, logger);
+      } else {
+        logger.info("Reusing hadoop tokens in " + tokens.file.getAbsolutePath());
+      }
+      if (!linkTokenFile(tokens, tokenFile, logger)) {
+        releaseSharedTokens(tokens);
+        tokenSource.prefetchToken(tokenFile, props, logger);
+      }
+    } finally {
+      fetchLock.unlock();
+    }
+  }
+
+  /**
+   * Cancel the tokens of the job. Shared tokens are only cancelled once they are no longer used
+   * nor reused.
+   */
+  public void cancelTokens(final HadoopSecurityManager tokenSource, final File tokenFile,
+      final String userToProxy, final Logger logger) throws HadoopSecurityManagerException {
+    final SharedTokens tokens;
+    synchronized (this) {
+      tokens = this.tokenFileToSharedTokens.remove(tokenFile.getAbsolutePath());
+    }
+    if (tokens == null) {
+      tokenSource.cancelTokens(tokenFile, userToProxy, logger);
+      return;
+    }
+    releaseSharedTokens(tokens);
+    cancelUnusedTokens(logger);
+  }
+
+  /**
+   * @return the key identifying the token set of the job, null if its tokens can't be shared
+   */
+  @VisibleForTesting
+  static String getTokenSetKey(final HadoopSecurityManager tokenSource, final Props props) {
+    if (!props.getBoolean(TOKEN_REUSE_ENABLED, false)
+        || props.getBoolean(JobProperties.ENABLE_JOB_SSL, false)
+        || props.getBoolean(JobProperties.ENABLE_OAUTH, false)) {
+      return null;
+    }
+    final StringBuilder key = new StringBuilder(tokenSource.getClass().getName());
+    key.append('\n').append(props.getString(JobProperties.USER_TO_PROXY));
+    // The kerberos principal of the proxied user is specific to the execution
+    if (props.getString(HadoopSecurityManager.DOMAIN_NAME, null) != null) {
+      key.append('\n').append(props.getString(FlowProperties.AZKABAN_FLOW_EXEC_ID));
+    }
+    for (final String property : TOKEN_SET_PROPERTIES) {
+      key.append('\n').append(property).append('=').append(props.getString(property, ""));
+    }
+    return key.toString();
+  }
+
+  private synchronized SharedTokens acquireSharedTokens(final String key) {
+    final SharedTokens tokens = this.sharedTokens.get(key);
+    if (tokens == null) {
+      return null;
+    }
+    if (this.currentTimeMillis.getAsLong() >= tokens.reuseUntilMs) {
+      this.sharedTokens.remove(key);
+      this.replacedTokens.add(tokens);
+      return null;
+    }
+    tokens.refCount++;
+    return tokens;
+  }
+
+  private synchronized void releaseSharedTokens(final SharedTokens tokens) {
+    tokens.refCount--;
+    if (tokens.refCount == 0) {
+      tokens.lastReleasedMs = this.currentTimeMillis.getAsLong();
+    }
+  }
+
+  private synchronized void startReaper(final Props props) {
+    if (!this.reaperEnabled || this.reaper != null) {
+      return;
+    }
+    final long intervalSec = props.getLong(TOKEN_REUSE_REAP_INTERVAL_SEC, 60);
+    this.reaper = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("azk-token-reaper").setDaemon(true).build());
+    this.reaper.scheduleWithFixedDelay(() -> {
+      try {
+        cancelUnusedTokens(LOGGER);
+      } catch (final RuntimeException e) {
+        LOGGER.error("Failed to cancel unused shared hadoop tokens", e);
+      }
+    }, intervalSec, intervalSec, TimeUnit.SECONDS);
+  }
+
+  private SharedTokens fetchSharedTokens(final HadoopSecurityManager tokenSource,
+      final String key, final Props props, final Logger logger)
+      throws HadoopSecurityManagerException {
+    final File file;
+    try {
+      file = File.createTempFile("mr-azkaban-shared", ".token");
+    } catch (final IOException e) {
+      throw new HadoopSecurityManagerException("Failed to create the shared token file.", e);
+    }
+    final long fetchTime = this.currentTimeMillis.getAsLong();
+    try {
+      tokenSource.prefetchToken(file, props, logger);
+    } catch (final HadoopSecurityManagerException e) {
+      file.delete();
+      throw e;
+    }
+
+    long reuseUntilMs = fetchTime + TimeUnit.SECONDS.toMillis(props.getLong(TOKEN_REUSE_MAX_SEC,
+        3600));
+    final long renewMarginMs = TimeUnit.SECONDS.toMillis(props.getLong(
+        TOKEN_REUSE_RENEW_MARGIN_SEC, 600));
+    for (final long maxDate : getTokenMaxDates(file, logger)) {
+      reuseUntilMs = Math.min(reuseUntilMs, maxDate - renewMarginMs);
+    }
+
+    final SharedTokens tokens = new SharedTokens(file, tokenSource,
+        props.getString(JobProperties.USER_TO_PROXY), reuseUntilMs,
+        TimeUnit.SECONDS.toMillis(props.getLong(TOKEN_REUSE_IDLE_SEC, 300)));
+    synchronized (this) {
+      final SharedTokens previousTokens = this.sharedTokens.put(key, tokens);
+      if (previousTokens != null) {
+        this.replacedTokens.add(previousTokens);
+      }
+    }
+    logger.info("Sharing hadoop tokens in " + file.getAbsolutePath() + " until " + reuseUntilMs);
+    startReaper(props);
+    return tokens;
+  }
+
+  private static List<Long> getTokenMaxDates(final File file, final Logger logger) {
+    final List<Long> maxDates = new ArrayList<>();
+    try {
+      final Credentials credentials =
+          Credentials.readTokenStorageFile(new Path(file.toURI()), new Configuration());
+      for (final Token<? extends TokenIdentifier> token : credentials.getAllTokens()) {
+        final TokenIdentifier identifier = token.decodeIdentifier();
+        if (identifier instanceof AbstractDelegationTokenIdentifier) {
+          maxDates.add(((AbstractDelegationTokenIdentifier) identifier).getMaxDate());
+        }
+      }
+    } catch (final IOException e) {
+      // The reuse period still bounds the time the tokens are shared
+      logger.warn("Failed to read the max dates of the tokens in " + file.getAbsolutePath(), e);
+    }
+    return maxDates;
+  }
+
+  /**
+   * Link the shared token file at the token file location of the job. The shared tokens must be
+   * acquired.
+   *
+   * @return false if the file system doesn't support hard links
+   */
+  private boolean linkTokenFile(final SharedTokens tokens, final File tokenFile,
+      final Logger logger) {
+    try {
+      Files.deleteIfExists(tokenFile.toPath());
+      Files.createLink(tokenFile.toPath(), tokens.file.toPath());
+    } catch (final IOException | UnsupportedOperationException e) {
+      logger.warn("Failed to link " + tokenFile.getAbsolutePath() + " to shared token file "
+          + tokens.file.getAbsolutePath() + ", fetching tokens for the job.", e);
+      return false;
+    }
+    synchronized (this) {
+      this.tokenFileToSharedTokens.put(tokenFile.getAbsolutePath(), tokens);
+    }
+    return true;
+  }
+
+  /**
+   * Cancel the token sets which are no longer used by any job and either past their reuse period
+   * or idle.
+   */
+  @VisibleForTesting
+  void cancelUnusedTokens(final Logger logger) {
+    final List<SharedTokens> unusedTokens = new ArrayList<>();
+    synchronized (this) {
+      final long now = this.currentTimeMillis.getAsLong();
+      final Iterator<SharedTokens> it = this.sharedTokens.values().iterator();
+      while (it.hasNext()) {
+        final SharedTokens tokens = it.next();
+        if (now >= tokens.reuseUntilMs
+            || (tokens.refCount == 0 && now - tokens.lastReleasedMs >= tokens.idleMs)) {
+          it.remove();
+          this.replacedTokens.add(tokens);
+        }
+      }
+      final Iterator<SharedTokens> replacedIt = this.replacedTokens.iterator();
+      while (replacedIt.hasNext()) {
+        final SharedTokens tokens = replacedIt.next();
+        if (tokens.refCount == 0) {
+          replacedIt.remove();
+          unusedTokens.add(tokens);
+        }
+      }
+    }
+    for (final SharedTokens tokens : unusedTokens) {
+      logger.info("Cancelling shared hadoop tokens in " + tokens.file.getAbsolutePath());
+      try {
+        tokens.tokenSource.cancelTokens(tokens.file, tokens.userToProxy, logger);
+      } catch (final HadoopSecurityManagerException e) {
+        logger.error("Failed to cancel shared hadoop tokens in " + tokens.file.getAbsolutePath(),
+            e);
+      } finally {
+        tokens.file.delete();
+      }
+    }
+  }
+
+  @VisibleForTesting
+  synchronized int getSharedTokenSetCount() {
+    return this.sharedTokens.size() + this.replacedTokens.size();
+  }
+
+  private static class SharedTokens {
+
+    private final File file;
+    private final HadoopSecurityManager tokenSource;
+    private final String userToProxy;
+    private final long reuseUntilMs;
+    private final long idleMs;
+    // Number of jobs using the tokens and time the last one released them, guarded by the broker
+    private int refCount = 1;
+    private long lastReleasedMs;
+
+    private SharedTokens(final File file, final HadoopSecurityManager tokenSource,
+        final String userToProxy, final long reuseUntilMs, final long idleMs) {
+      this.file = file;
+      this.tokenSource = tokenSource;
+      this.userToProxy = userToProxy;
+      this.reuseUntilMs = reuseUntilMs;
+      this.idleMs = idleMs;
+    }
+  }
+}
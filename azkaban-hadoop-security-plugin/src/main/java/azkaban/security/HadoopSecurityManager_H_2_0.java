@@ -32,6 +32,7 @@ import azkaban.security.commons.HadoopSecurityManagerException;
 import azkaban.utils.ExecuteAsUser;
 import azkaban.utils.Props;
 import azkaban.utils.UndefinedPropertyException;
+import com.google.common.util.concurrent.Striped;
 import java.io.Closeable;
 import java.io.DataOutputStream;
 import java.io.File;
@@ -47,6 +48,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.CommonConfigurationKeys;
 import org.apache.hadoop.fs.CommonConfigurationKeysPublic;
@@ -128,6 +130,7 @@ public class HadoopSecurityManager_H_2_0 extends HadoopSecurityManager {
   private static final String AZKABAN_PRINCIPAL = "proxy.user";
   private static final String OBTAIN_JOBHISTORYSERVER_TOKEN =
       "obtain.jobhistoryserver.token";
+  private static final int USER_UGI_LOCK_STRIPES = 64;
   private final static Logger logger = Logger
       .getLogger(HadoopSecurityManager_H_2_0.class);
 
@@ -135,6 +138,8 @@ public class HadoopSecurityManager_H_2_0 extends HadoopSecurityManager {
   private final ExecuteAsUser executeAsUser;
   private final Configuration conf;
   private final ConcurrentMap<String, UserGroupInformation> userUgiMap;
+  // Proxy users are created under a per user lock, lookups of different users don't contend
+  private final Striped<Lock> userUgiLocks = Striped.lock(USER_UGI_LOCK_STRIPES);
   private UserGroupInformation loginUser = null;
   private String keytabLocation;
   private String keytabPrincipal;
@@ -224,7 +229,7 @@ public class HadoopSecurityManager_H_2_0 extends HadoopSecurityManager {
    * properties file.
    */
   @Override
-  public synchronized UserGroupInformation getProxiedUser(final String userToProxy)
+  public UserGroupInformation getProxiedUser(final String userToProxy)
       throws HadoopSecurityManagerException {
 
     if (userToProxy == null) {
@@ -232,22 +237,32 @@ public class HadoopSecurityManager_H_2_0 extends HadoopSecurityManager {
     }
 
     UserGroupInformation ugi = this.userUgiMap.get(userToProxy);
-    if (ugi == null) {
-      logger.info("proxy user " + userToProxy
-          + " not exist. Creating new proxy user");
-      if (this.shouldProxy) {
-        try {
-          ugi =
-              UserGroupInformation.createProxyUser(userToProxy,
-                  UserGroupInformation.getLoginUser());
-        } catch (final IOException e) {
-          throw new HadoopSecurityManagerException(
-              "Failed to create proxy user", e);
+    if (ugi != null) {
+      return ugi;
+    }
+    final Lock lock = this.userUgiLocks.get(userToProxy);
+    lock.lock();
+    try {
+      ugi = this.userUgiMap.get(userToProxy);
+      if (ugi == null) {
+        logger.info("proxy user " + userToProxy
+            + " not exist. Creating new proxy user");
+        if (this.shouldProxy) {
+          try {
+            ugi =
+                UserGroupInformation.createProxyUser(userToProxy,
+                    UserGroupInformation.getLoginUser());
+          } catch (final IOException e) {
+            throw new HadoopSecurityManagerException(
+                "Failed to create proxy user", e);
+          }
+        } else {
+          ugi = UserGroupInformation.createRemoteUser(userToProxy);
         }
-      } else {
-        ugi = UserGroupInformation.createRemoteUser(userToProxy);
+        this.userUgiMap.put(userToProxy, ugi);
       }
-      this.userUgiMap.putIfAbsent(userToProxy, ugi);
+    } finally {
+      lock.unlock();
     }
     return ugi;
   }
@@ -557,6 +557,8 @@ public class FlowTriggerService {
     this.triggerProcessor.shutdown();
     this.triggerPluginManager.shutdown();
     this.cleaner.shutdown();
+    // persist dependency status updates made by the tasks stopped above
+    this.flowTriggerInstanceLoader.shutdown();
   }
 
   public Collection<TriggerInstance> getTriggerInstances(final int projectId, final String flowId,
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.flowtrigger.database;
+
+import azkaban.db.DatabaseOperator;
+import azkaban.metrics.MetricsManager;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Write-behind buffer for execution_dependencies rows.
+ *
+ * Inserts and status updates are queued in memory and written in two JDBC batches inside a single
+ * transaction, either every flush interval or as soon as max batch size writes are pending. Status
+ * updates of the same dependency instance are coalesced so only the latest one is written. Inserts
+ * are always written before updates of the same flush, so an update never overtakes the insert
+ * of its row.
+ *
+ * If a flush fails, the writes are put back in front of the buffer and retried on the next flush.
+ * Once a write has failed max attempts times, the batch is written row by row instead and the
+ * rows still failing are dropped with an error log, so that one bad row can't block the others
+ * forever. {@link #shutdown()} stops the background flusher and synchronously writes whatever is
+ * left.
+ */
+class DependencyInstanceWriteBuffer {
+
+  private static final Logger logger = LoggerFactory
+      .getLogger(DependencyInstanceWriteBuffer.class);
+
+  private final DatabaseOperator dbOperator;
+  private final String insertSql;
+  private final String updateSql;
+  private final int maxBatchSize;
+  private final int maxAttempts;
+  private final ScheduledExecutorService flusher;
+  private final Histogram batchSizeHistogram;
+  private final Timer flushTimer;
+  private final Meter droppedMeter;
+
+  // Guarded by this
+  private List<PendingWrite> pendingInserts = new ArrayList<>();
+  // Guarded by this. Keyed by trigger instance id and dep name.
+  private Map<DependencyKey, PendingWrite> pendingUpdates = new LinkedHashMap<>();
+  private boolean flushScheduled = false;
+  private boolean shutdown = false;
+
+  // Serializes flushes so batches are written in the order they were enqueued.
+  private final Object flushLock = new Object();
+
+  DependencyInstanceWriteBuffer(final DatabaseOperator dbOperator, final String insertSql,
+      final String updateSql, final long flushIntervalMs, final int maxBatchSize,
+      final int maxAttempts, final MetricsManager metricsManager) {
+    Preconditions.checkArgument(flushIntervalMs > 0, "flush interval must be positive");
+    Preconditions.checkArgument(maxBatchSize > 0, "max batch size must be positive");
+    Preconditions.checkArgument(maxAttempts > 0, "max attempts must be positive");
+    this.dbOperator = dbOperator;
+    this.insertSql = insertSql;
+    this.updateSql = updateSql;
+    this.maxBatchSize = maxBatchSize;
+    this.maxAttempts = maxAttempts;
+    this.batchSizeHistogram = metricsManager.addHistogram("flow-trigger-dep-write-batch-size");
+    this.flushTimer = metricsManager.addTimer("flow-trigger-dep-write-flush-latency");
+    this.droppedMeter = metricsManager.addMeter("flow-trigger-dep-write-dropped");
+    metricsManager.addGauge("flow-trigger-dep-write-pending", this::getPendingCount);
+    this.flusher = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("azk-dep-write-buffer-%d").setDaemon(true)
+            .build());
+    this.flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Queue the insert of one dependency instance row.
+   *
+   * @param row parameters of the insert statement
+   */
+  void addInsert(final Object[] row) {
+    synchronized (this) {
+      checkNotShutdown();
+      this.pendingInserts.add(new PendingWrite(row));
+      scheduleEarlyFlushIfFull();
+    }
+  }
+
+  /**
+   * Queue a status update of one dependency instance row, replacing any pending update of the
+   * same row.
+   *
+   * @param params parameters of the update statement
+   */
+  void addStatusUpdate(final String triggerInstanceId, final String depName,
+      final Object[] params) {
+    synchronized (this) {
+      checkNotShutdown();
+      final DependencyKey key = new DependencyKey(triggerInstanceId, depName);
+      // remove first so a re-queued key moves to the tail and keeps enqueue order
+      this.pendingUpdates.remove(key);
+      this.pendingUpdates.put(key, new PendingWrite(params));
+      scheduleEarlyFlushIfFull();
+    }
+  }
+
+  synchronized int getPendingCount() {
+    return this.pendingInserts.size() + this.pendingUpdates.size();
+  }
+
+  /**
+   * Synchronously write all pending rows to db.
+   *
+   * @throws SQLException if the write fails, in which case pending rows are kept for retry
+   */
+  void flush() throws SQLException {
+    synchronized (this.flushLock) {
+      final List<PendingWrite> inserts;
+      final Map<DependencyKey, PendingWrite> updates;
+      synchronized (this) {
+        this.flushScheduled = false;
+        if (this.pendingInserts.isEmpty() && this.pendingUpdates.isEmpty()) {
+          return;
+        }
+        inserts = this.pendingInserts;
+        updates = this.pendingUpdates;
+        this.pendingInserts = new ArrayList<>();
+        this.pendingUpdates = new LinkedHashMap<>();
+      }
+
+      final Timer.Context timerContext = this.flushTimer.time();
+      try {
+        this.dbOperator.transaction(transOperator -> {
+          if (!inserts.isEmpty()) {
+            transOperator.batch(this.insertSql, toParams(inserts));
+          }
+          if (!updates.isEmpty()) {
+            transOperator.batch(this.updateSql, toParams(updates.values()));
+          }
+          return null;
+        });
+        this.batchSizeHistogram.update(inserts.size() + updates.size());
+      } catch (final SQLException ex) {
+        if (!recordFailedAttempt(inserts, updates.values())) {
+          requeue(inserts, updates);
+          throw ex;
+        }
+        logger.error("failed to flush dependency instance writes " + this.maxAttempts
+            + " times, writing them one by one", ex);
+        inserts.removeIf(write -> writeOneByOne(this.insertSql, write));
+        updates.values().removeIf(write -> writeOneByOne(this.updateSql, write));
+        requeue(inserts, updates);
+      } finally {
+        timerContext.stop();
+      }
+    }
+  }
+
+  /**
+   * Stop the background flusher and write remaining rows. Writes enqueued after shutdown are
+   * rejected.
+   */
+  void shutdown() throws SQLException {
+    synchronized (this) {
+      this.shutdown = true;
+    }
+    this.flusher.shutdown();
+    try {
+      this.flusher.awaitTermination(10, TimeUnit.SECONDS);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    flush();
+  }
+
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (final SQLException ex) {
+      logger.error("failed to flush dependency instance writes, will retry", ex);
+    } catch (final RuntimeException ex) {
+      logger.error("unexpected error when flushing dependency instance writes", ex);
+    }
+  }
+
+  // Must hold this.
+  private void scheduleEarlyFlushIfFull() {
+    if (!this.flushScheduled
+        && this.pendingInserts.size() + this.pendingUpdates.size() >= this.maxBatchSize) {
+      this.flushScheduled = true;
+      this.flusher.execute(this::flushQuietly);
+    }
+  }
+
+  private void checkNotShutdown() {
+    if (this.shutdown) {
+      throw new IllegalStateException("dependency instance write buffer is shut down");
+    }
+  }
+
+  private static Object[][] toParams(final Collection<PendingWrite> writes) {
+    return writes.stream().map(write -> write.params).toArray(Object[][]::new);
+  }
+
+  /**
+   * @return true if any of the writes has now failed max attempts times
+   */
+  private boolean recordFailedAttempt(final Collection<PendingWrite> inserts,
+      final Collection<PendingWrite> updates) {
+    boolean exhausted = false;
+    for (final PendingWrite write : Iterables.concat(inserts, updates)) {
+      write.failedAttempts++;
+      exhausted |= write.failedAttempts >= this.maxAttempts;
+    }
+    return exhausted;
+  }
+
+  /**
+   * Write a row in its own statement, so that a bad row doesn't fail the others.
+   *
+   * @return true if the row is done with, i.e. written or dropped after max attempts
+   */
+  private boolean writeOneByOne(final String sql, final PendingWrite write) {
+    try {
+      this.dbOperator.update(sql, write.params);
+      return true;
+    } catch (final SQLException ex) {
+      if (write.failedAttempts < this.maxAttempts) {
+        // not its turn to be dropped yet, the failed batch attempt was already counted
+        return false;
+      }
+      this.droppedMeter.mark();
+      logger.error("dropping dependency instance write " + Arrays.toString(write.params)
+          + " after " + write.failedAttempts + " failed attempts", ex);
+      return true;
+    }
+  }
+
+  private synchronized void requeue(final List<PendingWrite> inserts,
+      final Map<DependencyKey, PendingWrite> updates) {
+    inserts.addAll(this.pendingInserts);
+    this.pendingInserts = inserts;
+    // newer updates queued during the failed flush win over the ones being requeued
+    for (final Map.Entry<DependencyKey, PendingWrite> entry : this.pendingUpdates.entrySet()) {
+      updates.remove(entry.getKey());
+      updates.put(entry.getKey(), entry.getValue());
+    }
+    this.pendingUpdates = updates;
+  }
+
+  private static class PendingWrite {
+
+    private final Object[] params;
+    // Guarded by flushLock
+    private int failedAttempts = 0;
+
+    PendingWrite(final Object[] params) {
+      this.params = params;
+    }
+  }
+
+  private static class DependencyKey {
+
+    private final String triggerInstanceId;
+    private final String depName;
+
+    DependencyKey(final String triggerInstanceId, final String depName) {
+      this.triggerInstanceId = triggerInstanceId;
+      this.depName = depName;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final DependencyKey that = (DependencyKey) o;
+      return this.triggerInstanceId.equals(that.triggerInstanceId)
+          && this.depName.equals(that.depName);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * this.triggerInstanceId.hashCode() + this.depName.hashCode();
+    }
+  }
+}
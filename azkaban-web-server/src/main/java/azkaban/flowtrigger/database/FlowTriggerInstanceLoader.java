@@ -70,4 +70,16 @@ public interface FlowTriggerInstanceLoader {
    * @return number of deleted rows(dependency instances) ;
    */
   int deleteTriggerExecutionsFinishingOlderThan(long timestamp);
+
+  /**
+   * Write out any dependency instance writes the loader buffers in memory.
+   */
+  default void flush() {
+  }
+
+  /**
+   * Write out buffered writes and release resources held by the loader.
+   */
+  default void shutdown() {
+  }
 }
@@ -24,11 +24,13 @@ import azkaban.flowtrigger.DependencyException;
 import azkaban.flowtrigger.DependencyInstance;
 import azkaban.flowtrigger.Status;
 import azkaban.flowtrigger.TriggerInstance;
+import azkaban.metrics.MetricsManager;
 import azkaban.project.FlowLoaderUtils;
 import azkaban.project.FlowTrigger;
 import azkaban.project.Project;
 import azkaban.project.ProjectLoader;
 import azkaban.project.ProjectManager;
+import azkaban.utils.Props;
 import com.google.common.io.Files;
 import java.io.File;
 import java.sql.ResultSet;
@@ -146,20 +148,46 @@ public class JdbcFlowTriggerInstanceLoaderImpl implements FlowTriggerInstanceLoa
   private final ProjectLoader projectLoader;
   private final DatabaseOperator dbOperator;
   private final ProjectManager projectManager;
+  // null if dependency instance writes go straight to db
+  private final DependencyInstanceWriteBuffer writeBuffer;
 
 
-  @Inject
   public JdbcFlowTriggerInstanceLoaderImpl(final DatabaseOperator databaseOperator,
       final ProjectLoader projectLoader, final ProjectManager projectManager) {
     this.dbOperator = databaseOperator;
     this.projectLoader = projectLoader;
     this.projectManager = projectManager;
+    this.writeBuffer = null;
+  }
+
+  @Inject
+  public JdbcFlowTriggerInstanceLoaderImpl(final DatabaseOperator databaseOperator,
+      final ProjectLoader projectLoader, final ProjectManager projectManager, final Props props,
+      final MetricsManager metricsManager) {
+    this.dbOperator = databaseOperator;
+    this.projectLoader = projectLoader;
+    this.projectManager = projectManager;
+    if (props.getBoolean(Constants.ConfigurationKeys.FLOW_TRIGGER_DEP_WRITE_BUFFER_ENABLED,
+        false)) {
+      this.writeBuffer = new DependencyInstanceWriteBuffer(databaseOperator, INSERT_DEPENDENCY,
+          UPDATE_DEPENDENCY_STATUS_ENDTIME_AND_CANCELLEATION_CAUSE,
+          props.getLong(Constants.ConfigurationKeys.FLOW_TRIGGER_DEP_WRITE_BUFFER_FLUSH_INTERVAL_MS,
+              1000L),
+          props.getInt(Constants.ConfigurationKeys.FLOW_TRIGGER_DEP_WRITE_BUFFER_MAX_BATCH_SIZE,
+              500),
+          props.getInt(Constants.ConfigurationKeys.FLOW_TRIGGER_DEP_WRITE_BUFFER_MAX_ATTEMPTS,
+              5),
+          metricsManager);
+    } else {
+      this.writeBuffer = null;
+    }
   }
 
   @Override
   public Collection<TriggerInstance> getIncompleteTriggerInstances() {
     final Collection<TriggerInstance> unfinished = new ArrayList<>();
     try {
+      flushWriteBuffer();
       final Collection<TriggerInstance> triggerInsts = this.dbOperator
           .query(SELECT_ALL_PENDING_EXECUTIONS,
               new TriggerInstanceHandler(SORT_MODE.SORT_ON_START_TIME_ASC));
@@ -222,8 +250,42 @@ public class JdbcFlowTriggerInstanceLoaderImpl implements FlowTriggerInstanceLoa
     throw new DependencyException(error, ex);
   }
 
+  /**
+   * Write out buffered dependency instance writes so that queries observe them. A failed flush
+   * fails the query rather than letting it read rows that are missing the buffered writes.
+   */
+  private void flushWriteBuffer() throws SQLException {
+    if (this.writeBuffer != null) {
+      this.writeBuffer.flush();
+    }
+  }
+
+  @Override
+  public void flush() {
+    if (this.writeBuffer != null) {
+      try {
+        this.writeBuffer.flush();
+      } catch (final SQLException ex) {
+        handleSQLException(ex);
+      }
+    }
+  }
+
+  @Override
+  public void shutdown() {
+    if (this.writeBuffer != null) {
+      try {
+        this.writeBuffer.shutdown();
+      } catch (final SQLException ex) {
+        handleSQLException(ex);
+      }
+    }
+  }
+
   @Override
   public void updateAssociatedFlowExecId(final TriggerInstance triggerInst) {
+    // the rows being updated may still be sitting in the write buffer
+    flush();
     final SQLTransaction<Integer> insertTrigger = transOperator -> {
       for (final DependencyInstance depInst : triggerInst.getDepInstances()) {
         transOperator
@@ -253,6 +315,22 @@ public class JdbcFlowTriggerInstanceLoaderImpl implements FlowTriggerInstanceLoa
 
   @Override
   public void uploadTriggerInstance(final TriggerInstance triggerInst) {
+    if (this.writeBuffer != null) {
+      for (final DependencyInstance depInst : triggerInst.getDepInstances()) {
+        this.writeBuffer.addInsert(new Object[]{triggerInst.getId(), depInst.getDepName(),
+            depInst.getStartTime(),
+            depInst.getEndTime(),
+            depInst.getStatus().ordinal(),
+            depInst.getCancellationCause().ordinal(),
+            triggerInst.getProject().getId(),
+            triggerInst.getProject().getVersion(),
+            triggerInst.getFlowId(),
+            triggerInst.getFlowVersion(),
+            triggerInst.getFlowExecId()});
+      }
+      return;
+    }
+
     final SQLTransaction<Integer> insertTrigger = transOperator -> {
       for (final DependencyInstance depInst : triggerInst.getDepInstances()) {
         transOperator
@@ -275,6 +353,16 @@ public class JdbcFlowTriggerInstanceLoaderImpl implements FlowTriggerInstanceLoa
 
   @Override
   public void updateDependencyExecutionStatus(final DependencyInstance depInst) {
+    if (this.writeBuffer != null) {
+      this.writeBuffer.addStatusUpdate(depInst.getTriggerInstance().getId(), depInst.getDepName(),
+          new Object[]{depInst.getStatus().ordinal(),
+              depInst.getEndTime(),
+              depInst.getCancellationCause().ordinal(),
+              depInst.getTriggerInstance().getId(),
+              depInst.getDepName()});
+      return;
+    }
+
     executeUpdate(UPDATE_DEPENDENCY_STATUS_ENDTIME_AND_CANCELLEATION_CAUSE,
         depInst.getStatus().ordinal(),
         depInst.getEndTime(),
@@ -292,6 +380,7 @@ public class JdbcFlowTriggerInstanceLoaderImpl implements FlowTriggerInstanceLoa
   public Collection<TriggerInstance> getRecentlyFinished(final int limit) {
     final String query = String.format(SELECT_RECENTLY_FINISHED, limit);
     try {
+      flushWriteBuffer();
       return this.dbOperator
           .query(query, new TriggerInstanceHandler(SORT_MODE.SORT_ON_START_TIME_ASC));
     } catch (final SQLException ex) {
@@ -303,6 +392,7 @@ public class JdbcFlowTriggerInstanceLoaderImpl implements FlowTriggerInstanceLoa
   @Override
   public Collection<TriggerInstance> getRunning() {
     try {
+      flushWriteBuffer();
       //todo chengren311:
       // 1. add index for the execution_dependencies table to accelerate selection.
       return this.dbOperator.query(SELECT_ALL_RUNNING_EXECUTIONS, new TriggerInstanceHandler
@@ -352,6 +442,7 @@ public class JdbcFlowTriggerInstanceLoaderImpl implements FlowTriggerInstanceLoa
     }
     TriggerInstance triggerInstance = null;
     try {
+      flushWriteBuffer();
       final Collection<TriggerInstance> res = this.dbOperator
           .query(SELECT_EXECUTIONS_BY_EXEC_ID,
               new TriggerInstanceHandler(SORT_MODE.SORT_ON_START_TIME_ASC), flowExecId);
@@ -377,6 +468,7 @@ public class JdbcFlowTriggerInstanceLoaderImpl implements FlowTriggerInstanceLoa
       final int length) {
 
     try {
+      flushWriteBuffer();
       final Collection<TriggerInstance> res = this.dbOperator
           .query(SELECT_RECENT_WITH_START_AND_LENGTH, new TriggerInstanceHandler(SORT_MODE
                   .SORT_ON_START_TIME_DESC), projectId,
@@ -391,6 +483,7 @@ public class JdbcFlowTriggerInstanceLoaderImpl implements FlowTriggerInstanceLoa
   @Override
   public int deleteTriggerExecutionsFinishingOlderThan(final long timestamp) {
     try {
+      flushWriteBuffer();
       final Collection<TriggerInstance> res = this.dbOperator
           .query(SELECT_EXECUTION_OLDER_THAN,
               new TriggerInstanceHandler(SORT_MODE.SORT_ON_START_TIME_DESC), timestamp);
@@ -423,6 +516,7 @@ public class JdbcFlowTriggerInstanceLoaderImpl implements FlowTriggerInstanceLoa
   public TriggerInstance getTriggerInstanceById(final String triggerInstanceId) {
     TriggerInstance triggerInstance = null;
     try {
+      flushWriteBuffer();
       final Collection<TriggerInstance> res = this.dbOperator
           .query(SELECT_EXECUTIONS_BY_INSTANCE_ID,
               new TriggerInstanceHandler(SORT_MODE.SORT_ON_START_TIME_ASC),
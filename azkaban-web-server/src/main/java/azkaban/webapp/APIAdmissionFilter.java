@@ -0,0 +1,171 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.webapp;
+
+import static azkaban.Constants.DEFAULT_JETTY_MAX_THREAD_COUNT;
+
+import azkaban.Constants.ConfigurationKeys;
+import azkaban.server.AzkabanAPI;
+import azkaban.utils.JSONUtils;
+import azkaban.utils.Props;
+import azkaban.webapp.servlet.AbstractAzkabanServlet;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.apache.log4j.Logger;
+
+/**
+ * Servlet filter limiting the concurrent requests of each api endpoint, so that a burst of
+ * expensive requests, e.g. history searches or log fetches, can't take all the Jetty threads and
+ * DB connections.
+ *
+ * <p>Each API has its own {@link APIConcurrencyLimit}, adapted to the latency of its requests.
+ * All the APIs together are also limited to the Jetty threads minus the reserved ones. Requests
+ * above the limits are rejected with 429 and a Retry-After header. The priority APIs, e.g. the
+ * ones executing and cancelling flows, are never rejected and can use the reserved threads.
+ *
+ * <p>Only the requests resolving to an {@link AzkabanAPI} of a registered route are limited.
+ * Pages, static resources and requests without a matching API pass through unlimited and are
+ * not counted against the shared threads, so a burst of them can still take the Jetty threads.
+ */
+public class APIAdmissionFilter implements Filter {
+
+  @VisibleForTesting
+  static final int SC_TOO_MANY_REQUESTS = 429;
+  private static final Logger logger = Logger.getLogger(APIAdmissionFilter.class);
+  private static final String DEFAULT_PRIORITY_APIS = "executor_ajax-executeFlow,"
+      + "executor_ajax-cancelFlow,executor_ajax-fetchexecflow,schedule_ajax-scheduleCronFlow";
+
+  private final Map<String, AbstractAzkabanServlet> routesMap;
+  private final Set<String> priorityApis;
+  private final Semaphore sharedThreads;
+  private final Map<String, APIConcurrencyLimit> limits = new ConcurrentHashMap<>();
+  private final int initialLimit;
+  private final int minLimit;
+  private final int maxLimit;
+  private final long latencyTargetMs;
+  private final String retryAfterSeconds;
+
+  public APIAdmissionFilter(final Map<String, AbstractAzkabanServlet> routesMap,
+      final Props props) {
+    this.routesMap = routesMap;
+    this.priorityApis = new HashSet<>(props.getStringList(
+        ConfigurationKeys.API_ADMISSION_PRIORITY_APIS, Arrays.asList(DEFAULT_PRIORITY_APIS
+            .split(","))));
+    final int maxThreads = props.getInt("jetty.maxThreads", DEFAULT_JETTY_MAX_THREAD_COUNT);
+    final int reservedThreads = props
+        .getInt(ConfigurationKeys.API_ADMISSION_RESERVED_THREADS, 4);
+    this.sharedThreads = new Semaphore(Math.max(1, maxThreads - reservedThreads));
+    this.initialLimit = props.getInt(ConfigurationKeys.API_ADMISSION_INITIAL_LIMIT, 10);
+    this.minLimit = props.getInt(ConfigurationKeys.API_ADMISSION_MIN_LIMIT, 1);
+    this.maxLimit = props.getInt(ConfigurationKeys.API_ADMISSION_MAX_LIMIT, maxThreads);
+    this.latencyTargetMs = props.getLong(ConfigurationKeys.API_ADMISSION_LATENCY_TARGET_MS, 2000);
+    this.retryAfterSeconds = String.valueOf(Math.max(1, (this.latencyTargetMs + 999) / 1000));
+  }
+
+  /**
+   * @return the name of the API of a route, as used for its metrics and in the priority APIs
+   */
+  public static String getApiName(final String route, final AzkabanAPI api) {
+    return route.replace("/", "") + "_" + api.getRequestParameter() +
+        (api.getParameterValue().isEmpty() ? "" : "-" + api.getParameterValue());
+  }
+
+  @Override
+  public void doFilter(
+      final ServletRequest request,
+      final ServletResponse response,
+      final FilterChain chain)
+      throws IOException, ServletException {
+    final HttpServletRequest req = (HttpServletRequest) request;
+
+    final String requestURI = req.getRequestURI();
+    final AbstractAzkabanServlet servlet = this.routesMap.get(requestURI);
+    final Optional<AzkabanAPI> api =
+        servlet == null ? Optional.empty() : servlet.getAzkabanAPI(req);
+    if (!api.isPresent()) {
+      // Pages and URIs not resolving to an API are neither limited nor counted against the
+      // shared threads
+      chain.doFilter(request, response);
+      return;
+    }
+    final String apiName = getApiName(requestURI, api.get());
+    if (this.priorityApis.contains(apiName)) {
+      chain.doFilter(request, response);
+      return;
+    }
+
+    if (!this.sharedThreads.tryAcquire()) {
+      reject((HttpServletResponse) response, apiName);
+      return;
+    }
+    try {
+      final APIConcurrencyLimit limit = getLimit(apiName);
+      if (!limit.tryAcquire()) {
+        reject((HttpServletResponse) response, apiName);
+        return;
+      }
+      final long startTime = System.currentTimeMillis();
+      try {
+        chain.doFilter(request, response);
+      } finally {
+        limit.release(System.currentTimeMillis() - startTime);
+      }
+    } finally {
+      this.sharedThreads.release();
+    }
+  }
+
+  @VisibleForTesting
+  APIConcurrencyLimit getLimit(final String apiName) {
+    return this.limits.computeIfAbsent(apiName, name -> new APIConcurrencyLimit(
+        this.initialLimit, this.minLimit, this.maxLimit, this.latencyTargetMs));
+  }
+
+  private void reject(final HttpServletResponse response, final String apiName)
+      throws IOException {
+    logger.debug("Too many concurrent requests, rejecting request to " + apiName);
+    response.setStatus(SC_TOO_MANY_REQUESTS);
+    response.setHeader("Retry-After", this.retryAfterSeconds);
+    response.setContentType(AbstractAzkabanServlet.JSON_MIME_TYPE);
+    response.getWriter().write(JSONUtils.toJSON(ImmutableMap
+        .of("error", "Too many concurrent requests to " + apiName + ", retry later.")));
+  }
+
+  @Override
+  public void init(final FilterConfig filterConfig) {
+  }
+
+  @Override
+  public void destroy() {
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.webapp;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.function.LongSupplier;
+
+/**
+ * Concurrency limit of an API, adapted to the latency of its requests (AIMD): the limit grows by
+ * one after a request answered within the latency target while the API is busy, and shrinks by
+ * {@link #DECREASE_FACTOR} after a request answered later than the target.
+ *
+ * <p>The limit shrinks at most once per latency target, so that a burst of slow requests, all
+ * slowed down by the same overload, only shrinks it once.
+ */
+public class APIConcurrencyLimit {
+
+  static final double DECREASE_FACTOR = 0.9;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final long latencyTargetMs;
+  private final LongSupplier currentTimeMillis;
+  private double limit;
+  private int inFlight = 0;
+  private long lastDecreaseMs;
+
+  public APIConcurrencyLimit(final int initialLimit, final int minLimit, final int maxLimit,
+      final long latencyTargetMs) {
+    this(initialLimit, minLimit, maxLimit, latencyTargetMs, System::currentTimeMillis);
+  }
+
+  @VisibleForTesting
+  APIConcurrencyLimit(final int initialLimit, final int minLimit, final int maxLimit,
+      final long latencyTargetMs, final LongSupplier currentTimeMillis) {
+    this.currentTimeMillis = currentTimeMillis;
+    this.lastDecreaseMs = currentTimeMillis.getAsLong() - latencyTargetMs;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.latencyTargetMs = latencyTargetMs;
+    this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+  }
+
+  /**
+   * @return true if the request is admitted, in which case {@link #release} must be called once
+   * it is answered
+   */
+  public synchronized boolean tryAcquire() {
+    if (this.inFlight >= (int) this.limit) {
+      return false;
+    }
+    this.inFlight++;
+    return true;
+  }
+
+  /**
+   * Release an admitted request and adapt the limit to its latency.
+   */
+  public synchronized void release(final long latencyMs) {
+    final int wasInFlight = this.inFlight;
+    this.inFlight--;
+    if (latencyMs > this.latencyTargetMs) {
+      final long now = this.currentTimeMillis.getAsLong();
+      if (now - this.lastDecreaseMs >= this.latencyTargetMs) {
+        this.limit = Math.max(this.minLimit, this.limit * DECREASE_FACTOR);
+        this.lastDecreaseMs = now;
+      }
+    } else if (wasInFlight * 2 >= (int) this.limit) {
+      // Only grow while the limit is used, so that it doesn't grow unbounded when idle
+      this.limit = Math.min(this.maxLimit, this.limit + 1);
+    }
+  }
+
+  public synchronized int getLimit() {
+    return (int) this.limit;
+  }
+
+  public synchronized int getInFlight() {
+    return this.inFlight;
+  }
+}
@@ -27,6 +27,8 @@ import azkaban.Constants;
 import azkaban.Constants.ConfigurationKeys;
 import azkaban.database.AzkabanDatabaseSetup;
 import azkaban.executor.ExecutionController;
+import azkaban.executor.ExecutionSearchIndexManager;
+import azkaban.executor.ExecutorLoadMonitor;
 import azkaban.executor.ExecutorManager;
 import azkaban.executor.ExecutorManagerAdapter;
 import azkaban.executor.container.ContainerizedDispatchManager;
@@ -45,6 +47,7 @@ import azkaban.server.AzkabanServer;
 import azkaban.server.IMBeanRegistrable;
 import azkaban.server.MBeanRegistrationManager;
 import azkaban.server.session.SessionCache;
+import azkaban.storage.StorageCleaner;
 import azkaban.trigger.TriggerManager;
 import azkaban.trigger.TriggerManagerException;
 import azkaban.trigger.builtin.BasicTimeChecker;
@@ -55,6 +58,7 @@ import azkaban.trigger.builtin.KillExecutionAction;
 import azkaban.trigger.builtin.SlaAlertAction;
 import azkaban.trigger.builtin.SlaChecker;
 import azkaban.user.UserManager;
+import azkaban.utils.EmailDispatcher;
 import azkaban.utils.FileIOUtils;
 import azkaban.utils.PluginUtils;
 import azkaban.utils.Props;
@@ -156,6 +160,10 @@ public class AzkabanWebServer extends AzkabanServer implements IMBeanRegistrable
   private final FlowTriggerService flowTriggerService;
   private Map<String, TriggerPlugin> triggerPlugins;
   private final ExecutionLogsCleaner executionLogsCleaner;
+  private final ExecutionSearchIndexManager executionSearchIndexManager;
+  private final EmailDispatcher emailDispatcher;
+  private final ExecutorLoadMonitor executorLoadMonitor;
+  private final StorageCleaner storageCleaner;
 
   @Inject
   public AzkabanWebServer(final Props props,
@@ -171,7 +179,11 @@ public class AzkabanWebServer extends AzkabanServer implements IMBeanRegistrable
       final FlowTriggerScheduler flowTriggerScheduler,
       final FlowTriggerService flowTriggerService,
       final StatusService statusService,
-      final ExecutionLogsCleaner executionLogsCleaner) {
+      final ExecutionLogsCleaner executionLogsCleaner,
+      final ExecutionSearchIndexManager executionSearchIndexManager,
+      final EmailDispatcher emailDispatcher,
+      final ExecutorLoadMonitor executorLoadMonitor,
+      final StorageCleaner storageCleaner) {
     this.props = requireNonNull(props, "props is null.");
     this.server = requireNonNull(server, "server is null.");
     this.executorManagerAdapter = requireNonNull(executorManagerAdapter,
@@ -187,6 +199,12 @@ public class AzkabanWebServer extends AzkabanServer implements IMBeanRegistrable
     this.flowTriggerScheduler = requireNonNull(flowTriggerScheduler, "scheduler is null.");
     this.flowTriggerService = requireNonNull(flowTriggerService, "flow trigger service is null");
     this.executionLogsCleaner = requireNonNull(executionLogsCleaner, "executionlogcleaner is null");
+    this.executionSearchIndexManager = requireNonNull(executionSearchIndexManager,
+        "executionSearchIndexManager is null");
+    this.emailDispatcher = requireNonNull(emailDispatcher, "emailDispatcher is null");
+    this.executorLoadMonitor = requireNonNull(executorLoadMonitor,
+        "executorLoadMonitor is null");
+    this.storageCleaner = requireNonNull(storageCleaner, "storageCleaner is null");
     loadBuiltinCheckersAndActions();
 
     // load all trigger agents here
@@ -475,8 +493,7 @@ public class AzkabanWebServer extends AzkabanServer implements IMBeanRegistrable
     for (final Entry<String, AbstractAzkabanServlet> entry : routesMap.entrySet()) {
       final List<AzkabanAPI> servletApiEndpoints = entry.getValue().getApiEndpoints();
       for (final AzkabanAPI api : servletApiEndpoints) {
-        final String uri = entry.getKey().replace("/", "") + "_" + api.getRequestParameter() +
-            (api.getParameterValue().isEmpty() ? "" : "-" + api.getParameterValue());
+        final String uri = APIAdmissionFilter.getApiName(entry.getKey(), api);
         api.setMetrics(this.webMetrics.setUpAzkabanAPIMetrics(uri));
       }
     }
@@ -489,11 +506,26 @@ public class AzkabanWebServer extends AzkabanServer implements IMBeanRegistrable
     metricsFilterMapping.setPathSpecs(servletPaths);
     metricsFilterMapping.setDispatches(Handler.REQUEST);
     root.getServletHandler().addFilter(metricsFilter, metricsFilterMapping);
+
+    // Configure api admission filter, after the metrics filter so that rejected requests are
+    // recorded too
+    if (this.props.getBoolean(ConfigurationKeys.API_ADMISSION_ENABLED, false)) {
+      final FilterHolder admissionFilter =
+          new FilterHolder(new APIAdmissionFilter(routesMap, this.props));
+      final FilterMapping admissionFilterMapping = new FilterMapping();
+      admissionFilterMapping.setFilterName(admissionFilter.getName());
+      admissionFilterMapping.setPathSpecs(servletPaths);
+      admissionFilterMapping.setDispatches(Handler.REQUEST);
+      root.getServletHandler().addFilter(admissionFilter, admissionFilterMapping);
+    }
   }
 
   private void prepareAndStartServer() throws Exception {
+    // before the executor manager, so that it dispatches from the latest load reports
+    this.executorLoadMonitor.start();
     this.executorManagerAdapter.start();
     this.executionLogsCleaner.start();
+    this.executionSearchIndexManager.start();
 
     configureRoutes();
     startWebMetrics();
@@ -708,6 +740,10 @@ public class AzkabanWebServer extends AzkabanServer implements IMBeanRegistrable
     this.mbeanRegistrationManager.closeMBeans();
     this.scheduleManager.shutdown();
     this.executorManagerAdapter.shutdown();
+    this.executorLoadMonitor.shutdown();
+    this.executionSearchIndexManager.shutdown();
+    // after the executor manager, which may still alert on the flows it finalizes
+    this.emailDispatcher.shutdown();
     try {
       this.server.stop();
     } catch (final Exception e) {
@@ -715,5 +751,7 @@ public class AzkabanWebServer extends AzkabanServer implements IMBeanRegistrable
       logger.error(e);
     }
     this.server.destroy();
+    // after the server, so that the uploads in progress have queued their cleanups
+    this.storageCleaner.shutdown();
   }
 }
@@ -30,12 +30,15 @@ import azkaban.webapp.plugin.PluginRegistry;
 import azkaban.webapp.plugin.TriggerPlugin;
 import azkaban.webapp.plugin.ViewerPlugin;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.TimeZone;
+import java.util.zip.GZIPOutputStream;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
 import javax.servlet.http.Cookie;
@@ -43,6 +46,10 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.apache.commons.fileupload.servlet.ServletFileUpload;
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.map.MappingJsonFactory;
 import org.joda.time.DateTime;
 
 /**
@@ -61,6 +68,8 @@ public abstract class AbstractAzkabanServlet extends HttpServlet {
   public static final String jarVersion = AbstractAzkabanServlet.class.getPackage()
       .getImplementationVersion();
   private static final long serialVersionUID = -1;
+  private static final JsonFactory JSON_FACTORY = new MappingJsonFactory();
+  private static final int GZIP_BUFFER_SIZE = 8 * 1024;
 
   protected String passwordPlaceholder;
   private AzkabanWebServer application;
@@ -72,6 +81,7 @@ public abstract class AbstractAzkabanServlet extends HttpServlet {
   private List<TriggerPlugin> triggerPlugins;
 
   private int displayExecutionPageSize;
+  private boolean jsonGzipEnabled;
 
   private final List<AzkabanAPI> apiEndpoints;
 
@@ -113,6 +123,7 @@ public abstract class AbstractAzkabanServlet extends HttpServlet {
     this.color = props.getString("azkaban.color", "#FF0000");
     this.passwordPlaceholder = props.getString("azkaban.password.placeholder", "Password");
     this.displayExecutionPageSize = props.getInt(ConfigurationKeys.DISPLAY_EXECUTION_PAGE_SIZE, 16);
+    this.jsonGzipEnabled = props.getBoolean(ConfigurationKeys.WEBSERVER_JSON_GZIP_ENABLED, true);
 
     this.viewerPlugins = PluginRegistry.getRegistry().getViewerPlugins();
     this.triggerPlugins = new ArrayList<>(this.application.getTriggerPlugins().values());
@@ -373,7 +384,44 @@ public abstract class AbstractAzkabanServlet extends HttpServlet {
   protected void writeJSON(final HttpServletResponse resp, final Object obj, final boolean pretty)
       throws IOException {
     resp.setContentType(JSON_MIME_TYPE);
-    JSONUtils.toJSON(obj, resp.getOutputStream(), true);
+    JSONUtils.toJSON(obj, resp.getOutputStream(), pretty);
+  }
+
+  /**
+   * Streams a json object out to the response without building it in memory first. The object
+   * has the fields of the map followed by the fields written by streamedFields. The response is
+   * compressed with gzip if the client accepts it.
+   */
+  protected void writeJSON(final HttpServletRequest req, final HttpServletResponse resp,
+      final Map<String, Object> fields, final JsonFieldWriter streamedFields) throws IOException {
+    resp.setContentType(JSON_MIME_TYPE);
+    OutputStream out = resp.getOutputStream();
+    GZIPOutputStream gzipOut = null;
+    if (this.jsonGzipEnabled && acceptsGzip(req)) {
+      resp.setHeader("Content-Encoding", "gzip");
+      resp.addHeader("Vary", "Accept-Encoding");
+      gzipOut = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+      out = gzipOut;
+    }
+
+    final JsonGenerator generator = JSON_FACTORY.createJsonGenerator(out, JsonEncoding.UTF8);
+    // The servlet container closes the response stream
+    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    generator.writeStartObject();
+    for (final Map.Entry<String, Object> field : fields.entrySet()) {
+      generator.writeObjectField(field.getKey(), field.getValue());
+    }
+    streamedFields.writeFields(generator);
+    generator.writeEndObject();
+    generator.flush();
+    if (gzipOut != null) {
+      gzipOut.finish();
+    }
+  }
+
+  private static boolean acceptsGzip(final HttpServletRequest req) {
+    final String acceptEncoding = req.getHeader("Accept-Encoding");
+    return acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
   }
 
   protected int getDisplayExecutionPageSize() {
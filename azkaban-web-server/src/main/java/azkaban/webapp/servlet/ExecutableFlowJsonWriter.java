@@ -0,0 +1,199 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.webapp.servlet;
+
+import azkaban.executor.ClusterInfo;
+import azkaban.executor.ExecutableFlowBase;
+import azkaban.executor.ExecutableNode;
+import azkaban.executor.ExecutionAttempt;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.codehaus.jackson.util.TokenBuffer;
+
+/**
+ * Writes the execution graphs served by {@link ExecutorServlet} straight from the
+ * {@link ExecutableNode}s, without building the nested maps of the whole graph first.
+ */
+final class ExecutableFlowJsonWriter {
+
+  private ExecutableFlowJsonWriter() {
+  }
+
+  /**
+   * Writes the fields of the node, including its sub nodes if it is a flow.
+   */
+  static void writeNodeFields(final JsonGenerator generator, final ExecutableNode node)
+      throws IOException {
+    generator.writeStringField("id", node.getId());
+    writeStatusFields(generator, node);
+    generator.writeStringField("type", node.getType());
+    if (node.getCondition() != null) {
+      generator.writeStringField("condition", node.getCondition());
+    }
+    generator.writeStringField("nestedId", node.getNestedId());
+    writeAttemptFields(generator, node);
+
+    if (node.getInNodes() != null && !node.getInNodes().isEmpty()) {
+      generator.writeArrayFieldStart("in");
+      for (final String inNode : node.getInNodes()) {
+        generator.writeString(inNode);
+      }
+      generator.writeEndArray();
+    }
+
+    if (node instanceof ExecutableFlowBase) {
+      final ExecutableFlowBase base = (ExecutableFlowBase) node;
+      generator.writeStringField("flow", base.getFlowId());
+      generator.writeArrayFieldStart("nodes");
+      for (final ExecutableNode subNode : base.getExecutableNodes()) {
+        generator.writeStartObject();
+        writeNodeFields(generator, subNode);
+        generator.writeEndObject();
+      }
+      generator.writeEndArray();
+      generator.writeStringField("flowId", base.getFlowId());
+    } else {
+      final ClusterInfo cluster = node.getClusterInfo();
+      if (cluster != null && cluster.hadoopClusterURL != null) {
+        generator.writeStringField("cluster", cluster.hadoopClusterURL);
+      }
+    }
+  }
+
+  /**
+   * Writes the fields of the flow updated after lastUpdateTime. Sub nodes are only written if
+   * they or one of their sub nodes were updated, the status of the flow is always written.
+   */
+  static void writeFlowUpdateFields(final JsonGenerator generator, final ExecutableFlowBase flow,
+      final long lastUpdateTime) throws IOException {
+    writeChangedFlowFields(generator, flow, node -> node.getUpdateTime() > lastUpdateTime);
+  }
+
+  /**
+   * Writes the fields of the flow for the changed nodes, in the same format as
+   * {@link #writeFlowUpdateFields(JsonGenerator, ExecutableFlowBase, long)}.
+   */
+  static void writeChangedFlowFields(final JsonGenerator generator, final ExecutableFlowBase flow,
+      final Predicate<ExecutableNode> changed) throws IOException {
+    final Set<ExecutableNode> updatedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+    collectUpdatedNodes(flow, changed, updatedNodes);
+    if (updatedNodes.contains(flow)) {
+      writeUpdatedNodeFields(generator, flow, updatedNodes);
+    } else {
+      writeStatusFields(generator, flow);
+    }
+  }
+
+  /**
+   * Runs the writer now and returns a writer of the fields it wrote, so that they can be written
+   * later even if the nodes they were written from have changed meanwhile.
+   */
+  static JsonFieldWriter snapshot(final JsonFieldWriter writer) throws IOException {
+    final TokenBuffer buffer = new TokenBuffer(null);
+    buffer.writeStartObject();
+    writer.writeFields(buffer);
+    buffer.writeEndObject();
+    return generator -> {
+      final JsonParser parser = buffer.asParser();
+      // Skip the object wrapping the fields
+      parser.nextToken();
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        generator.copyCurrentStructure(parser);
+      }
+    };
+  }
+
+  /**
+   * @return true if the node or one of its sub nodes was changed
+   */
+  private static boolean collectUpdatedNodes(final ExecutableNode node,
+      final Predicate<ExecutableNode> changed, final Set<ExecutableNode> updatedNodes) {
+    boolean updated = changed.test(node);
+    if (node instanceof ExecutableFlowBase) {
+      for (final ExecutableNode subNode : ((ExecutableFlowBase) node).getExecutableNodes()) {
+        if (collectUpdatedNodes(subNode, changed, updatedNodes)) {
+          updated = true;
+        }
+      }
+    }
+    if (updated) {
+      updatedNodes.add(node);
+    }
+    return updated;
+  }
+
+  private static void writeUpdatedNodeFields(final JsonGenerator generator,
+      final ExecutableNode node, final Set<ExecutableNode> updatedNodes) throws IOException {
+    if (node instanceof ExecutableFlowBase) {
+      final ExecutableFlowBase base = (ExecutableFlowBase) node;
+      boolean nodesStarted = false;
+      for (final ExecutableNode subNode : base.getExecutableNodes()) {
+        if (!updatedNodes.contains(subNode)) {
+          continue;
+        }
+        if (!nodesStarted) {
+          generator.writeStringField("flow", base.getFlowId());
+          generator.writeArrayFieldStart("nodes");
+          nodesStarted = true;
+        }
+        generator.writeStartObject();
+        writeUpdatedNodeFields(generator, subNode, updatedNodes);
+        generator.writeEndObject();
+      }
+      if (nodesStarted) {
+        generator.writeEndArray();
+      }
+    }
+
+    generator.writeStringField("id", node.getId());
+    writeStatusFields(generator, node);
+    writeAttemptFields(generator, node);
+  }
+
+  private static void writeStatusFields(final JsonGenerator generator, final ExecutableNode node)
+      throws IOException {
+    generator.writeStringField("status", node.getStatus().toString());
+    generator.writeNumberField("startTime", node.getStartTime());
+    generator.writeNumberField("endTime", node.getEndTime());
+    generator.writeNumberField("updateTime", node.getUpdateTime());
+  }
+
+  private static void writeAttemptFields(final JsonGenerator generator, final ExecutableNode node)
+      throws IOException {
+    generator.writeNumberField("attempt", node.getAttempt());
+    final List<ExecutionAttempt> pastAttempts = node.getPastAttemptList();
+    if (node.getAttempt() > 0 && pastAttempts != null) {
+      generator.writeArrayFieldStart("pastAttempts");
+      for (final ExecutionAttempt attempt : pastAttempts) {
+        generator.writeStartObject();
+        generator.writeNumberField(ExecutionAttempt.ATTEMPT_PARAM, attempt.getAttempt());
+        generator.writeNumberField(ExecutionAttempt.STARTTIME_PARAM, attempt.getStartTime());
+        generator.writeNumberField(ExecutionAttempt.ENDTIME_PARAM, attempt.getEndTime());
+        generator.writeStringField(ExecutionAttempt.STATUS_PARAM, attempt.getStatus().toString());
+        generator.writeEndObject();
+      }
+      generator.writeEndArray();
+    }
+  }
+}
@@ -15,12 +15,14 @@
  */
 package azkaban.webapp.servlet;
 
+import static azkaban.ServiceProvider.SERVICE_PROVIDER;
+
 import azkaban.Constants;
-import azkaban.executor.ClusterInfo;
 import azkaban.executor.ConnectorParams;
 import azkaban.executor.ExecutableFlow;
-import azkaban.executor.ExecutableFlowBase;
 import azkaban.executor.ExecutableNode;
+import azkaban.executor.ExecutionChangeStream;
+import azkaban.executor.ExecutionChangeStream.ExecutionChanges;
 import azkaban.executor.ExecutionOptions;
 import azkaban.executor.ExecutionOptions.FailureAction;
 import azkaban.executor.Executor;
@@ -69,6 +71,7 @@ public class ExecutorServlet extends LoginAbstractAzkabanServlet {
 
   private static final String API_FETCH_EXEC_FLOW = "fetchexecflow";
   private static final String API_FETCH_EXEC_FLOW_UPDATE = "fetchexecflowupdate";
+  private static final String API_FETCH_EXEC_FLOW_CHANGES = "fetchexecflowchanges";
   private static final String API_CANCEL_FLOW = "cancelFlow";
   private static final String API_PAUSE_FLOW = "pauseFlow";
   private static final String API_RESUME_FLOW = "resumeFlow";
@@ -92,6 +95,7 @@ public class ExecutorServlet extends LoginAbstractAzkabanServlet {
   private ExecutorManagerAdapter executorManagerAdapter;
   private ScheduleManager scheduleManager;
   private UserManager userManager;
+  private ExecutionChangeStream executionChangeStream;
 
   public ExecutorServlet() {
     super(createAPIEndpoints());
@@ -106,12 +110,14 @@ public class ExecutorServlet extends LoginAbstractAzkabanServlet {
     this.executorManagerAdapter = server.getExecutorManager();
     this.scheduleManager = server.getScheduleManager();
     this.flowTriggerService = server.getFlowTriggerService();
+    this.executionChangeStream = SERVICE_PROVIDER.getInstance(ExecutionChangeStream.class);
   }
 
   private static List<AzkabanAPI> createAPIEndpoints() {
     final List<AzkabanAPI> apiEndpoints = new ArrayList<>();
     apiEndpoints.add(new AzkabanAPI("ajax", API_FETCH_EXEC_FLOW));
     apiEndpoints.add(new AzkabanAPI("ajax", API_FETCH_EXEC_FLOW_UPDATE));
+    apiEndpoints.add(new AzkabanAPI("ajax", API_FETCH_EXEC_FLOW_CHANGES));
     apiEndpoints.add(new AzkabanAPI("ajax", API_CANCEL_FLOW));
     apiEndpoints.add(new AzkabanAPI("ajax", API_PAUSE_FLOW));
     apiEndpoints.add(new AzkabanAPI("ajax", API_RESUME_FLOW));
@@ -152,8 +158,13 @@ public class ExecutorServlet extends LoginAbstractAzkabanServlet {
       final Session session) throws ServletException, IOException {
     final HashMap<String, Object> ret = new HashMap<>();
     final String ajaxName = getParam(req, "ajax");
+    // Fields of the large responses, streamed after the fields of ret
+    JsonFieldWriter streamedFields = null;
 
-    if (hasParam(req, "execid")) {
+    if (API_FETCH_EXEC_FLOW_CHANGES.equals(ajaxName)) {
+      // Served from memory, without loading the execution from the DB
+      streamedFields = ajaxFetchExecutableFlowChanges(req, ret, session.getUser());
+    } else if (hasParam(req, "execid")) {
       final int execid = getIntParam(req, "execid");
       ExecutableFlow exFlow = null;
 
@@ -168,9 +179,9 @@ public class ExecutorServlet extends LoginAbstractAzkabanServlet {
         ret.put("error", "Cannot find execution '" + execid + "'");
       } else {
         if (API_FETCH_EXEC_FLOW.equals(ajaxName)) {
-          ajaxFetchExecutableFlow(req, resp, ret, session.getUser(), exFlow);
+          streamedFields = ajaxFetchExecutableFlow(req, resp, ret, session.getUser(), exFlow);
         } else if (API_FETCH_EXEC_FLOW_UPDATE.equals(ajaxName)) {
-          ajaxFetchExecutableFlowUpdate(req, resp, ret, session.getUser(),
+          streamedFields = ajaxFetchExecutableFlowUpdate(req, resp, ret, session.getUser(),
               exFlow);
         } else if (API_CANCEL_FLOW.equals(ajaxName)) {
           ajaxCancelFlow(req, resp, ret, session.getUser(), exFlow);
@@ -195,7 +206,8 @@ public class ExecutorServlet extends LoginAbstractAzkabanServlet {
     } else if (API_FETCH_SCHEDULED_FLOW_GRAPH.equals(ajaxName)) {
       final String projectName = getParam(req, "project");
       final String flowName = getParam(req, "flow");
-      ajaxFetchScheduledFlowGraph(projectName, flowName, ret, session.getUser());
+      streamedFields =
+          ajaxFetchScheduledFlowGraph(projectName, flowName, ret, session.getUser());
     } else if (API_RELOAD_EXECUTORS.equals(ajaxName)) {
       ajaxReloadExecutors(req, resp, ret, session.getUser());
     } else if (API_ENABLE_QUEUE_PROCESSOR.equals(ajaxName)) {
@@ -218,7 +230,9 @@ public class ExecutorServlet extends LoginAbstractAzkabanServlet {
         ajaxExecuteFlow(req, resp, ret, session.getUser());
       }
     }
-    if (ret != null) {
+    if (streamedFields != null) {
+      this.writeJSON(req, resp, ret, streamedFields);
+    } else {
       this.writeJSON(resp, ret);
     }
   }
@@ -256,13 +270,14 @@ public class ExecutorServlet extends LoginAbstractAzkabanServlet {
     }
   }
 
-  private void ajaxFetchScheduledFlowGraph(final String projectName, final String flowName,
-      final HashMap<String, Object> ret, final User user) throws ServletException {
+  private JsonFieldWriter ajaxFetchScheduledFlowGraph(final String projectName,
+      final String flowName, final HashMap<String, Object> ret, final User user)
+      throws ServletException {
     final Project project =
         getProjectAjaxByPermission(ret, projectName, user, Type.EXECUTE);
     if (project == null) {
       ret.put("error", "Project '" + projectName + "' doesn't exist.");
-      return;
+      return null;
     }
     try {
       final Schedule schedule = this.scheduleManager.getSchedule(project.getId(), flowName);
@@ -271,7 +286,7 @@ public class ExecutorServlet extends LoginAbstractAzkabanServlet {
       final Flow flow = project.getFlow(flowName);
       if (flow == null) {
         ret.put("error", "Flow '" + flowName + "' cannot be found in project " + project);
-        return;
+        return null;
       }
       final ExecutableFlow exFlow = new ExecutableFlow(project, flow);
       exFlow.setExecutionOptions(executionOptions);
@@ -281,8 +296,7 @@ public class ExecutorServlet extends LoginAbstractAzkabanServlet {
       ret.put("projectId", exFlow.getProjectId());
       ret.put("project", project.getName());
       FlowUtils.applyDisabledJobs(executionOptions.getDisabledJobs(), exFlow);
-      final Map<String, Object> flowObj = getExecutableNodeInfo(exFlow);
-      ret.putAll(flowObj);
+      return generator -> ExecutableFlowJsonWriter.writeNodeFields(generator, exFlow);
     } catch (final ScheduleManagerException ex) {
       throw new ServletException(ex);
     }
@@ -829,113 +843,69 @@ public class ExecutorServlet extends LoginAbstractAzkabanServlet {
     }
   }
 
-  private Map<String, Object> getExecutableFlowUpdateInfo(final ExecutableNode node,
-      final long lastUpdateTime) {
-    final HashMap<String, Object> nodeObj = new HashMap<>();
-    if (node instanceof ExecutableFlowBase) {
-      final ExecutableFlowBase base = (ExecutableFlowBase) node;
-      final ArrayList<Map<String, Object>> nodeList =
-          new ArrayList<>();
-
-      for (final ExecutableNode subNode : base.getExecutableNodes()) {
-        final Map<String, Object> subNodeObj =
-            getExecutableFlowUpdateInfo(subNode, lastUpdateTime);
-        if (!subNodeObj.isEmpty()) {
-          nodeList.add(subNodeObj);
-        }
-      }
-
-      if (!nodeList.isEmpty()) {
-        nodeObj.put("flow", base.getFlowId());
-        nodeObj.put("nodes", nodeList);
-      }
-    }
-
-    if (node.getUpdateTime() > lastUpdateTime || !nodeObj.isEmpty()) {
-      nodeObj.put("id", node.getId());
-      nodeObj.put("status", node.getStatus());
-      nodeObj.put("startTime", node.getStartTime());
-      nodeObj.put("endTime", node.getEndTime());
-      nodeObj.put("updateTime", node.getUpdateTime());
+  private JsonFieldWriter ajaxFetchExecutableFlowUpdate(final HttpServletRequest req,
+      final HttpServletResponse resp, final HashMap<String, Object> ret, final User user,
+      final ExecutableFlow exFlow) throws ServletException {
+    final Long lastUpdateTime = Long.parseLong(getParam(req, "lastUpdateTime"));
+    logger.info("Fetching " + exFlow.getExecutionId());
 
-      nodeObj.put("attempt", node.getAttempt());
-      if (node.getAttempt() > 0) {
-        nodeObj.put("pastAttempts", node.getAttemptObjects());
-      }
+    final Project project =
+        getProjectAjaxByPermission(ret, exFlow.getProjectId(), user, Type.READ);
+    if (project == null) {
+      return null;
     }
 
-    return nodeObj;
+    return generator -> ExecutableFlowJsonWriter
+        .writeFlowUpdateFields(generator, exFlow, lastUpdateTime);
   }
 
-  private Map<String, Object> getExecutableNodeInfo(final ExecutableNode node) {
-    final HashMap<String, Object> nodeObj = new HashMap<>();
-    nodeObj.put("id", node.getId());
-    nodeObj.put("status", node.getStatus());
-    nodeObj.put("startTime", node.getStartTime());
-    nodeObj.put("endTime", node.getEndTime());
-    nodeObj.put("updateTime", node.getUpdateTime());
-    nodeObj.put("type", node.getType());
-    if (node.getCondition() != null) {
-      nodeObj.put("condition", node.getCondition());
-    }
-    nodeObj.put("nestedId", node.getNestedId());
+  /**
+   * Returns the changes of a running execution after the version the client has seen, waiting up
+   * to waitMs for the next change if there is none yet. The version is -1 if the changes of the
+   * execution aren't tracked by this server, e.g. it is finished, and the client should use
+   * fetchexecflowupdate instead.
+   */
+  private JsonFieldWriter ajaxFetchExecutableFlowChanges(final HttpServletRequest req,
+      final HashMap<String, Object> ret, final User user) throws ServletException {
+    final int execId = getIntParam(req, "execid");
+    final long version = getLongParam(req, "version", 0);
+    final long waitMs = getLongParam(req, "waitMs", 0);
 
-    nodeObj.put("attempt", node.getAttempt());
-    if (node.getAttempt() > 0) {
-      nodeObj.put("pastAttempts", node.getAttemptObjects());
+    final Optional<ExecutableFlow> exFlow = this.executionChangeStream.getExecution(execId);
+    if (!exFlow.isPresent()) {
+      ret.put("version", -1);
+      return null;
     }
-
-    if (node.getInNodes() != null && !node.getInNodes().isEmpty()) {
-      nodeObj.put("in", node.getInNodes());
+    final Project project =
+        getProjectAjaxByPermission(ret, exFlow.get().getProjectId(), user, Type.READ);
+    if (project == null) {
+      return null;
     }
 
-    if (node instanceof ExecutableFlowBase) {
-      final ExecutableFlowBase base = (ExecutableFlowBase) node;
-      final ArrayList<Map<String, Object>> nodeList =
-          new ArrayList<>();
-
-      for (final ExecutableNode subNode : base.getExecutableNodes()) {
-        final Map<String, Object> subNodeObj = getExecutableNodeInfo(subNode);
-        if (!subNodeObj.isEmpty()) {
-          nodeList.add(subNodeObj);
-        }
-      }
-
-      nodeObj.put("flow", base.getFlowId());
-      nodeObj.put("nodes", nodeList);
-      nodeObj.put("flowId", base.getFlowId());
-    } else {
-      ClusterInfo cluster = node.getClusterInfo();
-      if (cluster != null && cluster.hadoopClusterURL != null) {
-        nodeObj.put("cluster", cluster.hadoopClusterURL);
-      }
+    // The execution keeps being updated, so its changes are written as they are now
+    final Optional<ExecutionChanges<JsonFieldWriter>> changes;
+    try {
+      changes = this.executionChangeStream.getChanges(execId, version, waitMs,
+          (flow, changedNodes) -> ExecutableFlowJsonWriter.snapshot(
+              generator -> ExecutableFlowJsonWriter
+                  .writeChangedFlowFields(generator, flow, changedNodes::contains)));
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ServletException(e);
+    } catch (final IOException e) {
+      throw new ServletException(e);
     }
-
-    return nodeObj;
-  }
-
-  private void ajaxFetchExecutableFlowUpdate(final HttpServletRequest req,
-      final HttpServletResponse resp, final HashMap<String, Object> ret, final User user,
-      final ExecutableFlow exFlow) throws ServletException {
-    final Long lastUpdateTime = Long.parseLong(getParam(req, "lastUpdateTime"));
-    logger.info("Fetching " + exFlow.getExecutionId());
-
-    final Project project =
-        getProjectAjaxByPermission(ret, exFlow.getProjectId(), user, Type.READ);
-    if (project == null) {
-      return;
+    if (!changes.isPresent()) {
+      ret.put("version", -1);
+      return null;
     }
 
-    final Map<String, Object> map =
-        getExecutableFlowUpdateInfo(exFlow, lastUpdateTime);
-    map.put("status", exFlow.getStatus());
-    map.put("startTime", exFlow.getStartTime());
-    map.put("endTime", exFlow.getEndTime());
-    map.put("updateTime", exFlow.getUpdateTime());
-    ret.putAll(map);
+    ret.put("version", changes.get().getVersion());
+    ret.put("completed", changes.get().isCompleted());
+    return changes.get().getSnapshot();
   }
 
-  private void ajaxFetchExecutableFlow(final HttpServletRequest req,
+  private JsonFieldWriter ajaxFetchExecutableFlow(final HttpServletRequest req,
       final HttpServletResponse resp, final HashMap<String, Object> ret, final User user,
       final ExecutableFlow exFlow) throws ServletException {
     logger.info("Fetching " + exFlow.getExecutionId());
@@ -943,7 +913,7 @@ public class ExecutorServlet extends LoginAbstractAzkabanServlet {
     final Project project =
         getProjectAjaxByPermission(ret, exFlow.getProjectId(), user, Type.READ);
     if (project == null) {
-      return;
+      return null;
     }
 
     ret.put("submitTime", exFlow.getSubmitTime());
@@ -952,8 +922,7 @@ public class ExecutorServlet extends LoginAbstractAzkabanServlet {
     ret.put("projectId", exFlow.getProjectId());
     ret.put("project", project.getName());
 
-    final Map<String, Object> flowObj = getExecutableNodeInfo(exFlow);
-    ret.putAll(flowObj);
+    return generator -> ExecutableFlowJsonWriter.writeNodeFields(generator, exFlow);
   }
 
   private void ajaxExecuteFlow(final HttpServletRequest req,
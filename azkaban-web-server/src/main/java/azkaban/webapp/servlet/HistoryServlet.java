@@ -16,7 +16,7 @@
 
 package azkaban.webapp.servlet;
 
-import azkaban.executor.ExecutableFlow;
+import azkaban.executor.ExecutionSummary;
 import azkaban.executor.ExecutorManagerAdapter;
 import azkaban.executor.ExecutorManagerException;
 import azkaban.project.ProjectManager;
@@ -107,7 +107,7 @@ public class HistoryServlet extends LoginAbstractAzkabanServlet {
     if (pageNum < 0) {
       pageNum = 1;
     }
-    List<ExecutableFlow> history = null;
+    List<ExecutionSummary> history = null;
     if (hasParam(req, "advfilter")) {
       final String projContain = getParam(req, "projcontain");
       final String flowContain = getParam(req, "flowcontain");
@@ -125,7 +125,7 @@ public class HistoryServlet extends LoginAbstractAzkabanServlet {
               .parseDateTime(end).getMillis();
       try {
         history =
-            this.executorManagerAdapter.getExecutableFlows(projContain, flowContain,
+            this.executorManagerAdapter.getExecutionSummaries(projContain, flowContain,
                 userContain, status, beginTime, endTime, (pageNum - 1)
                     * pageSize, pageSize);
       } catch (final ExecutorManagerException e) {
@@ -135,7 +135,7 @@ public class HistoryServlet extends LoginAbstractAzkabanServlet {
       final String searchTerm = getParam(req, "searchterm");
       try {
         history =
-            this.executorManagerAdapter.getExecutableFlows(searchTerm, (pageNum - 1)
+            this.executorManagerAdapter.getExecutionSummaries(searchTerm, (pageNum - 1)
                 * pageSize, pageSize);
       } catch (final ExecutorManagerException e) {
         page.add("error", e.getMessage());
@@ -143,7 +143,7 @@ public class HistoryServlet extends LoginAbstractAzkabanServlet {
     } else {
       try {
         history =
-            this.executorManagerAdapter.getExecutableFlows((pageNum - 1) * pageSize,
+            this.executorManagerAdapter.getExecutionSummaries((pageNum - 1) * pageSize,
                 pageSize);
       } catch (final ExecutorManagerException e) {
         e.printStackTrace();
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.webapp.servlet;
+
+import java.io.IOException;
+import org.codehaus.jackson.JsonGenerator;
+
+/**
+ * Writes fields of a json response object straight to the generator.
+ *
+ * @see AbstractAzkabanServlet#writeJSON(javax.servlet.http.HttpServletRequest,
+ * javax.servlet.http.HttpServletResponse, java.util.Map, JsonFieldWriter)
+ */
+@FunctionalInterface
+public interface JsonFieldWriter {
+
+  void writeFields(JsonGenerator generator) throws IOException;
+}
@@ -18,8 +18,8 @@ package azkaban.webapp.servlet;
 
 import azkaban.Constants;
 import azkaban.Constants.ConfigurationKeys;
-import azkaban.executor.ExecutableFlow;
 import azkaban.executor.ExecutableJobInfo;
+import azkaban.executor.ExecutionSummary;
 import azkaban.executor.ExecutorManagerAdapter;
 import azkaban.executor.ExecutorManagerException;
 import azkaban.executor.Status;
@@ -302,6 +302,8 @@ public class ProjectManagerServlet extends LoginAbstractAzkabanServlet {
 
     final HashMap<String, Object> ret = new HashMap<>();
     ret.put("project", projectName);
+    // Fields of the large responses, streamed after the fields of ret
+    JsonFieldWriter streamedFields = null;
 
     final Project project = this.projectManager.getProject(projectName);
     if (project == null) {
@@ -385,7 +387,7 @@ public class ProjectManagerServlet extends LoginAbstractAzkabanServlet {
         }
       } else if (API_FETCH_FLOW_EXECUTIONS.equals(ajaxName)) {
         if (handleAjaxPermission(project, user, Type.READ, ret)) {
-          ajaxFetchFlowExecutions(project, ret, req);
+          streamedFields = ajaxFetchFlowExecutions(project, ret, req);
         }
       } else if (API_FETCH_LAST_SUCCESSFUL_FLOW_EXECUTION.equals(ajaxName)) {
         if (handleAjaxPermission(project, user, Type.READ, ret)) {
@@ -414,7 +416,11 @@ public class ProjectManagerServlet extends LoginAbstractAzkabanServlet {
       }
     }
 
-    this.writeJSON(resp, ret);
+    if (streamedFields != null) {
+      this.writeJSON(req, resp, ret, streamedFields);
+    } else {
+      this.writeJSON(resp, ret);
+    }
   }
 
   private boolean handleAjaxPermission(final Project project, final User user, final Type type,
@@ -491,10 +497,10 @@ public class ProjectManagerServlet extends LoginAbstractAzkabanServlet {
       final HashMap<String, Object> ret, final HttpServletRequest req)
       throws ServletException {
     final String flowId = getParam(req, "flow");
-    List<ExecutableFlow> exFlows = null;
+    List<ExecutionSummary> exFlows = null;
     try {
       exFlows =
-          this.executorManagerAdapter.getExecutableFlows(project.getId(), flowId, 0, 1,
+          this.executorManagerAdapter.getExecutionSummaries(project.getId(), flowId, 0, 1,
               Status.SUCCEEDED);
     } catch (final ExecutorManagerException e) {
       ret.put(ERROR_PARAM, "Error retrieving executable flows");
@@ -512,18 +518,18 @@ public class ProjectManagerServlet extends LoginAbstractAzkabanServlet {
     ret.put("execId", exFlows.get(0).getExecutionId());
   }
 
-  private void ajaxFetchFlowExecutions(final Project project,
+  private JsonFieldWriter ajaxFetchFlowExecutions(final Project project,
       final HashMap<String, Object> ret, final HttpServletRequest req)
       throws ServletException {
     final String flowId = getParam(req, "flow");
     final int from = Integer.valueOf(getParam(req, "start"));
     final int length = Integer.valueOf(getParam(req, "length"));
 
-    final ArrayList<ExecutableFlow> exFlows = new ArrayList<>();
+    final ArrayList<ExecutionSummary> exFlows = new ArrayList<>();
     int total = 0;
     try {
       total =
-          this.executorManagerAdapter.getExecutableFlows(project.getId(), flowId, from,
+          this.executorManagerAdapter.getExecutionSummaries(project.getId(), flowId, from,
               length, exFlows);
     } catch (final ExecutorManagerException e) {
       ret.put(ERROR_PARAM, "Error retrieving executable flows");
@@ -534,22 +540,22 @@ public class ProjectManagerServlet extends LoginAbstractAzkabanServlet {
     ret.put("from", from);
     ret.put("length", length);
 
-    final ArrayList<Object> history = new ArrayList<>();
-    for (final ExecutableFlow flow : exFlows) {
-      final HashMap<String, Object> flowInfo = new HashMap<>();
-      flowInfo.put("execId", flow.getExecutionId());
-      flowInfo.put(FLOW_ID_PARAM, flow.getFlowId());
-      flowInfo.put("projectId", flow.getProjectId());
-      flowInfo.put("status", flow.getStatus().toString());
-      flowInfo.put("submitTime", flow.getSubmitTime());
-      flowInfo.put("startTime", flow.getStartTime());
-      flowInfo.put("endTime", flow.getEndTime());
-      flowInfo.put("submitUser", flow.getSubmitUser());
-
-      history.add(flowInfo);
-    }
-
-    ret.put("executions", history);
+    return generator -> {
+      generator.writeArrayFieldStart("executions");
+      for (final ExecutionSummary flow : exFlows) {
+        generator.writeStartObject();
+        generator.writeNumberField("execId", flow.getExecutionId());
+        generator.writeStringField(FLOW_ID_PARAM, flow.getFlowId());
+        generator.writeNumberField("projectId", flow.getProjectId());
+        generator.writeStringField("status", flow.getStatus().toString());
+        generator.writeNumberField("submitTime", flow.getSubmitTime());
+        generator.writeNumberField("startTime", flow.getStartTime());
+        generator.writeNumberField("endTime", flow.getEndTime());
+        generator.writeStringField("submitUser", flow.getSubmitUser());
+        generator.writeEndObject();
+      }
+      generator.writeEndArray();
+    };
   }
 
   /**
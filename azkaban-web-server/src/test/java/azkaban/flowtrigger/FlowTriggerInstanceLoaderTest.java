@@ -23,6 +23,7 @@ import azkaban.Constants;
 import azkaban.db.DatabaseOperator;
 import azkaban.flowtrigger.database.FlowTriggerInstanceLoader;
 import azkaban.flowtrigger.database.JdbcFlowTriggerInstanceLoaderImpl;
+import azkaban.metrics.MetricsManager;
 import azkaban.project.DirectoryYamlFlowLoader;
 import azkaban.project.FlowLoaderUtils;
 import azkaban.project.FlowTrigger;
@@ -35,6 +36,7 @@ import azkaban.project.ProjectManager;
 import azkaban.test.Utils;
 import azkaban.test.executions.ExecutionsTestUtil;
 import azkaban.utils.Props;
+import com.codahale.metrics.MetricRegistry;
 import java.io.File;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -45,6 +47,7 @@ import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
+import org.apache.commons.dbutils.handlers.ScalarHandler;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -200,6 +203,111 @@ public class FlowTriggerInstanceLoaderTest {
     assertTriggerInstancesEqual(actualTriggerInst, expectedTriggerInst, false);
   }
 
+  private FlowTriggerInstanceLoader createBufferedLoader() {
+    return createBufferedLoader(new MetricRegistry(), 5);
+  }
+
+  private FlowTriggerInstanceLoader createBufferedLoader(final MetricRegistry registry,
+      final int maxAttempts) {
+    final Props bufferProps = new Props();
+    bufferProps.put(Constants.ConfigurationKeys.FLOW_TRIGGER_DEP_WRITE_BUFFER_ENABLED, "true");
+    // long enough that only explicit flushes write rows during the test
+    bufferProps.put(Constants.ConfigurationKeys.FLOW_TRIGGER_DEP_WRITE_BUFFER_FLUSH_INTERVAL_MS,
+        "3600000");
+    bufferProps.put(Constants.ConfigurationKeys.FLOW_TRIGGER_DEP_WRITE_BUFFER_MAX_BATCH_SIZE,
+        "100000");
+    bufferProps.put(Constants.ConfigurationKeys.FLOW_TRIGGER_DEP_WRITE_BUFFER_MAX_ATTEMPTS,
+        maxAttempts);
+    return new JdbcFlowTriggerInstanceLoaderImpl(dbOperator, projLoader, projManager,
+        bufferProps, new MetricsManager(registry));
+  }
+
+  private long countDependencyRows(final Status status) throws SQLException {
+    return dbOperator.query("SELECT COUNT(*) FROM execution_dependencies WHERE dep_status = ?",
+        new ScalarHandler<Long>(), status.ordinal());
+  }
+
+  @Test
+  public void testWriteBufferDefersWritesUntilRead() throws Exception {
+    final FlowTriggerInstanceLoader bufferedLoader = createBufferedLoader();
+    try {
+      final TriggerInstance expectedTriggerInst = this.createTriggerInstance(this.flowTrigger,
+          this.flow_id, this.flow_version, this.submitUser, this.project,
+          System.currentTimeMillis());
+
+      bufferedLoader.uploadTriggerInstance(expectedTriggerInst);
+      for (final DependencyInstance depInst : expectedTriggerInst.getDepInstances()) {
+        depInst.setStatus(Status.CANCELLING);
+        bufferedLoader.updateDependencyExecutionStatus(depInst);
+        depInst.setStatus(Status.CANCELLED);
+        depInst.setEndTime(System.currentTimeMillis());
+        depInst.setCancellationCause(CancellationCause.MANUAL);
+        bufferedLoader.updateDependencyExecutionStatus(depInst);
+      }
+      assertThat(countDependencyRows(Status.RUNNING)).isZero();
+      assertThat(countDependencyRows(Status.CANCELLED)).isZero();
+
+      // reads flush the buffer first, and only the latest status of each dependency is kept
+      final TriggerInstance actualTriggerInst = bufferedLoader
+          .getTriggerInstanceById(expectedTriggerInst.getId());
+      assertTriggerInstancesEqual(actualTriggerInst, expectedTriggerInst, false);
+      assertThat(countDependencyRows(Status.CANCELLED))
+          .isEqualTo(expectedTriggerInst.getDepInstances().size());
+    } finally {
+      bufferedLoader.shutdown();
+    }
+  }
+
+  @Test
+  public void testWriteBufferFlushesOnShutdown() throws Exception {
+    final FlowTriggerInstanceLoader bufferedLoader = createBufferedLoader();
+    final List<TriggerInstance> all = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      final TriggerInstance triggerInst = this.createTriggerInstance(this.flowTrigger,
+          this.flow_id, this.flow_version, this.submitUser, this.project,
+          System.currentTimeMillis());
+      all.add(triggerInst);
+      bufferedLoader.uploadTriggerInstance(triggerInst);
+    }
+    assertThat(countDependencyRows(Status.RUNNING)).isZero();
+
+    bufferedLoader.shutdown();
+
+    final long expectedRows = all.stream().mapToLong(t -> t.getDepInstances().size()).sum();
+    assertThat(countDependencyRows(Status.RUNNING)).isEqualTo(expectedRows);
+  }
+
+  @Test
+  public void testWriteBufferDropsRowsFailingMaxAttempts() throws Exception {
+    final MetricRegistry registry = new MetricRegistry();
+    final FlowTriggerInstanceLoader bufferedLoader = createBufferedLoader(registry, 2);
+    try {
+      final TriggerInstance existing = this.createTriggerInstance(this.flowTrigger,
+          this.flow_id, this.flow_version, this.submitUser, this.project,
+          System.currentTimeMillis());
+      this.triggerInstLoader.uploadTriggerInstance(existing);
+      final TriggerInstance expectedTriggerInst = this.createTriggerInstance(this.flowTrigger,
+          this.flow_id, this.flow_version, this.submitUser, this.project,
+          System.currentTimeMillis());
+
+      // the duplicate rows fail every batch they are in
+      bufferedLoader.uploadTriggerInstance(existing);
+      bufferedLoader.uploadTriggerInstance(expectedTriggerInst);
+
+      // a failed flush doesn't fail reads
+      assertThat(bufferedLoader.getTriggerInstanceById(expectedTriggerInst.getId())).isNull();
+
+      // the rows are written one by one after max attempts, dropping the duplicates only
+      final TriggerInstance actualTriggerInst = bufferedLoader
+          .getTriggerInstanceById(expectedTriggerInst.getId());
+      assertTriggerInstancesEqual(actualTriggerInst, expectedTriggerInst, false);
+      assertThat(registry.meter("flow-trigger-dep-write-dropped").getCount())
+          .isEqualTo(existing.getDepInstances().size());
+    } finally {
+      bufferedLoader.shutdown();
+    }
+  }
+
   private void finalizeTriggerInstanceWithSuccess(final TriggerInstance triggerInst, final int
       associateFlowExecId) {
     for (final DependencyInstance depInst : triggerInst.getDepInstances()) {
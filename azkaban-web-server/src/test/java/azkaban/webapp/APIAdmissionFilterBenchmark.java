@@ -0,0 +1,222 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.webapp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import azkaban.Constants.ConfigurationKeys;
+import azkaban.server.AzkabanAPI;
+import azkaban.utils.Props;
+import azkaban.webapp.servlet.AbstractAzkabanServlet;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.apache.log4j.Logger;
+import org.junit.After;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.mortbay.jetty.Handler;
+import org.mortbay.jetty.Server;
+import org.mortbay.jetty.servlet.Context;
+import org.mortbay.jetty.servlet.FilterHolder;
+import org.mortbay.jetty.servlet.ServletHolder;
+import org.mortbay.thread.QueuedThreadPool;
+
+/**
+ * Load test of the {@link APIAdmissionFilter}: many clients search through a synthetic slow
+ * servlet sharing a small DB pool, with and without the filter, on a local Jetty.
+ */
+@Ignore("Benchmark, run manually")
+public class APIAdmissionFilterBenchmark {
+
+  private static final Logger logger = Logger.getLogger(APIAdmissionFilterBenchmark.class);
+  private static final int JETTY_THREADS = 24;
+  private static final int DB_CONNECTIONS = 2;
+  private static final long QUERY_MS = 20;
+  private static final int SEARCH_CLIENTS = 64;
+  private static final int EXECUTE_CLIENTS = 4;
+  private static final long RUN_MS = 3000;
+
+  private Server server;
+
+  @After
+  public void tearDown() throws Exception {
+    if (this.server != null) {
+      this.server.stop();
+      this.server.destroy();
+    }
+  }
+
+  @Test
+  public void benchmarkTailLatencyUnderLoad() throws Exception {
+    final LoadResult baseline = runLoad(false);
+    final LoadResult admitted = runLoad(true);
+    logger.info(String.format("search p99 without admission: %d ms, with admission: %d ms,"
+            + " %d rejected (%d without Retry-After), %d executions rejected",
+        baseline.searchP99(), admitted.searchP99(), admitted.rejected.get(),
+        admitted.retryAfterMissing.get(), admitted.executeRejected.get()));
+
+    // Without the filter every request waits for the DB pool and nothing is rejected
+    assertThat(baseline.rejected.get()).isZero();
+    // With it the searches above the limit are rejected, always with a Retry-After, and the
+    // executions are never rejected
+    assertThat(admitted.rejected.get()).isPositive();
+    assertThat(admitted.retryAfterMissing.get()).isZero();
+    assertThat(admitted.executeRejected.get()).isZero();
+    assertThat(admitted.executeLatencies).isNotEmpty();
+    // The admitted searches queue less for the DB pool. Expected to be several times lower, the
+    // bound only checks that the filter doesn't make the tail latency worse.
+    assertThat(admitted.searchP99()).isLessThanOrEqualTo(baseline.searchP99());
+  }
+
+  private LoadResult runLoad(final boolean admissionEnabled) throws Exception {
+    final Map<String, AbstractAzkabanServlet> routesMap = new HashMap<>();
+    routesMap.put("/history", new AbstractAzkabanServlet(
+        Arrays.asList(new AzkabanAPI("ajax", "search"))) {
+    });
+    routesMap.put("/executor", new AbstractAzkabanServlet(
+        Arrays.asList(new AzkabanAPI("ajax", "executeFlow"))) {
+    });
+
+    this.server = new Server(0);
+    this.server.setThreadPool(new QueuedThreadPool(JETTY_THREADS));
+    final Context context = new Context(this.server, "/", Context.SESSIONS);
+    context.addServlet(new ServletHolder(new SlowServlet()), "/history");
+    context.addServlet(new ServletHolder(new SlowServlet()), "/executor");
+    if (admissionEnabled) {
+      final Props props = new Props();
+      props.put("jetty.maxThreads", JETTY_THREADS);
+      props.put(ConfigurationKeys.API_ADMISSION_LATENCY_TARGET_MS, 50);
+      props.put(ConfigurationKeys.API_ADMISSION_PRIORITY_APIS, "executor_ajax-executeFlow");
+      context.addFilter(new FilterHolder(new APIAdmissionFilter(routesMap, props)), "/*",
+          Handler.REQUEST);
+    }
+    this.server.start();
+    final int port = this.server.getConnectors()[0].getLocalPort();
+
+    final LoadResult result = new LoadResult();
+    final long deadline = System.currentTimeMillis() + RUN_MS;
+    final ExecutorService clients =
+        Executors.newFixedThreadPool(SEARCH_CLIENTS + EXECUTE_CLIENTS);
+    for (int i = 0; i < SEARCH_CLIENTS + EXECUTE_CLIENTS; i++) {
+      final boolean execute = i < EXECUTE_CLIENTS;
+      final String url = "http://localhost:" + port
+          + (execute ? "/executor?ajax=executeFlow" : "/history?ajax=search");
+      clients.submit(() -> {
+        while (System.currentTimeMillis() < deadline) {
+          sendRequest(url, execute, result);
+        }
+        return null;
+      });
+    }
+    clients.shutdown();
+    assertThat(clients.awaitTermination(RUN_MS + 30000, TimeUnit.MILLISECONDS)).isTrue();
+
+    this.server.stop();
+    this.server.destroy();
+    this.server = null;
+    return result;
+  }
+
+  private static void sendRequest(final String url, final boolean execute,
+      final LoadResult result) throws IOException, InterruptedException {
+    final long startTime = System.currentTimeMillis();
+    final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+    final int status = connection.getResponseCode();
+    try (final InputStream body = status == HttpServletResponse.SC_OK
+        ? connection.getInputStream() : connection.getErrorStream()) {
+      while (body != null && body.read() != -1) {
+      }
+    }
+    final long latency = System.currentTimeMillis() - startTime;
+
+    if (status == APIAdmissionFilter.SC_TOO_MANY_REQUESTS) {
+      result.rejected.incrementAndGet();
+      if (execute) {
+        result.executeRejected.incrementAndGet();
+      }
+      if (connection.getHeaderField("Retry-After") == null) {
+        result.retryAfterMissing.incrementAndGet();
+      }
+      // Back off a little, as a client honoring Retry-After would
+      Thread.sleep(10);
+    } else {
+      assertThat(status).isEqualTo(HttpServletResponse.SC_OK);
+      (execute ? result.executeLatencies : result.searchLatencies).add(latency);
+    }
+  }
+
+  /**
+   * Every request runs a query holding one of the few DB connections.
+   */
+  private static class SlowServlet extends HttpServlet {
+
+    private static final Semaphore dbPool = new Semaphore(DB_CONNECTIONS);
+
+    @Override
+    protected void doGet(final HttpServletRequest req, final HttpServletResponse resp)
+        throws IOException {
+      if ("search".equals(req.getParameter("ajax"))) {
+        try {
+          dbPool.acquire();
+          try {
+            Thread.sleep(QUERY_MS);
+          } finally {
+            dbPool.release();
+          }
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      resp.setContentType(AbstractAzkabanServlet.JSON_MIME_TYPE);
+      resp.getWriter().write("{}");
+    }
+  }
+
+  private static class LoadResult {
+
+    private final Queue<Long> searchLatencies = new ConcurrentLinkedQueue<>();
+    private final Queue<Long> executeLatencies = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger rejected = new AtomicInteger();
+    private final AtomicInteger executeRejected = new AtomicInteger();
+    private final AtomicInteger retryAfterMissing = new AtomicInteger();
+
+    private long searchP99() {
+      final List<Long> latencies = new ArrayList<>(this.searchLatencies);
+      assertThat(latencies).isNotEmpty();
+      Collections.sort(latencies);
+      return latencies.get((int) Math.ceil(latencies.size() * 0.99) - 1);
+    }
+  }
+}
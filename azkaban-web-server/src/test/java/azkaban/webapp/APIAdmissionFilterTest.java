@@ -0,0 +1,181 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.webapp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import azkaban.Constants.ConfigurationKeys;
+import azkaban.server.AzkabanAPI;
+import azkaban.utils.Props;
+import azkaban.webapp.servlet.AbstractAzkabanServlet;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class APIAdmissionFilterTest {
+
+  private final CountDownLatch release = new CountDownLatch(1);
+  private Map<String, AbstractAzkabanServlet> routesMap;
+  private Props props;
+  private ExecutorService requests;
+
+  @Before
+  public void setUp() {
+    this.routesMap = new HashMap<>();
+    this.routesMap.put("/history", new AbstractAzkabanServlet(
+        Arrays.asList(new AzkabanAPI("ajax", "search"), new AzkabanAPI("ajax", "fetch"))) {
+    });
+    this.routesMap.put("/executor", new AbstractAzkabanServlet(
+        Arrays.asList(new AzkabanAPI("ajax", "executeFlow"))) {
+    });
+    this.props = new Props();
+    this.props.put("jetty.maxThreads", 10);
+    this.props.put(ConfigurationKeys.API_ADMISSION_RESERVED_THREADS, 2);
+    this.props.put(ConfigurationKeys.API_ADMISSION_LATENCY_TARGET_MS, 1500);
+    this.props.put(ConfigurationKeys.API_ADMISSION_PRIORITY_APIS, "executor_ajax-executeFlow");
+    this.requests = Executors.newCachedThreadPool();
+  }
+
+  @After
+  public void tearDown() {
+    this.release.countDown();
+    this.requests.shutdownNow();
+  }
+
+  private static HttpServletRequest request(final String uri, final String ajax) {
+    final HttpServletRequest req = mock(HttpServletRequest.class);
+    when(req.getRequestURI()).thenReturn(uri);
+    when(req.getParameter("ajax")).thenReturn(ajax);
+    return req;
+  }
+
+  private static HttpServletResponse response() throws Exception {
+    final HttpServletResponse resp = mock(HttpServletResponse.class);
+    when(resp.getWriter()).thenReturn(new PrintWriter(new StringWriter()));
+    return resp;
+  }
+
+  /**
+   * Start requests to an API whose servlet blocks until released, and wait until they all are
+   * being served.
+   */
+  private void startBlockedRequests(final APIAdmissionFilter filter, final int count,
+      final String uri, final String ajax) throws Exception {
+    final CountDownLatch entered = new CountDownLatch(count);
+    final FilterChain blockingChain = (req, resp) -> {
+      entered.countDown();
+      try {
+        this.release.await();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    };
+    for (int i = 0; i < count; i++) {
+      this.requests.submit(() -> {
+        filter.doFilter(request(uri, ajax), response(), blockingChain);
+        return null;
+      });
+    }
+    assertThat(entered.await(10, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void testRejectAboveLimitWithRetryAfter() throws Exception {
+    this.props.put(ConfigurationKeys.API_ADMISSION_INITIAL_LIMIT, 2);
+    final APIAdmissionFilter filter = new APIAdmissionFilter(this.routesMap, this.props);
+    startBlockedRequests(filter, 2, "/history", "search");
+
+    final HttpServletResponse rejected = response();
+    final FilterChain chain = mock(FilterChain.class);
+    filter.doFilter(request("/history", "search"), rejected, chain);
+    verify(rejected).setStatus(APIAdmissionFilter.SC_TOO_MANY_REQUESTS);
+    // The latency target rounded up to seconds
+    verify(rejected).setHeader("Retry-After", "2");
+    verify(chain, never()).doFilter(any(), any());
+
+    // Other APIs have their own limit
+    final HttpServletResponse admitted = response();
+    filter.doFilter(request("/history", "fetch"), admitted, chain);
+    verify(admitted, never()).setStatus(anyInt());
+  }
+
+  @Test
+  public void testAdmitAgainOnceReleased() throws Exception {
+    this.props.put(ConfigurationKeys.API_ADMISSION_INITIAL_LIMIT, 1);
+    final APIAdmissionFilter filter = new APIAdmissionFilter(this.routesMap, this.props);
+    final CountDownLatch entered = new CountDownLatch(1);
+    final Future<?> blocked = this.requests.submit(() -> {
+      filter.doFilter(request("/history", "search"), response(), (req, resp) -> {
+        entered.countDown();
+        try {
+          this.release.await();
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+      return null;
+    });
+    assertThat(entered.await(10, TimeUnit.SECONDS)).isTrue();
+    final HttpServletResponse rejected = response();
+    filter.doFilter(request("/history", "search"), rejected, mock(FilterChain.class));
+    verify(rejected).setStatus(APIAdmissionFilter.SC_TOO_MANY_REQUESTS);
+
+    this.release.countDown();
+    blocked.get(10, TimeUnit.SECONDS);
+    final HttpServletResponse admitted = response();
+    filter.doFilter(request("/history", "search"), admitted, mock(FilterChain.class));
+    verify(admitted, never()).setStatus(anyInt());
+    assertThat(filter.getLimit("history_ajax-search").getInFlight()).isZero();
+  }
+
+  @Test
+  public void testPriorityApisUseReservedThreads() throws Exception {
+    // All the shared threads are taken by searches
+    final APIAdmissionFilter filter = new APIAdmissionFilter(this.routesMap, this.props);
+    startBlockedRequests(filter, 8, "/history", "search");
+
+    final HttpServletResponse rejected = response();
+    filter.doFilter(request("/history", "fetch"), rejected, mock(FilterChain.class));
+    verify(rejected).setStatus(APIAdmissionFilter.SC_TOO_MANY_REQUESTS);
+
+    final HttpServletResponse priority = response();
+    final FilterChain chain = mock(FilterChain.class);
+    final HttpServletRequest executeRequest = request("/executor", "executeFlow");
+    filter.doFilter(executeRequest, priority, chain);
+    verify(priority, never()).setStatus(anyInt());
+    verify(chain).doFilter(executeRequest, priority);
+  }
+}
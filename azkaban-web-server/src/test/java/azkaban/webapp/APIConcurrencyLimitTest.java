@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.webapp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+
+public class APIConcurrencyLimitTest {
+
+  @Test
+  public void testRejectsAboveLimit() {
+    final APIConcurrencyLimit limit = new APIConcurrencyLimit(2, 1, 10, 100);
+    assertThat(limit.tryAcquire()).isTrue();
+    assertThat(limit.tryAcquire()).isTrue();
+    assertThat(limit.tryAcquire()).isFalse();
+    assertThat(limit.getInFlight()).isEqualTo(2);
+
+    limit.release(10);
+    assertThat(limit.tryAcquire()).isTrue();
+  }
+
+  @Test
+  public void testGrowsWhileBusyAndFast() {
+    final APIConcurrencyLimit limit = new APIConcurrencyLimit(4, 1, 5, 100);
+    for (int i = 0; i < 4; i++) {
+      assertThat(limit.tryAcquire()).isTrue();
+    }
+    limit.release(10);
+    assertThat(limit.getLimit()).isEqualTo(5);
+    limit.release(10);
+    // Capped by the max limit
+    assertThat(limit.getLimit()).isEqualTo(5);
+  }
+
+  @Test
+  public void testDoesNotGrowWhenIdle() {
+    final APIConcurrencyLimit limit = new APIConcurrencyLimit(4, 1, 10, 100);
+    for (int i = 0; i < 10; i++) {
+      assertThat(limit.tryAcquire()).isTrue();
+      limit.release(10);
+    }
+    assertThat(limit.getLimit()).isEqualTo(4);
+  }
+
+  @Test
+  public void testShrinksWhenSlow() {
+    final AtomicLong now = new AtomicLong(0);
+    final APIConcurrencyLimit limit = new APIConcurrencyLimit(10, 2, 10, 100, now::get);
+    assertThat(limit.tryAcquire()).isTrue();
+    limit.release(200);
+    assertThat(limit.getLimit()).isEqualTo(9);
+    for (int i = 0; i < 50; i++) {
+      now.addAndGet(100);
+      assertThat(limit.tryAcquire()).isTrue();
+      limit.release(200);
+    }
+    // Bounded by the min limit
+    assertThat(limit.getLimit()).isEqualTo(2);
+  }
+
+  @Test
+  public void testShrinksOncePerLatencyTarget() {
+    final AtomicLong now = new AtomicLong(0);
+    final APIConcurrencyLimit limit = new APIConcurrencyLimit(10, 2, 10, 100, now::get);
+    for (int i = 0; i < 5; i++) {
+      assertThat(limit.tryAcquire()).isTrue();
+    }
+    // A burst of slow requests answered together
+    for (int i = 0; i < 5; i++) {
+      limit.release(200);
+    }
+    assertThat(limit.getLimit()).isEqualTo(9);
+
+    now.addAndGet(100);
+    assertThat(limit.tryAcquire()).isTrue();
+    limit.release(200);
+    assertThat(limit.getLimit()).isEqualTo(8);
+  }
+}
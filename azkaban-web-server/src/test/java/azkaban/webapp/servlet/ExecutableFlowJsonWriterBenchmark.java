@@ -0,0 +1,141 @@
+/*
+ * Copyright 2020 LinkedIn Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package azkaban.webapp.servlet;
+
+import azkaban.executor.ExecutableFlow;
+import azkaban.executor.ExecutableFlowBase;
+import azkaban.executor.ExecutableNode;
+import azkaban.executor.Status;
+import azkaban.flow.Edge;
+import azkaban.flow.Flow;
+import azkaban.flow.Node;
+import azkaban.project.Project;
+import azkaban.utils.JSONUtils;
+import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.map.MappingJsonFactory;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compares the allocations and response size of the execution graph JSON built as nested maps and
+ * pretty printed, as the executor servlet used to, with the streamed compact JSON of
+ * {@link ExecutableFlowJsonWriter}, for a flow of 5000 jobs.
+ */
+@Ignore("Benchmark, run manually")
+public class ExecutableFlowJsonWriterBenchmark {
+
+  private static final int NUM_JOBS = 5000;
+  private static final int ROUNDS = 20;
+
+  private final MappingJsonFactory jsonFactory = new MappingJsonFactory();
+  private ExecutableFlow exFlow;
+
+  @Before
+  public void setUp() {
+    final Flow flow = new Flow("bigFlow");
+    for (int i = 0; i < NUM_JOBS; i++) {
+      final Node node = new Node("job" + i);
+      node.setType("command");
+      flow.addNode(node);
+      if (i > 0) {
+        flow.addEdge(new Edge("job" + (i - 1) / 2, "job" + i));
+      }
+    }
+    final Project project = new Project(1, "project");
+    project.setFlows(ImmutableMap.of(flow.getId(), flow));
+    this.exFlow = new ExecutableFlow(project, flow);
+    this.exFlow.setStatus(Status.RUNNING);
+  }
+
+  @Test
+  public void benchmarkFetchExecFlow() throws IOException {
+    for (int round = 0; round < ROUNDS; round++) {
+      measure("nested maps, pretty printed", out -> JSONUtils
+          .toJSON(getExecutableNodeInfo(this.exFlow), out, true));
+      measure("streamed, compact", out -> {
+        final JsonGenerator generator = this.jsonFactory
+            .createJsonGenerator(out, JsonEncoding.UTF8);
+        generator.writeStartObject();
+        ExecutableFlowJsonWriter.writeNodeFields(generator, this.exFlow);
+        generator.writeEndObject();
+        generator.flush();
+      });
+    }
+  }
+
+  private static void measure(final String name, final ResponseWriter writer)
+      throws IOException {
+    final com.sun.management.ThreadMXBean threadBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    final long threadId = Thread.currentThread().getId();
+    final CountingOutputStream out = new CountingOutputStream(new NullOutputStream());
+    final long startBytes = threadBean.getThreadAllocatedBytes(threadId);
+    final long startNanos = System.nanoTime();
+    writer.write(out);
+    final long micros = (System.nanoTime() - startNanos) / 1000;
+    final long allocatedBytes = threadBean.getThreadAllocatedBytes(threadId) - startBytes;
+    System.out.println(String.format("%-30s %8d KB allocated %8d KB written %8d us", name,
+        allocatedBytes / 1024, out.getByteCount() / 1024, micros));
+  }
+
+  /**
+   * The map based serialization the executor servlet used before streaming.
+   */
+  private static Map<String, Object> getExecutableNodeInfo(final ExecutableNode node) {
+    final HashMap<String, Object> nodeObj = new HashMap<>();
+    nodeObj.put("id", node.getId());
+    nodeObj.put("status", node.getStatus());
+    nodeObj.put("startTime", node.getStartTime());
+    nodeObj.put("endTime", node.getEndTime());
+    nodeObj.put("updateTime", node.getUpdateTime());
+    nodeObj.put("type", node.getType());
+    nodeObj.put("nestedId", node.getNestedId());
+    nodeObj.put("attempt", node.getAttempt());
+    if (node.getInNodes() != null && !node.getInNodes().isEmpty()) {
+      nodeObj.put("in", node.getInNodes());
+    }
+    if (node instanceof ExecutableFlowBase) {
+      final ExecutableFlowBase base = (ExecutableFlowBase) node;
+      final List<Map<String, Object>> nodeList = new ArrayList<>();
+      for (final ExecutableNode subNode : base.getExecutableNodes()) {
+        nodeList.add(getExecutableNodeInfo(subNode));
+      }
+      nodeObj.put("flow", base.getFlowId());
+      nodeObj.put("nodes", nodeList);
+      nodeObj.put("flowId", base.getFlowId());
+    }
+    return nodeObj;
+  }
+
+  @FunctionalInterface
+  private interface ResponseWriter {
+
+    void write(OutputStream out) throws IOException;
+  }
+}
@@ -18,28 +18,47 @@ package azkaban.webapp.servlet;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
+import azkaban.executor.ExecutableFlow;
+import azkaban.executor.ExecutableFlowBase;
+import azkaban.executor.ExecutionChangeStream;
+import azkaban.executor.Status;
+import azkaban.flow.Edge;
+import azkaban.flow.Flow;
+import azkaban.flow.Node;
+import azkaban.flow.SpecialJobTypes;
+import azkaban.project.Project;
 import azkaban.sla.SlaAction;
 import azkaban.sla.SlaOption;
 import azkaban.sla.SlaType;
+import azkaban.utils.Props;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import java.io.ByteArrayInputStream;
 import java.time.Duration;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 import javax.servlet.ServletException;
 import org.codehaus.jackson.JsonNode;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.Mockito;
 
 public class ExecutorServletTest extends LoginAbstractAzkabanServletTestBase {
 
   private ExecutorServlet executorServlet;
+  private ExecutionChangeStream executionChangeStream;
 
   @Override
   @Before
   public void setUp() throws Exception {
     super.setUp();
+    this.executionChangeStream = new ExecutionChangeStream(new Props());
+    Mockito.when(this.injector.getInstance(ExecutionChangeStream.class))
+        .thenReturn(this.executionChangeStream);
     this.executorServlet = new ExecutorServlet();
     this.executorServlet.init(this.servletConfig);
   }
@@ -122,4 +141,149 @@ public class ExecutorServletTest extends LoginAbstractAzkabanServletTestBase {
     assertEquals("Cannot find execution '123'", this.res.getResponseJson().path("error").asText());
   }
 
+  /**
+   * The execution graph is streamed as compact JSON, including the embedded flows.
+   */
+  @Test
+  public void getAjaxFetchExecFlow() throws Exception {
+    mockExecutionWithEmbeddedFlow();
+    this.req.addParameter("ajax", "fetchexecflow");
+    this.req.addParameter("execid", "123");
+
+    this.executorServlet.handleGet(this.req, this.res, this.session);
+
+    assertEquals(200, this.res.getStatus());
+    Assert.assertFalse(this.res.getContentAsString().contains("\n"));
+    final JsonNode json = this.res.getResponseJson();
+    assertEquals(123, json.path("execid").asInt());
+    assertEquals("testProject", json.path("project").asText());
+    assertEquals("testFlow", json.path("flow").asText());
+    assertEquals("RUNNING", json.path("status").asText());
+    assertEquals(2, json.path("nodes").size());
+    final JsonNode embeddedFlow = findNode(json.path("nodes"), "embedded");
+    assertEquals("job1", embeddedFlow.path("in").get(0).asText());
+    assertEquals("subFlow", embeddedFlow.path("flowId").asText());
+    assertEquals("embedded:job2", embeddedFlow.path("nodes").get(0).path("nestedId").asText());
+  }
+
+  /**
+   * Only the nodes updated since the last update and their parent flows are sent.
+   */
+  @Test
+  public void getAjaxFetchExecFlowUpdate() throws Exception {
+    final ExecutableFlow flow = mockExecutionWithEmbeddedFlow();
+    flow.getExecutableNodePath("embedded:job2").setUpdateTime(200);
+    flow.getExecutableNodePath("embedded:job2").setStatus(Status.SUCCEEDED);
+    this.req.addParameter("ajax", "fetchexecflowupdate");
+    this.req.addParameter("execid", "123");
+    this.req.addParameter("lastUpdateTime", "100");
+
+    this.executorServlet.handleGet(this.req, this.res, this.session);
+
+    final JsonNode json = this.res.getResponseJson();
+    assertEquals("RUNNING", json.path("status").asText());
+    assertEquals(1, json.path("nodes").size());
+    final JsonNode embeddedFlow = json.path("nodes").get(0);
+    assertEquals("embedded", embeddedFlow.path("id").asText());
+    assertEquals("job2", embeddedFlow.path("nodes").get(0).path("id").asText());
+    assertEquals("SUCCEEDED", embeddedFlow.path("nodes").get(0).path("status").asText());
+
+    this.res = new AzkabanMockHttpServletResponse();
+    this.req.setParameter("lastUpdateTime", "200");
+    this.executorServlet.handleGet(this.req, this.res, this.session);
+    Assert.assertTrue(this.res.getResponseJson().path("nodes").isMissingNode());
+  }
+
+  /**
+   * The streamed responses are compressed when the client accepts gzip.
+   */
+  @Test
+  public void getAjaxFetchExecFlowGzip() throws Exception {
+    mockExecutionWithEmbeddedFlow();
+    this.req.addParameter("ajax", "fetchexecflow");
+    this.req.addParameter("execid", "123");
+    this.req.addHeader("Accept-Encoding", "gzip, deflate");
+
+    this.executorServlet.handleGet(this.req, this.res, this.session);
+
+    assertEquals("gzip", this.res.getHeader("Content-Encoding"));
+    final JsonNode json = MAPPER.readTree(
+        new GZIPInputStream(new ByteArrayInputStream(this.res.getContentAsByteArray())));
+    assertEquals(123, json.path("execid").asInt());
+    assertEquals(2, json.path("nodes").size());
+  }
+
+  /**
+   * The changes of a running execution are served from the change stream, without loading the
+   * execution from the DB.
+   */
+  @Test
+  public void getAjaxFetchExecFlowChanges() throws Exception {
+    final ExecutableFlow flow = mockExecutionWithEmbeddedFlow();
+    this.req.addParameter("ajax", "fetchexecflowchanges");
+    this.req.addParameter("execid", "123");
+    this.req.addParameter("version", "0");
+
+    // not tracked
+    this.executorServlet.handleGet(this.req, this.res, this.session);
+    assertEquals(-1, this.res.getResponseJson().path("version").asInt());
+
+    final ExecutableFlowBase embedded = (ExecutableFlowBase) flow.getExecutableNode("embedded");
+    this.executionChangeStream.publish(flow, Arrays.asList(flow, embedded,
+        embedded.getExecutableNode("job2")));
+    this.executionChangeStream.publish(flow, Collections.singletonList(flow));
+
+    this.res = new AzkabanMockHttpServletResponse();
+    this.req.setParameter("version", "1");
+    this.executorServlet.handleGet(this.req, this.res, this.session);
+    JsonNode json = this.res.getResponseJson();
+    assertEquals(2, json.path("version").asInt());
+    assertEquals("RUNNING", json.path("status").asText());
+    Assert.assertTrue(json.path("nodes").isMissingNode());
+
+    this.res = new AzkabanMockHttpServletResponse();
+    this.req.setParameter("version", "0");
+    this.executorServlet.handleGet(this.req, this.res, this.session);
+    json = this.res.getResponseJson();
+    assertEquals(1, json.path("nodes").size());
+    assertEquals("job2", json.path("nodes").get(0).path("nodes").get(0).path("id").asText());
+    Mockito.verify(this.executorManager, Mockito.never()).getExecutableFlow(123);
+  }
+
+  private ExecutableFlow mockExecutionWithEmbeddedFlow() throws Exception {
+    final Flow subFlow = new Flow("subFlow");
+    subFlow.addNode(createNode("job2", "command"));
+    final Flow flow = new Flow("testFlow");
+    flow.addNode(createNode("job1", "command"));
+    final Node embedded = createNode("embedded", SpecialJobTypes.EMBEDDED_FLOW_TYPE);
+    embedded.setEmbeddedFlowId("subFlow");
+    flow.addNode(embedded);
+    flow.addEdge(new Edge("job1", "embedded"));
+    final Project project = new Project(11, "testProject");
+    project.setFlows(ImmutableMap.of(flow.getId(), flow, subFlow.getId(), subFlow));
+
+    final ExecutableFlow exFlow = new ExecutableFlow(project, flow);
+    exFlow.setExecutionId(123);
+    exFlow.setStatus(Status.RUNNING);
+    exFlow.setUpdateTime(100);
+    Mockito.when(this.projectManager.getProject(11)).thenReturn(project);
+    Mockito.when(this.executorManager.getExecutableFlow(123)).thenReturn(exFlow);
+    return exFlow;
+  }
+
+  private static Node createNode(final String id, final String type) {
+    final Node node = new Node(id);
+    node.setType(type);
+    return node;
+  }
+
+  private static JsonNode findNode(final JsonNode nodes, final String id) {
+    for (final JsonNode node : nodes) {
+      if (id.equals(node.path("id").asText())) {
+        return node;
+      }
+    }
+    throw new AssertionError("Node " + id + " not found");
+  }
+
 }
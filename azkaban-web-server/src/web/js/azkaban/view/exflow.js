@@ -531,6 +531,47 @@ var updaterFunction = function () {
   }
 }
 
+// Waits on the server for the changes of the running execution after the last version seen.
+// Falls back to polling with updaterFunction if the server doesn't track the execution's changes.
+var changesVersion = 0;
+var changesUpdaterFunction = function () {
+  var requestURL = contextURL + "/executor";
+  var requestData = {
+    "execid": execId,
+    "ajax": "fetchexecflowchanges",
+    "version": changesVersion,
+    "waitMs": 30 * 1000
+  };
+
+  var successHandler = function (data) {
+    if (data.error || data.version == null || data.version < 0) {
+      updaterFunction();
+      return;
+    }
+
+    changesVersion = data.version;
+    updateGraph(graphModel.get("data"), data);
+    graphModel.set({"update": data});
+    graphModel.trigger("change:update");
+
+    if (data.completed) {
+      // Fetch the final state of the execution
+      updaterFunction();
+    } else {
+      changesUpdaterFunction();
+    }
+  };
+  $.ajax({
+    url: requestURL,
+    data: requestData,
+    dataType: "json",
+    success: successHandler,
+    error: function () {
+      updaterFunction();
+    }
+  });
+}
+
 var logUpdaterFunction = function () {
   var oldData = graphModel.get("data");
   var keepRunning =
@@ -647,7 +688,11 @@ $(function () {
     } else {
       flowTabView.handleGraphLinkClick();
     }
-    updaterFunction();
+    if (execId != "-1" && execId != "-2") {
+      changesUpdaterFunction();
+    } else {
+      updaterFunction();
+    }
     logUpdaterFunction();
   };
   ajaxCall(requestURL, requestData, successHandler);